@@ -23,8 +23,9 @@ import java.time.ZoneId;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.iotdb.exception.ArgsErrorException;
-import org.apache.iotdb.jdbc.IoTDBConnection;
-import org.apache.iotdb.jdbc.IoTDBSQLException;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.session.IoTDBSessionException;
+import org.apache.iotdb.session.Session;
 import org.apache.thrift.TException;
 
 public abstract class AbstractCsvTool {
@@ -49,6 +50,8 @@ public abstract class AbstractCsvTool {
   protected static final String TIME_ZONE_ARGS = "tz";
   protected static final String TIME_ZONE_NAME = "timeZone";
   protected static final int MAX_HELP_CONSOLE_WIDTH = 92;
+  protected static final String CONNECTION_ERROR_MSG = "Connection Error, please check whether "
+      + "the network is available or the server has started.";
   protected static final String[] SUPPORT_TIME_FORMAT = new String[]{"default",
       "long",
       "number", "timestamp", "yyyy-MM-dd HH:mm:ss", "yyyy/MM/dd HH:mm:ss", "yyyy.MM.dd HH:mm:ss",
@@ -69,7 +72,7 @@ public abstract class AbstractCsvTool {
 
   protected static String timeZoneID;
   protected static String timeFormat;
-  protected static IoTDBConnection connection;
+  protected static Session session;
 
   AbstractCsvTool() {}
   
@@ -85,11 +88,20 @@ public abstract class AbstractCsvTool {
     return str;
   }
 
-  protected static void setTimeZone() throws IoTDBSQLException, TException {
+  /**
+   * @param fetchSize the number of rows fetched in a batch by the queries of the session
+   */
+  protected static Session openSession(int fetchSize) throws IoTDBSessionException {
+    Session newSession = new Session(host, Integer.parseInt(port), username, password, fetchSize);
+    newSession.open();
+    return newSession;
+  }
+
+  protected static void setTimeZone() throws IoTDBRPCException, TException {
     if (timeZoneID != null) {
-      connection.setTimeZone(timeZoneID);
+      session.setTimeZone(timeZoneID);
     }
-    zoneId = ZoneId.of(connection.getTimeZone());
+    zoneId = ZoneId.of(session.getTimeZone());
   }
 
   protected static void parseBasicParams(CommandLine commandLine, ConsoleReader reader)
@@ -25,16 +25,10 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.sql.Types;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
@@ -46,12 +40,19 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.iotdb.client.AbstractClient;
 import org.apache.iotdb.exception.ArgsErrorException;
-import org.apache.iotdb.jdbc.Config;
-import org.apache.iotdb.jdbc.IoTDBConnection;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.session.IoTDBSessionException;
+import org.apache.iotdb.session.SessionDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.thrift.TException;
 
 /**
  * Export CSV file.
+ * <p>
+ * The results are fetched by a session in batches of FETCH_SIZE rows, and each row is formatted
+ * into a reused buffer before it is written.
  *
  * @version 1.0.0 20170719
  */
@@ -75,14 +76,22 @@ public class ExportCsv extends AbstractCsvTool {
 
   private static final int EXPORT_PER_LINE_COUNT = 10000;
 
+  /**
+   * the number of rows fetched from the server at a time
+   */
+  private static final int FETCH_SIZE = 10000;
+
   private static String TIMESTAMP_PRECISION = "ms";
 
-  private static List<Integer> typeList = new ArrayList<>();
+  /**
+   * the formatter of the user-defined time format, which is created once for all rows
+   */
+  private static DateTimeFormatter timeFormatter;
 
   /**
    * main function of export csv tool.
    */
-  public static void main(String[] args) throws IOException, SQLException {
+  public static void main(String[] args) throws IOException {
     Options options = createOptions();
     HelpFormatter hf = new HelpFormatter();
     hf.setOptionComparator(null); // avoid reordering
@@ -116,13 +125,11 @@ public class ExportCsv extends AbstractCsvTool {
       if (!checkTimeFormat()) {
         return;
       }
-      Class.forName(Config.JDBC_DRIVER_NAME);
 
       String sqlFile = commandLine.getOptionValue(SQL_FILE_ARGS);
       String sql;
 
-      connection = (IoTDBConnection) DriverManager
-          .getConnection(Config.IOTDB_URL_PREFIX + host + ":" + port + "/", username, password);
+      session = openSession(FETCH_SIZE);
       setTimeZone();
 
       if (sqlFile == null) {
@@ -134,12 +141,12 @@ public class ExportCsv extends AbstractCsvTool {
       } else {
         dumpFromSqlFile(sqlFile);
       }
-    } catch (ClassNotFoundException e) {
-      System.out.println("Failed to export data because cannot find IoTDB JDBC Driver, "
-          + "please check whether you have imported driver or not: " + e.getMessage());
+    } catch (IoTDBSessionException e) {
+      System.out.println("Encounter an error when exporting data, error is: "
+          + CONNECTION_ERROR_MSG);
     } catch (TException e) {
       System.out.println("Encounter an error when connecting to server, because " + e.getMessage());
-    } catch (SQLException e) {
+    } catch (IoTDBRPCException | SQLException e) {
       System.out.println("Encounter an error when exporting data, error is: " + e.getMessage());
     } catch (IOException e) {
       System.out.println("Failed to operate on file, because " + e.getMessage());
@@ -147,8 +154,13 @@ public class ExportCsv extends AbstractCsvTool {
       System.out.println("Invalid args: " + e.getMessage());
     } finally {
       reader.close();
-      if (connection != null) {
-        connection.close();
+      if (session != null) {
+        try {
+          session.close();
+        } catch (IoTDBSessionException e) {
+          System.out.println("Cannot close the session because: " + e.getMessage());
+        }
+        session = null;
       }
     }
   }
@@ -267,108 +279,100 @@ public class ExportCsv extends AbstractCsvTool {
       return;
     }
     System.out.println("Start to export data from sql statement: " + sql);
-    try (Statement statement = connection.createStatement();
-        ResultSet rs = statement.executeQuery(sql);
-        BufferedWriter bw = new BufferedWriter(new FileWriter(tf))) {
-      ResultSetMetaData metadata = rs.getMetaData();
+    SessionDataSet dataSet;
+    try {
+      dataSet = session.executeQueryStatement(sql);
+    } catch (TException | IoTDBRPCException e) {
+      throw new SQLException(e.getMessage(), e);
+    }
+    dataSet.setBatchSize(FETCH_SIZE);
+    try (BufferedWriter bw = new BufferedWriter(new FileWriter(tf))) {
       long startTime = System.currentTimeMillis();
 
-      int count = metadata.getColumnCount();
       // write data in csv file
-      writeMetadata(bw, count, metadata);
+      writeMetadata(bw, dataSet.getColumnNames());
 
-      int line = writeResultSet(rs, bw, count);
+      int line = writeResultSet(dataSet, bw);
+      long timeCost = Math.max(System.currentTimeMillis() - startTime, 1);
       System.out
           .println(String.format("Statement [%s] has dumped to file %s successfully! It costs "
-                  + "%dms to export %d lines.", sql, path, System.currentTimeMillis() - startTime,
-              line));
+                  + "%dms to export %d lines, %.1f lines/s.", sql, path, timeCost, line,
+              line * 1000.0 / timeCost));
     } catch (IOException e) {
       System.out.println("Cannot dump result because: " + e.getMessage());
+    } catch (IoTDBRPCException e) {
+      throw new SQLException(e.getMessage(), e);
+    } finally {
+      dataSet.closeOperationHandle();
     }
   }
 
-  private static void writeMetadata(BufferedWriter bw, int count, ResultSetMetaData metadata)
-      throws SQLException, IOException {
-    for (int i = 1; i <= count; i++) {
-      if (i < count) {
-        bw.write(metadata.getColumnLabel(i) + ",");
-      } else {
-        bw.write(metadata.getColumnLabel(i) + "\n");
-      }
-      typeList.add(metadata.getColumnType(i));
+  private static void writeMetadata(BufferedWriter bw, List<String> columnNames)
+      throws IOException {
+    bw.write("Time");
+    for (String columnName : columnNames) {
+      bw.write(",");
+      bw.write(columnName);
     }
+    bw.write("\n");
   }
 
-  private static int writeResultSet(ResultSet rs, BufferedWriter bw, int count)
-      throws SQLException, IOException {
+  private static int writeResultSet(SessionDataSet dataSet, BufferedWriter bw)
+      throws SQLException, IoTDBRPCException, IOException {
+    if (!"default".equals(timeFormat) && !"timestamp".equals(timeFormat)
+        && !"long".equals(timeFormat) && !"number".equals(timeFormat)) {
+      timeFormatter = DateTimeFormatter.ofPattern(timeFormat);
+    }
+    StringBuilder builder = new StringBuilder();
     int line = 0;
     long timestamp = System.currentTimeMillis();
-    while (rs.next()) {
-      if (rs.getString(1) == null ||
-          "null".equalsIgnoreCase(rs.getString(1))) {
-        bw.write(",");
-      } else {
-        writeTime(rs, bw);
-        writeValue(rs, count, bw);
-      }
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      builder.setLength(0);
+      writeTime(record.getTimestamp(), builder);
+      writeValue(record.getFields(), builder);
+      bw.append(builder);
       line++;
       if (line % EXPORT_PER_LINE_COUNT == 0) {
         long tmp = System.currentTimeMillis();
         System.out.println(
-            String.format("%d lines have been exported, it takes %dms", line, (tmp - timestamp)));
+            String.format("%d lines have been exported, it takes %dms, %.1f lines/s", line,
+                (tmp - timestamp), EXPORT_PER_LINE_COUNT * 1000.0 / Math.max(tmp - timestamp, 1)));
         timestamp = tmp;
       }
     }
     return line;
   }
 
-  private static void writeTime(ResultSet rs, BufferedWriter bw) throws SQLException, IOException {
-    ZonedDateTime dateTime;
+  private static void writeTime(long time, StringBuilder builder) {
     switch (timeFormat) {
       case "default":
-        long timestamp = rs.getLong(1);
-        String str = AbstractClient
-            .parseLongToDateWithPrecision(DateTimeFormatter.ISO_OFFSET_DATE_TIME, timestamp, zoneId,
-                TIMESTAMP_PRECISION);
-        bw.write(str + ",");
+        builder.append(AbstractClient
+            .parseLongToDateWithPrecision(DateTimeFormatter.ISO_OFFSET_DATE_TIME, time, zoneId,
+                TIMESTAMP_PRECISION));
         break;
       case "timestamp":
       case "long":
-      case "nubmer":
-        bw.write(rs.getLong(1) + ",");
+      case "number":
+        builder.append(time);
         break;
       default:
-        dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(rs.getLong(1)),
-            zoneId);
-        bw.write(dateTime.format(DateTimeFormatter.ofPattern(timeFormat)) + ",");
+        builder.append(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId)
+            .format(timeFormatter));
         break;
     }
   }
 
-  private static void writeValue(ResultSet rs, int count, BufferedWriter bw)
-      throws SQLException, IOException {
-    for (int j = 2; j <= count; j++) {
-      if (j < count) {
-        if ("null".equals(rs.getString(j))) {
-          bw.write(",");
-        } else {
-          if(typeList.get(j-1) == Types.VARCHAR) {
-            bw.write("\'" + rs.getString(j) + "\'"+ ",");
-          } else {
-            bw.write(rs.getString(j) + ",");
-          }
-        }
-      } else {
-        if ("null".equals(rs.getString(j))) {
-          bw.write("\n");
-        } else {
-          if(typeList.get(j-1) == Types.VARCHAR) {
-            bw.write("\'" + rs.getString(j) + "\'"+ "\n");
-          } else {
-            bw.write(rs.getString(j) + "\n");
-          }
-        }
+  private static void writeValue(List<Field> fields, StringBuilder builder) {
+    for (Field field : fields) {
+      builder.append(',');
+      // a null value is written as an empty cell
+      if (field.getDataType() == TSDataType.TEXT) {
+        builder.append('\'').append(field.getStringValue()).append('\'');
+      } else if (field.getDataType() != null) {
+        builder.append(field.getStringValue());
       }
     }
+    builder.append('\n');
   }
 }
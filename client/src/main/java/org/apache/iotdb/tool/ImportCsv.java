@@ -26,16 +26,30 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.LineNumberReader;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 import jline.console.ConsoleReader;
 import me.tongfei.progressbar.ProgressBar;
 import org.apache.commons.cli.CommandLine;
@@ -47,32 +61,70 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.exception.ArgsErrorException;
-import org.apache.iotdb.jdbc.Config;
-import org.apache.iotdb.jdbc.Constant;
-import org.apache.iotdb.jdbc.IoTDBConnection;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
+import org.apache.iotdb.session.IoTDBSessionException;
+import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.SessionDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.thrift.TException;
 
 /**
  * read a CSV formatted data File and insert all the data into IoTDB.
+ * <p>
+ * The lines of a file are read in blocks, and the blocks are parsed and inserted by threadNum
+ * threads in parallel, each of which has its own session. A thread buffers the values of a block in
+ * a RowBatch per device and per set of non-empty columns, and inserts a RowBatch when it is full or
+ * the block is parsed. The data types are taken from the metadata of the time series in the header.
  */
 public class ImportCsv extends AbstractCsvTool {
   private static final String FILE_ARGS = "f";
   private static final String FILE_NAME = "file or folder";
   private static final String FILE_SUFFIX = "csv";
 
+  private static final String THREAD_NUM_ARGS = "t";
+  private static final String THREAD_NUM_NAME = "threadNum";
+
   private static final String TSFILEDB_CLI_PREFIX = "ImportCsv";
   private static final String ERROR_INFO_STR = "csvInsertError.error";
 
-  private static final String STRING_DATA_TYPE = "TEXT";
-  private static final int BATCH_EXECUTE_COUNT = 100;
+  /**
+   * the number of lines parsed by a thread at a time, which is also the max size of a RowBatch
+   */
+  private static final int BLOCK_LINE_NUM = 10000;
+
+  /**
+   * a date separated by '-', '/' or '.', and the ' ' or 'T' between it and the time
+   */
+  private static final Pattern DATE_PATTERN = Pattern
+      .compile("^(\\d+)[-/.](\\d{1,2})[-/.](\\d{1,2})[T ]");
+
+  /**
+   * the date times like those accepted by the SQL and those written by ExportCsv in any of the
+   * SUPPORT_TIME_FORMAT, after their dates are normalized by DATE_PATTERN. The offset is like
+   * +08:00, +0800 or Z, and the date time without an offset is in the time zone of the session.
+   */
+  private static final DateTimeFormatter DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
+      .parseCaseInsensitive()
+      .appendValue(ChronoField.YEAR, 4, 10, SignStyle.EXCEEDS_PAD).appendLiteral('-')
+      .appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NEVER).appendLiteral('-')
+      .appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NEVER).appendLiteral('T')
+      .append(DateTimeFormatter.ISO_LOCAL_TIME)
+      .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+      .optionalStart().appendOffset("+HHMM", "Z").optionalEnd()
+      .toFormatter();
 
   private static String errorInsertInfo = "";
-  private static boolean errorFlag;
 
   private static String IOTDB_CLI_HOME = "IOTDB_CLI_HOME";
 
-  private static int count;
-  private static Statement statement;
+  private static int threadNum = Runtime.getRuntime().availableProcessors();
 
   /**
    * create the commandline options.
@@ -105,6 +157,11 @@ public class ImportCsv extends AbstractCsvTool {
         .build();
     options.addOption(opFile);
 
+    Option opThreadNum = Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc("The number of threads parsing and inserting the data, "
+            + "default the number of processors (optional)").build();
+    options.addOption(opThreadNum);
+
     Option opHelp = Option.builder(HELP_ARGS).longOpt(HELP_ARGS)
         .hasArg(false).desc("Display help information")
         .build();
@@ -120,8 +177,8 @@ public class ImportCsv extends AbstractCsvTool {
   /**
    * Data from csv To tsfile.
    */
-  private static void loadDataFromCSV(File file, int index) {
-    statement = null;
+  private static void loadDataFromCSV(File file, int index, BlockingQueue<Session> sessions,
+      ExecutorService pool) {
     int fileLine;
     try {
       fileLine = getFileLineCount(file);
@@ -139,252 +196,139 @@ public class ImportCsv extends AbstractCsvTool {
       }
     }
     System.out.println("Start to import data from: " + file.getName());
-    errorFlag = true;
-    try(BufferedReader br = new BufferedReader(new FileReader(file));
+    AtomicBoolean hasError = new AtomicBoolean(false);
+    try (BufferedReader br = new BufferedReader(new FileReader(file));
         BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile));
         ProgressBar pb = new ProgressBar("Import from: " + file.getName(), fileLine)) {
       pb.setExtraMessage("Importing...");
       String header = br.readLine();
+      if (header == null) {
+        System.out.println("The CSV file " + file.getName() + " is empty");
+        return;
+      }
 
-      bw.write("From " + file.getAbsolutePath());
-      bw.newLine();
-      bw.newLine();
+      // the lines that are not imported are written after the header, so that the error file
+      // can be imported again
       bw.write(header);
       bw.newLine();
-      bw.newLine();
-
-      // storage csv table head info
-      Map<String, ArrayList<Integer>> deviceToColumn = new HashMap<>();
-      // storage csv table head info
-      List<String> colInfo = new ArrayList<>();
-      // storage csv device sensor info, corresponding csv table head
-      List<String> headInfo = new ArrayList<>();
 
       String[] strHeadInfo = header.split(",");
       if (strHeadInfo.length <= 1) {
-        System.out.println("The CSV file "+ file.getName() +" illegal, please check first line");
+        System.out.println("The CSV file " + file.getName() + " illegal, please check first line");
         return;
       }
 
       long startTime = System.currentTimeMillis();
-      Map<String, String> timeseriesDataType = new HashMap<>();
-
-      boolean success = queryDatabaseMeta(strHeadInfo, file, bw, timeseriesDataType, headInfo,
-          deviceToColumn, colInfo);
-      if (!success) {
-        errorFlag = false;
+      List<DeviceColumns> devices = queryDatabaseMeta(strHeadInfo, file);
+      if (devices == null) {
         return;
       }
 
-      statement = connection.createStatement();
-
-
-      List<String> tmp = new ArrayList<>();
-      success = readAndGenSqls(br, timeseriesDataType, deviceToColumn, colInfo, headInfo,
-          bw, tmp, pb);
-      if (!success) {
-        return;
+      ImportTask.Counter counter = new ImportTask.Counter();
+      // at most two blocks per thread are read but not imported
+      Semaphore pendingBlocks = new Semaphore(threadNum * 2);
+      List<String> block = new ArrayList<>(BLOCK_LINE_NUM);
+      String line;
+      while ((line = br.readLine()) != null) {
+        block.add(line);
+        if (block.size() == BLOCK_LINE_NUM) {
+          submit(pool, pendingBlocks, new ImportTask(block, devices, strHeadInfo.length,
+              sessions, bw, hasError, counter, pb));
+          block = new ArrayList<>(BLOCK_LINE_NUM);
+        }
       }
-
-      executeSqls(bw, tmp, startTime, file);
+      if (!block.isEmpty()) {
+        submit(pool, pendingBlocks, new ImportTask(block, devices, strHeadInfo.length, sessions,
+            bw, hasError, counter, pb));
+      }
+      // wait for all blocks to be imported
+      pendingBlocks.acquire(threadNum * 2);
       pb.stepTo(fileLine);
+
+      long timeCost = Math.max(System.currentTimeMillis() - startTime, 1);
+      System.out.println(String.format("Imported %d lines and %d points from %s in %dms, "
+              + "%.1f points/s", counter.lines.get(), counter.points.get(), file.getName(),
+          timeCost, counter.points.get() * 1000.0 / timeCost));
     } catch (FileNotFoundException e) {
-      System.out.println("Cannot find " + file.getName() + " because: "+e.getMessage());
+      System.out.println("Cannot find " + file.getName() + " because: " + e.getMessage());
     } catch (IOException e) {
       System.out.println("CSV file read exception because: " + e.getMessage());
-    } catch (SQLException e) {
-      System.out.println("Database connection exception because: " + e.getMessage());
+    } catch (InterruptedException e) {
+      System.out.println("Import of " + file.getName() + " is interrupted");
+      Thread.currentThread().interrupt();
     } finally {
       try {
-        if (statement != null) {
-          statement.close();
-        }
-        if (errorFlag) {
+        if (!hasError.get()) {
           FileUtils.forceDelete(errorFile);
         } else {
-          System.out.println("Format of some lines in "+ file.getAbsolutePath() + " error, please "
-              + "check "+errorFile.getAbsolutePath()+" for more information");
+          System.out.println("Some lines in " + file.getAbsolutePath() + " are not imported, "
+              + "they are written to " + errorFile.getAbsolutePath()
+              + ", which can be imported again after the errors are fixed");
         }
-      } catch (SQLException e) {
-        System.out.println("Sql statement can not be closed because: " + e.getMessage());
       } catch (IOException e) {
         System.out.println("Close file error because: " + e.getMessage());
       }
     }
   }
 
-  private static void executeSqls(BufferedWriter bw, List<String> tmp, long startTime, File file)
-      throws IOException {
-    try {
-      int[] result = statement.executeBatch();
-      for (int i = 0; i < result.length; i++) {
-        if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-          bw.write(tmp.get(i));
-          bw.newLine();
-          errorFlag = false;
-        }
-      }
-      statement.clearBatch();
-      tmp.clear();
-    } catch (SQLException e) {
-      bw.write(e.getMessage());
-      bw.newLine();
-      errorFlag = false;
-      System.out.println("Cannot execute sql because: " + e.getMessage());
-    }
-  }
-
-  private static boolean readAndGenSqls(BufferedReader br, Map<String, String> timeseriesDataType,
-      Map<String, ArrayList<Integer>> deviceToColumn, List<String> colInfo,
-      List<String> headInfo, BufferedWriter bw, List<String> tmp, ProgressBar pb) throws IOException {
-    String line;
-    count = 0;
-    while ((line = br.readLine()) != null) {
-      List<String> sqls;
-      try {
-        sqls = createInsertSQL(line, timeseriesDataType, deviceToColumn, colInfo, headInfo);
-      } catch (Exception e) {
-        bw.write(String.format("error input line, maybe it is not complete: %s", line));
-        bw.newLine();
-        System.out.println("Cannot create sql for " + line + " because: " + e.getMessage());
-        errorFlag = false;
-        return false;
-      }
-      boolean success = addSqlsToBatch(sqls, tmp, bw);
-      pb.step();
-      if (!success) {
-        return false;
-      }
-    }
-    return true;
-  }
-
-  private static boolean addSqlsToBatch(List<String> sqls, List<String> tmp, BufferedWriter bw)
-      throws IOException {
-    for (String str : sqls) {
+  private static void submit(ExecutorService pool, Semaphore pendingBlocks, ImportTask task)
+      throws InterruptedException {
+    pendingBlocks.acquire();
+    pool.submit(() -> {
       try {
-        count++;
-        statement.addBatch(str);
-        tmp.add(str);
-        checkBatchSize(bw, tmp);
-
-      } catch (SQLException e) {
-        bw.write(e.getMessage());
-        bw.newLine();
-        errorFlag = false;
-        System.out.println("Cannot execute sql because: " + e.getMessage());
-        return false;
-      }
-    }
-    return true;
-  }
-
-
-  private static void checkBatchSize(BufferedWriter bw, List<String> tmp)
-      throws SQLException, IOException {
-    if (count == BATCH_EXECUTE_COUNT) {
-      int[] result = statement.executeBatch();
-      for (int i = 0; i < result.length; i++) {
-        if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-          bw.write(tmp.get(i));
-          bw.newLine();
-          errorFlag = false;
-        }
+        task.run();
+      } finally {
+        pendingBlocks.release();
       }
-      statement.clearBatch();
-      count = 0;
-      tmp.clear();
-    }
+    });
   }
 
-  private static boolean queryDatabaseMeta(String[] strHeadInfo, File file, BufferedWriter bw,
-      Map<String, String> timeseriesDataType, List<String> headInfo,
-      Map<String, ArrayList<Integer>> deviceToColumn,
-      List<String> colInfo)
-      throws SQLException, IOException {
-    Statement statement = connection.createStatement();
-
+  /**
+   * group the columns of the header by devices and get their data types from the metadata.
+   *
+   * @return null if some time series do not exist
+   */
+  private static List<DeviceColumns> queryDatabaseMeta(String[] strHeadInfo, File file) {
+    Map<String, DeviceColumns> deviceToColumns = new LinkedHashMap<>();
     for (int i = 1; i < strHeadInfo.length; i++) {
-      statement.execute("show timeseries "+ strHeadInfo[i]);
-      ResultSet resultSet= statement.getResultSet();
-      if (resultSet.next()) {
-        timeseriesDataType.put(strHeadInfo[i], resultSet.getString(2));
-      } else {
-        String errorInfo = String.format("Database cannot find %s in %s, stop import!",
-            strHeadInfo[i], file.getAbsolutePath());
-        System.out.println("Database cannot find "+strHeadInfo[i]+" in "+file.getAbsolutePath()+", "
-            + "stop import!");
-        bw.write(errorInfo);
-        return false;
-      }
-      headInfo.add(strHeadInfo[i]);
-      String deviceInfo = strHeadInfo[i].substring(0, strHeadInfo[i].lastIndexOf('.'));
-
-      if (!deviceToColumn.containsKey(deviceInfo)) {
-        deviceToColumn.put(deviceInfo, new ArrayList<>());
-      }
-      // storage every device's sensor index info
-      deviceToColumn.get(deviceInfo).add(i - 1);
-      colInfo.add(strHeadInfo[i].substring(strHeadInfo[i].lastIndexOf('.') + 1));
+      String deviceId = strHeadInfo[i].substring(0, strHeadInfo[i].lastIndexOf('.'));
+      deviceToColumns.computeIfAbsent(deviceId, DeviceColumns::new).columns.add(i);
     }
-    return true;
-  }
 
-  private static List<String> createInsertSQL(String line, Map<String, String> timeseriesToType,
-      Map<String, ArrayList<Integer>> deviceToColumn,
-      List<String> colInfo, List<String> headInfo) {
-    String[] data = line.split(",", headInfo.size() + 1);
-    List<String> sqls = new ArrayList<>();
-    Iterator<Map.Entry<String, ArrayList<Integer>>> it = deviceToColumn.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<String, ArrayList<Integer>> entry = it.next();
-      String sql = createOneSql(entry, data, colInfo, timeseriesToType, headInfo);
-      if (sql != null) {
-        sqls.add(sql);
-      }
-    }
-    return sqls;
-  }
-
-  private static String createOneSql(Map.Entry<String, ArrayList<Integer>> entry, String[] data,
-      List<String> colInfo, Map<String, String> timeseriesToType, List<String> headInfo) {
-    StringBuilder sbd = new StringBuilder();
-    ArrayList<Integer> colIndex = entry.getValue();
-    sbd.append("insert into ").append(entry.getKey()).append("(timestamp");
-    int skipCount = 0;
-    for (int j = 0; j < colIndex.size(); ++j) {
-      if ("".equals(data[entry.getValue().get(j) + 1])) {
-        skipCount++;
-        continue;
+    for (DeviceColumns device : deviceToColumns.values()) {
+      // the time series of a device are queried at once
+      Map<String, TSDataType> seriesTypes = new HashMap<>();
+      try {
+        SessionDataSet dataSet = session.executeQueryStatement("show timeseries " + device.id);
+        while (dataSet.hasNext()) {
+          RowRecord record = dataSet.next();
+          seriesTypes.put(record.getFields().get(0).getStringValue(),
+              TSDataType.valueOf(record.getFields().get(2).getStringValue()));
+        }
+        dataSet.closeOperationHandle();
+      } catch (TException | IoTDBRPCException | SQLException e) {
+        System.out.println("Cannot query the time series of " + device.id + " because: "
+            + e.getMessage());
+        return null;
       }
-      sbd.append(", ").append(colInfo.get(colIndex.get(j)));
-    }
-    // define every device null value' number, if the number equal the
-    // sensor number, the insert operation stop
-    if (skipCount == entry.getValue().size()) {
-      return null;
-    }
-
-    // TODO when timestampsStr is empty
-    String timestampsStr = data[0];
-    sbd.append(") values(").append(timestampsStr.trim().isEmpty()
-        ? "NO TIMESTAMP" : timestampsStr);
 
-    for (int j = 0; j < colIndex.size(); ++j) {
-      if ("".equals(data[entry.getValue().get(j) + 1])) {
-        continue;
-      }
-      if (timeseriesToType.get(headInfo.get(colIndex.get(j))).equals(STRING_DATA_TYPE)) {
-        sbd.append(", \'").append(data[colIndex.get(j) + 1]).append("\'");
-      } else {
-        sbd.append(",").append(data[colIndex.get(j) + 1]);
+      for (int column : device.columns) {
+        TSDataType dataType = seriesTypes.get(strHeadInfo[column]);
+        if (dataType == null) {
+          String errorInfo = String.format("Database cannot find %s in %s, stop import!",
+              strHeadInfo[column], file.getAbsolutePath());
+          System.out.println(errorInfo);
+          return null;
+        }
+        String measurement = strHeadInfo[column]
+            .substring(strHeadInfo[column].lastIndexOf('.') + 1);
+        device.schemas.add(new MeasurementSchema(measurement, dataType, TSEncoding.PLAIN));
       }
     }
-    sbd.append(")");
-    return sbd.toString();
+    return new ArrayList<>(deviceToColumns.values());
   }
 
-  public static void main(String[] args) throws IOException, SQLException {
+  public static void main(String[] args) throws IOException {
     Options options = createOptions();
     HelpFormatter hf = new HelpFormatter();
     hf.setOptionComparator(null);
@@ -429,59 +373,98 @@ public class ImportCsv extends AbstractCsvTool {
     }
   }
 
-  private static void parseSpecialParams(CommandLine commandLine) {
+  private static void parseSpecialParams(CommandLine commandLine) throws ArgsErrorException {
     timeZoneID = commandLine.getOptionValue(TIME_ZONE_ARGS);
+    String threadNumStr = commandLine.getOptionValue(THREAD_NUM_ARGS);
+    if (threadNumStr != null) {
+      try {
+        threadNum = Integer.parseInt(threadNumStr);
+      } catch (NumberFormatException e) {
+        threadNum = 0;
+      }
+      if (threadNum <= 0) {
+        throw new ArgsErrorException(
+            String.format("The %s should be a positive integer: %s", THREAD_NUM_NAME,
+                threadNumStr));
+      }
+    }
   }
 
   public static void importCsvFromFile(String ip, String port, String username,
       String password, String filename,
-      String timeZone) throws SQLException {
+      String timeZone) {
     String property = System.getProperty(IOTDB_CLI_HOME);
     if (property == null) {
       errorInsertInfo = ERROR_INFO_STR;
     } else {
       errorInsertInfo = property + File.separatorChar + ERROR_INFO_STR;
     }
+    host = ip;
+    AbstractCsvTool.port = port;
+    AbstractCsvTool.username = username;
+    AbstractCsvTool.password = password;
+    BlockingQueue<Session> sessions = new LinkedBlockingQueue<>();
+    ExecutorService pool = null;
     try {
-      Class.forName(Config.JDBC_DRIVER_NAME);
-      connection = (IoTDBConnection) DriverManager.getConnection(Config.IOTDB_URL_PREFIX
-              + ip + ":" + port + "/",
-          username, password);
+      session = openSession(BLOCK_LINE_NUM);
       timeZoneID = timeZone;
       setTimeZone();
+      for (int i = 0; i < threadNum; i++) {
+        Session workerSession = openSession(BLOCK_LINE_NUM);
+        workerSession.setTimeZone(zoneId.toString());
+        sessions.add(workerSession);
+      }
+      pool = Executors.newFixedThreadPool(threadNum);
 
       File file = new File(filename);
       if (file.isFile()) {
-        importFromSingleFile(file);
+        importFromSingleFile(file, sessions, pool);
       } else if (file.isDirectory()) {
-        importFromDirectory(file);
+        importFromDirectory(file, sessions, pool);
       }
 
-    } catch (ClassNotFoundException e) {
-      System.out.println("Failed to import data because cannot find IoTDB JDBC Driver, "
-          + "please check whether you have imported driver or not: " + e.getMessage());
+    } catch (IoTDBSessionException e) {
+      System.out.println("Encounter an error when importing data, error is: "
+          + CONNECTION_ERROR_MSG);
     } catch (TException e) {
       System.out.println("Encounter an error when connecting to server, because " + e.getMessage());
-    } catch (SQLException e){
+    } catch (IoTDBRPCException e) {
       System.out.println("Encounter an error when importing data, error is: " + e.getMessage());
     } catch (Exception e) {
       System.out.println("Encounter an error, because: " + e.getMessage());
     } finally {
-      if (connection != null) {
-        connection.close();
+      if (pool != null) {
+        pool.shutdown();
+      }
+      for (Session workerSession : sessions) {
+        closeQuietly(workerSession);
       }
+      if (session != null) {
+        closeQuietly(session);
+        session = null;
+      }
+    }
+  }
+
+  private static void closeQuietly(Session sessionToClose) {
+    try {
+      sessionToClose.close();
+    } catch (IoTDBSessionException e) {
+      System.out.println("Cannot close the session because: " + e.getMessage());
     }
   }
 
-  private static void importFromSingleFile(File file) {
+  private static void importFromSingleFile(File file, BlockingQueue<Session> sessions,
+      ExecutorService pool) {
     if (file.getName().endsWith(FILE_SUFFIX)) {
-      loadDataFromCSV(file, 1);
+      loadDataFromCSV(file, 1, sessions, pool);
     } else {
       System.out.println("File "+ file.getName() +"  should ends with '.csv' if you want to import");
     }
   }
 
-  private static void importFromDirectory(File file) {
+  private static void importFromDirectory(File file, BlockingQueue<Session> sessions,
+      ExecutorService pool) {
     int i = 1;
     File[] files = file.listFiles();
     if (files == null) {
@@ -491,7 +474,7 @@ public class ImportCsv extends AbstractCsvTool {
     for (File subFile : files) {
       if (subFile.isFile()) {
         if (subFile.getName().endsWith(FILE_SUFFIX)) {
-          loadDataFromCSV(subFile, i);
+          loadDataFromCSV(subFile, i, sessions, pool);
           i++;
         } else {
           System.out.println("File " + file.getName() + " should ends with '.csv' if you want to import");
@@ -511,4 +494,262 @@ public class ImportCsv extends AbstractCsvTool {
     }
     return line;
   }
+
+  /**
+   * the columns of a device in the csv file.
+   */
+  private static class DeviceColumns {
+
+    private String id;
+    /**
+     * the indexes of the columns in a line, 0 is the time column
+     */
+    private List<Integer> columns = new ArrayList<>();
+    private List<MeasurementSchema> schemas = new ArrayList<>();
+
+    private DeviceColumns(String id) {
+      this.id = id;
+    }
+  }
+
+  /**
+   * ImportTask parses a block of lines into RowBatches and inserts them with a session taken from
+   * the session queue.
+   */
+  private static class ImportTask implements Runnable {
+
+    private List<String> lines;
+    private List<DeviceColumns> devices;
+    private int columnNum;
+    private BlockingQueue<Session> sessions;
+    private BufferedWriter errorWriter;
+    private AtomicBoolean hasError;
+    private Counter counter;
+    private ProgressBar progressBar;
+
+    private Session session;
+    /**
+     * the RowBatches of each device, the key is the non-empty columns of the device
+     */
+    private List<Map<BitSet, RowBatch>> rowBatches = new ArrayList<>();
+    /**
+     * the indexes in the block of the lines the rows of each RowBatch come from
+     */
+    private Map<RowBatch, int[]> rowLines = new IdentityHashMap<>();
+    /**
+     * the indexes of the lines that cannot be parsed or inserted
+     */
+    private BitSet failedLines = new BitSet();
+
+    private ImportTask(List<String> lines, List<DeviceColumns> devices, int columnNum,
+        BlockingQueue<Session> sessions, BufferedWriter errorWriter, AtomicBoolean hasError,
+        Counter counter, ProgressBar progressBar) {
+      this.lines = lines;
+      this.devices = devices;
+      this.columnNum = columnNum;
+      this.sessions = sessions;
+      this.errorWriter = errorWriter;
+      this.hasError = hasError;
+      this.counter = counter;
+      this.progressBar = progressBar;
+      for (int i = 0; i < devices.size(); i++) {
+        rowBatches.add(new HashMap<>());
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        session = sessions.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        List<RowBatch> lineBatches = new ArrayList<>(devices.size());
+        for (int i = 0; i < lines.size(); i++) {
+          String line = lines.get(i);
+          lineBatches.clear();
+          try {
+            parseLine(line, lineBatches);
+          } catch (Exception e) {
+            System.out.println(String.format("Cannot parse the line %s because: %s", line,
+                e.getMessage()));
+            failedLines.set(i);
+            continue;
+          }
+          // the values of a line are added only if the whole line is parsed
+          for (RowBatch rowBatch : lineBatches) {
+            rowLines.computeIfAbsent(rowBatch, k -> new int[k.getMaxBatchSize()])
+                [rowBatch.batchSize] = i;
+            rowBatch.batchSize++;
+            if (rowBatch.batchSize == rowBatch.getMaxBatchSize()) {
+              insert(rowBatch);
+            }
+          }
+        }
+        for (Map<BitSet, RowBatch> deviceBatches : rowBatches) {
+          for (RowBatch rowBatch : deviceBatches.values()) {
+            if (rowBatch.batchSize > 0) {
+              insert(rowBatch);
+            }
+          }
+        }
+        writeFailedLines();
+        counter.lines.addAndGet(lines.size() - (long) failedLines.cardinality());
+        progressBar.stepBy(lines.size());
+      } finally {
+        sessions.add(session);
+      }
+    }
+
+    /**
+     * put the values of the line into the current rows of the RowBatches without adding the rows.
+     *
+     * @param lineBatches the RowBatches of the line are added into it
+     */
+    private void parseLine(String line, List<RowBatch> lineBatches) {
+      String[] data = line.split(",", columnNum);
+      if (data.length < columnNum) {
+        throw new IllegalArgumentException("the line has less than " + columnNum + " columns");
+      }
+      long time = parseTime(data[0].trim(), zoneId);
+      for (int i = 0; i < devices.size(); i++) {
+        DeviceColumns device = devices.get(i);
+        BitSet nonEmpty = new BitSet(device.columns.size());
+        for (int j = 0; j < device.columns.size(); j++) {
+          if (!data[device.columns.get(j)].isEmpty()) {
+            nonEmpty.set(j);
+          }
+        }
+        if (nonEmpty.isEmpty()) {
+          continue;
+        }
+        RowBatch rowBatch = rowBatches.get(i)
+            .computeIfAbsent(nonEmpty, k -> createRowBatch(device, k));
+        int row = rowBatch.batchSize;
+        rowBatch.timestamps[row] = time;
+        int column = 0;
+        for (int j = nonEmpty.nextSetBit(0); j >= 0; j = nonEmpty.nextSetBit(j + 1)) {
+          putValue(rowBatch, column++, row, data[device.columns.get(j)]);
+        }
+        lineBatches.add(rowBatch);
+      }
+    }
+
+    private static RowBatch createRowBatch(DeviceColumns device, BitSet nonEmpty) {
+      List<MeasurementSchema> schemas = new ArrayList<>(nonEmpty.cardinality());
+      for (int j = nonEmpty.nextSetBit(0); j >= 0; j = nonEmpty.nextSetBit(j + 1)) {
+        schemas.add(device.schemas.get(j));
+      }
+      return new RowBatch(device.id, schemas, BLOCK_LINE_NUM);
+    }
+
+    private static void putValue(RowBatch rowBatch, int column, int row, String value) {
+      switch (rowBatch.measurements.get(column).getType()) {
+        case BOOLEAN:
+          ((boolean[]) rowBatch.values[column])[row] = Boolean.parseBoolean(value.trim());
+          break;
+        case INT32:
+          ((int[]) rowBatch.values[column])[row] = Integer.parseInt(value.trim());
+          break;
+        case INT64:
+          ((long[]) rowBatch.values[column])[row] = Long.parseLong(value.trim());
+          break;
+        case FLOAT:
+          ((float[]) rowBatch.values[column])[row] = Float.parseFloat(value.trim());
+          break;
+        case DOUBLE:
+          ((double[]) rowBatch.values[column])[row] = Double.parseDouble(value.trim());
+          break;
+        case TEXT:
+          ((Binary[]) rowBatch.values[column])[row] = new Binary(removeQuote(value));
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Unsupported data type " + rowBatch.measurements.get(column).getType());
+      }
+    }
+
+    private void insert(RowBatch rowBatch) {
+      String error = null;
+      try {
+        TSExecuteBatchStatementResp resp = session.insertBatch(rowBatch);
+        if (resp.status.statusType.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+          error = resp.status.statusType.getMessage();
+        } else {
+          counter.points.addAndGet((long) rowBatch.batchSize * rowBatch.measurements.size());
+        }
+      } catch (IoTDBSessionException e) {
+        error = e.getMessage();
+      }
+      if (error != null) {
+        System.out.println(String.format("Cannot insert %d rows of %s because: %s",
+            rowBatch.batchSize, rowBatch.deviceId, error));
+        // the whole lines are imported again, the values of the other devices in them are
+        // just overwritten
+        int[] lineIndexes = rowLines.get(rowBatch);
+        for (int row = 0; row < rowBatch.batchSize; row++) {
+          failedLines.set(lineIndexes[row]);
+        }
+      }
+      rowBatch.reset();
+    }
+
+    /**
+     * write the lines that are not imported into the error file in their order in the block.
+     */
+    private void writeFailedLines() {
+      if (failedLines.isEmpty()) {
+        return;
+      }
+      hasError.set(true);
+      synchronized (errorWriter) {
+        try {
+          for (int i = failedLines.nextSetBit(0); i >= 0; i = failedLines.nextSetBit(i + 1)) {
+            errorWriter.write(lines.get(i));
+            errorWriter.newLine();
+          }
+        } catch (IOException e) {
+          System.out.println("Cannot write the error file because: " + e.getMessage());
+        }
+      }
+    }
+
+    private static class Counter {
+
+      private AtomicLong lines = new AtomicLong();
+      private AtomicLong points = new AtomicLong();
+    }
+  }
+
+  /**
+   * @param timeStr a timestamp in milliseconds or a date time in any of the formats of
+   *                DATE_TIME_FORMATTER, the date time without an offset is in the given zone
+   */
+  static long parseTime(String timeStr, ZoneId zoneId) {
+    try {
+      return Long.parseLong(timeStr);
+    } catch (NumberFormatException e) {
+      // not a timestamp
+    }
+    String dateTimeStr = DATE_PATTERN.matcher(timeStr).replaceFirst("$1-$2-$3T");
+    TemporalAccessor dateTime = DATE_TIME_FORMATTER
+        .parseBest(dateTimeStr, OffsetDateTime::from, LocalDateTime::from);
+    if (dateTime instanceof OffsetDateTime) {
+      return ((OffsetDateTime) dateTime).toInstant().toEpochMilli();
+    }
+    return ((LocalDateTime) dateTime).atZone(zoneId).toInstant().toEpochMilli();
+  }
+
+  /**
+   * ExportCsv quotes the text values with single quotes.
+   */
+  private static String removeQuote(String value) {
+    if (value.length() >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"')
+        && value.charAt(value.length() - 1) == value.charAt(0)) {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.hadoop.tsfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.iotdb.hadoop.tsfile.record.TSFColumnBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The same as {@link TSFInputFormat}, except that the rows are read in batches of columns by
+ * {@link TSFColumnarRecordReader}. It is configured by the static methods of
+ * {@link TSFInputFormat}.
+ */
+public class TSFColumnarInputFormat extends FileInputFormat<NullWritable, TSFColumnBatch> {
+
+  private static final Logger logger = LoggerFactory.getLogger(TSFColumnarInputFormat.class);
+
+  @Override
+  public RecordReader<NullWritable, TSFColumnBatch> createRecordReader(InputSplit split,
+      TaskAttemptContext context) {
+    return new TSFColumnarRecordReader();
+  }
+
+  @Override
+  public List<InputSplit> getSplits(JobContext job) throws IOException {
+    return new ArrayList<>(
+        TSFInputFormat.getTSFInputSplit(job.getConfiguration(), listStatus(job), logger));
+  }
+}
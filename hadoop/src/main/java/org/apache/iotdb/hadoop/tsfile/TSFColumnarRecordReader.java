@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.hadoop.tsfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
+import org.apache.iotdb.hadoop.tsfile.record.TSFColumnBatch;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
+import org.apache.iotdb.tsfile.read.controller.IMetadataQuerier;
+import org.apache.iotdb.tsfile.read.controller.MetadataQuerierByFileImpl;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.reader.series.AbstractFileSeriesReader;
+import org.apache.iotdb.tsfile.read.reader.series.FileSeriesReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This record reader reads the same rows as {@link TSFRecordReader}, but emits them in batches of
+ * typed arrays instead of one <code>MapWritable</code> per row. The series of a device are merged
+ * by time straight from their {@link BatchData} into the arrays of the batch, so no RowRecord,
+ * Field or writable is created for a row or a value. A batch holds the rows of one device, and at
+ * most {@link TSFInputFormat#READ_BATCH_SIZE} rows.
+ */
+public class TSFColumnarRecordReader extends RecordReader<NullWritable, TSFColumnBatch> {
+
+  private static final Logger logger = LoggerFactory.getLogger(TSFColumnarRecordReader.class);
+
+  /**
+   * seriesReadersList[i][j] reads the j-th measurement of the device deviceIdList[i] in the split,
+   * null if the device does not have the measurement.
+   */
+  private List<AbstractFileSeriesReader[]> seriesReadersList = new ArrayList<>();
+  private List<String> deviceIdList = new ArrayList<>();
+  /**
+   * The index of the device that is currently processed
+   */
+  private int currentIndex = 0;
+  /**
+   * currentBatches[j] is the unread data of the j-th measurement of the current device, null if
+   * the measurement has no more data.
+   */
+  private BatchData[] currentBatches;
+  private TsFileSequenceReader reader;
+  private TSFColumnBatch batch;
+
+  @Override
+  public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+    if (!(split instanceof TSFInputSplit)) {
+      logger.error("The InputSplit class is not {}, the class is {}", TSFInputSplit.class.getName(),
+          split.getClass().getName());
+      throw new InternalError(String.format("The InputSplit class is not %s, the class is %s",
+          TSFInputSplit.class.getName(), split.getClass().getName()));
+    }
+    TSFInputSplit tsfInputSplit = (TSFInputSplit) split;
+    Configuration configuration = context.getConfiguration();
+    List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList = tsfInputSplit.getChunkGroupInfoList();
+    reader = new TsFileSequenceReader(new HDFSInput(tsfInputSplit.getPath(), configuration));
+
+    List<String> deviceIds = TSFInputFormat.getReadDeviceIds(configuration);
+    if (deviceIds == null) {
+      deviceIds = TSFRecordReader.initDeviceIdList(chunkGroupInfoList);
+    }
+    List<String> measurementIds = TSFInputFormat.getReadMeasurementIds(configuration);
+    if (measurementIds == null) {
+      measurementIds = TSFRecordReader.initSensorIdList(chunkGroupInfoList);
+    }
+    logger.info("deviceIds:" + deviceIds);
+    logger.info("Sensors:" + measurementIds);
+
+    TsFileMetaData fileMetaData = reader.readFileMetadata();
+    TSDataType[] dataTypes = new TSDataType[measurementIds.size()];
+    for (int i = 0; i < dataTypes.length; i++) {
+      dataTypes[i] = fileMetaData.getType(measurementIds.get(i));
+    }
+    batch = new TSFColumnBatch(measurementIds, dataTypes,
+        TSFInputFormat.getReadBatchSize(configuration));
+
+    Filter timeFilter = TSFInputFormat.getReadTimeFilter(configuration);
+    IMetadataQuerier metadataQuerier = new MetadataQuerierByFileImpl(reader);
+    IChunkLoader chunkLoader = new ChunkLoaderImpl(reader);
+    for (TSFInputSplit.ChunkGroupInfo chunkGroupInfo : chunkGroupInfoList) {
+      String deviceId = chunkGroupInfo.getDeviceId();
+      if (!deviceIds.contains(deviceId)) {
+        continue;
+      }
+      List<Path> paths = new ArrayList<>();
+      for (String measurementId : measurementIds) {
+        paths.add(new Path(deviceId + TsFileConstant.PATH_SEPARATOR + measurementId));
+      }
+      // only the data of the chunk groups in the split is read, like ReadOnlyTsFile does with the
+      // space partition of a query
+      List<TimeRange> timeRanges = metadataQuerier.convertSpace2TimePartition(paths,
+          chunkGroupInfo.getStartOffset(), chunkGroupInfo.getEndOffset());
+      if (timeRanges.isEmpty()) {
+        continue;
+      }
+      Filter filter = getTimeRangesFilter(timeRanges);
+      if (timeFilter != null) {
+        filter = FilterFactory.and(timeFilter, filter);
+      }
+      AbstractFileSeriesReader[] seriesReaders = new AbstractFileSeriesReader[paths.size()];
+      for (int i = 0; i < paths.size(); i++) {
+        List<ChunkMetaData> chunkMetaDataList = metadataQuerier.getChunkMetaDataList(paths.get(i));
+        if (!chunkMetaDataList.isEmpty()) {
+          seriesReaders[i] = new FileSeriesReader(chunkLoader, chunkMetaDataList, filter);
+        }
+      }
+      seriesReadersList.add(seriesReaders);
+      deviceIdList.add(deviceId);
+    }
+  }
+
+  private static Filter getTimeRangesFilter(List<TimeRange> timeRanges) {
+    Filter filter = null;
+    for (TimeRange timeRange : timeRanges) {
+      Filter left = timeRange.getLeftClose() ? TimeFilter.gtEq(timeRange.getMin())
+          : TimeFilter.gt(timeRange.getMin());
+      Filter right = timeRange.getRightClose() ? TimeFilter.ltEq(timeRange.getMax())
+          : TimeFilter.lt(timeRange.getMax());
+      Filter rangeFilter = FilterFactory.and(left, right);
+      filter = filter == null ? rangeFilter : FilterFactory.or(filter, rangeFilter);
+    }
+    return filter;
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    while (currentIndex < deviceIdList.size()) {
+      AbstractFileSeriesReader[] seriesReaders = seriesReadersList.get(currentIndex);
+      if (currentBatches == null) {
+        currentBatches = new BatchData[seriesReaders.length];
+        for (int i = 0; i < seriesReaders.length; i++) {
+          currentBatches[i] = nextBatch(seriesReaders[i]);
+        }
+      }
+      batch.reset(deviceIdList.get(currentIndex));
+      fillBatch(seriesReaders);
+      if (batch.size() > 0) {
+        return true;
+      }
+      currentIndex++;
+      currentBatches = null;
+    }
+    return false;
+  }
+
+  /**
+   * merge the series of the current device by time into the batch until it is full or the series
+   * are exhausted.
+   */
+  private void fillBatch(AbstractFileSeriesReader[] seriesReaders) throws IOException {
+    while (!batch.isFull()) {
+      boolean hasData = false;
+      long minTime = Long.MAX_VALUE;
+      for (BatchData data : currentBatches) {
+        if (data != null) {
+          hasData = true;
+          minTime = Math.min(minTime, data.currentTime());
+        }
+      }
+      if (!hasData) {
+        return;
+      }
+      batch.appendRow(minTime);
+      for (int i = 0; i < currentBatches.length; i++) {
+        BatchData data = currentBatches[i];
+        if (data != null && data.currentTime() == minTime) {
+          batch.putValue(i, data);
+          data.next();
+          if (!data.hasCurrent()) {
+            currentBatches[i] = nextBatch(seriesReaders[i]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the next non-empty batch of the reader, or null if there is none
+   */
+  private static BatchData nextBatch(AbstractFileSeriesReader seriesReader) throws IOException {
+    if (seriesReader == null) {
+      return null;
+    }
+    while (seriesReader.hasNextBatch()) {
+      BatchData data = seriesReader.nextBatch();
+      if (data.hasCurrent()) {
+        return data;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public TSFColumnBatch getCurrentValue() {
+    return batch;
+  }
+
+  @Override
+  public float getProgress() {
+    return deviceIdList.isEmpty() ? 1 : (float) currentIndex / deviceIdList.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    seriesReadersList = null;
+    deviceIdList = null;
+    currentBatches = null;
+    reader.close();
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.hadoop.tsfile;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+
+/**
+ * This class caches the chunk group information read from the metadata at the tail of TsFiles, so
+ * that planning the splits of the same files again, e.g. by another job submitted from the same
+ * client, does not open the unchanged files. A file is identified by its path, length and
+ * modification time, so a rewritten file is read again.
+ */
+public class TSFFooterCache {
+
+  /**
+   * key to configure the max number of files whose chunk group information is cached
+   */
+  public static final String FOOTER_CACHE_SIZE = "tsfile.footer.cache.size";
+  public static final int DEFAULT_FOOTER_CACHE_SIZE = 10000;
+
+  private volatile int capacity = DEFAULT_FOOTER_CACHE_SIZE;
+
+  private final Map<FileKey, List<TSFInputSplit.ChunkGroupInfo>> cache =
+      new LinkedHashMap<FileKey, List<TSFInputSplit.ChunkGroupInfo>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(
+        Map.Entry<FileKey, List<TSFInputSplit.ChunkGroupInfo>> eldest) {
+      return size() > capacity;
+    }
+  };
+
+  private TSFFooterCache() {
+  }
+
+  public static TSFFooterCache getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the chunk group information of the file, sorted by the start offset of the chunk
+   * groups. The list is shared and must not be modified.
+   */
+  public List<TSFInputSplit.ChunkGroupInfo> get(FileStatus fileStatus, Configuration configuration)
+      throws IOException {
+    FileKey key = new FileKey(fileStatus);
+    synchronized (cache) {
+      List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList = cache.get(key);
+      if (chunkGroupInfoList != null) {
+        return chunkGroupInfoList;
+      }
+    }
+    // read outside the lock so that files are read in parallel
+    List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList;
+    Path path = fileStatus.getPath();
+    try (TsFileSequenceReader fileReader = new TsFileSequenceReader(
+        new HDFSInput(path, configuration))) {
+      chunkGroupInfoList = Collections.unmodifiableList(
+          fileReader.getSortedChunkGroupMetaDataListByDeviceIds().stream()
+              .map(TSFInputSplit.ChunkGroupInfo::new)
+              .collect(Collectors.toList()));
+    }
+    synchronized (cache) {
+      cache.put(key, chunkGroupInfoList);
+    }
+    return chunkGroupInfoList;
+  }
+
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  private static class FileKey {
+
+    private final String path;
+    private final long length;
+    private final long modificationTime;
+
+    private FileKey(FileStatus fileStatus) {
+      this.path = fileStatus.getPath().toString();
+      this.length = fileStatus.getLen();
+      this.modificationTime = fileStatus.getModificationTime();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FileKey that = (FileKey) o;
+      return length == that.length && modificationTime == that.modificationTime && path
+          .equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, length, modificationTime);
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private static final TSFFooterCache INSTANCE = new TSFFooterCache();
+  }
+}
@@ -27,9 +27,9 @@ import org.apache.hadoop.io.MapWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
-import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
-import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +38,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -76,6 +80,24 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
    * key to configure the reading measurementIds
    */
   public static final String READ_MEASUREMENTID = "tsfile.read.measurement";
+  /**
+   * key to configure the lower bound of the time range to read, inclusive
+   */
+  public static final String READ_TIME_LOWER = "tsfile.read.time.lower";
+  /**
+   * key to configure the upper bound of the time range to read, inclusive
+   */
+  public static final String READ_TIME_UPPER = "tsfile.read.time.upper";
+  /**
+   * key to configure the number of rows in a batch of the columnar record reader
+   */
+  public static final String READ_BATCH_SIZE = "tsfile.read.batch.size";
+  public static final int DEFAULT_READ_BATCH_SIZE = 1024;
+  /**
+   * key to configure the number of threads that compute the splits of the files
+   */
+  public static final String SPLIT_THREADS = "tsfile.split.threads";
+  public static final int DEFAULT_SPLIT_THREADS = 16;
   private static final Logger logger = LoggerFactory.getLogger(TSFInputFormat.class);
   private static final String SPERATOR = ",";
 
@@ -182,6 +204,51 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
     return configuration.getBoolean(READ_TIME_ENABLE, true);
   }
 
+  /**
+   * Set the time range to read, the chunk groups out of the range are pruned when computing the
+   * splits, and the rows out of the range are filtered by the record readers.
+   *
+   * @param job hadoop job
+   * @param lower the lower bound of the time, inclusive
+   * @param upper the upper bound of the time, inclusive
+   */
+  public static void setReadTimeRange(Job job, long lower, long upper) throws TSFHadoopException {
+    if (lower > upper) {
+      throw new TSFHadoopException(
+          String.format("The lower bound %d is larger than the upper bound %d", lower, upper));
+    }
+    job.getConfiguration().setLong(READ_TIME_LOWER, lower);
+    job.getConfiguration().setLong(READ_TIME_UPPER, upper);
+  }
+
+  public static long getReadTimeLower(Configuration configuration) {
+    return configuration.getLong(READ_TIME_LOWER, Long.MIN_VALUE);
+  }
+
+  public static long getReadTimeUpper(Configuration configuration) {
+    return configuration.getLong(READ_TIME_UPPER, Long.MAX_VALUE);
+  }
+
+  /**
+   * @return the filter of the time range to read, null if no time range is set
+   */
+  public static Filter getReadTimeFilter(Configuration configuration) {
+    long lower = getReadTimeLower(configuration);
+    long upper = getReadTimeUpper(configuration);
+    if (lower == Long.MIN_VALUE && upper == Long.MAX_VALUE) {
+      return null;
+    }
+    return FilterFactory.and(TimeFilter.gtEq(lower), TimeFilter.ltEq(upper));
+  }
+
+  public static void setReadBatchSize(Job job, int batchSize) {
+    job.getConfiguration().setInt(READ_BATCH_SIZE, batchSize);
+  }
+
+  public static int getReadBatchSize(Configuration configuration) {
+    return configuration.getInt(READ_BATCH_SIZE, DEFAULT_READ_BATCH_SIZE);
+  }
+
   /**
    * Set filter exist or not
    *
@@ -251,96 +318,118 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
   }
 
   public static List<TSFInputSplit> getTSFInputSplit(Configuration configuration, List<FileStatus> listFileStatus, Logger logger) throws IOException {
-    BlockLocation[] blockLocations;
-    List<TSFInputSplit> splits = new ArrayList<>();
     // get the all file in the directory
     logger.info("The number of this job file is {}", listFileStatus.size());
-    // For each file
-    for (FileStatus fileStatus : listFileStatus) {
-      logger.info("The file path is {}", fileStatus.getPath());
-      // Get the file path
-      Path path = fileStatus.getPath();
-      // Get the file length
-      long length = fileStatus.getLen();
-      // Check the file length. if the length is less than 0, return the
-      // empty splits
-      if (length > 0) {
-        FileSystem fileSystem = path.getFileSystem(configuration);
-        logger.info("The file status is {}", fileStatus.getClass().getName());
-        logger.info("The file system is " + fileSystem.getClass());
-        blockLocations = fileSystem.getFileBlockLocations(fileStatus, 0, length);
-
-        logger.info("The block location information is {}", Arrays.toString(blockLocations));
-        try (TsFileSequenceReader fileReader = new TsFileSequenceReader(new HDFSInput(path, configuration))) {
-          splits.addAll(generateSplits(path, fileReader, blockLocations, logger));
-        }
-      } else {
-        logger.warn("The file length is " + length);
+    TSFFooterCache.getInstance().setCapacity(configuration
+        .getInt(TSFFooterCache.FOOTER_CACHE_SIZE, TSFFooterCache.DEFAULT_FOOTER_CACHE_SIZE));
+    int threadNum = Math.max(1,
+        Math.min(configuration.getInt(SPLIT_THREADS, DEFAULT_SPLIT_THREADS), listFileStatus.size()));
+    // the splits of the files are computed in parallel, as reading the metadata of each file on
+    // the client is dominated by the latency of the file system
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<List<TSFInputSplit>>> futures = new ArrayList<>();
+    try {
+      for (FileStatus fileStatus : listFileStatus) {
+        futures.add(pool.submit(() -> getFileSplits(configuration, fileStatus, logger)));
+      }
+      List<TSFInputSplit> splits = new ArrayList<>();
+      for (Future<List<TSFInputSplit>> future : futures) {
+        splits.addAll(future.get());
+      }
+      configuration.setLong(NUM_INPUT_FILES, listFileStatus.size());
+      logger.info("The number of splits is " + splits.size());
+      return splits;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted when computing the splits", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
       }
+      throw new IOException(e.getCause());
+    } finally {
+      pool.shutdownNow();
     }
-    configuration.setLong(NUM_INPUT_FILES, listFileStatus.size());
-    logger.info("The number of splits is " + splits.size());
+  }
 
-    return splits;
+  /**
+   * @return the splits of one file, the chunk groups that do not satisfy the devices,
+   * measurements and time range configured in the job are pruned
+   */
+  private static List<TSFInputSplit> getFileSplits(Configuration configuration,
+      FileStatus fileStatus, Logger logger) throws IOException {
+    logger.info("The file path is {}", fileStatus.getPath());
+    // Get the file path
+    Path path = fileStatus.getPath();
+    // Get the file length
+    long length = fileStatus.getLen();
+    // Check the file length. if the length is less than 0, return the
+    // empty splits
+    if (length <= 0) {
+      logger.warn("The file length is " + length);
+      return new ArrayList<>();
+    }
+
+    List<String> deviceIds = getReadDeviceIds(configuration);
+    List<String> measurementIds = getReadMeasurementIds(configuration);
+    long lower = getReadTimeLower(configuration);
+    long upper = getReadTimeUpper(configuration);
+    List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList = TSFFooterCache.getInstance()
+        .get(fileStatus, configuration).stream()
+        .filter(info -> deviceIds == null || deviceIds.contains(info.getDeviceId()))
+        .filter(info -> measurementIds == null || Arrays.stream(info.getMeasurementIds())
+            .anyMatch(measurementIds::contains))
+        .filter(info -> info.overlaps(lower, upper))
+        .collect(Collectors.toList());
+    if (chunkGroupInfoList.isEmpty()) {
+      logger.info("All the chunk groups of {} are pruned", path);
+      return new ArrayList<>();
+    }
+
+    FileSystem fileSystem = path.getFileSystem(configuration);
+    BlockLocation[] blockLocations = fileSystem.getFileBlockLocations(fileStatus, 0, length);
+    logger.debug("The block location information is {}", Arrays.toString(blockLocations));
+    return generateSplits(path, chunkGroupInfoList, blockLocations, logger);
   }
 
   /**
-   * get the TSFInputSplit from tsfMetaData and hdfs block location
-   * information with the filter
+   * get the TSFInputSplit from the chunk groups and hdfs block location information, the chunk
+   * groups whose middle offsets are in the same block make up a split
    *
    * @param path
-   * @param fileReader
+   * @param chunkGroupInfoList chunk groups sorted by offset
    * @param blockLocations
    * @return
-   * @throws IOException
    */
-  private static List<TSFInputSplit> generateSplits(Path path, TsFileSequenceReader fileReader,
-      BlockLocation[] blockLocations, Logger logger)
-      throws IOException {
+  private static List<TSFInputSplit> generateSplits(Path path,
+      List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList, BlockLocation[] blockLocations,
+      Logger logger) throws IOException {
     List<TSFInputSplit> splits = new ArrayList<>();
 
     Arrays.sort(blockLocations, Comparator.comparingLong(BlockLocation::getOffset));
 
-    List<ChunkGroupMetaData> chunkGroupMetaDataList = new ArrayList<>();
-    int currentBlockIndex = 0;
+    List<TSFInputSplit.ChunkGroupInfo> splitChunkGroups = new ArrayList<>();
+    int currentBlockIndex = -1;
     long splitSize = 0;
-    List<String> hosts = new ArrayList<>();
-    for (ChunkGroupMetaData chunkGroupMetaData : fileReader.getSortedChunkGroupMetaDataListByDeviceIds()) {
-      logger.info("The chunkGroupMetaData information is {}", chunkGroupMetaData);
-
+    for (TSFInputSplit.ChunkGroupInfo chunkGroupInfo : chunkGroupInfoList) {
       // middle offset point of the chunkGroup
-      long middle = (chunkGroupMetaData.getStartOffsetOfChunkGroup() + chunkGroupMetaData.getEndOffsetOfChunkGroup()) / 2;
+      long middle = (chunkGroupInfo.getStartOffset() + chunkGroupInfo.getEndOffset()) / 2;
       int blkIndex = getBlockLocationIndex(blockLocations, middle, logger);
-      if (hosts.size() == 0) {
-        hosts.addAll(Arrays.asList(blockLocations[blkIndex].getHosts()));
-      }
-
-      if (blkIndex != currentBlockIndex) {
-        TSFInputSplit tsfInputSplit = makeSplit(path, chunkGroupMetaDataList, splitSize, hosts);
-        logger.info("The tsfile inputSplit information is {}", tsfInputSplit);
-        splits.add(tsfInputSplit);
-
-        currentBlockIndex = blkIndex;
-        chunkGroupMetaDataList.clear();
-        chunkGroupMetaDataList.add(chunkGroupMetaData);
-        splitSize = getTotalByteSizeOfChunkGroup(chunkGroupMetaData);
-        hosts.clear();
-      } else {
-        chunkGroupMetaDataList.add(chunkGroupMetaData);
-        splitSize += getTotalByteSizeOfChunkGroup(chunkGroupMetaData);
+      if (blkIndex != currentBlockIndex && !splitChunkGroups.isEmpty()) {
+        splits.add(makeSplit(path, splitChunkGroups, splitSize, blockLocations, currentBlockIndex,
+            logger));
+        splitChunkGroups = new ArrayList<>();
+        splitSize = 0;
       }
+      currentBlockIndex = blkIndex;
+      splitChunkGroups.add(chunkGroupInfo);
+      splitSize += chunkGroupInfo.getEndOffset() - chunkGroupInfo.getStartOffset();
     }
-    TSFInputSplit tsfInputSplit = makeSplit(path, chunkGroupMetaDataList, splitSize, hosts);
-    logger.info("The tsfile inputSplit information is {}", tsfInputSplit);
-    splits.add(tsfInputSplit);
+    splits.add(makeSplit(path, splitChunkGroups, splitSize, blockLocations, currentBlockIndex,
+        logger));
     return splits;
   }
 
-  private static long getTotalByteSizeOfChunkGroup(ChunkGroupMetaData chunkGroupMetaData) {
-    return chunkGroupMetaData.getEndOffsetOfChunkGroup() - chunkGroupMetaData.getStartOffsetOfChunkGroup();
-  }
-
-
   /**
    * Calculate the index of blockLocation that the chunkGroup belongs to
    * @param blockLocations The Array of blockLocation
@@ -360,12 +449,11 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
     return -1;
   }
 
-  private static TSFInputSplit makeSplit(Path path, List<ChunkGroupMetaData> chunkGroupMetaDataList,
-                                  long length, List<String> hosts) {
-    return new TSFInputSplit(path, hosts.toArray(new String[0]), length,
-            chunkGroupMetaDataList.stream()
-                    .map(TSFInputSplit.ChunkGroupInfo::new)
-                    .collect(Collectors.toList())
-    );
+  private static TSFInputSplit makeSplit(Path path, List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList,
+      long length, BlockLocation[] blockLocations, int blockIndex, Logger logger) throws IOException {
+    String[] hosts = blockIndex < 0 ? new String[0] : blockLocations[blockIndex].getHosts();
+    TSFInputSplit tsfInputSplit = new TSFInputSplit(path, hosts, length, chunkGroupInfoList);
+    logger.debug("The tsfile inputSplit information is {}", tsfInputSplit);
+    return tsfInputSplit;
   }
 }
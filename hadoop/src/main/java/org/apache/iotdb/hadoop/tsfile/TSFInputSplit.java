@@ -150,6 +150,16 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
      */
     private long endOffset;
 
+    /**
+     * Min start time of the chunks in the chunk group, used to prune chunk groups by time.
+     */
+    private long startTime = Long.MIN_VALUE;
+
+    /**
+     * Max end time of the chunks in the chunk group.
+     */
+    private long endTime = Long.MAX_VALUE;
+
     public ChunkGroupInfo() {
     }
 
@@ -161,6 +171,13 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
       this.endOffset = endOffset;
     }
 
+    public ChunkGroupInfo(String deviceId, String[] measurementIds, long startOffset, long endOffset,
+        long startTime, long endTime) {
+      this(deviceId, measurementIds, startOffset, endOffset);
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
     public ChunkGroupInfo(ChunkGroupMetaData chunkGroupMetaData) {
       this.deviceId = chunkGroupMetaData.getDeviceID();
       this.measurementIds = chunkGroupMetaData.getChunkMetaDataList().stream()
@@ -170,6 +187,10 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
 
       this.startOffset = chunkGroupMetaData.getStartOffsetOfChunkGroup();
       this.endOffset = chunkGroupMetaData.getEndOffsetOfChunkGroup();
+      this.startTime = chunkGroupMetaData.getChunkMetaDataList().stream()
+              .mapToLong(ChunkMetaData::getStartTime).min().orElse(Long.MIN_VALUE);
+      this.endTime = chunkGroupMetaData.getChunkMetaDataList().stream()
+              .mapToLong(ChunkMetaData::getEndTime).max().orElse(Long.MAX_VALUE);
     }
 
     public String getDeviceId() {
@@ -204,6 +225,29 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
       this.endOffset = endOffset;
     }
 
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+      this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+      return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+      this.endTime = endTime;
+    }
+
+    /**
+     * @return whether the chunk group may have data in [lower, upper]
+     */
+    public boolean overlaps(long lower, long upper) {
+      return startTime <= upper && lower <= endTime;
+    }
+
     @Override
     public String toString() {
       return "ChunkGroupInfo{" +
@@ -211,6 +255,8 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
               ", measurementIds=" + Arrays.toString(measurementIds) +
               ", startOffset=" + startOffset +
               ", endOffset=" + endOffset +
+              ", startTime=" + startTime +
+              ", endTime=" + endTime +
               '}';
     }
 
@@ -221,13 +267,15 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
       ChunkGroupInfo that = (ChunkGroupInfo) o;
       return startOffset == that.startOffset &&
               endOffset == that.endOffset &&
+              startTime == that.startTime &&
+              endTime == that.endTime &&
               deviceId.equals(that.deviceId) &&
               Arrays.equals(measurementIds, that.measurementIds);
     }
 
     @Override
     public int hashCode() {
-      int result = Objects.hash(deviceId, startOffset, endOffset);
+      int result = Objects.hash(deviceId, startOffset, endOffset, startTime, endTime);
       result = 31 * result + Arrays.hashCode(measurementIds);
       return result;
     }
@@ -249,6 +297,8 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
         }
         out.writeLong(chunkGroupInfo.startOffset);
         out.writeLong(chunkGroupInfo.endOffset);
+        out.writeLong(chunkGroupInfo.startTime);
+        out.writeLong(chunkGroupInfo.endTime);
       }
     }
 
@@ -276,7 +326,10 @@ public class TSFInputSplit extends FileSplit implements Writable, org.apache.had
         }
         long startOffset = in.readLong();
         long endOffset = in.readLong();
-        chunkGroupInfoList.add(new ChunkGroupInfo(deviceId, measurementIds, startOffset, endOffset));
+        long startTime = in.readLong();
+        long endTime = in.readLong();
+        chunkGroupInfoList.add(new ChunkGroupInfo(deviceId, measurementIds, startOffset, endOffset,
+            startTime, endTime));
       }
       return chunkGroupInfoList;
     }
@@ -44,6 +44,8 @@ import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -113,6 +115,7 @@ public class TSFRecordReader extends RecordReader<NullWritable, MapWritable> imp
       readerSet.setReadDeviceId(TSFInputFormat.getReadDeviceId(configuration));
       readerSet.setReadTime(TSFInputFormat.getReadTime(configuration));
 
+      Filter timeFilter = TSFInputFormat.getReadTimeFilter(configuration);
       ReadOnlyTsFile queryEngine = new ReadOnlyTsFile(reader);
       for (TSFInputSplit.ChunkGroupInfo chunkGroupInfo : chunkGroupInfoList) {
         String deviceId = chunkGroupInfo.getDeviceId();
@@ -120,7 +123,8 @@ public class TSFRecordReader extends RecordReader<NullWritable, MapWritable> imp
           List<Path> paths = measurementIds.stream()
                   .map(measurementId -> new Path(deviceId + TsFileConstant.PATH_SEPARATOR + measurementId))
                   .collect(toList());
-          QueryExpression queryExpression = QueryExpression.create(paths, null);
+          QueryExpression queryExpression = QueryExpression.create(paths,
+                  timeFilter == null ? null : new GlobalTimeExpression(timeFilter));
           QueryDataSet dataSet = queryEngine.query(queryExpression,
                   chunkGroupInfo.getStartOffset(), chunkGroupInfo.getEndOffset());
           dataSetList.add(dataSet);
@@ -129,14 +133,14 @@ public class TSFRecordReader extends RecordReader<NullWritable, MapWritable> imp
       }
   }
 
-  private static List<String> initDeviceIdList(List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList) {
+  static List<String> initDeviceIdList(List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList) {
     return chunkGroupInfoList.stream()
             .map(TSFInputSplit.ChunkGroupInfo::getDeviceId)
             .distinct()
             .collect(toList());
   }
 
-  private static List<String> initSensorIdList(List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList) {
+  static List<String> initSensorIdList(List<TSFInputSplit.ChunkGroupInfo> chunkGroupInfoList) {
     return chunkGroupInfoList.stream()
             .flatMap(chunkGroupMetaData -> Arrays.stream(chunkGroupMetaData.getMeasurementIds()))
             .distinct()
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.hadoop.tsfile.record;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * A batch of rows of one device in columns. The values of the i-th measurement are in a typed
+ * array, e.g. <code>long[]</code> for INT64 and <code>Binary[]</code> for TEXT, and
+ * <code>isNull(i, row)</code> tells whether the row has a value of the measurement.
+ * <p>
+ * The batch is reused by the record reader, so the arrays are only valid until the next batch is
+ * read, and only the first <code>size()</code> elements are valid.
+ */
+public class TSFColumnBatch {
+
+  private String deviceId;
+  private final List<String> measurementIds;
+  private final TSDataType[] dataTypes;
+  private final long[] timestamps;
+  private final Object[] columns;
+  private final boolean[][] nulls;
+  private int size;
+
+  /**
+   * @param dataTypes data types of the measurements, null if a measurement does not exist, whose
+   * values are always null
+   */
+  public TSFColumnBatch(List<String> measurementIds, TSDataType[] dataTypes, int capacity) {
+    this.measurementIds = measurementIds;
+    this.dataTypes = dataTypes;
+    this.timestamps = new long[capacity];
+    this.columns = new Object[dataTypes.length];
+    this.nulls = new boolean[dataTypes.length][capacity];
+    for (int i = 0; i < dataTypes.length; i++) {
+      columns[i] = dataTypes[i] == null ? null : newColumn(dataTypes[i], capacity);
+    }
+  }
+
+  private static Object newColumn(TSDataType dataType, int capacity) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[capacity];
+      case INT32:
+        return new int[capacity];
+      case INT64:
+        return new long[capacity];
+      case FLOAT:
+        return new float[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      case TEXT:
+        return new Binary[capacity];
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+  }
+
+  public void reset(String deviceId) {
+    this.deviceId = deviceId;
+    this.size = 0;
+  }
+
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  /**
+   * append a row whose values are all null until they are put by {@link #putValue}.
+   */
+  public void appendRow(long timestamp) {
+    timestamps[size] = timestamp;
+    for (boolean[] columnNulls : nulls) {
+      columnNulls[size] = true;
+    }
+    size++;
+  }
+
+  /**
+   * put the current value of the data as the value of the measurement in the last row.
+   */
+  public void putValue(int column, BatchData data) {
+    int row = size - 1;
+    nulls[column][row] = false;
+    switch (dataTypes[column]) {
+      case BOOLEAN:
+        ((boolean[]) columns[column])[row] = data.getBoolean();
+        break;
+      case INT32:
+        ((int[]) columns[column])[row] = data.getInt();
+        break;
+      case INT64:
+        ((long[]) columns[column])[row] = data.getLong();
+        break;
+      case FLOAT:
+        ((float[]) columns[column])[row] = data.getFloat();
+        break;
+      case DOUBLE:
+        ((double[]) columns[column])[row] = data.getDouble();
+        break;
+      case TEXT:
+        ((Binary[]) columns[column])[row] = data.getBinary();
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataTypes[column].toString());
+    }
+  }
+
+  public String getDeviceId() {
+    return deviceId;
+  }
+
+  public List<String> getMeasurementIds() {
+    return measurementIds;
+  }
+
+  public TSDataType getDataType(int column) {
+    return dataTypes[column];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long[] getTimestamps() {
+    return timestamps;
+  }
+
+  public boolean isNull(int column, int row) {
+    return nulls[column][row];
+  }
+
+  public boolean[] getBooleans(int column) {
+    return (boolean[]) columns[column];
+  }
+
+  public int[] getInts(int column) {
+    return (int[]) columns[column];
+  }
+
+  public long[] getLongs(int column) {
+    return (long[]) columns[column];
+  }
+
+  public float[] getFloats(int column) {
+    return (float[]) columns[column];
+  }
+
+  public double[] getDoubles(int column) {
+    return (double[]) columns[column];
+  }
+
+  public Binary[] getBinaries(int column) {
+    return (Binary[]) columns[column];
+  }
+
+  @Override
+  public String toString() {
+    return "TSFColumnBatch{" +
+        "deviceId='" + deviceId + '\'' +
+        ", measurementIds=" + measurementIds +
+        ", dataTypes=" + Arrays.toString(dataTypes) +
+        ", size=" + size +
+        '}';
+  }
+}
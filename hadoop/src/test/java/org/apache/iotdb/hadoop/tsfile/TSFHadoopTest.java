@@ -25,6 +25,7 @@ import org.apache.hadoop.mapreduce.TaskAttemptID;
 import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
 import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
 import org.apache.iotdb.hadoop.tsfile.constant.TestConstant;
+import org.apache.iotdb.hadoop.tsfile.record.TSFColumnBatch;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.junit.After;
 import org.junit.Before;
@@ -45,6 +46,7 @@ public class TSFHadoopTest {
   public void setUp() throws Exception {
 
     TsFileTestHelper.deleteTsFile(tsfilePath);
+    TSFFooterCache.getInstance().clear();
     inputFormat = new TSFInputFormat();
   }
 
@@ -182,4 +184,64 @@ public class TSFHadoopTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void TimeRangePruningTest() throws IOException, TSFHadoopException {
+    TsFileTestHelper.writeTsFile(tsfilePath);
+    Job job = Job.getInstance();
+    TSFInputFormat.setInputPaths(job, tsfilePath);
+    TSFInputFormat.setReadTimeRange(job, 2000000L, 3000000L);
+    assertTrue(inputFormat.getSplits(job).isEmpty());
+
+    TSFInputFormat.setReadTimeRange(job, 1L, 1000L);
+    List<InputSplit> inputSplits = inputFormat.getSplits(job);
+    assertFalse(inputSplits.isEmpty());
+    for (InputSplit inputSplit : inputSplits) {
+      for (TSFInputSplit.ChunkGroupInfo chunkGroupInfo : ((TSFInputSplit) inputSplit)
+          .getChunkGroupInfoList()) {
+        assertTrue(chunkGroupInfo.overlaps(1L, 1000L));
+      }
+    }
+
+    String[] devices = {"device_2"};
+    TSFInputFormat.setReadDeviceIds(job, devices);
+    assertTrue(inputFormat.getSplits(job).isEmpty());
+  }
+
+  @Test
+  public void ColumnarRecordReaderTest()
+      throws IOException, TSFHadoopException, InterruptedException {
+    TsFileTestHelper.writeTsFile(tsfilePath);
+    Job job = Job.getInstance();
+    TSFInputFormat.setInputPaths(job, tsfilePath);
+    String[] sensors = {"sensor_1", "sensor_3"};
+    TSFInputFormat.setReadMeasurementIds(job, sensors);
+    TSFInputFormat.setReadTimeRange(job, 1L, 5000L);
+    TSFInputFormat.setReadBatchSize(job, 1000);
+    TSFColumnarInputFormat columnarInputFormat = new TSFColumnarInputFormat();
+    TaskAttemptContextImpl attemptContextImpl = new TaskAttemptContextImpl(job.getConfiguration(),
+        new TaskAttemptID());
+
+    long rowCount = 0;
+    for (InputSplit inputSplit : columnarInputFormat.getSplits(job)) {
+      TSFColumnarRecordReader recordReader = new TSFColumnarRecordReader();
+      recordReader.initialize(inputSplit, attemptContextImpl);
+      while (recordReader.nextKeyValue()) {
+        TSFColumnBatch batch = recordReader.getCurrentValue();
+        assertEquals("device_1", batch.getDeviceId());
+        assertTrue(batch.size() <= 1000);
+        for (int i = 0; i < batch.size(); i++) {
+          long time = batch.getTimestamps()[i];
+          assertTrue(time >= 1L && time <= 5000L);
+          for (int column = 0; column < sensors.length; column++) {
+            assertFalse(batch.isNull(column, i));
+            assertEquals(999999L + time, batch.getLongs(column)[i]);
+          }
+        }
+        rowCount += batch.size();
+      }
+      recordReader.close();
+    }
+    assertEquals(5000L, rowCount);
+  }
 }
@@ -56,7 +56,8 @@ public class TSFInputSplitTest {
     chunkGroupInfoList
             .add(new TSFInputSplit.ChunkGroupInfo("d1", new String[] {"sensor_0", "sensor_1"},11, 20));
     chunkGroupInfoList
-            .add(new TSFInputSplit.ChunkGroupInfo("d2", new String[] {"sensor_0", "sensor_1"},21, 30));
+            .add(new TSFInputSplit.ChunkGroupInfo("d2", new String[] {"sensor_0", "sensor_1"},21, 30,
+                100, 200));
     long length = 100;
     String[] hosts = {"192.168.1.1", "192.168.1.0", "localhost"};
 
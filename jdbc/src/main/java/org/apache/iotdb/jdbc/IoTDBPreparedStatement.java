@@ -47,6 +47,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.thrift.TException;
 
 public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedStatement {
 
@@ -58,6 +59,12 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
    */
   private final Map<Integer, String> parameters = new HashMap<>();
 
+  /**
+   * whether the statement is prepared in the server, which is decided when it is executed for the
+   * first time. Otherwise the parameters are bound in the client.
+   */
+  private Boolean prepared = null;
+
   IoTDBPreparedStatement(IoTDBConnection connection, Iface client,
       Long sessionId, String sql,
       ZoneId zoneId) throws SQLException {
@@ -77,19 +84,60 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
 
   @Override
   public boolean execute() throws SQLException {
+    List<String> parameterList = getParameterList(sql, parameters);
+    if (isPrepared(parameterList.size())) {
+      try {
+        return executePreparedSQL(sql, parameterList);
+      } catch (TException e) {
+        // the statement is prepared again in the new session after reconnecting
+        prepared = null;
+      }
+    }
     return super.execute(createCompleteSql(sql, parameters));
   }
 
   @Override
   public ResultSet executeQuery() throws SQLException {
+    List<String> parameterList = getParameterList(sql, parameters);
+    if (isPrepared(parameterList.size())) {
+      try {
+        executePreparedSQL(sql, parameterList);
+        return getResultSet();
+      } catch (TException e) {
+        prepared = null;
+      }
+    }
     return super.executeQuery(createCompleteSql(sql, parameters));
   }
 
   @Override
   public int executeUpdate() throws SQLException {
+    List<String> parameterList = getParameterList(sql, parameters);
+    if (isPrepared(parameterList.size())) {
+      try {
+        executePreparedSQL(sql, parameterList);
+        return 0;
+      } catch (TException e) {
+        prepared = null;
+      }
+    }
     return super.executeUpdate(createCompleteSql(sql, parameters));
   }
 
+  @Override
+  public void close() throws SQLException {
+    super.close();
+    prepared = null;
+  }
+
+  private boolean isPrepared(int parameterCount) throws SQLException {
+    if (prepared == null) {
+      // the server may count the markers differently, e.g., in a double quoted string
+      prepared = prepareSQL(sql) == parameterCount;
+    }
+    return prepared;
+  }
+
   @Override
   public ResultSetMetaData getMetaData() throws SQLException {
     throw new SQLException(METHOD_NOT_SUPPORTED_STRING);
@@ -384,6 +432,19 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
 
   }
 
+  private List<String> getParameterList(final String sql, Map<Integer, String> parameters)
+      throws SQLException {
+    int parameterCount = splitSqlStatement(sql).size() - 1;
+    List<String> parameterList = new ArrayList<>(parameterCount);
+    for (int i = 1; i <= parameterCount; i++) {
+      if (!parameters.containsKey(i)) {
+        throw new SQLException("Parameter #" + i + " is unset");
+      }
+      parameterList.add(parameters.get(i));
+    }
+    return parameterList;
+  }
+
   private List<String> splitSqlStatement(final String sql) {
     List<String> parts = new ArrayList<>();
     int apCount = 0;
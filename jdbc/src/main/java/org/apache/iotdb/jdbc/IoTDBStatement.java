@@ -215,6 +215,51 @@ public class IoTDBStatement implements Statement {
     TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
     execReq.setFetchSize(fetchSize);
     TSExecuteStatementResp execResp = client.executeStatement(execReq);
+    return setResultSet(execResp, sql);
+  }
+
+  /**
+   * Prepare the statement with parameter markers '?' in the server.
+   *
+   * @return the number of the parameters, or -1 if the statement cannot be prepared, in which case
+   * the parameters should be bound in the client
+   */
+  int prepareSQL(String sql) throws SQLException {
+    checkConnection("prepare");
+    if (stmtId == -1) {
+      return -1;
+    }
+    try {
+      TSPrepareStatementResp prepareResp = client
+          .prepareStatement(new TSPrepareStatementReq(sessionId, sql, stmtId));
+      if (prepareResp == null || prepareResp.getStatus().getStatusType().getCode()
+          != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        return -1;
+      }
+      return prepareResp.getParameterCount();
+    } catch (TException e) {
+      // the server may not support prepared statements
+      return -1;
+    }
+  }
+
+  /**
+   * Execute the statement prepared by prepareSQL with the parameters.
+   */
+  boolean executePreparedSQL(String sql, List<String> parameters)
+      throws TException, SQLException {
+    checkConnection("execute");
+    isClosed = false;
+    isCancelled = false;
+    TSExecutePreparedStatementReq execReq = new TSExecutePreparedStatementReq(sessionId, stmtId,
+        parameters);
+    execReq.setFetchSize(fetchSize);
+    TSExecuteStatementResp execResp = client.executePreparedStatement(execReq);
+    return setResultSet(execResp, sql);
+  }
+
+  private boolean setResultSet(TSExecuteStatementResp execResp, String sql)
+      throws SQLException {
     try {
       RpcUtils.verifySuccess(execResp.getStatus());
     } catch (IoTDBRPCException e) {
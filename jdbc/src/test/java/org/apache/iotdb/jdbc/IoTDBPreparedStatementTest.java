@@ -20,12 +20,14 @@ package org.apache.iotdb.jdbc;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneId;
+import java.util.Arrays;
 
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.*;
@@ -78,6 +80,33 @@ public class IoTDBPreparedStatementTest {
         argument.getValue().getStatement());
   }
 
+  @SuppressWarnings("resource")
+  @Test
+  public void preparedInServer() throws Exception {
+    TSPrepareStatementResp prepareResp = new TSPrepareStatementResp(Status_SUCCESS);
+    prepareResp.setParameterCount(2);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class))).thenReturn(prepareResp);
+    when(client.executePreparedStatement(any(TSExecutePreparedStatementReq.class)))
+        .thenReturn(execStatementResp);
+
+    String sql = "SELECT status, temperature FROM root.ln.wf01.wt01 WHERE temperature < ? and time > ?";
+    IoTDBPreparedStatement ps = new IoTDBPreparedStatement(connection, client, sessionId, sql,
+        zoneId);
+    ps.setInt(1, 123);
+    ps.setString(2, "2017-11-1 0:13:00");
+    ps.execute();
+    ps.setInt(1, 456);
+    ps.execute();
+
+    // the statement is prepared once and executed with the parameters
+    verify(client).prepareStatement(any(TSPrepareStatementReq.class));
+    ArgumentCaptor<TSExecutePreparedStatementReq> argument = ArgumentCaptor
+        .forClass(TSExecutePreparedStatementReq.class);
+    verify(client, times(2)).executePreparedStatement(argument.capture());
+    assertEquals(Arrays.asList("456", "'2017-11-1 0:13:00'"),
+        argument.getValue().getParameters());
+  }
+
   @SuppressWarnings("resource")
   @Test
   public void unusedArgument() throws SQLException {
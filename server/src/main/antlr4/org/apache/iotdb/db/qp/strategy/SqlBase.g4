@@ -67,6 +67,11 @@ statement
     | UNSET TTL TO path=prefixPath #unsetTTLStatement
     | SHOW TTL ON prefixPath (COMMA prefixPath)* #showTTLStatement
     | SHOW ALL TTL #showAllTTLStatement
+    | CREATE ROLLUP ON prefixPath GROUP BY DURATION #createRollupStatement
+    | DROP ROLLUP ON prefixPath GROUP BY DURATION #dropRollupStatement
+    | SHOW ROLLUP #showRollupStatement
+    | KILL QUERY INT #killQueryStatement
+    | EXPLAIN ANALYZE? statement #explainStatement
     | SHOW FLUSH TASK INFO #showFlushTaskInfo
     | SHOW DYNAMIC PARAMETER #showDynamicParameter
     | SHOW VERSION #showVersion
@@ -78,6 +83,7 @@ statement
     | COUNT NODES prefixPath LEVEL OPERATOR_EQ INT #countNodes
     | LOAD CONFIGURATION #loadConfigurationStatement
     | LOAD FILE autoCreateSchema? #loadFiles
+    | LOAD BULK FILE autoCreateSchema? #bulkLoadFiles
     | REMOVE FILE #removeFile
     | MOVE FILE FILE #moveFile
     | SELECT INDEX func=ID //not support yet
@@ -242,6 +248,7 @@ insertColumnSpec
 insertValuesSpec
     : LR_BRACKET dateFormat (COMMA constant)* RR_BRACKET
     | LR_BRACKET INT (COMMA constant)* RR_BRACKET
+    | LR_BRACKET QUESTION_MARK (COMMA constant)* RR_BRACKET
     ;
 
 setCol
@@ -293,12 +300,14 @@ nodeName
     | INT
     | STAR
     | STRING_LITERAL
+    | QUESTION_MARK
     ;
 
 nodeNameWithoutStar
     : INT
     | ID
     | STRING_LITERAL
+    | QUESTION_MARK
     ;
 
 dataType
@@ -316,6 +325,7 @@ constant
     | MINUS? realLiteral
     | MINUS? INT
     | STRING_LITERAL
+    | QUESTION_MARK
     ;
 
 dateExpression
@@ -621,6 +631,10 @@ LOAD
     : L O A D
     ;
 
+BULK
+    : B U L K
+    ;
+
 WATERMARK_EMBEDDING
     : W A T E R M A R K '_' E M B E D D I N G
     ;
@@ -633,6 +647,26 @@ TTL
     : T T L
     ;
 
+ROLLUP
+    : R O L L U P
+    ;
+
+KILL
+    : K I L L
+    ;
+
+QUERY
+    : Q U E R Y
+    ;
+
+EXPLAIN
+    : E X P L A I N
+    ;
+
+ANALYZE
+    : A N A L Y Z E
+    ;
+
 FLUSH
     : F L U S H
     ;
@@ -793,6 +827,8 @@ R_BRACKET : '}';
 
 UNDERLINE : '_';
 
+QUESTION_MARK : '?';
+
 STRING_LITERAL
    : DOUBLE_QUOTE_STRING_LITERAL
    | SINGLE_QUOTE_STRING_LITERAL
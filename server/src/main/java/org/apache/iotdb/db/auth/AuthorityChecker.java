@@ -63,15 +63,24 @@ public class AuthorityChecker {
       return true;
     }
     if (!paths.isEmpty()) {
-      for (Path path : paths) {
-        if (!checkOnePath(username, path, permission)) {
-          return false;
-        }
-      }
+      return checkPaths(username, paths, permission);
     } else {
       return checkOnePath(username, null, permission);
     }
-    return true;
+  }
+
+  private static boolean checkPaths(String username, List<Path> paths, int permission)
+      throws AuthException {
+    IAuthorizer authorizer = LocalFileAuthorizer.getInstance();
+    try {
+      if (authorizer.checkUserPrivileges(username, paths, permission)) {
+        return true;
+      }
+    } catch (AuthException e) {
+      logger.error("Error occurs when checking {} seriesPaths for user {}", paths.size(), username,
+          e);
+    }
+    return false;
   }
 
   private static boolean checkOnePath(String username, Path path, int permission)
@@ -18,9 +18,12 @@
  */
 package org.apache.iotdb.db.auth.authorizer;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.iotdb.db.auth.AuthException;
 import org.apache.iotdb.db.auth.entity.PrivilegeType;
 import org.apache.iotdb.db.auth.entity.Role;
@@ -32,6 +35,7 @@ import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.utils.AuthUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +55,10 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
   private IUserManager userManager;
   private IRoleManager roleManager;
 
+  // (username -> the effective privileges of the user), which is removed when the privileges of
+  // the user or its roles change
+  private Map<String, PrivilegeTrie> userPrivilegeTries = new ConcurrentHashMap<>();
+
   BasicAuthorizer(IUserManager userManager, IRoleManager roleManager) throws AuthException {
     this.userManager = userManager;
     this.roleManager = roleManager;
@@ -60,6 +68,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
   protected void init() throws AuthException {
     userManager.reset();
     roleManager.reset();
+    userPrivilegeTries.clear();
     logger.info("Initialization of Authorizer completes");
   }
 
@@ -84,6 +93,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
     if (!userManager.deleteUser(username)) {
       throw new AuthException(String.format("User %s does not exist", username));
     }
+    userPrivilegeTries.remove(username);
   }
 
   @Override
@@ -100,6 +110,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
       throw new AuthException(String.format(
           "User %s already has %s on %s", username, PrivilegeType.values()[privilegeId], path));
     }
+    userPrivilegeTries.remove(username);
   }
 
   @Override
@@ -116,6 +127,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
       throw new AuthException(String.format("User %s does not have %s on %s", username,
           PrivilegeType.values()[privilegeId], path));
     }
+    userPrivilegeTries.remove(username);
   }
 
   @Override
@@ -142,6 +154,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
               roleName, user, e);
         }
       }
+      userPrivilegeTries.clear();
     }
   }
 
@@ -156,6 +169,8 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
       throw new AuthException(String.format("Role %s already has %s on %s", roleName,
           PrivilegeType.values()[privilegeId], path));
     }
+    // the users of the role are not recorded
+    userPrivilegeTries.clear();
   }
 
   @Override
@@ -169,6 +184,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
       throw new AuthException(String.format("Role %s does not have %s on %s", roleName,
           PrivilegeType.values()[privilegeId], path));
     }
+    userPrivilegeTries.clear();
   }
 
   @Override
@@ -180,6 +196,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
     // the role may be deleted before it ts granted to the user, so a double check is necessary.
     boolean success = userManager.grantRoleToUser(roleName, username);
     if (success) {
+      userPrivilegeTries.remove(username);
       role = roleManager.getRole(roleName);
       if (role == null) {
         throw new AuthException(String.format(NO_SUCH_ROLE_EXCEPTION, roleName));
@@ -200,6 +217,7 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
       throw new AuthException(String.format("User %s does not have role %s", username,
           roleName));
     }
+    userPrivilegeTries.remove(username);
   }
 
   @Override
@@ -236,22 +254,54 @@ public abstract class BasicAuthorizer implements IAuthorizer, IService {
     if (IoTDBConstant.ADMIN_NAME.equals(username)) {
       return true;
     }
+    return getPrivilegeTrie(username).check(path, privilegeId);
+  }
+
+  @Override
+  public boolean checkUserPrivileges(String username, Collection<Path> paths, int privilegeId)
+      throws AuthException {
+    if (IoTDBConstant.ADMIN_NAME.equals(username)) {
+      return true;
+    }
+    return getPrivilegeTrie(username).checkAll(paths, privilegeId);
+  }
+
+  private PrivilegeTrie getPrivilegeTrie(String username) throws AuthException {
+    PrivilegeTrie privilegeTrie = userPrivilegeTries.get(username);
+    if (privilegeTrie != null) {
+      return privilegeTrie;
+    }
+    // the trie is built in computeIfAbsent(), so that a concurrent change of the privileges, which
+    // removes the trie after the change, cannot leave a stale one
+    AuthException[] exception = new AuthException[1];
+    privilegeTrie = userPrivilegeTries.computeIfAbsent(username, k -> {
+      try {
+        return buildPrivilegeTrie(k);
+      } catch (AuthException e) {
+        exception[0] = e;
+        return null;
+      }
+    });
+    if (privilegeTrie == null) {
+      throw exception[0];
+    }
+    return privilegeTrie;
+  }
+
+  private PrivilegeTrie buildPrivilegeTrie(String username) throws AuthException {
     User user = userManager.getUser(username);
     if (user == null) {
       throw new AuthException(String.format("No such user : %s", username));
     }
-    // get privileges of the user
-    if (user.checkPrivilege(path, privilegeId)) {
-      return true;
-    }
-    // merge the privileges of the roles of the user
+    PrivilegeTrie privilegeTrie = new PrivilegeTrie();
+    privilegeTrie.addPrivileges(user.getPrivilegeList());
     for (String roleName : user.getRoleList()) {
       Role role = roleManager.getRole(roleName);
-      if (role.checkPrivilege(path, privilegeId)) {
-        return true;
+      if (role != null) {
+        privilegeTrie.addPrivileges(role.getPrivilegeList());
       }
     }
-    return false;
+    return privilegeTrie;
   }
 
   @Override
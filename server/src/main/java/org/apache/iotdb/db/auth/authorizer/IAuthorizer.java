@@ -18,11 +18,13 @@
  */
 package org.apache.iotdb.db.auth.authorizer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import org.apache.iotdb.db.auth.AuthException;
 import org.apache.iotdb.db.auth.entity.Role;
 import org.apache.iotdb.db.auth.entity.User;
+import org.apache.iotdb.tsfile.read.common.Path;
 
 /**
  * This interface provides all authorization-relative operations.
@@ -211,6 +213,23 @@ public interface IAuthorizer {
    */
   boolean checkUserPrivileges(String username, String path, int privilegeId) throws AuthException;
 
+  /**
+   * Check if the user have the privilege on all the paths, which is faster than checking them one
+   * by one.
+   *
+   * @param username
+   *            The name of the user whose privileges are checked.
+   * @param paths
+   *            The seriesPaths on which the privilege takes effect.
+   * @param privilegeId
+   *            An integer that represents a privilege.
+   * @return True if the user has such privilege on all the paths, false otherwise.
+   * @throws AuthException
+   *             If the user does not exist.
+   */
+  boolean checkUserPrivileges(String username, Collection<Path> paths, int privilegeId)
+      throws AuthException;
+
   /**
    * Reset the Authorizer to initiative status.
    */
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.auth.authorizer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.iotdb.db.auth.entity.PathPrivilege;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+/**
+ * PrivilegeTrie holds the effective privileges of a user, including those of its roles, in a trie
+ * of the path nodes. A privilege granted on a path takes effect on the path and all the paths under
+ * it, so a path is checked by walking down its nodes instead of comparing it with every granted
+ * path. A PrivilegeTrie is not modified once built.
+ */
+public class PrivilegeTrie {
+
+  // returned by walk() when a node on the way has the privilege
+  private static final Node GRANTED = new Node();
+
+  private Node root = new Node();
+  // the privileges granted without a path
+  private Set<Integer> pathFreePrivileges = new HashSet<>();
+
+  public void addPrivileges(List<PathPrivilege> privilegeList) {
+    if (privilegeList == null) {
+      return;
+    }
+    for (PathPrivilege pathPrivilege : privilegeList) {
+      if (pathPrivilege.getPath() == null) {
+        pathFreePrivileges.addAll(pathPrivilege.getPrivileges());
+        continue;
+      }
+      Node node = root;
+      for (String nodeName : pathPrivilege.getPath().split("\\" + IoTDBConstant.PATH_SEPARATOR)) {
+        node = node.children.computeIfAbsent(nodeName, k -> new Node());
+      }
+      node.privileges.addAll(pathPrivilege.getPrivileges());
+    }
+  }
+
+  /**
+   * @param path the path to be checked, or null for a path-free privilege
+   * @return whether the privilege is granted on the path or its ancestors
+   */
+  public boolean check(String path, int privilegeId) {
+    if (path == null) {
+      return pathFreePrivileges.contains(privilegeId);
+    }
+    return walk(path, path.length(), privilegeId) == GRANTED;
+  }
+
+  /**
+   * check the paths together. The paths of a device are usually adjacent, so the walk down to the
+   * device is shared by them.
+   *
+   * @return whether the privilege is granted on all the paths
+   */
+  public boolean checkAll(Collection<Path> paths, int privilegeId) {
+    String lastParent = null;
+    Node parent = null;
+    for (Path path : paths) {
+      String fullPath = path.getFullPath();
+      int split = fullPath.lastIndexOf(IoTDBConstant.PATH_SEPARATOR);
+      if (split < 0) {
+        if (!check(fullPath, privilegeId)) {
+          return false;
+        }
+        continue;
+      }
+      if (lastParent == null || split != lastParent.length() || !fullPath
+          .startsWith(lastParent)) {
+        lastParent = fullPath.substring(0, split);
+        parent = walk(fullPath, split, privilegeId);
+      }
+      if (parent == GRANTED) {
+        continue;
+      }
+      Node node = parent == null ? null : parent.children.get(fullPath.substring(split + 1));
+      if (node == null || !node.privileges.contains(privilegeId)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * walk down the nodes of path[0, end).
+   *
+   * @return GRANTED if a node on the way has the privilege, otherwise the last node, or null if
+   * the nodes are not all in the trie
+   */
+  private Node walk(String path, int end, int privilegeId) {
+    Node node = root;
+    int start = 0;
+    while (node != null && start <= end) {
+      int separator = path.indexOf(IoTDBConstant.PATH_SEPARATOR, start);
+      if (separator < 0 || separator > end) {
+        separator = end;
+      }
+      node = node.children.get(path.substring(start, separator));
+      if (node != null && node.privileges.contains(privilegeId)) {
+        return GRANTED;
+      }
+      start = separator + 1;
+    }
+    return node;
+  }
+
+  private static class Node {
+
+    private Map<String, Node> children = new HashMap<>();
+    private Set<Integer> privileges = new HashSet<>();
+  }
+}
@@ -41,8 +41,10 @@ public enum ThreadName {
   SYNC_SERVER("Sync-Server"),
   SYNC_MONITOR("Sync-Monitor"),
   LOAD_TSFILE("Load TsFile"),
+  BULK_LOAD_TSFILE("Bulk-Load-TsFile"),
   TIME_COST_STATSTIC("TIME_COST_STATSTIC"),
-  QUERY_SERVICE("Query-ServerServiceImpl");
+  QUERY_SERVICE("Query-ServerServiceImpl"),
+  METADATA_SNAPSHOT("Metadata-Snapshot-Thread");
 
   private String name;
 
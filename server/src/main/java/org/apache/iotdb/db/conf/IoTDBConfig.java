@@ -24,6 +24,7 @@ import org.apache.iotdb.db.exception.LoadConfigurationException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.service.TSServiceImpl;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
 import org.slf4j.Logger;
@@ -139,6 +140,27 @@ public class IoTDBConfig {
    */
   private String[] dataDirs = {"data/data"};
 
+  /**
+   * Directories of cold data. Sealed TsFiles whose data are all older than coldDataAgeThresholdMs
+   * are moved from dataDirs to them. When empty, TsFiles are never moved.
+   */
+  private String[] coldDataDirs = {};
+
+  /**
+   * TsFiles become cold when their largest timestamp is older than this (in ms).
+   */
+  private long coldDataAgeThresholdMs = 7 * 24 * 3600 * 1000L;
+
+  /**
+   * The compressor of the moved cold TsFiles, null if they are copied without recompression.
+   */
+  private CompressionType coldDataCompressor = null;
+
+  /**
+   * How often (in seconds) the TsFiles are checked to be moved to coldDataDirs.
+   */
+  private long tierMigrationIntervalSec = 3600;
+
   /**
    * Strategy of multiple directories.
    */
@@ -219,6 +241,13 @@ public class IoTDBConfig {
    */
   private int mManagerCacheSize = 400000;
 
+  /**
+   * A binary snapshot of the metadata is taken every such number of operations in the mlog, so
+   * that MManager only replays the operations after the snapshot when it starts. Non-positive
+   * values disable the snapshot.
+   */
+  private int mlogSnapshotInterval = 100000;
+
   /**
    * Is external sort enable.
    */
@@ -249,6 +278,30 @@ public class IoTDBConfig {
    */
   private long cacheFileReaderClearPeriod = 100000;
 
+  /**
+   * The max number of opened file readers. When it is exceeded, the least recently used readers
+   * that are not used by any query are closed.
+   */
+  private int maxOpenedFileReaderNum = 30000;
+
+  /**
+   * The max time a query may run before it is aborted, in milliseconds. When less than or equal to
+   * 0, queries never time out.
+   */
+  private long queryTimeoutInMs = 0;
+
+  /**
+   * The max time a query waits for the query memory to be released by other queries before it is
+   * rejected, in milliseconds.
+   */
+  private long maxQueryMemoryWaitTimeInMs = 10000;
+
+  /**
+   * The queries taking longer than this time are logged into the slow query log, in milliseconds.
+   * When less than or equal to 0, the slow queries are not logged.
+   */
+  private long slowQueryThresholdInMs = 5000;
+
   /**
    * Replace implementation class of JDBC service
    */
@@ -343,6 +396,11 @@ public class IoTDBConfig {
    */
   private int upgradeThreadNum = 1;
 
+  /**
+   * How many threads will be set up to rewrite the files of a bulk load.
+   */
+  private int bulkLoadThreadNum = Runtime.getRuntime().availableProcessors();
+
   /**
    * How many threads will be set up to perform main merge tasks.
    */
@@ -386,6 +444,36 @@ public class IoTDBConfig {
    */
   private int chunkMergePointThreshold = 20480;
 
+  /**
+   * Adjacent sequence TsFiles smaller than this size (in byte) in the same time partition are
+   * compacted into larger ones until the compacted files reach this size. When less than or equal
+   * to 0, the compaction of sequence files is disabled.
+   */
+  private long seqFileCompactionSizeThreshold = 16 * 1024 * 1024L;
+
+  /**
+   * Adjacent small sequence TsFiles are not compacted until there are at least so many of them.
+   */
+  private int seqFileCompactionMinFileNum = 10;
+
+  /**
+   * At most so many sequence TsFiles are compacted into one file in a compaction.
+   */
+  private int seqFileCompactionMaxFileNum = 100;
+
+  /**
+   * The disk bandwidth (in MB per second) shared by all merges and compactions, which is spent on
+   * the chunks they read and write. When less than or equal to 0, the bandwidth is unlimited.
+   */
+  private int mergeThroughputMbPerSec = 0;
+
+  /**
+   * While the recent average latency of queries or batch insertions exceeds this threshold (in ms),
+   * merges and compactions pause before reading or writing each chunk, for at most one second each
+   * time. When less than or equal to 0, merges never back off.
+   */
+  private long mergeBackoffLatencyThresholdMs = 0;
+
   private MergeFileStrategy mergeFileStrategy = MergeFileStrategy.MAX_SERIES_NUM;
 
   /**
@@ -523,11 +611,17 @@ public class IoTDBConfig {
       for (int i = 0; i < dataDirs.length; i++) {
         dataDirs[i] = hdfsDir + File.separatorChar + dataDirs[i];
       }
+      for (int i = 0; i < coldDataDirs.length; i++) {
+        coldDataDirs[i] = hdfsDir + File.separatorChar + coldDataDirs[i];
+      }
     } else {
       queryDir = addHomeDir(queryDir);
       for (int i = 0; i < dataDirs.length; i++) {
         dataDirs[i] = addHomeDir(dataDirs[i]);
       }
+      for (int i = 0; i < coldDataDirs.length; i++) {
+        coldDataDirs[i] = addHomeDir(coldDataDirs[i]);
+      }
     }
   }
 
@@ -594,6 +688,38 @@ public class IoTDBConfig {
     this.dataDirs = dataDirs;
   }
 
+  public String[] getColdDataDirs() {
+    return coldDataDirs;
+  }
+
+  public void setColdDataDirs(String[] coldDataDirs) {
+    this.coldDataDirs = coldDataDirs;
+  }
+
+  public long getColdDataAgeThresholdMs() {
+    return coldDataAgeThresholdMs;
+  }
+
+  public void setColdDataAgeThresholdMs(long coldDataAgeThresholdMs) {
+    this.coldDataAgeThresholdMs = coldDataAgeThresholdMs;
+  }
+
+  public CompressionType getColdDataCompressor() {
+    return coldDataCompressor;
+  }
+
+  public void setColdDataCompressor(CompressionType coldDataCompressor) {
+    this.coldDataCompressor = coldDataCompressor;
+  }
+
+  public long getTierMigrationIntervalSec() {
+    return tierMigrationIntervalSec;
+  }
+
+  public void setTierMigrationIntervalSec(long tierMigrationIntervalSec) {
+    this.tierMigrationIntervalSec = tierMigrationIntervalSec;
+  }
+
   public int getMetricsPort() {
     return metricsPort;
   }
@@ -786,6 +912,14 @@ public class IoTDBConfig {
     this.mManagerCacheSize = mManagerCacheSize;
   }
 
+  public int getMlogSnapshotInterval() {
+    return mlogSnapshotInterval;
+  }
+
+  public void setMlogSnapshotInterval(int mlogSnapshotInterval) {
+    this.mlogSnapshotInterval = mlogSnapshotInterval;
+  }
+
   public boolean isSyncEnable() {
     return isSyncEnable;
   }
@@ -834,6 +968,38 @@ public class IoTDBConfig {
     this.cacheFileReaderClearPeriod = cacheFileReaderClearPeriod;
   }
 
+  public int getMaxOpenedFileReaderNum() {
+    return maxOpenedFileReaderNum;
+  }
+
+  public void setMaxOpenedFileReaderNum(int maxOpenedFileReaderNum) {
+    this.maxOpenedFileReaderNum = maxOpenedFileReaderNum;
+  }
+
+  public long getQueryTimeoutInMs() {
+    return queryTimeoutInMs;
+  }
+
+  public void setQueryTimeoutInMs(long queryTimeoutInMs) {
+    this.queryTimeoutInMs = queryTimeoutInMs;
+  }
+
+  public long getMaxQueryMemoryWaitTimeInMs() {
+    return maxQueryMemoryWaitTimeInMs;
+  }
+
+  public void setMaxQueryMemoryWaitTimeInMs(long maxQueryMemoryWaitTimeInMs) {
+    this.maxQueryMemoryWaitTimeInMs = maxQueryMemoryWaitTimeInMs;
+  }
+
+  public long getSlowQueryThresholdInMs() {
+    return slowQueryThresholdInMs;
+  }
+
+  public void setSlowQueryThresholdInMs(long slowQueryThresholdInMs) {
+    this.slowQueryThresholdInMs = slowQueryThresholdInMs;
+  }
+
   public boolean isReadOnly() {
     return readOnly;
   }
@@ -978,6 +1144,46 @@ public class IoTDBConfig {
     this.chunkMergePointThreshold = chunkMergePointThreshold;
   }
 
+  public long getSeqFileCompactionSizeThreshold() {
+    return seqFileCompactionSizeThreshold;
+  }
+
+  public void setSeqFileCompactionSizeThreshold(long seqFileCompactionSizeThreshold) {
+    this.seqFileCompactionSizeThreshold = seqFileCompactionSizeThreshold;
+  }
+
+  public int getSeqFileCompactionMinFileNum() {
+    return seqFileCompactionMinFileNum;
+  }
+
+  public void setSeqFileCompactionMinFileNum(int seqFileCompactionMinFileNum) {
+    this.seqFileCompactionMinFileNum = seqFileCompactionMinFileNum;
+  }
+
+  public int getSeqFileCompactionMaxFileNum() {
+    return seqFileCompactionMaxFileNum;
+  }
+
+  public void setSeqFileCompactionMaxFileNum(int seqFileCompactionMaxFileNum) {
+    this.seqFileCompactionMaxFileNum = seqFileCompactionMaxFileNum;
+  }
+
+  public int getMergeThroughputMbPerSec() {
+    return mergeThroughputMbPerSec;
+  }
+
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    this.mergeThroughputMbPerSec = mergeThroughputMbPerSec;
+  }
+
+  public long getMergeBackoffLatencyThresholdMs() {
+    return mergeBackoffLatencyThresholdMs;
+  }
+
+  public void setMergeBackoffLatencyThresholdMs(long mergeBackoffLatencyThresholdMs) {
+    this.mergeBackoffLatencyThresholdMs = mergeBackoffLatencyThresholdMs;
+  }
+
   public long getMemtableSizeThreshold() {
     return memtableSizeThreshold;
   }
@@ -1253,6 +1459,14 @@ public class IoTDBConfig {
     this.upgradeThreadNum = upgradeThreadNum;
   }
 
+  public int getBulkLoadThreadNum() {
+    return bulkLoadThreadNum;
+  }
+
+  public void setBulkLoadThreadNum(int bulkLoadThreadNum) {
+    this.bulkLoadThreadNum = bulkLoadThreadNum;
+  }
+
   public String getDfsNameServices() {
     return dfsNameServices;
   }
@@ -30,6 +30,7 @@ import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -139,6 +140,14 @@ public class IoTDBDescriptor {
       conf.setMetaDataCacheEnable(
           Boolean.parseBoolean(properties.getProperty("meta_data_cache_enable",
               Boolean.toString(conf.isMetaDataCacheEnable()))));
+      conf.setMaxOpenedFileReaderNum(Integer.parseInt(properties.getProperty(
+          "max_opened_file_reader_num", Integer.toString(conf.getMaxOpenedFileReaderNum()))));
+      conf.setQueryTimeoutInMs(Long.parseLong(properties.getProperty("query_timeout_in_ms",
+          Long.toString(conf.getQueryTimeoutInMs()))));
+      conf.setMaxQueryMemoryWaitTimeInMs(Long.parseLong(properties.getProperty(
+          "max_query_memory_wait_time_in_ms", Long.toString(conf.getMaxQueryMemoryWaitTimeInMs()))));
+      conf.setSlowQueryThresholdInMs(Long.parseLong(properties.getProperty(
+          "slow_query_threshold_in_ms", Long.toString(conf.getSlowQueryThresholdInMs()))));
 
       initMemoryAllocate(properties);
 
@@ -157,6 +166,16 @@ public class IoTDBDescriptor {
       conf.setDataDirs(properties.getProperty("data_dirs", conf.getDataDirs()[0])
           .split(","));
 
+      String coldDataDirs = properties.getProperty("cold_data_dirs", "").trim();
+      conf.setColdDataDirs(coldDataDirs.isEmpty() ? new String[0] : coldDataDirs.split(","));
+      conf.setColdDataAgeThresholdMs(Long.parseLong(properties.getProperty(
+          "cold_data_age_threshold_ms", Long.toString(conf.getColdDataAgeThresholdMs()))));
+      String coldDataCompressor = properties.getProperty("cold_data_compressor", "").trim();
+      conf.setColdDataCompressor(
+          coldDataCompressor.isEmpty() ? null : CompressionType.valueOf(coldDataCompressor));
+      conf.setTierMigrationIntervalSec(Long.parseLong(properties.getProperty(
+          "tier_migration_interval_sec", Long.toString(conf.getTierMigrationIntervalSec()))));
+
       conf.setWalFolder(properties.getProperty("wal_dir", conf.getWalFolder()));
 
       int walBufferSize = Integer.parseInt(properties.getProperty("wal_buffer_size",
@@ -207,6 +226,10 @@ public class IoTDBDescriptor {
           .parseInt(properties.getProperty("schema_manager_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
 
+      conf.setMlogSnapshotInterval(Integer
+          .parseInt(properties.getProperty("mlog_snapshot_interval",
+              Integer.toString(conf.getMlogSnapshotInterval())).trim()));
+
       conf.setLanguageVersion(properties.getProperty("language_version",
           conf.getLanguageVersion()).trim());
 
@@ -225,6 +248,11 @@ public class IoTDBDescriptor {
               Integer.toString(conf.getExternalSortThreshold()))));
       conf.setUpgradeThreadNum(Integer.parseInt(properties.getProperty("upgrade_thread_num",
           Integer.toString(conf.getUpgradeThreadNum()))));
+      conf.setBulkLoadThreadNum(Integer.parseInt(properties.getProperty("bulk_load_thread_num",
+          Integer.toString(conf.getBulkLoadThreadNum()))));
+      if (conf.getBulkLoadThreadNum() <= 0) {
+        conf.setBulkLoadThreadNum(Runtime.getRuntime().availableProcessors());
+      }
       conf.setMergeMemoryBudget(Long.parseLong(properties.getProperty("merge_memory_budget",
           Long.toString(conf.getMergeMemoryBudget()))));
       conf.setMergeThreadNum(Integer.parseInt(properties.getProperty("merge_thread_num",
@@ -243,6 +271,21 @@ public class IoTDBDescriptor {
           Boolean.toString(conf.isForceFullMerge()))));
       conf.setChunkMergePointThreshold(Integer.parseInt(properties.getProperty(
           "chunk_merge_point_threshold", Integer.toString(conf.getChunkMergePointThreshold()))));
+      conf.setSeqFileCompactionSizeThreshold(Long.parseLong(properties.getProperty(
+          "seq_file_compaction_size_threshold",
+          Long.toString(conf.getSeqFileCompactionSizeThreshold()))));
+      conf.setSeqFileCompactionMinFileNum(Integer.parseInt(properties.getProperty(
+          "seq_file_compaction_min_file_num",
+          Integer.toString(conf.getSeqFileCompactionMinFileNum()))));
+      conf.setSeqFileCompactionMaxFileNum(Integer.parseInt(properties.getProperty(
+          "seq_file_compaction_max_file_num",
+          Integer.toString(conf.getSeqFileCompactionMaxFileNum()))));
+      conf.setMergeThroughputMbPerSec(Integer.parseInt(properties.getProperty(
+          "merge_throughput_mb_per_sec",
+          Integer.toString(conf.getMergeThroughputMbPerSec()))));
+      conf.setMergeBackoffLatencyThresholdMs(Long.parseLong(properties.getProperty(
+          "merge_backoff_latency_threshold_ms",
+          Long.toString(conf.getMergeBackoffLatencyThresholdMs()))));
 
       conf.setEnablePerformanceStat(Boolean
           .parseBoolean(properties.getProperty("enable_performance_stat",
@@ -430,6 +473,12 @@ public class IoTDBDescriptor {
             TSFileDescriptor.getInstance().getConfig().getValueEncoder()));
     TSFileDescriptor.getInstance().getConfig().setCompressor(properties
         .getProperty("compressor", TSFileDescriptor.getInstance().getConfig().getCompressor()));
+    TSFileDescriptor.getInstance().getConfig().setAdaptiveEncoding(Boolean.parseBoolean(properties
+        .getProperty("adaptive_encoding",
+            Boolean.toString(TSFileDescriptor.getInstance().getConfig().isAdaptiveEncoding()))));
+    TSFileDescriptor.getInstance().getConfig().setAdaptiveEncodingSampleSize(Integer
+        .parseInt(properties.getProperty("adaptive_encoding_sample_size", Integer.toString(
+            TSFileDescriptor.getInstance().getConfig().getAdaptiveEncodingSampleSize()))));
   }
 
   public void loadHotModifiedProps() throws QueryProcessException {
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.strategy.DirectoryStrategy;
 import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
 import org.apache.iotdb.db.exception.LoadConfigurationException;
+import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,12 @@ public class DirectoryManager {
   private List<String> unsequenceFileFolders;
   private DirectoryStrategy sequenceStrategy;
   private DirectoryStrategy unsequenceStrategy;
+  // the folders of cold data, to which sealed TsFiles are moved when their data get old
+  private List<String> coldSequenceFileFolders;
+  private List<String> coldUnsequenceFileFolders;
+  // null if there are no cold folders or they are all full
+  private DirectoryStrategy coldSequenceStrategy;
+  private DirectoryStrategy coldUnsequenceStrategy;
 
   private DirectoryManager() {
     sequenceFileFolders =
@@ -73,6 +80,51 @@ public class DirectoryManager {
     } catch (Exception e) {
       logger.error("Can't find strategy {} for mult-directories.", strategyName, e);
     }
+
+    updateColdFileFolders();
+  }
+
+  /**
+   * reload the cold folders and their strategies from the config.
+   */
+  public void updateColdFileFolders() {
+    List<String> sequenceFolders = new ArrayList<>();
+    List<String> unsequenceFolders = new ArrayList<>();
+    for (String coldDataDir : IoTDBDescriptor.getInstance().getConfig().getColdDataDirs()) {
+      sequenceFolders.add(coldDataDir + File.separator + IoTDBConstant.SEQUENCE_FLODER_NAME);
+      unsequenceFolders.add(coldDataDir + File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME);
+    }
+    mkDataDirs(sequenceFolders);
+    mkDataDirs(unsequenceFolders);
+    String strategyName = IoTDBDescriptor.getInstance().getConfig().getMultiDirStrategyClassName();
+    coldSequenceStrategy = createColdStrategy(strategyName, sequenceFolders);
+    coldUnsequenceStrategy = createColdStrategy(strategyName, unsequenceFolders);
+    coldSequenceFileFolders = sequenceFolders;
+    coldUnsequenceFileFolders = unsequenceFolders;
+  }
+
+  /**
+   * @return the strategy of the cold folders, or null if there are no cold folders or they are all
+   * full, in which case TsFiles are not moved
+   */
+  private DirectoryStrategy createColdStrategy(String strategyName, List<String> folders) {
+    if (folders.isEmpty()) {
+      return null;
+    }
+    // DirectoryStrategy.setFolders() turns the system read-only if all folders are full, which is
+    // not necessary for cold folders, as TsFiles can stay where they are
+    if (folders.stream().noneMatch(CommonUtils::hasSpace)) {
+      logger.error("All disks of cold folders {} are full, TsFiles will not be moved.", folders);
+      return null;
+    }
+    try {
+      DirectoryStrategy strategy = (DirectoryStrategy) Class.forName(strategyName).newInstance();
+      strategy.setFolders(folders);
+      return strategy;
+    } catch (Exception e) {
+      logger.error("Can't create strategy {} for cold folders {}.", strategyName, folders, e);
+      return null;
+    }
   }
 
   public void updateFileFolders() throws LoadConfigurationException {
@@ -148,8 +200,46 @@ public class DirectoryManager {
     return sequenceFileFolders.get(index);
   }
 
+  /**
+   * @return the folders of sequence files, the cold folders follow the others
+   */
   public List<String> getAllSequenceFileFolders() {
-    return new ArrayList<>(sequenceFileFolders);
+    List<String> folders = new ArrayList<>(sequenceFileFolders);
+    folders.addAll(coldSequenceFileFolders);
+    return folders;
+  }
+
+  public boolean hasColdFolders() {
+    return !coldSequenceFileFolders.isEmpty();
+  }
+
+  public boolean isColdFolder(File folder) {
+    List<String> coldFolders = new ArrayList<>(coldSequenceFileFolders);
+    coldFolders.addAll(coldUnsequenceFileFolders);
+    for (String coldFolder : coldFolders) {
+      if (FSFactoryProducer.getFSFactory().getFile(coldFolder).getAbsoluteFile()
+          .equals(folder.getAbsoluteFile())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the cold folder where a sequence file is moved to, or null if there is no such folder
+   */
+  public String getNextFolderForColdSequenceFile() throws DiskSpaceInsufficientException {
+    return coldSequenceStrategy == null ? null
+        : coldSequenceFileFolders.get(coldSequenceStrategy.nextFolderIndex());
+  }
+
+  /**
+   * @return the cold folder where an unsequence file is moved to, or null if there is no such
+   * folder
+   */
+  public String getNextFolderForColdUnSequenceFile() throws DiskSpaceInsufficientException {
+    return coldUnsequenceStrategy == null ? null
+        : coldUnsequenceFileFolders.get(coldUnsequenceStrategy.nextFolderIndex());
   }
 
   private static class DirectoriesHolder {
@@ -182,8 +272,13 @@ public class DirectoryManager {
     return unsequenceFileFolders.indexOf(folder);
   }
 
+  /**
+   * @return the folders of unsequence files, the cold folders follow the others
+   */
   public List<String> getAllUnSequenceFileFolders() {
-    return new ArrayList<>(unsequenceFileFolders);
+    List<String> folders = new ArrayList<>(unsequenceFileFolders);
+    folders.addAll(coldUnsequenceFileFolders);
+    return folders;
   }
 
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
@@ -89,6 +90,29 @@ public class Measurement implements MeasurementMBean, IService {
    */
   private long[][] operationHistogram;
 
+  /**
+   * the weight of a new latency in the recent latency of its operation.
+   */
+  private static final double RECENT_LATENCY_WEIGHT = 0.1;
+
+  /**
+   * the recent latency of an operation expires if the operation is not executed for so long.
+   */
+  private static final long RECENT_LATENCY_EXPIRE_MS = 5000;
+
+  /**
+   * the exponentially weighted moving average of the latencies of each operation in ms, stored as
+   * the bits of doubles. Unlike the statistics above, they are maintained even if the statistics
+   * are disabled, so that background tasks like merges can back off under load.
+   */
+  private AtomicLongArray recentLatencies = new AtomicLongArray(Operation.values().length);
+
+  /**
+   * the time of the last update of each recent latency.
+   */
+  private AtomicLongArray recentLatencyUpdateTimes = new AtomicLongArray(
+      Operation.values().length);
+
   /**
    * display thread and queue consumer thread.
    */
@@ -145,12 +169,41 @@ public class Measurement implements MeasurementMBean, IService {
   }
 
   public boolean addOperationLatency(Operation op, long startTime) {
+    long currentTime = System.currentTimeMillis();
+    updateRecentLatency(op, currentTime - startTime, currentTime);
     if (isEnableStat && operationSwitch.get(op.getName())) {
-      return operationLatenciesQueue[op.ordinal()].put((System.currentTimeMillis() - startTime));
+      return operationLatenciesQueue[op.ordinal()].put((currentTime - startTime));
     }
     return false;
   }
 
+  private void updateRecentLatency(Operation op, long latency, long currentTime) {
+    int idx = op.ordinal();
+    boolean expired = currentTime - recentLatencyUpdateTimes.get(idx) > RECENT_LATENCY_EXPIRE_MS;
+    long prevBits;
+    long newBits;
+    do {
+      prevBits = recentLatencies.get(idx);
+      double newLatency = expired ? latency : Double.longBitsToDouble(prevBits) * (1
+          - RECENT_LATENCY_WEIGHT) + latency * RECENT_LATENCY_WEIGHT;
+      newBits = Double.doubleToLongBits(newLatency);
+    } while (!recentLatencies.compareAndSet(idx, prevBits, newBits));
+    recentLatencyUpdateTimes.set(idx, currentTime);
+  }
+
+  /**
+   * @return the moving average of the recent latencies of the operation in ms, or 0 if the
+   * operation is not executed recently
+   */
+  public double getRecentLatency(Operation op) {
+    int idx = op.ordinal();
+    if (System.currentTimeMillis() - recentLatencyUpdateTimes.get(idx)
+        > RECENT_LATENCY_EXPIRE_MS) {
+      return 0;
+    }
+    return Double.longBitsToDouble(recentLatencies.get(idx));
+  }
+
   @Override
   public void startStatistics() {
     stateChangeLock.lock();
@@ -37,10 +37,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -97,6 +99,8 @@ public class StorageEngine implements IService {
   }
 
   private ScheduledExecutorService ttlCheckThread;
+  // moves old TsFiles to the cold data directories, null if there are no such directories
+  private ScheduledExecutorService tierMigrationThread;
   private TsFileFlushPolicy fileFlushPolicy = new DirectFlushPolicy();
 
   private StorageEngine() {
@@ -142,6 +146,22 @@ public class StorageEngine implements IService {
     ttlCheckThread = Executors.newSingleThreadScheduledExecutor();
     ttlCheckThread.scheduleAtFixedRate(this::checkTTL, TTL_CHECK_INTERVAL, TTL_CHECK_INTERVAL
         , TimeUnit.MILLISECONDS);
+    if (DirectoryManager.getInstance().hasColdFolders()) {
+      long interval = config.getTierMigrationIntervalSec();
+      tierMigrationThread = Executors.newSingleThreadScheduledExecutor();
+      tierMigrationThread.scheduleAtFixedRate(this::migrateColdFiles, interval, interval,
+          TimeUnit.SECONDS);
+    }
+  }
+
+  private void migrateColdFiles() {
+    try {
+      for (StorageGroupProcessor processor : processorMap.values()) {
+        processor.migrateColdFiles();
+      }
+    } catch (Exception e) {
+      logger.error("An error occurred when migrating cold files", e);
+    }
   }
 
   private void checkTTL() {
@@ -160,6 +180,9 @@ public class StorageEngine implements IService {
   public void stop() {
     syncCloseAllProcessor();
     ttlCheckThread.shutdownNow();
+    if (tierMigrationThread != null) {
+      tierMigrationThread.shutdownNow();
+    }
     recoveryThreadPool.shutdownNow();
     this.reset();
     try {
@@ -167,6 +190,14 @@ public class StorageEngine implements IService {
     } catch (InterruptedException e) {
       logger.warn("TTL check thread still doesn't exit after 30s");
     }
+    if (tierMigrationThread != null) {
+      try {
+        tierMigrationThread.awaitTermination(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        logger.warn("Tier migration thread still doesn't exit after 30s");
+      }
+      tierMigrationThread = null;
+    }
   }
 
   @Override
@@ -233,6 +264,8 @@ public class StorageEngine implements IService {
     } catch (QueryProcessException e) {
       throw new QueryProcessException(e);
     }
+    RollupManager.getInstance().onInsert(insertPlan.getDeviceId(), insertPlan.getMeasurements(),
+        insertPlan.getTime(), insertPlan.getTime());
   }
 
   /**
@@ -252,11 +285,16 @@ public class StorageEngine implements IService {
     }
 
     // TODO monitor: update statistics
+    Integer[] results;
     try {
-      return storageGroupProcessor.insertBatch(batchInsertPlan);
+      results = storageGroupProcessor.insertBatch(batchInsertPlan);
     } catch (QueryProcessException e) {
       throw new StorageEngineException(e);
     }
+    RollupManager.getInstance().onInsert(batchInsertPlan.getDeviceId(),
+        batchInsertPlan.getMeasurements(), batchInsertPlan.getMinTime(),
+        batchInsertPlan.getMaxTime());
+    return results;
   }
 
   /**
@@ -316,6 +354,7 @@ public class StorageEngine implements IService {
     } catch (IOException e) {
       throw new StorageEngineException(e.getMessage());
     }
+    RollupManager.getInstance().onDelete(deviceId, measurementId, timestamp);
   }
 
   /**
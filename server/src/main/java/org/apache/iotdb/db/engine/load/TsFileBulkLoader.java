@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.load;
+
+import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.TsFileProcessorException;
+import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.utils.MergeUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TsFileBulkLoader loads arbitrary TsFiles, e.g., the ones generated offline by TsFileWriter for
+ * backfills, without going through the WAL and the memtables. Unlike loading a file as it is, the
+ * files need not be aligned to the storage groups and the time partitions of the server:
+ *        1. the chunks of the files are split by the storage groups of their devices and the time
+ *        partitions of their data
+ *        2. the chunks of each time partition of a storage group are rewritten into a new TsFile
+ *        in parallel, a chunk is copied as it is if all of its data are in the partition,
+ *        otherwise the data in the partition are decoded and encoded again
+ *        3. the new files of a storage group are registered all at once, and each of them is
+ *        placed into the sequence files unless it overlaps them or its own chunks overlap
+ * The source files are left untouched.
+ */
+public class TsFileBulkLoader {
+
+  public static final String BULK_LOAD_DIR_NAME = "bulk_load";
+  private static final Logger logger = LoggerFactory.getLogger(TsFileBulkLoader.class);
+  private static final AtomicLong TASK_ID = new AtomicLong();
+
+  private List<File> sourceFiles;
+  private File tempDir;
+
+  /**
+   * storage group -> time partition -> the chunks of the partition
+   */
+  private Map<String, Map<Long, PartitionChunks>> partitionChunksMap = new TreeMap<>();
+
+  public TsFileBulkLoader(List<File> sourceFiles) {
+    this.sourceFiles = sourceFiles;
+    this.tempDir = FSFactoryProducer.getFSFactory().getFile(
+        IoTDBDescriptor.getInstance().getConfig().getSystemDir(),
+        BULK_LOAD_DIR_NAME + File.separator + System.currentTimeMillis()
+            + IoTDBConstant.TSFILE_NAME_SEPARATOR + TASK_ID.getAndIncrement());
+  }
+
+  /**
+   * @return the number of files loaded into the storage groups
+   */
+  public int load()
+      throws IOException, StorageEngineException, StorageGroupException, TsFileProcessorException {
+    long startTime = System.currentTimeMillis();
+    try {
+      for (int i = 0; i < sourceFiles.size(); i++) {
+        splitChunks(i);
+      }
+      Map<String, List<PartitionFile>> newFiles = rewriteChunks();
+      int fileNum = 0;
+      for (Entry<String, List<PartitionFile>> entry : newFiles.entrySet()) {
+        List<TsFileResource> seqCandidates = new ArrayList<>();
+        List<TsFileResource> unseqFiles = new ArrayList<>();
+        for (PartitionFile partitionFile : entry.getValue()) {
+          if (partitionFile.overlapped) {
+            unseqFiles.add(partitionFile.resource);
+          } else {
+            seqCandidates.add(partitionFile.resource);
+          }
+        }
+        StorageEngine.getInstance().getProcessor(entry.getKey())
+            .loadBulkTsFiles(seqCandidates, unseqFiles);
+        fileNum += entry.getValue().size();
+      }
+      logger.info("Bulk load of {} files ends after {}ms, {} files are loaded", sourceFiles.size(),
+          System.currentTimeMillis() - startTime, fileNum);
+      return fileNum;
+    } finally {
+      FileUtils.deleteDirectory(tempDir);
+    }
+  }
+
+  /**
+   * assign the chunks of a source file to the time partitions of the storage groups.
+   */
+  private void splitChunks(int fileIndex)
+      throws IOException, StorageEngineException, StorageGroupException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        sourceFiles.get(fileIndex).getAbsolutePath())) {
+      TsFileMetaData fileMetaData = reader.readFileMetadata();
+      Map<String, MeasurementSchema> schemaMap = fileMetaData.getMeasurementSchema();
+      for (Entry<String, TsDeviceMetadataIndex> entry : fileMetaData.getDeviceMap().entrySet()) {
+        String device = entry.getKey();
+        String storageGroup = MManager.getInstance().getStorageGroupNameByPath(device);
+        long partitionInterval = StorageEngine.getInstance().getProcessor(storageGroup)
+            .getTimePartitionInterval();
+        Map<Long, PartitionChunks> sgPartitions = partitionChunksMap
+            .computeIfAbsent(storageGroup, k -> new TreeMap<>());
+        for (ChunkGroupMetaData chunkGroupMetaData : reader.readTsDeviceMetaData(entry.getValue())
+            .getChunkGroupMetaDataList()) {
+          for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+            SourceChunk sourceChunk = new SourceChunk(fileIndex, chunkMetaData,
+                schemaMap.get(chunkMetaData.getMeasurementUid()));
+            long firstPartition = chunkMetaData.getStartTime() / partitionInterval;
+            long lastPartition = chunkMetaData.getEndTime() / partitionInterval;
+            for (long partition = firstPartition; partition <= lastPartition; partition++) {
+              sgPartitions.computeIfAbsent(partition,
+                  k -> new PartitionChunks(storageGroup, k, partitionInterval))
+                  .add(device, sourceChunk);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return storage group -> the rewritten files of its time partitions
+   */
+  private Map<String, List<PartitionFile>> rewriteChunks()
+      throws IOException, StorageEngineException {
+    ExecutorService pool = IoTDBThreadPoolFactory.newFixedThreadPool(
+        IoTDBDescriptor.getInstance().getConfig().getBulkLoadThreadNum(),
+        ThreadName.BULK_LOAD_TSFILE.getName());
+    try {
+      List<Future<PartitionFile>> futures = new ArrayList<>();
+      for (Map<Long, PartitionChunks> sgPartitions : partitionChunksMap.values()) {
+        for (PartitionChunks partitionChunks : sgPartitions.values()) {
+          futures.add(pool.submit(partitionChunks::rewrite));
+        }
+      }
+      Map<String, List<PartitionFile>> newFiles = new TreeMap<>();
+      for (Future<PartitionFile> future : futures) {
+        PartitionFile partitionFile = future.get();
+        if (partitionFile != null) {
+          newFiles.computeIfAbsent(partitionFile.storageGroup, k -> new ArrayList<>())
+              .add(partitionFile);
+        }
+      }
+      return newFiles;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageEngineException("Bulk load is interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new StorageEngineException(e.getCause().getMessage());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static class SourceChunk {
+
+    private int fileIndex;
+    private ChunkMetaData chunkMetaData;
+    private MeasurementSchema schema;
+
+    private SourceChunk(int fileIndex, ChunkMetaData chunkMetaData, MeasurementSchema schema) {
+      this.fileIndex = fileIndex;
+      this.chunkMetaData = chunkMetaData;
+      this.schema = schema;
+    }
+  }
+
+  private static class PartitionFile {
+
+    private String storageGroup;
+    private TsFileResource resource;
+    /**
+     * whether the chunks of some series overlap each other, so the file can only be loaded as an
+     * unsequence file
+     */
+    private boolean overlapped;
+
+    private PartitionFile(String storageGroup, TsFileResource resource, boolean overlapped) {
+      this.storageGroup = storageGroup;
+      this.resource = resource;
+      this.overlapped = overlapped;
+    }
+  }
+
+  /**
+   * the chunks of a time partition of a storage group, which are rewritten into one file.
+   */
+  private class PartitionChunks {
+
+    private String storageGroup;
+    private long partition;
+    private long partitionInterval;
+    /**
+     * device -> measurement -> chunks
+     */
+    private Map<String, Map<String, List<SourceChunk>>> deviceChunks = new TreeMap<>();
+
+    private Map<Integer, TsFileSequenceReader> readers = new HashMap<>();
+    private boolean overlapped;
+
+    private PartitionChunks(String storageGroup, long partition, long partitionInterval) {
+      this.storageGroup = storageGroup;
+      this.partition = partition;
+      this.partitionInterval = partitionInterval;
+    }
+
+    private void add(String device, SourceChunk sourceChunk) {
+      deviceChunks.computeIfAbsent(device, k -> new TreeMap<>())
+          .computeIfAbsent(sourceChunk.chunkMetaData.getMeasurementUid(), k -> new ArrayList<>())
+          .add(sourceChunk);
+    }
+
+    /**
+     * @return the rewritten file, or null if no data of the source chunks is in the partition
+     */
+    private PartitionFile rewrite() throws IOException, StorageEngineException {
+      StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor(storageGroup);
+      // the version makes the data newer than the existing data of the partition
+      long version = processor.allocateVersionForBulkLoad(partition);
+      File partitionDir = FSFactoryProducer.getFSFactory()
+          .getFile(tempDir, storageGroup + File.separator + partition);
+      partitionDir.mkdirs();
+      File file = FSFactoryProducer.getFSFactory().getFile(partitionDir,
+          System.currentTimeMillis() + IoTDBConstant.TSFILE_NAME_SEPARATOR + version
+              + IoTDBConstant.TSFILE_NAME_SEPARATOR + 0 + TSFILE_SUFFIX);
+      TsFileResource resource = new TsFileResource(file);
+      Schema schema = new Schema();
+      TsFileIOWriter fileWriter = new TsFileIOWriter(file);
+      try {
+        for (Entry<String, Map<String, List<SourceChunk>>> entry : deviceChunks.entrySet()) {
+          fileWriter.startChunkGroup(entry.getKey());
+          for (List<SourceChunk> chunks : entry.getValue().values()) {
+            schema.registerMeasurement(chunks.get(0).schema);
+            writeSeries(entry.getKey(), chunks, fileWriter, resource);
+          }
+          fileWriter.endChunkGroup(version);
+        }
+        fileWriter.endFile(schema);
+      } finally {
+        if (fileWriter.canWrite()) {
+          fileWriter.close();
+        }
+        for (TsFileSequenceReader reader : readers.values()) {
+          reader.close();
+        }
+      }
+      if (resource.getStartTimeMap().isEmpty()) {
+        return null;
+      }
+      resource.setHistoricalVersions(Collections.singleton(version));
+      resource.setClosed(true);
+      resource.serialize();
+      return new PartitionFile(storageGroup, resource, overlapped);
+    }
+
+    private void writeSeries(String device, List<SourceChunk> chunks, TsFileIOWriter fileWriter,
+        TsFileResource resource) throws IOException {
+      chunks.sort(Comparator.comparingLong(c -> c.chunkMetaData.getStartTime()));
+      long lastEndTime = Long.MIN_VALUE;
+      IChunkWriter chunkWriter = null;
+      for (SourceChunk sourceChunk : chunks) {
+        ChunkMetaData chunkMetaData = sourceChunk.chunkMetaData;
+        if (chunkMetaData.getStartTime() <= lastEndTime) {
+          overlapped = true;
+        }
+        lastEndTime = Math.max(lastEndTime, chunkMetaData.getEndTime());
+        Chunk chunk = getReader(sourceChunk.fileIndex).readMemChunk(chunkMetaData);
+        if (getPartition(chunkMetaData.getStartTime()) == partition
+            && getPartition(chunkMetaData.getEndTime()) == partition) {
+          // the chunk is in the partition, copy it without decoding
+          fileWriter.writeChunk(chunk, chunkMetaData);
+          resource.updateStartTime(device, chunkMetaData.getStartTime());
+          resource.updateEndTime(device, chunkMetaData.getEndTime());
+          continue;
+        }
+        if (chunkWriter == null) {
+          chunkWriter = new ChunkWriterImpl(sourceChunk.schema);
+        }
+        if (writePointsInPartition(device, chunk, chunkWriter, resource) > 0) {
+          chunkWriter.writeToFileWriter(fileWriter);
+        }
+      }
+    }
+
+    /**
+     * @return the number of points in the partition
+     */
+    private int writePointsInPartition(String device, Chunk chunk, IChunkWriter chunkWriter,
+        TsFileResource resource) throws IOException {
+      ChunkReader chunkReader = new ChunkReader(chunk, null);
+      int pointNum = 0;
+      while (chunkReader.hasNextSatisfiedPage()) {
+        BatchData batchData = chunkReader.nextPageData();
+        for (int i = 0; i < batchData.length(); i++) {
+          long time = batchData.getTimeByIndex(i);
+          if (getPartition(time) == partition) {
+            MergeUtils.writeBatchPoint(batchData, i, chunkWriter);
+            resource.updateStartTime(device, time);
+            resource.updateEndTime(device, time);
+            pointNum++;
+          }
+        }
+      }
+      return pointNum;
+    }
+
+    private long getPartition(long time) {
+      return time / partitionInterval;
+    }
+
+    private TsFileSequenceReader getReader(int fileIndex) throws IOException {
+      TsFileSequenceReader reader = readers.get(fileIndex);
+      if (reader == null) {
+        reader = new TsFileSequenceReader(sourceFiles.get(fileIndex).getAbsolutePath());
+        readers.put(fileIndex, reader);
+      }
+      return reader;
+    }
+  }
+}
@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
@@ -32,6 +34,7 @@ import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.db.utils.MemUtils;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 
@@ -41,12 +44,17 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private List<Modification> modifications = new ArrayList<>();
 
+  /**
+   * device -> measurement -> chunk. Different devices may be written concurrently (see
+   * StorageGroupProcessor#insert), while the chunks of one device are guarded by the device lock of
+   * the caller.
+   */
   private final Map<String, Map<String, IWritableMemChunk>> memTableMap;
 
-  private long memSize = 0;
+  private final AtomicLong memSize = new AtomicLong();
 
   public AbstractMemTable() {
-    this.memTableMap = new HashMap<>();
+    this.memTableMap = new ConcurrentHashMap<>();
   }
 
   public AbstractMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
@@ -69,10 +77,8 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private IWritableMemChunk createIfNotExistAndGet(String deviceId, String measurement,
       TSDataType dataType) {
-    if (!memTableMap.containsKey(deviceId)) {
-      memTableMap.put(deviceId, new HashMap<>());
-    }
-    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
+    Map<String, IWritableMemChunk> memSeries = memTableMap
+        .computeIfAbsent(deviceId, id -> new HashMap<>());
     if (!memSeries.containsKey(measurement)) {
       memSeries.put(measurement, genMemSeries(dataType));
     }
@@ -91,7 +97,7 @@ public abstract class AbstractMemTable implements IMemTable {
             insertPlan.getDataTypes()[i], insertPlan.getTime(), value);
       }
       long recordSizeInByte = MemUtils.getRecordSize(insertPlan);
-      memSize += recordSizeInByte;
+      memSize.addAndGet(recordSizeInByte);
     } catch (RuntimeException e) {
       throw new QueryProcessException(e.getMessage());
     }
@@ -142,7 +148,7 @@ public abstract class AbstractMemTable implements IMemTable {
     try {
       write(batchInsertPlan, start, end);
       long recordSizeInByte = MemUtils.getRecordSize(batchInsertPlan);
-      memSize += recordSizeInByte;
+      memSize.addAndGet(recordSizeInByte);
     } catch (RuntimeException e) {
       throw new QueryProcessException(e.getMessage());
     }
@@ -179,14 +185,14 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public long memSize() {
-    return memSize;
+    return memSize.get();
   }
 
   @Override
   public void clear() {
     memTableMap.clear();
     modifications.clear();
-    memSize = 0;
+    memSize.set(0);
   }
 
   @Override
@@ -197,17 +203,14 @@ public abstract class AbstractMemTable implements IMemTable {
   @Override
   public ReadOnlyMemChunk query(String deviceId, String measurement, TSDataType dataType,
       Map<String, String> props, long timeLowerBound) {
-    TimeValuePairSorter sorter;
     if (!checkPath(deviceId, measurement)) {
       return null;
-    } else {
-      long undeletedTime = findUndeletedTime(deviceId, measurement, timeLowerBound);
-      IWritableMemChunk memChunk = memTableMap.get(deviceId).get(measurement);
-      IWritableMemChunk chunkCopy = new WritableMemChunk(dataType, memChunk.getTVList().clone());
-      chunkCopy.setTimeOffset(undeletedTime);
-      sorter = chunkCopy;
     }
-    return new ReadOnlyMemChunk(dataType, sorter, props);
+    long undeletedTime = findUndeletedTime(deviceId, measurement, timeLowerBound);
+    IWritableMemChunk memChunk = memTableMap.get(deviceId).get(measurement);
+    TVList snapshot = memChunk.getSortedSnapshot();
+    snapshot.setTimeOffset(undeletedTime);
+    return new ReadOnlyMemChunk(dataType, snapshot, props);
   }
 
 
@@ -84,6 +84,12 @@ public interface IWritableMemChunk extends TimeValuePairSorter {
 
   default TVList getTVList(){return null;}
 
+  /**
+   * served for query requests, the snapshot shares the arrays of the list instead of copying them.
+   * @return a sorted snapshot of the points written so far
+   */
+  default TVList getSortedSnapshot(){return null;}
+
   default long getMinTime() {
     return Long.MIN_VALUE;
   }
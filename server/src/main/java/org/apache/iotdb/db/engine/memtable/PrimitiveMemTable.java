@@ -19,8 +19,8 @@
 
 package org.apache.iotdb.db.engine.memtable;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -41,7 +41,7 @@ public class PrimitiveMemTable extends AbstractMemTable {
 
   @Override
   public IMemTable copy() {
-    Map<String, Map<String, IWritableMemChunk>> newMap = new HashMap<>(getMemTableMap());
+    Map<String, Map<String, IWritableMemChunk>> newMap = new ConcurrentHashMap<>(getMemTableMap());
 
     return new PrimitiveMemTable(newMap);
   }
@@ -208,6 +208,18 @@ public class WritableMemChunk implements IWritableMemChunk {
     return list;
   }
 
+  /**
+   * The list is sorted in place first, so that the snapshot can be read in time order and the flush
+   * does not have to sort it again.
+   */
+  @Override
+  public synchronized TVList getSortedSnapshot() {
+    if (!list.isSorted()) {
+      list.sort();
+    }
+    return list.snapshot();
+  }
+
   @Override
   public long count() {
     return list.size();
@@ -22,13 +22,16 @@ package org.apache.iotdb.db.engine.merge.manage;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
-import org.apache.iotdb.db.engine.merge.task.MergeTask;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
@@ -37,7 +40,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * MergeManager provides a ThreadPool to queue and run all merge tasks to restrain the total
- * resources occupied by merge and manages a Timer to periodically issue a global merge.
+ * resources occupied by merge and manages a Timer to periodically issue a global merge. The queued
+ * tasks are run in the order of their priorities, and the disk I/O of the running tasks is
+ * restrained by a MergeThrottle.
  */
 public class MergeManager implements IService {
 
@@ -48,6 +53,8 @@ public class MergeManager implements IService {
   private ThreadPoolExecutor mergeTaskPool;
   private ThreadPoolExecutor mergeChunkSubTaskPool;
   private ScheduledExecutorService timedMergeThreadPool;
+  private AtomicLong submittedTaskNum = new AtomicLong();
+  private volatile MergeThrottle throttle = new MergeThrottle(0, 0);
 
   private MergeManager() {
   }
@@ -56,8 +63,17 @@ public class MergeManager implements IService {
     return INSTANCE;
   }
 
-  public void submitMainTask(MergeTask mergeTask) {
-    mergeTaskPool.submit(mergeTask);
+  /**
+   * @param mainTask a MergeTask or a CompactionTask
+   * @param priority the queued tasks of higher priorities run first, e.g., the merges of the
+   *                 storage groups with more unsequence files. The tasks of the same priority run
+   *                 in the order of submission.
+   */
+  public Future<Void> submitMainTask(Callable<Void> mainTask, int priority) {
+    PrioritizedTask task = new PrioritizedTask(mainTask, priority,
+        submittedTaskNum.getAndIncrement());
+    mergeTaskPool.execute(task);
+    return task;
   }
 
   public Future submitChunkSubTask(Callable callable) {
@@ -77,12 +93,16 @@ public class MergeManager implements IService {
         chunkSubThreadNum = 1;
       }
 
-      mergeTaskPool =
-          (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum,
-              r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
+      // only PrioritizedTasks are queued
+      mergeTaskPool = new ThreadPoolExecutor(threadNum, threadNum, 0L, TimeUnit.MILLISECONDS,
+          new PriorityBlockingQueue<>(),
+          r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
       mergeChunkSubTaskPool =
           (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum * chunkSubThreadNum,
               r -> new Thread(r, "MergeChunkSubThread-" + threadCnt.getAndIncrement()));
+      IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+      throttle = new MergeThrottle(config.getMergeThroughputMbPerSec() * 1024L * 1024L,
+          config.getMergeBackoffLatencyThresholdMs());
       long mergeInterval = IoTDBDescriptor.getInstance().getConfig().getMergeIntervalSec();
       if (mergeInterval > 0) {
         timedMergeThreadPool = Executors.newSingleThreadScheduledExecutor( r -> new Thread(r,
@@ -112,6 +132,10 @@ public class MergeManager implements IService {
     }
   }
 
+  public MergeThrottle getThrottle() {
+    return throttle;
+  }
+
   @Override
   public ServiceType getID() {
     return ServiceType.MERGE_SERVICE;
@@ -124,4 +148,33 @@ public class MergeManager implements IService {
       logger.error("Cannot perform a global merge because", e);
     }
   }
+
+  private static class PrioritizedTask extends FutureTask<Void> implements
+      Comparable<PrioritizedTask> {
+
+    private int priority;
+    private long serialNum;
+
+    PrioritizedTask(Callable<Void> callable, int priority, long serialNum) {
+      super(callable);
+      this.priority = priority;
+      this.serialNum = serialNum;
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask o) {
+      int priorityCompare = Integer.compare(o.priority, priority);
+      return priorityCompare != 0 ? priorityCompare : Long.compare(serialNum, o.serialNum);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(serialNum);
+    }
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.manage;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
+
+/**
+ * MergeThrottle restrains the disk I/O of merges and compactions in favor of queries and
+ * insertions. The bytes of chunks read and written by merges are taken from a token bucket refilled
+ * at the configured bandwidth, and merges pause while the recent latency of queries or batch
+ * insertions exceeds the configured threshold.
+ */
+public class MergeThrottle {
+
+  private static final long BACKOFF_STEP_MS = 100;
+  // a merge is not paused for longer than this at a time, so it is not starved forever
+  private static final long MAX_BACKOFF_MS = 1000;
+  private static final Operation[] FOREGROUND_OPERATIONS = {Operation.EXECUTE_QUERY,
+      Operation.EXECUTE_RPC_BATCH_INSERT, Operation.EXECUTE_JDBC_BATCH};
+
+  // null if the bandwidth is unlimited
+  private RateLimiter rateLimiter;
+  private long backoffLatencyThresholdMs;
+
+  /**
+   * @param bytesPerSec               the bandwidth, unlimited if it is less than or equal to 0
+   * @param backoffLatencyThresholdMs merges never back off if it is less than or equal to 0
+   */
+  public MergeThrottle(long bytesPerSec, long backoffLatencyThresholdMs) {
+    if (bytesPerSec > 0) {
+      this.rateLimiter = RateLimiter.create(bytesPerSec);
+    }
+    this.backoffLatencyThresholdMs = backoffLatencyThresholdMs;
+  }
+
+  /**
+   * Called before a merge reads or writes some bytes, which blocks until the foreground operations
+   * are fast again and the bytes are allowed by the bandwidth.
+   */
+  public void acquire(long bytes) {
+    backOff();
+    if (rateLimiter != null && bytes > 0) {
+      rateLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+    }
+  }
+
+  private void backOff() {
+    if (backoffLatencyThresholdMs <= 0) {
+      return;
+    }
+    long waitedTime = 0;
+    while (waitedTime < MAX_BACKOFF_MS && isForegroundSlow()) {
+      try {
+        Thread.sleep(BACKOFF_STEP_MS);
+      } catch (InterruptedException e) {
+        // the merge is being aborted
+        Thread.currentThread().interrupt();
+        return;
+      }
+      waitedTime += BACKOFF_STEP_MS;
+    }
+  }
+
+  private boolean isForegroundSlow() {
+    for (Operation operation : FOREGROUND_OPERATIONS) {
+      if (Measurement.INSTANCE.getRecentLatency(operation) > backoffLatencyThresholdMs) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
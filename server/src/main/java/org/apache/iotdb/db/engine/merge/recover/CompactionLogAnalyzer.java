@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.recover;
+
+import static org.apache.iotdb.db.engine.merge.recover.CompactionLogger.STR_SOURCE_FILES;
+import static org.apache.iotdb.db.engine.merge.recover.CompactionLogger.STR_TARGET_FILE;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+
+/**
+ * CompactionLogAnalyzer scans the "compaction.log" file and recovers the source files and the
+ * target file of the last compaction. An example of compacting 3 files is:
+ * sourceFiles
+ * server/data/sequence/root.sg/0/1575446420000-1-0.tsfile
+ * server/data/sequence/root.sg/0/1575446421000-2-0.tsfile
+ * server/data/sequence/root.sg/0/1575446422000-3-0.tsfile
+ * targetFile
+ * server/data/sequence/root.sg/0/1575446422000-3-1.tsfile
+ */
+public class CompactionLogAnalyzer {
+
+  private File logFile;
+
+  private List<File> sourceFiles = new ArrayList<>();
+  private File targetFile;
+
+  public CompactionLogAnalyzer(File logFile) {
+    this.logFile = logFile;
+  }
+
+  /**
+   * @return false if the log is incomplete, which means the compaction had not started to write
+   * the target file
+   */
+  public boolean analyze() throws IOException {
+    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(logFile))) {
+      String currLine = bufferedReader.readLine();
+      if (!STR_SOURCE_FILES.equals(currLine)) {
+        return false;
+      }
+      while ((currLine = bufferedReader.readLine()) != null) {
+        if (STR_TARGET_FILE.equals(currLine)) {
+          currLine = bufferedReader.readLine();
+          if (currLine != null) {
+            targetFile = SystemFileFactory.INSTANCE.getFile(currLine);
+          }
+          break;
+        }
+        sourceFiles.add(SystemFileFactory.INSTANCE.getFile(currLine));
+      }
+    }
+    return targetFile != null;
+  }
+
+  public List<File> getSourceFiles() {
+    return sourceFiles;
+  }
+
+  public File getTargetFile() {
+    return targetFile;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.recover;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+/**
+ * CompactionLogger records the files of a compaction of sequence files in file "compaction.log"
+ * as text lines, so that an interrupted compaction can be rolled back or finished during system
+ * rebooting.
+ */
+public class CompactionLogger {
+
+  public static final String COMPACTION_LOG_NAME = "compaction.log";
+
+  static final String STR_SOURCE_FILES = "sourceFiles";
+  static final String STR_TARGET_FILE = "targetFile";
+
+  private BufferedWriter logStream;
+
+  public CompactionLogger(String storageGroupDir) throws IOException {
+    logStream = new BufferedWriter(
+        new FileWriter(new File(storageGroupDir, COMPACTION_LOG_NAME), true));
+  }
+
+  public void close() throws IOException {
+    logStream.close();
+  }
+
+  public void logFiles(List<TsFileResource> sourceFiles, File targetFile) throws IOException {
+    logStream.write(STR_SOURCE_FILES);
+    logStream.newLine();
+    for (TsFileResource tsFileResource : sourceFiles) {
+      logStream.write(tsFileResource.getFile().getAbsolutePath());
+      logStream.newLine();
+    }
+    logStream.write(STR_TARGET_FILE);
+    logStream.newLine();
+    logStream.write(targetFile.getAbsolutePath());
+    logStream.newLine();
+    logStream.flush();
+  }
+}
@@ -99,7 +99,8 @@ public class LogAnalyzer {
 
         analyzeUnseqFiles(bufferedReader);
 
-        List<String> storageGroupPaths = MManager.getInstance().getPaths(storageGroupName + ".*");
+        List<String> storageGroupPaths = MManager.getInstance()
+            .getAllPathsInStorageGroup(storageGroupName);
         unmergedPaths = new ArrayList<>();
         for (String path : storageGroupPaths) {
           unmergedPaths.add(new Path(path));
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.selector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SizeTieredCompactionSelector selects adjacent small sequence files of the same time partition to
+ * be compacted into one file. A file is small if it is smaller than the size threshold, and the
+ * adjacent small files are collected until their total size reaches the threshold or there are
+ * maxFileNum of them. The first run of at least minFileNum files is selected, so that the oldest
+ * files are compacted first and the compacted files, which are no longer small, are not selected
+ * again.
+ */
+public class SizeTieredCompactionSelector {
+
+  private static final Logger logger = LoggerFactory.getLogger(SizeTieredCompactionSelector.class);
+
+  private long sizeThreshold;
+  private int minFileNum;
+  private int maxFileNum;
+  private long timeLowerBound;
+
+  public SizeTieredCompactionSelector(long sizeThreshold, int minFileNum, int maxFileNum,
+      long timeLowerBound) {
+    this.sizeThreshold = sizeThreshold;
+    this.minFileNum = Math.max(minFileNum, 2);
+    this.maxFileNum = Math.max(maxFileNum, this.minFileNum);
+    this.timeLowerBound = timeLowerBound;
+  }
+
+  /**
+   * @param seqFiles the sequence files in the order of time
+   * @return the adjacent files to be compacted in the order of time, or an empty list if there are
+   * not enough small files
+   */
+  public List<TsFileResource> select(Collection<TsFileResource> seqFiles) {
+    if (sizeThreshold <= 0) {
+      return Collections.emptyList();
+    }
+    List<TsFileResource> run = new ArrayList<>();
+    long runSize = 0;
+    for (TsFileResource seqFile : seqFiles) {
+      boolean adjacent = run.isEmpty() || getTimePartition(run.get(0))
+          .equals(getTimePartition(seqFile));
+      if (!adjacent || runSize >= sizeThreshold || run.size() >= maxFileNum) {
+        // the run is ended
+        if (run.size() >= minFileNum) {
+          break;
+        }
+        run.clear();
+        runSize = 0;
+      }
+      if (isCandidate(seqFile)) {
+        run.add(seqFile);
+        runSize += seqFile.getFileSize();
+      } else if (run.size() >= minFileNum) {
+        break;
+      } else {
+        run.clear();
+        runSize = 0;
+      }
+    }
+    if (run.size() < minFileNum) {
+      return Collections.emptyList();
+    }
+    logger.info("Selected {} sequence files of {} bytes to be compacted", run.size(), runSize);
+    return run;
+  }
+
+  private boolean isCandidate(TsFileResource seqFile) {
+    return seqFile.isClosed() && !seqFile.isDeleted() && !seqFile.isMerging()
+        && seqFile.stillLives(timeLowerBound) && seqFile.getFileSize() < sizeThreshold
+        && !UpgradeUtils.isNeedUpgrade(seqFile);
+  }
+
+  private static String getTimePartition(TsFileResource seqFile) {
+    // the files of a time partition are in the same directory
+    return seqFile.getFile().getParentFile().getName();
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.task;
+
+import static org.apache.iotdb.db.utils.QueryUtils.modifyChunkMetaData;
+import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.recover.CompactionLogger;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.utils.MergeUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CompactionTask rewrites adjacent small sequence files into one file, in which the chunks of each
+ * timeseries are merged until they reach the chunk_merge_point_threshold. Unlike MergeTask, no
+ * unsequence files are involved, so the data of the source files never overlap and each chunk is
+ * either copied as it is, if it is large enough and not modified, or decoded and appended to the
+ * merged chunk. The steps are:
+ *        1. log the source files and the target file in compaction.log
+ *        2. write the target file under a temporary name and then name it, after which the
+ *        compaction is regarded as finished during recovery
+ *        3. replace the source files with the target file and remove the source files
+ */
+public class CompactionTask implements Callable<Void> {
+
+  public static final String COMPACTION_SUFFIX = ".compaction";
+  private static final Logger logger = LoggerFactory.getLogger(CompactionTask.class);
+
+  private List<TsFileResource> sourceFiles;
+  private TsFileResource targetFile;
+  private String storageGroupSysDir;
+  private String storageGroupName;
+  private CompactionCallback callback;
+  private String taskName;
+
+  private MergeResource resource;
+  private CompactionLogger compactionLogger;
+  private int minChunkPointNum = IoTDBDescriptor.getInstance().getConfig()
+      .getChunkMergePointThreshold();
+  private long totalChunkWritten;
+  private long totalPointWritten;
+
+  /**
+   * @param sourceFiles adjacent sequence files of a time partition in the order of time
+   */
+  public CompactionTask(List<TsFileResource> sourceFiles, String storageGroupSysDir,
+      CompactionCallback callback, String taskName, String storageGroupName) {
+    this.sourceFiles = sourceFiles;
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.callback = callback;
+    this.taskName = taskName;
+    this.storageGroupName = storageGroupName;
+    // the target file takes the place of the last source file in the order of file names
+    this.targetFile = new TsFileResource(
+        getNextMergeVersionFile(sourceFiles.get(sourceFiles.size() - 1).getFile()));
+  }
+
+  @Override
+  public Void call() throws Exception {
+    try {
+      doCompaction();
+    } catch (Exception e) {
+      logger.error("Runtime exception in compaction {}", taskName, e);
+      cleanUp();
+      FSFactoryProducer.getFSFactory().getFile(getTempFile().getPath()).delete();
+      FSFactoryProducer.getFSFactory()
+          .getFile(targetFile.getFile().getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+      File logFile = new File(storageGroupSysDir, CompactionLogger.COMPACTION_LOG_NAME);
+      logFile.delete();
+      // make sure the StorageGroup exits merging status while the source files are kept
+      callback.call(sourceFiles, null, logFile);
+      throw e;
+    }
+    return null;
+  }
+
+  private void doCompaction() throws IOException, MetadataException {
+    if (logger.isInfoEnabled()) {
+      logger.info("{} starts to compact {} seqFiles into {}", taskName, sourceFiles.size(),
+          targetFile);
+    }
+    long startTime = System.currentTimeMillis();
+    long totalFileSize = MergeUtils.collectFileSizes(sourceFiles, Collections.emptyList());
+    compactionLogger = new CompactionLogger(storageGroupSysDir);
+    compactionLogger.logFiles(sourceFiles, targetFile.getFile());
+
+    resource = new MergeResource(sourceFiles, Collections.emptyList());
+    resource.addMeasurements(MManager.getInstance().getSchemaForStorageGroup(storageGroupName));
+    List<Path> series = new ArrayList<>();
+    for (String path : MManager.getInstance().getAllPathsInStorageGroup(storageGroupName)) {
+      series.add(new Path(path));
+    }
+
+    File tempFile = getTempFile();
+    RestorableTsFileIOWriter fileWriter = new RestorableTsFileIOWriter(tempFile);
+    for (List<Path> devicePaths : MergeUtils.splitPathsByDevice(series)) {
+      compactDevice(devicePaths, fileWriter);
+    }
+    fileWriter.endFile(new Schema(fileWriter.getKnownSchema()));
+
+    Set<Long> historicalVersions = new HashSet<>();
+    for (TsFileResource sourceFile : sourceFiles) {
+      if (sourceFile.getHistoricalVersions() != null) {
+        historicalVersions.addAll(sourceFile.getHistoricalVersions());
+      }
+    }
+    targetFile.setHistoricalVersions(historicalVersions);
+    targetFile.setClosed(true);
+    targetFile.serialize();
+    cleanUp();
+
+    // once the target file is named, the compaction will not be rolled back
+    FSFactoryProducer.getFSFactory().moveFile(tempFile, targetFile.getFile());
+    callback.call(sourceFiles, targetFile,
+        new File(storageGroupSysDir, CompactionLogger.COMPACTION_LOG_NAME));
+
+    if (logger.isInfoEnabled()) {
+      double elapsedTime = (double) (System.currentTimeMillis() - startTime) / 1000.0;
+      double byteRate = totalFileSize / elapsedTime / 1024 / 1024;
+      logger.info("{} ends after {}s, byteRate: {}MB/s, {} chunks and {} points are written into "
+              + "{} bytes", taskName, elapsedTime, byteRate, totalChunkWritten, totalPointWritten,
+          targetFile.getFileSize());
+    }
+  }
+
+  private void compactDevice(List<Path> devicePaths, RestorableTsFileIOWriter fileWriter)
+      throws IOException {
+    String deviceId = devicePaths.get(0).getDevice();
+    List<TsFileResource> deviceFiles = new ArrayList<>();
+    for (TsFileResource sourceFile : sourceFiles) {
+      Long startTime = sourceFile.getStartTimeMap().get(deviceId);
+      if (startTime != null) {
+        deviceFiles.add(sourceFile);
+        targetFile.updateStartTime(deviceId, startTime);
+        targetFile.updateEndTime(deviceId,
+            sourceFile.getEndTimeMap().getOrDefault(deviceId, startTime));
+      }
+    }
+    if (deviceFiles.isEmpty()) {
+      return;
+    }
+
+    fileWriter.startChunkGroup(deviceId);
+    long maxVersion = 0;
+    for (Path path : devicePaths) {
+      MeasurementSchema schema = resource.getSchema(path.getMeasurement());
+      IChunkWriter chunkWriter = resource.getChunkWriter(schema);
+      fileWriter.addSchema(schema);
+      int unflushedPointNum = 0;
+      for (TsFileResource deviceFile : deviceFiles) {
+        List<ChunkMetaData> chunkMetaDataList = resource.queryChunkMetadata(path, deviceFile);
+        modifyChunkMetaData(chunkMetaDataList, resource.getModifications(deviceFile, path));
+        TsFileSequenceReader reader = resource.getFileReader(deviceFile);
+        for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+          maxVersion = Math.max(maxVersion, chunkMetaData.getVersion());
+          Chunk chunk = reader.readMemChunk(chunkMetaData);
+          MergeManager.getINSTANCE().getThrottle().acquire(MergeUtils.getChunkSize(chunk));
+          boolean chunkModified = chunkMetaData.getDeletedAt() > Long.MIN_VALUE;
+          if (unflushedPointNum == 0 && !chunkModified
+              && chunkMetaData.getNumOfPoints() >= minChunkPointNum) {
+            // the chunk is large enough, copy it without decoding
+            MergeManager.getINSTANCE().getThrottle().acquire(MergeUtils.getChunkSize(chunk));
+            fileWriter.writeChunk(chunk, chunkMetaData);
+            totalChunkWritten++;
+            totalPointWritten += chunkMetaData.getNumOfPoints();
+            continue;
+          }
+          // the deleted points are skipped by the chunk reader
+          int pointNum = MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
+          unflushedPointNum += pointNum;
+          totalPointWritten += pointNum;
+          if (unflushedPointNum > 0
+              && (minChunkPointNum <= 0 || unflushedPointNum >= minChunkPointNum)) {
+            writeToFileWriter(chunkWriter, fileWriter);
+            totalChunkWritten++;
+            unflushedPointNum = 0;
+          }
+        }
+      }
+      // the last merged chunk may still be smaller than the threshold, flush it anyway
+      if (unflushedPointNum > 0) {
+        writeToFileWriter(chunkWriter, fileWriter);
+        totalChunkWritten++;
+      }
+    }
+    fileWriter.endChunkGroup(maxVersion);
+  }
+
+  private void writeToFileWriter(IChunkWriter chunkWriter, TsFileIOWriter fileWriter)
+      throws IOException {
+    long startPos = fileWriter.getPos();
+    chunkWriter.writeToFileWriter(fileWriter);
+    MergeManager.getINSTANCE().getThrottle().acquire(fileWriter.getPos() - startPos);
+  }
+
+  private void cleanUp() throws IOException {
+    if (resource != null) {
+      resource.clear();
+    }
+    if (compactionLogger != null) {
+      compactionLogger.close();
+    }
+  }
+
+  private File getTempFile() {
+    return FSFactoryProducer.getFSFactory()
+        .getFile(targetFile.getFile().getPath() + COMPACTION_SUFFIX);
+  }
+
+  static File getNextMergeVersionFile(File seqFile) {
+    String[] splits = seqFile.getName().replace(TSFILE_SUFFIX, "")
+        .split(IoTDBConstant.TSFILE_NAME_SEPARATOR);
+    int mergeVersion = Integer.parseInt(splits[2]) + 1;
+    return FSFactoryProducer.getFSFactory().getFile(seqFile.getParentFile(),
+        splits[0] + IoTDBConstant.TSFILE_NAME_SEPARATOR + splits[1]
+            + IoTDBConstant.TSFILE_NAME_SEPARATOR + mergeVersion + TSFILE_SUFFIX);
+  }
+
+  public TsFileResource getTargetFile() {
+    return targetFile;
+  }
+}
@@ -44,6 +44,7 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.utils.MergeUtils;
 import org.apache.iotdb.db.utils.MergeUtils.MetaListEntry;
 import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -60,7 +61,7 @@ import org.slf4j.LoggerFactory;
 class MergeMultiChunkTask {
 
   private static final Logger logger = LoggerFactory.getLogger(MergeMultiChunkTask.class);
-  private static int minChunkPointNum = IoTDBDescriptor.getInstance().getConfig()
+  private int minChunkPointNum = IoTDBDescriptor.getInstance().getConfig()
       .getChunkMergePointThreshold();
 
   private MergeLogger mergeLogger;
@@ -285,6 +286,7 @@ class MergeMultiChunkTask {
       synchronized (reader) {
         chunk = reader.readMemChunk(currMeta);
       }
+      MergeManager.getINSTANCE().getThrottle().acquire(MergeUtils.getChunkSize(chunk));
       ptWrittens[pathIdx] = mergeChunkV2(currMeta, chunkOverflowed, chunkTooSmall, chunk,
               ptWrittens[pathIdx], pathIdx, mergeFileWriter, unseqReaders[pathIdx], chunkWriter,
               currFile);
@@ -302,9 +304,7 @@ class MergeMultiChunkTask {
         }
         // the last merged chunk may still be smaller than the threshold, flush it anyway
         if (ptWrittens[pathIdx] > 0) {
-          synchronized (mergeFileWriter) {
-            chunkWriter.writeToFileWriter(mergeFileWriter);
-          }
+          writeToFileWriter(chunkWriter, mergeFileWriter);
         }
       }
     }
@@ -328,7 +328,9 @@ class MergeMultiChunkTask {
    * SK isn't overflowed &
    * SK isn't modified
    *
-   * 3. other cases: need to unCompress the chunk and write
+   * 3. other cases: need to write SK into a new chunk page by page. A page that is not deleted
+   * partially and overlaps no unseq data is appended to the new chunk as it is, and the other
+   * pages are uncompressed and rewritten
    * 3.1 SK isn't overflowed
    * 3.2 SK is overflowed
    *
@@ -351,6 +353,7 @@ class MergeMultiChunkTask {
 
     // write SK to .merge.file without compressing
     if (fullMerge && lastUnclosedChunkPoint == 0 && !chunkTooSmall && !chunkOverflowed && !chunkModified) {
+      MergeManager.getINSTANCE().getThrottle().acquire(MergeUtils.getChunkSize(chunk));
       synchronized (mergeFileWriter) {
         mergeFileWriter.writeChunk(chunk, currMeta);
       }
@@ -360,7 +363,7 @@ class MergeMultiChunkTask {
       return 0;
     }
 
-    // 3.1 SK isn't overflowed, just uncompress and write sequence chunk
+    // 3.1 SK isn't overflowed, just copy or uncompress and write the pages of sequence chunk
     if (!chunkOverflowed) {
       unclosedChunkPoint += MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
       mergedChunkNum.incrementAndGet();
@@ -376,14 +379,24 @@ class MergeMultiChunkTask {
     if (minChunkPointNum > 0 && unclosedChunkPoint >= minChunkPointNum
         || unclosedChunkPoint > 0 && minChunkPointNum < 0) {
       // the new chunk's size is large enough and it should be flushed
-      synchronized (mergeFileWriter) {
-        chunkWriter.writeToFileWriter(mergeFileWriter);
-      }
+      writeToFileWriter(chunkWriter, mergeFileWriter);
       unclosedChunkPoint = 0;
     }
     return unclosedChunkPoint;
   }
 
+  private void writeToFileWriter(IChunkWriter chunkWriter, TsFileIOWriter mergeFileWriter)
+      throws IOException {
+    long writtenBytes;
+    synchronized (mergeFileWriter) {
+      long startPos = mergeFileWriter.getPos();
+      chunkWriter.writeToFileWriter(mergeFileWriter);
+      writtenBytes = mergeFileWriter.getPos() - startPos;
+    }
+    // the bytes are paid after being written, so that the writer is not locked while throttled
+    MergeManager.getINSTANCE().getThrottle().acquire(writtenBytes);
+  }
+
   private int writeRemainingUnseq(IChunkWriter chunkWriter,
       IPointReader unseqReader, long timeLimit, int pathIdx) throws IOException {
     int ptWritten = 0;
@@ -402,6 +415,16 @@ class MergeMultiChunkTask {
     int cnt = 0;
     ChunkReader chunkReader = new ChunkReader(chunk, null);
     while (chunkReader.hasNextSatisfiedPage()) {
+      PageHeader pageHeader = chunkReader.nextPageHeader();
+      if (currTimeValuePairs[pathIdx] == null
+          || currTimeValuePairs[pathIdx].getTimestamp() > pageHeader.getEndTime()) {
+        // the page overlaps no unseq data, so it may be copied without decoding
+        int appendedPointNum = MergeUtils.appendNextPage(chunk, chunkReader, chunkWriter);
+        if (appendedPointNum > 0) {
+          cnt += appendedPointNum;
+          continue;
+        }
+      }
       BatchData batchData = chunkReader.nextPageData();
       cnt += mergeWriteBatch(batchData, chunkWriter, unseqReader, pathIdx);
     }
@@ -114,7 +114,8 @@ public class MergeTask implements Callable<Void> {
         .getSchemaForStorageGroup(storageGroupName);
     resource.addMeasurements(measurementSchemas);
 
-    List<String> storageGroupPaths = MManager.getInstance().getPaths(storageGroupName + ".*");
+    List<String> storageGroupPaths = MManager.getInstance()
+        .getAllPathsInStorageGroup(storageGroupName);
     List<Path> unmergedSeries = new ArrayList<>();
     for (String path : storageGroupPaths) {
       unmergedSeries.add(new Path(path));
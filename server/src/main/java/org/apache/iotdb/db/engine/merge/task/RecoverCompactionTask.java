@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.task;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.iotdb.db.engine.merge.recover.CompactionLogAnalyzer;
+import org.apache.iotdb.db.engine.merge.recover.CompactionLogger;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RecoverCompactionTask scans compaction.log using CompactionLogAnalyzer and finishes or rolls
+ * back the last compaction before the TsFiles of the storage group are loaded. If the target file
+ * has been named, the compaction is finished by removing the remaining source files and moving the
+ * merging modifications into the target file, otherwise the temporary target file is removed and
+ * the source files are kept.
+ */
+public class RecoverCompactionTask {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecoverCompactionTask.class);
+
+  private String storageGroupSysDir;
+  private String taskName;
+
+  public RecoverCompactionTask(String storageGroupSysDir, String taskName) {
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.taskName = taskName;
+  }
+
+  /**
+   * @param mergingModsFile the modifications issued during the compaction, which is removed after
+   * the recovery
+   */
+  public void recoverCompaction(File mergingModsFile) throws IOException {
+    File logFile = new File(storageGroupSysDir, CompactionLogger.COMPACTION_LOG_NAME);
+    if (!logFile.exists()) {
+      logger.info("{} no compaction.log, compaction recovery ends", taskName);
+      return;
+    }
+
+    CompactionLogAnalyzer analyzer = new CompactionLogAnalyzer(logFile);
+    if (analyzer.analyze()) {
+      File targetFile = analyzer.getTargetFile();
+      if (targetFile.exists()) {
+        logger.info("{} finishes the compaction into {}", taskName, targetFile);
+        if (mergingModsFile.exists()) {
+          moveMergingModifications(mergingModsFile, targetFile);
+        }
+        for (File sourceFile : analyzer.getSourceFiles()) {
+          new TsFileResource(sourceFile).remove();
+        }
+      } else {
+        logger.info("{} rolls back the compaction into {}", taskName, targetFile);
+        FSFactoryProducer.getFSFactory()
+            .getFile(targetFile.getPath() + CompactionTask.COMPACTION_SUFFIX).delete();
+        FSFactoryProducer.getFSFactory()
+            .getFile(targetFile.getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+      }
+    }
+    // the merging modifications have also been written into the source files
+    mergingModsFile.delete();
+    logFile.delete();
+  }
+
+  private void moveMergingModifications(File mergingModsFile, File targetFile)
+      throws IOException {
+    ModificationFile mergingMods = new ModificationFile(mergingModsFile.getPath());
+    ModificationFile targetMods = new ModificationFile(
+        targetFile.getPath() + ModificationFile.FILE_SUFFIX);
+    // the modifications may have been moved before the crash, which are just overwritten
+    targetMods.remove();
+    targetMods = new ModificationFile(targetFile.getPath() + ModificationFile.FILE_SUFFIX);
+    for (Modification modification : mergingMods.getModifications()) {
+      targetMods.write(modification);
+    }
+    targetMods.close();
+    mergingMods.close();
+  }
+}
@@ -18,93 +18,271 @@
  */
 package org.apache.iotdb.db.engine.querycontext;
 
+import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.ARRAY_SIZE;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
+import java.util.NoSuchElementException;
+import org.apache.iotdb.db.engine.cache.RamUsageEstimator;
 import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
 import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsDouble;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsFloat;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
+/**
+ * The data of a series in one or more memtables. The points are read from sorted snapshots of the
+ * TVLists of the memtables, which share the arrays of the TVLists, so neither the points nor the
+ * arrays are copied when a query is started.
+ */
 //TODO: merge ReadOnlyMemChunk and WritableMemChunk and IWritableMemChunk
 public class ReadOnlyMemChunk implements TimeValuePairSorter {
 
-  private boolean initialized;
-
   private TSDataType dataType;
-  private TimeValuePairSorter memSeries;
-  private List<TimeValuePair> sortedTimeValuePairList;
+
+  /**
+   * sorted snapshots of the memtables, all the points of a snapshot are read before those of the
+   * next one.
+   */
+  private List<TVList> snapshots;
 
   Map<String, String> props;
   private int floatPrecision = TSFileDescriptor.getInstance().getConfig().getFloatPrecision();
 
   /**
-   * init by TSDataType and TimeValuePairSorter.
+   * init by TSDataType and a sorted snapshot of a TVList.
    */
-  public ReadOnlyMemChunk(TSDataType dataType, TimeValuePairSorter memSeries, Map<String, String> props) {
+  public ReadOnlyMemChunk(TSDataType dataType, TVList snapshot, Map<String, String> props) {
+    this(dataType, Collections.singletonList(snapshot), props);
+  }
+
+  private ReadOnlyMemChunk(TSDataType dataType, List<TVList> snapshots,
+      Map<String, String> props) {
     this.dataType = dataType;
-    this.memSeries = memSeries;
-    this.initialized = false;
+    this.snapshots = snapshots;
     this.props = props;
     if (props.containsKey(Encoder.MAX_POINT_NUMBER)) {
       this.floatPrecision = Integer.parseInt(props.get(Encoder.MAX_POINT_NUMBER));
     }
   }
 
-  private void checkInitialized() {
-    if (!initialized) {
-      init();
-    }
-  }
-
-  private void init() {
-    sortedTimeValuePairList = memSeries.getSortedTimeValuePairList();
-    if (!(memSeries instanceof MemSeriesLazyMerger)) {
-      switch (dataType) {
-        case FLOAT:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsFloat(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getFloat(), floatPrecision))));
-          break;
-        case DOUBLE:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsDouble(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getDouble(), floatPrecision))));
-          break;
-        default:
-          break;
-      }
+  /**
+   * Concatenate the chunks of the same series in several memtables, the minimum timestamp of each
+   * chunk should be larger than any timestamp of the chunks before it.
+   */
+  public static ReadOnlyMemChunk merge(TSDataType dataType, List<ReadOnlyMemChunk> memChunks,
+      Map<String, String> props) {
+    List<TVList> snapshots = new ArrayList<>();
+    for (ReadOnlyMemChunk memChunk : memChunks) {
+      snapshots.addAll(memChunk.snapshots);
     }
-    //putBack memory
-    memSeries = null;
-    initialized = true;
+    return new ReadOnlyMemChunk(dataType, snapshots, props);
   }
 
   public TSDataType getDataType() {
     return dataType;
   }
 
+  /**
+   * @return the estimated memory allocated for the snapshots, which only copy the references to
+   * the arrays shared with the memtables
+   */
+  public long getCopiedSize() {
+    long size = 0;
+    for (TVList snapshot : snapshots) {
+      long arrayNum = (snapshot.size() + ARRAY_SIZE - 1) / ARRAY_SIZE;
+      // the snapshot and its lists of the time arrays and the value arrays
+      size += 3L * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+          + 2 * arrayNum * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    }
+    return size;
+  }
+
+  /**
+   * Box all the points, prefer {@link #getPointIterator()} for reading.
+   */
   @Override
   public List<TimeValuePair> getSortedTimeValuePairList() {
-    checkInitialized();
+    List<TimeValuePair> sortedTimeValuePairList = new ArrayList<>();
+    PointIterator iterator = getPointIterator();
+    while (iterator.hasNext()) {
+      sortedTimeValuePairList.add(iterator.next());
+    }
     return Collections.unmodifiableList(sortedTimeValuePairList);
   }
 
   @Override
   public Iterator<TimeValuePair> getIterator() {
-    checkInitialized();
-    return sortedTimeValuePairList.iterator();
+    return getPointIterator();
+  }
+
+  public PointIterator getPointIterator() {
+    return new PointIterator();
   }
 
   @Override
   public boolean isEmpty() {
-    checkInitialized();
-    return sortedTimeValuePairList.isEmpty();
+    return !getPointIterator().hasNext();
+  }
+
+  /**
+   * Iterates the distinct points in ascending order by timestamp, a point is only boxed if it is
+   * returned by <code>next</code> or <code>currentValue</code>. The points whose timestamps are
+   * less than the time offset of their snapshot are skipped, and of the points with the same
+   * timestamp in a snapshot only the last written one is returned.
+   */
+  public class PointIterator implements Iterator<TimeValuePair> {
+
+    private int snapshotIndex = -1;
+    private TVList snapshot;
+    // the index of the current point in the current snapshot
+    private int index;
+    private boolean hasCurrent;
+
+    private PointIterator() {
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (hasCurrent) {
+        return true;
+      }
+      while (snapshot == null || index >= snapshot.size()) {
+        if (++snapshotIndex >= snapshots.size()) {
+          return false;
+        }
+        snapshot = snapshots.get(snapshotIndex);
+        index = firstIndexNotBefore(snapshot, snapshot.getTimeOffset(), 0);
+      }
+      // the last written one of the points with the same timestamp is after the others once sorted
+      while (index + 1 < snapshot.size() && snapshot.getTime(index) == snapshot.getTime(index + 1)) {
+        index++;
+      }
+      hasCurrent = true;
+      return true;
+    }
+
+    /**
+     * @return the timestamp of the point that <code>next</code> returns
+     */
+    public long currentTime() {
+      checkCurrent();
+      return snapshot.getTime(index);
+    }
+
+    /**
+     * @return the value of the point that <code>next</code> returns
+     */
+    public Object currentValue() {
+      checkCurrent();
+      switch (dataType) {
+        case BOOLEAN:
+          return snapshot.getBoolean(index);
+        case INT32:
+          return snapshot.getInt(index);
+        case INT64:
+          return snapshot.getLong(index);
+        case FLOAT:
+          return MathUtils.roundWithGivenPrecision(snapshot.getFloat(index), floatPrecision);
+        case DOUBLE:
+          return MathUtils.roundWithGivenPrecision(snapshot.getDouble(index), floatPrecision);
+        case TEXT:
+          return snapshot.getBinary(index);
+        default:
+          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+      }
+    }
+
+    @Override
+    public TimeValuePair next() {
+      TimeValuePair timeValuePair = new TimeValuePair(currentTime(),
+          TsPrimitiveType.getByType(dataType, currentValue()));
+      skip();
+      return timeValuePair;
+    }
+
+    /**
+     * Append the point that <code>next</code> returns to the batch without boxing it and move to
+     * the next point.
+     */
+    public void putCurrent(BatchData batchData) {
+      long time = currentTime();
+      switch (dataType) {
+        case BOOLEAN:
+          batchData.putBoolean(time, snapshot.getBoolean(index));
+          break;
+        case INT32:
+          batchData.putInt(time, snapshot.getInt(index));
+          break;
+        case INT64:
+          batchData.putLong(time, snapshot.getLong(index));
+          break;
+        case FLOAT:
+          batchData.putFloat(time,
+              MathUtils.roundWithGivenPrecision(snapshot.getFloat(index), floatPrecision));
+          break;
+        case DOUBLE:
+          batchData.putDouble(time,
+              MathUtils.roundWithGivenPrecision(snapshot.getDouble(index), floatPrecision));
+          break;
+        case TEXT:
+          batchData.putBinary(time, snapshot.getBinary(index));
+          break;
+        default:
+          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+      }
+      skip();
+    }
+
+    /**
+     * Move to the first point whose timestamp is not less than the given time, the skipped points
+     * of a snapshot are found by a binary search instead of being iterated.
+     */
+    public void skipTo(long time) {
+      while (hasNext() && snapshot.getTime(index) < time) {
+        hasCurrent = false;
+        index = firstIndexNotBefore(snapshot, time, index + 1);
+      }
+    }
+
+    /**
+     * Move to the next point without reading the current one.
+     */
+    public void skip() {
+      checkCurrent();
+      hasCurrent = false;
+      index++;
+    }
+
+    private void checkCurrent() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+    }
+  }
+
+  /**
+   * @return the index of the first point at or after low in the sorted list whose timestamp is not
+   * less than the given time, or the size of the list if there is no such point
+   */
+  private static int firstIndexNotBefore(TVList sortedList, long time, int low) {
+    int high = sortedList.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sortedList.getTime(mid) < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
   }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.util.regex.Pattern;
+import org.apache.iotdb.db.metadata.MetaUtils;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+/**
+ * A Rollup materializes the count, sum, min_value and max_value of every numeric series under a
+ * path pattern in buckets of the given interval. The aggregations of a bucket [t, t + interval)
+ * of a series device.measurement are stored at time t in the derived series
+ * device.__rollup_{interval}.measurement_{aggregation}, which are in the same storage group as the
+ * source series, so that TTL and deletion apply to them in the same way. The derived device is a
+ * reserved node (see {@link MetaUtils#RESERVED_NODE_PREFIX}), so the derived series are hidden from
+ * the wildcards of the users and no user series can be taken as derived.
+ */
+public class Rollup {
+
+  static final String[] DERIVED_AGGREGATIONS = {SQLConstant.COUNT, SQLConstant.SUM,
+      SQLConstant.MIN_VALUE, SQLConstant.MAX_VALUE};
+
+  private static final String DERIVED_DEVICE_PREFIX = MetaUtils.RESERVED_NODE_PREFIX;
+  private static final Pattern DERIVED_DEVICE_PATTERN = Pattern
+      .compile(".*\\." + DERIVED_DEVICE_PREFIX + "\\d+");
+
+  private Path pattern;
+  private String[] patternNodes;
+  private long interval;
+
+  public Rollup(Path pattern, long interval) {
+    this.pattern = pattern;
+    this.patternNodes = MetaUtils.getNodeNames(pattern.getFullPath(), "\\.");
+    this.interval = interval;
+  }
+
+  public Path getPattern() {
+    return pattern;
+  }
+
+  public long getInterval() {
+    return interval;
+  }
+
+  /**
+   * @return whether the series is under the pattern, in which a "*" matches any one node
+   */
+  public boolean covers(Path seriesPath) {
+    String[] nodes = MetaUtils.getNodeNames(seriesPath.getFullPath(), "\\.");
+    if (nodes.length < patternNodes.length) {
+      return false;
+    }
+    for (int i = 0; i < patternNodes.length; i++) {
+      if (!"*".equals(patternNodes[i]) && !patternNodes[i].equals(nodes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the start of the bucket containing the time
+   */
+  public static long bucketStart(long time, long interval) {
+    return Math.floorDiv(time, interval) * interval;
+  }
+
+  public static boolean isDerived(String deviceId) {
+    return DERIVED_DEVICE_PATTERN.matcher(deviceId).matches();
+  }
+
+  public static boolean isSupported(TSDataType dataType) {
+    return dataType == TSDataType.INT32 || dataType == TSDataType.INT64
+        || dataType == TSDataType.FLOAT || dataType == TSDataType.DOUBLE;
+  }
+
+  public static Path getDerivedPath(Path seriesPath, long interval, String aggregation) {
+    return new Path(seriesPath.getDevice() + "." + DERIVED_DEVICE_PREFIX + interval,
+        seriesPath.getMeasurement() + "_" + aggregation);
+  }
+
+  public static TSDataType getDerivedType(TSDataType dataType, String aggregation) {
+    switch (aggregation) {
+      case SQLConstant.COUNT:
+        return TSDataType.INT64;
+      case SQLConstant.SUM:
+        return TSDataType.DOUBLE;
+      default:
+        return dataType;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Rollup rollup = (Rollup) o;
+    return interval == rollup.interval && pattern.equals(rollup.pattern);
+  }
+
+  @Override
+  public int hashCode() {
+    return pattern.hashCode() * 31 + Long.hashCode(interval);
+  }
+
+  @Override
+  public String toString() {
+    return pattern + "@" + interval;
+  }
+}
@@ -0,0 +1,920 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
+import org.apache.iotdb.db.exception.ProcessException;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.query.OutOfTTLException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.dataset.groupby.GroupByWithoutValueFilterDataSet;
+import org.apache.iotdb.db.query.executor.AggregateEngineExecutor;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RollupManager maintains the derived series of the rollups (see {@link Rollup}) and decides which
+ * group by queries can be answered from them.
+ * <p>
+ * For every rolled up series, the buckets before its materialized time are materialized. When a
+ * memtable is flushed, the time range of each flushed series is marked dirty, and the buckets
+ * overlapping the range are recalculated from the raw data in a background thread: the complete
+ * buckets after the materialized time are appended and the materialized time is advanced, while
+ * the materialized buckets are rewritten for late data. The last bucket of a flushed range may be
+ * incomplete, so it is not materialized until newer data is flushed. A materialized bucket is only
+ * used by queries when it is not dirty, so a query never sees a partially refreshed bucket. The
+ * late data inserted into a materialized bucket marks it dirty at once, so the queries read the
+ * bucket from the raw data, including the memtables, until it is refreshed.
+ */
+public class RollupManager implements IService {
+
+  private static final Logger logger = LoggerFactory.getLogger(RollupManager.class);
+  private static final String ROLLUP_FILE_NAME = "rollup.txt";
+  private static final long RETRY_INTERVAL_MS = 1000;
+  private static final RollupManager INSTANCE = new RollupManager();
+
+  private List<Rollup> rollups = new CopyOnWriteArrayList<>();
+  /**
+   * the rolled up series keyed by the source path and the interval.
+   */
+  private Map<Pair<String, Long>, RollupSeries> seriesMap = new ConcurrentHashMap<>();
+  private volatile ScheduledExecutorService refreshThread;
+  /**
+   * no less than the materialized time of any series, so that the insertions after it are not
+   * checked for late data. It is Long.MAX_VALUE until the series loaded on start are initialized.
+   * Only updated in the refresh thread.
+   */
+  private volatile long maxMaterializedTime = Long.MIN_VALUE;
+
+  private RollupManager() {
+  }
+
+  public static RollupManager getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public void start() throws StartupException {
+    if (refreshThread != null) {
+      return;
+    }
+    try {
+      loadRollups();
+    } catch (IOException e) {
+      throw new StartupException(e.getMessage());
+    }
+    maxMaterializedTime = Long.MAX_VALUE;
+    refreshThread = Executors
+        .newSingleThreadScheduledExecutor(r -> new Thread(r, "RollupRefreshThread"));
+    // the derived series are checked against the raw data, which may have been written after the
+    // last refresh before the shutdown
+    for (Rollup rollup : rollups) {
+      addSeries(rollup, false);
+    }
+    // run after the initializations of the series in the single thread
+    refreshThread.submit(this::updateMaxMaterializedTime);
+    logger.info("RollupManager started with {} rollups", rollups.size());
+  }
+
+  @Override
+  public void stop() {
+    if (refreshThread == null) {
+      return;
+    }
+    ScheduledExecutorService thread = refreshThread;
+    // the running refresh is not interrupted, as an interrupted read closes the shared file
+    // channel, and the queued refreshes return immediately
+    refreshThread = null;
+    thread.shutdown();
+    try {
+      thread.awaitTermination(60, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    rollups.clear();
+    seriesMap.clear();
+    maxMaterializedTime = Long.MIN_VALUE;
+    logger.info("RollupManager stopped");
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.ROLLUP_SERVICE;
+  }
+
+  public List<Rollup> getRollups() {
+    return Collections.unmodifiableList(rollups);
+  }
+
+  /**
+   * Create a rollup. The existing raw data of the covered series is rolled up in the background,
+   * and the series created later are rolled up when they are flushed.
+   */
+  public synchronized void createRollup(Path pattern, long interval)
+      throws QueryProcessException {
+    Rollup rollup = new Rollup(pattern, interval);
+    if (rollups.contains(rollup)) {
+      throw new QueryProcessException(
+          String.format("Rollup on %s group by %dms already exists", pattern, interval));
+    }
+    rollups.add(rollup);
+    try {
+      saveRollups();
+    } catch (IOException e) {
+      rollups.remove(rollup);
+      throw new QueryProcessException(e.getMessage());
+    }
+    addSeries(rollup, true);
+  }
+
+  /**
+   * Drop a rollup, after which its derived series are neither maintained nor used by queries, and
+   * are deleted in the background.
+   */
+  public synchronized void dropRollup(Path pattern, long interval) throws QueryProcessException {
+    Rollup rollup = new Rollup(pattern, interval);
+    if (!rollups.remove(rollup)) {
+      throw new QueryProcessException(
+          String.format("Rollup on %s group by %dms does not exist", pattern, interval));
+    }
+    try {
+      saveRollups();
+    } catch (IOException e) {
+      rollups.add(rollup);
+      throw new QueryProcessException(e.getMessage());
+    }
+    // the series that are still covered by another rollup of the same interval are kept
+    List<RollupSeries> droppedSeries = new ArrayList<>();
+    Iterator<RollupSeries> iterator = seriesMap.values().iterator();
+    while (iterator.hasNext()) {
+      RollupSeries series = iterator.next();
+      if (series.interval == interval && getRollup(series.path, interval) == null) {
+        series.dropped = true;
+        droppedSeries.add(series);
+        iterator.remove();
+      }
+    }
+    ScheduledExecutorService thread = refreshThread;
+    if (!droppedSeries.isEmpty() && thread != null) {
+      // the running refresh finishes before the deletion in the single thread
+      thread.submit(() -> deleteDerivedSeries(droppedSeries));
+    }
+  }
+
+  /**
+   * Stop maintaining the rollups of the series to be deleted and delete their derived series in
+   * the background. It is called before the metadata of the series is deleted.
+   *
+   * @param deletedPaths the deleted paths, which may contain wildcards
+   */
+  public synchronized void onDeleteTimeseries(List<Path> deletedPaths) {
+    if (rollups.isEmpty()) {
+      return;
+    }
+    List<RollupSeries> droppedSeries = new ArrayList<>();
+    for (Path deletedPath : deletedPaths) {
+      List<String> paths;
+      try {
+        paths = MManager.getInstance().getPaths(deletedPath.getFullPath());
+      } catch (ProcessException e) {
+        logger.warn("Cannot get the series of {}", deletedPath, e);
+        continue;
+      }
+      for (String pathStr : paths) {
+        Path path = new Path(pathStr);
+        for (Rollup rollup : rollups) {
+          if (!rollup.covers(path)) {
+            continue;
+          }
+          RollupSeries series = seriesMap.remove(new Pair<>(pathStr, rollup.getInterval()));
+          if (series == null) {
+            // the series is not loaded yet, but may have derived series
+            series = new RollupSeries(path, rollup.getInterval(), false);
+          }
+          series.dropped = true;
+          droppedSeries.add(series);
+        }
+      }
+    }
+    if (droppedSeries.isEmpty()) {
+      return;
+    }
+    ScheduledExecutorService thread = refreshThread;
+    if (thread != null) {
+      thread.submit(() -> deleteDerivedSeries(droppedSeries));
+    } else {
+      deleteDerivedSeries(droppedSeries);
+    }
+  }
+
+  /**
+   * Delete the derived series of the dropped series, which cannot be deleted by the users as they
+   * are reserved.
+   */
+  private void deleteDerivedSeries(List<RollupSeries> droppedSeries) {
+    MManager mManager = MManager.getInstance();
+    List<Path> derivedPaths = new ArrayList<>();
+    for (RollupSeries series : droppedSeries) {
+      for (String aggregation : Rollup.DERIVED_AGGREGATIONS) {
+        Path derivedPath = Rollup.getDerivedPath(series.path, series.interval, aggregation);
+        if (mManager.pathExist(derivedPath.getFullPath())) {
+          derivedPaths.add(derivedPath);
+        }
+      }
+    }
+    if (derivedPaths.isEmpty()) {
+      return;
+    }
+    try {
+      for (Path derivedPath : derivedPaths) {
+        StorageEngine.getInstance()
+            .delete(derivedPath.getDevice(), derivedPath.getMeasurement(), Long.MAX_VALUE);
+      }
+      for (String storageGroup : mManager.deletePaths(derivedPaths, false)) {
+        StorageEngine.getInstance().deleteAllDataFilesInOneStorageGroup(storageGroup);
+      }
+    } catch (StorageEngineException | MetadataException e) {
+      logger.error("Cannot delete the derived series {}", derivedPaths, e);
+    }
+  }
+
+  private Rollup getRollup(Path seriesPath, long interval) {
+    for (Rollup rollup : rollups) {
+      if (rollup.getInterval() == interval && rollup.covers(seriesPath)) {
+        return rollup;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Mark the time ranges of the series in a flushed memtable dirty. This is called after the
+   * memtable is written to the disk, so the data is visible to the refreshing queries.
+   */
+  public void onFlush(IMemTable memTable) {
+    if (rollups.isEmpty() || refreshThread == null) {
+      return;
+    }
+    for (Map.Entry<String, Map<String, IWritableMemChunk>> deviceEntry : memTable.getMemTableMap()
+        .entrySet()) {
+      String deviceId = deviceEntry.getKey();
+      if (Rollup.isDerived(deviceId)) {
+        continue;
+      }
+      for (Map.Entry<String, IWritableMemChunk> entry : deviceEntry.getValue().entrySet()) {
+        TVList tvList = entry.getValue().getSortedTVList();
+        if (tvList.size() == 0) {
+          continue;
+        }
+        Path path = new Path(deviceId, entry.getKey());
+        for (Rollup rollup : rollups) {
+          if (rollup.covers(path)) {
+            RollupSeries series = seriesMap.computeIfAbsent(
+                new Pair<>(path.getFullPath(), rollup.getInterval()),
+                k -> new RollupSeries(path, rollup.getInterval(), false));
+            markDirty(series, tvList.getTime(0), tvList.getTime(tvList.size() - 1));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Mark the late data inserted into the materialized buckets dirty, so that the buckets are read
+   * from the raw data by the queries until the refresh, which also reads the memtables, rewrites
+   * them. The data after the materialized time is rolled up when it is flushed.
+   *
+   * @param minTime the minimum time of the inserted data
+   * @param maxTime the maximum time of the inserted data
+   */
+  public void onInsert(String deviceId, String[] measurements, long minTime, long maxTime) {
+    if (rollups.isEmpty() || minTime >= maxMaterializedTime || Rollup.isDerived(deviceId)) {
+      return;
+    }
+    for (String measurement : measurements) {
+      Path path = new Path(deviceId, measurement);
+      for (Rollup rollup : rollups) {
+        RollupSeries series = rollup.covers(path) ? seriesMap
+            .get(new Pair<>(path.getFullPath(), rollup.getInterval())) : null;
+        if (series == null) {
+          continue;
+        }
+        boolean initialized;
+        long materializedTime;
+        synchronized (series) {
+          initialized = series.initialized;
+          materializedTime = series.materializedTime;
+        }
+        if (!initialized) {
+          // the materialized time is not known yet, the range is refreshed after initialization
+          markDirty(series, minTime, maxTime);
+        } else if (materializedTime != Long.MIN_VALUE && minTime < materializedTime) {
+          markDirty(series, minTime, Math.min(maxTime, materializedTime - 1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Delete the derived data of the buckets whose raw data is all deleted, and recalculate the
+   * materialized bucket whose raw data is partially deleted.
+   *
+   * @param timestamp the raw data with time <= timestamp is deleted
+   */
+  public void onDelete(String deviceId, String measurementId, long timestamp)
+      throws StorageEngineException {
+    if (rollups.isEmpty() || Rollup.isDerived(deviceId)) {
+      return;
+    }
+    Path path = new Path(deviceId, measurementId);
+    for (Rollup rollup : rollups) {
+      RollupSeries series = rollup.covers(path) ? seriesMap
+          .get(new Pair<>(path.getFullPath(), rollup.getInterval())) : null;
+      if (series == null) {
+        continue;
+      }
+      long bucketStart = Rollup.bucketStart(timestamp, series.interval);
+      long lastDeletedBucket = timestamp - bucketStart == series.interval - 1 ? bucketStart
+          : bucketStart - series.interval;
+      for (String aggregation : Rollup.DERIVED_AGGREGATIONS) {
+        Path derivedPath = Rollup.getDerivedPath(path, series.interval, aggregation);
+        StorageEngine.getInstance()
+            .delete(derivedPath.getDevice(), derivedPath.getMeasurement(), lastDeletedBucket);
+      }
+      boolean materialized;
+      long refreshingMinTime;
+      synchronized (series) {
+        materialized = series.materializedTime != Long.MIN_VALUE
+            && bucketStart < series.materializedTime;
+        refreshingMinTime = series.refreshingMinTime;
+      }
+      if (refreshingMinTime <= timestamp) {
+        // the running refresh may have read the deleted data and write the buckets after they
+        // are deleted, so they are refreshed again
+        markDirty(series, refreshingMinTime, timestamp);
+      } else if (lastDeletedBucket != bucketStart && materialized) {
+        markDirty(series, timestamp, timestamp);
+      }
+    }
+  }
+
+  /**
+   * Select a rollup for every column of a group by query without value filters. The interval of
+   * a selected rollup divides the unit, the sliding step and the start time of the query, so every
+   * window is made of whole buckets, and the largest such interval is selected.
+   *
+   * @return the intervals of the selected rollups in the order of the deduplicated paths, or null
+   * if no column can be answered by the rollups. A column that cannot, e.g., a derived series or
+   * an aggregation other than count, sum, avg, min_value and max_value, has an interval of 0 and is
+   * calculated from the raw data.
+   */
+  public long[] selectRollups(GroupByPlan groupByPlan) {
+    if (rollups.isEmpty() || refreshThread == null || groupByPlan.getExpression() != null) {
+      return null;
+    }
+    List<Path> paths = groupByPlan.getDeduplicatedPaths();
+    List<String> aggregations = groupByPlan.getDeduplicatedAggregations();
+    long[] intervals = new long[paths.size()];
+    boolean selected = false;
+    for (int i = 0; i < paths.size(); i++) {
+      Path path = paths.get(i);
+      if (!Rollup.isSupported(groupByPlan.getDeduplicatedDataTypes().get(i))
+          || !isRollupAggregation(aggregations.get(i)) || Rollup.isDerived(path.getDevice())
+          || !isAfterTTL(path, groupByPlan.getStartTime())) {
+        continue;
+      }
+      for (Rollup rollup : rollups) {
+        long interval = rollup.getInterval();
+        if (interval > intervals[i] && groupByPlan.getUnit() % interval == 0
+            && groupByPlan.getSlidingStep() % interval == 0
+            && Math.floorMod(groupByPlan.getStartTime(), interval) == 0
+            && rollup.covers(path)) {
+          intervals[i] = interval;
+        }
+      }
+      selected |= intervals[i] > 0;
+    }
+    return selected ? intervals : null;
+  }
+
+  private static boolean isRollupAggregation(String aggregation) {
+    switch (aggregation.toLowerCase()) {
+      case SQLConstant.COUNT:
+      case SQLConstant.SUM:
+      case SQLConstant.AVG:
+      case SQLConstant.MIN_VALUE:
+      case SQLConstant.MAX_VALUE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * A bucket is stored at its start time, which may be out of the TTL while some of its raw data
+   * is not, so the rollups are not used if the TTL may cut a window.
+   */
+  private static boolean isAfterTTL(Path path, long startTime) {
+    try {
+      MManager mManager = MManager.getInstance();
+      long dataTTL = mManager
+          .getNodeByPathWithCheck(mManager.getStorageGroupNameByPath(path.getFullPath()))
+          .getDataTTL();
+      return dataTTL == Long.MAX_VALUE || System.currentTimeMillis() - dataTTL <= startTime;
+    } catch (ProcessException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return the time before which the buckets of the series can be read from the rollup, or
+   * Long.MIN_VALUE if no bucket can be read
+   */
+  public long getMaterializedTime(Path seriesPath, long interval) {
+    RollupSeries series = seriesMap.get(new Pair<>(seriesPath.getFullPath(), interval));
+    return series == null ? Long.MIN_VALUE : series.getMaterializedTime();
+  }
+
+  /**
+   * Register the series covered by the rollup and check them against the raw data.
+   *
+   * @param clear whether the existing derived data is from an old rollup and should be cleared
+   */
+  private void addSeries(Rollup rollup, boolean clear) {
+    List<String> paths;
+    try {
+      paths = MManager.getInstance().getPaths(rollup.getPattern().getFullPath());
+    } catch (ProcessException e) {
+      // the series are added when they are flushed
+      logger.warn("Cannot get the series of rollup {}", rollup, e);
+      return;
+    }
+    for (String pathStr : paths) {
+      Path path = new Path(pathStr);
+      if (Rollup.isDerived(path.getDevice())) {
+        continue;
+      }
+      Pair<String, Long> key = new Pair<>(pathStr, rollup.getInterval());
+      RollupSeries series = seriesMap.get(key);
+      if (series == null) {
+        seriesMap.putIfAbsent(key, new RollupSeries(path, rollup.getInterval(), clear));
+        series = seriesMap.get(key);
+        markDirty(series, Long.MAX_VALUE, Long.MIN_VALUE);
+      } else if (clear) {
+        // the series are rolled up by another rollup of the same interval
+        logger.info("Series {} is already rolled up by {}ms", pathStr, rollup.getInterval());
+      }
+    }
+  }
+
+  /**
+   * Extend the dirty range of the series and submit a refresh if none is submitted. An empty
+   * range is used to only initialize the series.
+   */
+  private void markDirty(RollupSeries series, long minTime, long maxTime) {
+    ScheduledExecutorService thread = refreshThread;
+    synchronized (series) {
+      series.dirtyMinTime = Math.min(series.dirtyMinTime, minTime);
+      series.dirtyMaxTime = Math.max(series.dirtyMaxTime, maxTime);
+      if (series.submitted || thread == null) {
+        return;
+      }
+      series.submitted = true;
+    }
+    thread.submit(() -> refresh(series));
+  }
+
+  private void refresh(RollupSeries series) {
+    if (refreshThread == null || series.dropped) {
+      // the manager is stopped or the rollup is dropped
+      return;
+    }
+    long minTime = Long.MAX_VALUE;
+    long maxTime = Long.MIN_VALUE;
+    boolean failed = false;
+    try {
+      if (!series.initialized) {
+        initialize(series);
+      }
+      synchronized (series) {
+        minTime = series.dirtyMinTime;
+        maxTime = series.dirtyMaxTime;
+        series.dirtyMinTime = Long.MAX_VALUE;
+        series.dirtyMaxTime = Long.MIN_VALUE;
+        series.refreshingMinTime = minTime;
+      }
+      if (minTime <= maxTime) {
+        refresh(series, minTime, maxTime);
+      }
+    } catch (ProcessException | IOException | RuntimeException e) {
+      // e.g., a file is read when it is being closed or merged
+      logger.error("Cannot refresh the rollup of {} by {}ms in [{}, {}], retry in {}ms",
+          series.path, series.interval, minTime, maxTime, RETRY_INTERVAL_MS, e);
+      failed = true;
+    }
+
+    boolean resubmit;
+    synchronized (series) {
+      series.refreshingMinTime = Long.MAX_VALUE;
+      if (failed) {
+        // keep the range dirty so that the stale buckets are not used
+        series.dirtyMinTime = Math.min(series.dirtyMinTime, minTime);
+        series.dirtyMaxTime = Math.max(series.dirtyMaxTime, maxTime);
+      }
+      resubmit = failed || series.dirtyMinTime <= series.dirtyMaxTime;
+      series.submitted = resubmit;
+    }
+    ScheduledExecutorService thread = refreshThread;
+    if (!resubmit || thread == null) {
+      return;
+    }
+    try {
+      if (failed) {
+        thread.schedule(() -> refresh(series), RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      } else {
+        thread.submit(() -> refresh(series));
+      }
+    } catch (RejectedExecutionException e) {
+      // the manager is being stopped
+      logger.debug("The refresh of {} by {}ms is abandoned", series.path, series.interval);
+    }
+  }
+
+  /**
+   * Create the derived series if they do not exist and find the materialized time from the
+   * derived data, then mark the raw data after it dirty.
+   */
+  private void initialize(RollupSeries series) throws ProcessException, IOException {
+    MManager mManager = MManager.getInstance();
+    TSDataType dataType = mManager.getSeriesType(series.path.getFullPath());
+    series.dataType = dataType;
+    if (!Rollup.isSupported(dataType)) {
+      // the series is never refreshed or used by queries
+      series.initialized = true;
+      return;
+    }
+    CompressionType compressor = CompressionType
+        .valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor());
+    for (String aggregation : Rollup.DERIVED_AGGREGATIONS) {
+      Path derivedPath = Rollup.getDerivedPath(series.path, series.interval, aggregation);
+      if (series.clear) {
+        StorageEngine.getInstance()
+            .delete(derivedPath.getDevice(), derivedPath.getMeasurement(), Long.MAX_VALUE);
+      }
+      if (!mManager.pathExist(derivedPath.getFullPath())) {
+        TSDataType derivedType = Rollup.getDerivedType(dataType, aggregation);
+        TSEncoding encoding = derivedType == TSDataType.FLOAT || derivedType == TSDataType.DOUBLE
+            ? TSEncoding.GORILLA : TSEncoding.RLE;
+        if (mManager.addPathToMTree(derivedPath, derivedType, encoding, compressor,
+            Collections.emptyMap())) {
+          StorageEngine.getInstance().addTimeSeries(derivedPath, derivedType, encoding, compressor,
+              Collections.emptyMap());
+        }
+      }
+    }
+
+    Path countPath = Rollup.getDerivedPath(series.path, series.interval, SQLConstant.COUNT);
+    RowRecord record = aggregate(Arrays.asList(countPath, series.path, series.path),
+        Arrays.asList(TSDataType.INT64, dataType, dataType),
+        Arrays.asList(SQLConstant.MAX_TIME, SQLConstant.MIN_TIME, SQLConstant.MAX_TIME));
+    if (record == null) {
+      // neither the raw data nor the derived data exists
+      series.initialized = true;
+      return;
+    }
+    Field lastBucket = record.getFields().get(0);
+    Field firstTime = record.getFields().get(1);
+    Field lastTime = record.getFields().get(2);
+    synchronized (series) {
+      if (lastBucket.getDataType() != null) {
+        series.materializedTime = lastBucket.getLongV() + series.interval;
+        maxMaterializedTime = Math.max(maxMaterializedTime, series.materializedTime);
+      }
+      if (firstTime.getDataType() != null) {
+        // the whole raw data is checked if nothing is materialized
+        long minTime = series.materializedTime == Long.MIN_VALUE ? firstTime.getLongV()
+            : series.materializedTime;
+        if (minTime <= lastTime.getLongV()) {
+          series.dirtyMinTime = Math.min(series.dirtyMinTime, minTime);
+          series.dirtyMaxTime = Math.max(series.dirtyMaxTime, lastTime.getLongV());
+        }
+      }
+      series.initialized = true;
+    }
+  }
+
+  /**
+   * Recalculate the buckets overlapping [minTime, maxTime]. The buckets before the materialized
+   * time are rewritten, and the complete buckets after it are appended.
+   */
+  private void refresh(RollupSeries series, long minTime, long maxTime)
+      throws ProcessException, IOException {
+    if (!Rollup.isSupported(series.dataType)) {
+      return;
+    }
+    long interval = series.interval;
+    long firstBucket = Rollup.bucketStart(minTime, interval);
+    long lastBucket = Rollup.bucketStart(maxTime, interval);
+    long materializedTime = series.materializedTime;
+    long start;
+    long end;
+    if (materializedTime == Long.MIN_VALUE) {
+      start = firstBucket;
+      end = lastBucket;
+    } else if (lastBucket < materializedTime) {
+      start = firstBucket;
+      end = lastBucket + interval;
+    } else {
+      start = Math.min(firstBucket, materializedTime);
+      end = lastBucket;
+    }
+    if (start < end) {
+      writeBuckets(series, start, end, materializedTime);
+    }
+    if (end > materializedTime) {
+      synchronized (series) {
+        series.materializedTime = end;
+      }
+      maxMaterializedTime = Math.max(maxMaterializedTime, end);
+    }
+  }
+
+  /**
+   * Calculate the buckets in [start, end) from the raw data and write them into the derived
+   * series. The empty buckets before materializedTime are written with a zero count to overwrite
+   * the old results, and the empty buckets after it are skipped.
+   */
+  private void writeBuckets(RollupSeries series, long start, long end, long materializedTime)
+      throws ProcessException, IOException {
+    GroupByPlan plan = new GroupByPlan();
+    plan.setStartTime(start);
+    plan.setEndTime(end - 1);
+    plan.setUnit(series.interval);
+    plan.setSlidingStep(series.interval);
+    String[] measurements = new String[Rollup.DERIVED_AGGREGATIONS.length];
+    TSDataType[] dataTypes = new TSDataType[Rollup.DERIVED_AGGREGATIONS.length];
+    for (int i = 0; i < Rollup.DERIVED_AGGREGATIONS.length; i++) {
+      String aggregation = Rollup.DERIVED_AGGREGATIONS[i];
+      plan.addDeduplicatedPaths(series.path);
+      plan.addDeduplicatedDataTypes(series.dataType);
+      plan.addDeduplicatedAggregations(aggregation);
+      measurements[i] = Rollup.getDerivedPath(series.path, series.interval, aggregation)
+          .getMeasurement();
+      dataTypes[i] = Rollup.getDerivedType(series.dataType, aggregation);
+    }
+    plan.setExpression(new GlobalTimeExpression(
+        FilterFactory.and(TimeFilter.gtEq(start), TimeFilter.lt(end))));
+    String derivedDevice = Rollup.getDerivedPath(series.path, series.interval, SQLConstant.COUNT)
+        .getDevice();
+
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      QueryDataSet dataSet = new GroupByWithoutValueFilterDataSet(new QueryContext(queryId), plan);
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        List<Field> fields = record.getFields();
+        boolean empty = fields.get(0).getDataType() == null || fields.get(0).getLongV() == 0;
+        InsertPlan insertPlan;
+        if (!empty) {
+          String[] values = new String[fields.size()];
+          for (int i = 0; i < fields.size(); i++) {
+            values[i] = fields.get(i).getStringValue();
+          }
+          insertPlan = new InsertPlan(derivedDevice, record.getTimestamp(), measurements, values);
+          insertPlan.setDataTypes(dataTypes);
+        } else if (record.getTimestamp() < materializedTime) {
+          insertPlan = new InsertPlan(derivedDevice, record.getTimestamp(),
+              Arrays.copyOf(measurements, 2), new String[]{"0", "0.0"});
+          insertPlan.setDataTypes(Arrays.copyOf(dataTypes, 2));
+        } else {
+          continue;
+        }
+        try {
+          StorageEngine.getInstance().insert(insertPlan);
+        } catch (OutOfTTLException e) {
+          // the bucket will not be queried
+          logger.debug("Bucket {} of {} is out of TTL", record.getTimestamp(), series.path);
+        }
+      }
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  /**
+   * Bound the late insertions by the materialized times once the series loaded on start are
+   * initialized, before which the materialized times are not known.
+   */
+  private void updateMaxMaterializedTime() {
+    long maxTime = Long.MIN_VALUE;
+    for (RollupSeries series : seriesMap.values()) {
+      synchronized (series) {
+        if (!series.initialized) {
+          // the failed initialization is retried
+          ScheduledExecutorService thread = refreshThread;
+          try {
+            if (thread != null) {
+              thread.schedule(this::updateMaxMaterializedTime, RETRY_INTERVAL_MS,
+                  TimeUnit.MILLISECONDS);
+            }
+          } catch (RejectedExecutionException e) {
+            logger.debug("The rollup manager is being stopped");
+          }
+          return;
+        }
+        maxTime = Math.max(maxTime, series.materializedTime);
+      }
+    }
+    maxMaterializedTime = maxTime;
+  }
+
+  private static RowRecord aggregate(List<Path> paths, List<TSDataType> dataTypes,
+      List<String> aggregations) throws ProcessException, IOException {
+    AggregationPlan plan = new AggregationPlan();
+    plan.setDeduplicatedPaths(paths);
+    plan.setDeduplicatedDataTypes(dataTypes);
+    plan.setDeduplicatedAggregations(aggregations);
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      QueryDataSet dataSet = new AggregateEngineExecutor(plan)
+          .executeWithoutValueFilter(new QueryContext(queryId));
+      return dataSet.hasNext() ? dataSet.next() : null;
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private void loadRollups() throws IOException {
+    rollups.clear();
+    File file = getRollupFile();
+    if (!file.exists()) {
+      return;
+    }
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int split = line.lastIndexOf(',');
+        if (split > 0) {
+          rollups.add(new Rollup(new Path(line.substring(0, split)),
+              Long.parseLong(line.substring(split + 1))));
+        }
+      }
+    }
+  }
+
+  private void saveRollups() throws IOException {
+    File file = getRollupFile();
+    File tmpFile = new File(file.getPath() + ".tmp");
+    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+      throw new IOException("Cannot create directory " + file.getParent());
+    }
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmpFile))) {
+      for (Rollup rollup : rollups) {
+        writer.write(rollup.getPattern().getFullPath() + "," + rollup.getInterval());
+        writer.newLine();
+      }
+    }
+    Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static File getRollupFile() {
+    return new File(IoTDBDescriptor.getInstance().getConfig().getSystemDir(), ROLLUP_FILE_NAME);
+  }
+
+  /**
+   * Wait until all submitted refreshes are finished, including the retries of the failed ones.
+   */
+  @TestOnly
+  public void waitForRefresh() throws InterruptedException {
+    while (true) {
+      ScheduledExecutorService thread = refreshThread;
+      if (thread == null) {
+        return;
+      }
+      // the submitted refreshes run before this one in the single thread
+      try {
+        thread.submit(() -> {
+        }).get();
+      } catch (ExecutionException e) {
+        return;
+      }
+      boolean pending = false;
+      for (RollupSeries series : seriesMap.values()) {
+        synchronized (series) {
+          pending |= series.submitted;
+        }
+      }
+      if (!pending) {
+        return;
+      }
+      // a failed refresh is retried later
+      Thread.sleep(100);
+    }
+  }
+
+  private static class RollupSeries {
+
+    private Path path;
+    private long interval;
+    private TSDataType dataType;
+    /**
+     * whether the derived series should be cleared on initialization.
+     */
+    private boolean clear;
+    private volatile boolean initialized;
+    private volatile boolean dropped;
+
+    /**
+     * the start of the first bucket that is not materialized, or Long.MIN_VALUE if nothing is
+     * materialized.
+     */
+    private long materializedTime = Long.MIN_VALUE;
+    private long dirtyMinTime = Long.MAX_VALUE;
+    private long dirtyMaxTime = Long.MIN_VALUE;
+    private long refreshingMinTime = Long.MAX_VALUE;
+    private boolean submitted;
+
+    private RollupSeries(Path path, long interval, boolean clear) {
+      this.path = path;
+      this.interval = interval;
+      this.clear = clear;
+    }
+
+    /**
+     * @return the start of the first bucket that is either not materialized or being refreshed
+     */
+    private synchronized long getMaterializedTime() {
+      if (!initialized || materializedTime == Long.MIN_VALUE) {
+        return Long.MIN_VALUE;
+      }
+      long dirtyTime = Math.min(dirtyMinTime, refreshingMinTime);
+      return dirtyTime == Long.MAX_VALUE ? materializedTime
+          : Math.min(materializedTime, Rollup.bucketStart(dirtyTime, interval));
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import static org.apache.iotdb.db.engine.merge.task.MergeTask.MERGE_SUFFIX;
 import static org.apache.iotdb.db.engine.storagegroup.TsFileResource.TEMP_SUFFIX;
+import static org.apache.iotdb.db.engine.tier.TsFileMigrator.MIGRATING_SUFFIX;
 import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
 
 import java.io.File;
@@ -31,6 +32,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -38,12 +40,17 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
@@ -52,13 +59,17 @@ import org.apache.iotdb.db.engine.merge.selector.IMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxFileMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxSeriesMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MergeFileStrategy;
+import org.apache.iotdb.db.engine.merge.selector.SizeTieredCompactionSelector;
+import org.apache.iotdb.db.engine.merge.task.CompactionTask;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.engine.merge.task.RecoverCompactionTask;
 import org.apache.iotdb.db.engine.merge.task.RecoverMergeTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.tier.TsFileMigrator;
 import org.apache.iotdb.db.engine.version.SimpleFileVersionController;
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
@@ -73,10 +84,12 @@ import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.control.QueryFileManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.apache.iotdb.db.utils.datastructure.ConcurrentIntLongMap;
 import org.apache.iotdb.db.writelog.recover.TsFileRecoverPerformer;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
@@ -119,13 +132,24 @@ public class StorageGroupProcessor {
   private static final String MERGING_MODIFICATION_FILE_NAME = "merge.mods";
   private static final Logger logger = LoggerFactory.getLogger(StorageGroupProcessor.class);
   private static final int MAX_CACHE_SENSORS = 5000;
+  /**
+   * the number of device locks, a device is guarded by the lock indexed by its hash code
+   */
+  private static final int DEVICE_LOCK_NUM = 128;
   /**
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
    * (i.e., schema, (un)sequenceFileList, work(un)SequenceTsFileProcessor,
    * closing(Un)SequenceTsFileProcessor, latestTimeForEachDevice, and
-   * latestFlushedTimeForEachDevice)
+   * latestFlushedTimeForEachDevice). Insertions into existing TsFileProcessors only hold the read
+   * lock together with the lock of their device, so that different devices are written
+   * concurrently. Creating, flushing and closing TsFileProcessors hold the write lock.
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * striped locks of devices, which guard the memtable chunks and the latest times of the devices
+   * against concurrent insertions and queries under the read lock of insertLock.
+   */
+  private final ReentrantLock[] deviceLocks = new ReentrantLock[DEVICE_LOCK_NUM];
   /**
    * closeStorageGroupCondition is used to wait for all currently closing TsFiles to be done.
    */
@@ -166,17 +190,18 @@ public class StorageGroupProcessor {
    * time partition id -> map, which contains
    * device -> global latest timestamp of each device latestTimeForEachDevice caches non-flushed
    * changes upon timestamps of each device, and is used to update latestFlushedTimeForEachDevice
-   * when a flush is issued.
+   * when a flush is issued. The devices are keyed by their numbers in MManager.
    */
-  private Map<Long, Map<String, Long>> latestTimeForEachDevice = new HashMap<>();
+  private Map<Long, ConcurrentIntLongMap> latestTimeForEachDevice = new ConcurrentHashMap<>();
   /**
    * time partition id -> map, which contains device -> largest timestamp of the latest memtable to
    * be submitted to asyncTryToFlush latestFlushedTimeForEachDevice determines whether a data point
    * should be put into a sequential file or an unsequential file. Data of some device with
    * timestamp less than or equals to the device's latestFlushedTime should go into an unsequential
-   * file.
+   * file. The devices are keyed by their numbers in MManager.
    */
-  private Map<Long, Map<String, Long>> latestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<Long, ConcurrentIntLongMap> latestFlushedTimeForEachDevice =
+      new ConcurrentHashMap<>();
   private String storageGroupName;
   private File storageGroupSysDir;
   /**
@@ -255,6 +280,11 @@ public class StorageGroupProcessor {
     logger.info("recover Storage Group  {}", storageGroupName);
 
     try {
+      // finish or roll back the last compaction before the TsFiles are collected
+      new RecoverCompactionTask(storageGroupSysDir.getPath(),
+          storageGroupName + "-" + System.currentTimeMillis()).recoverCompaction(
+          SystemFileFactory.INSTANCE.getFile(storageGroupSysDir, MERGING_MODIFICATION_FILE_NAME));
+
       // collect TsFiles from sequential and unsequential data directory
       List<TsFileResource> seqTsFiles = getAllFiles(
           DirectoryManager.getInstance().getAllSequenceFileFolders());
@@ -301,12 +331,17 @@ public class StorageGroupProcessor {
     for (TsFileResource resource : sequenceFileTreeSet) {
       long timePartitionId = getTimePartitionFromTsFileResource(resource);
       if (timePartitionId != -1) {
-        latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>())
-            .putAll(resource.getEndTimeMap());
-        latestFlushedTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new HashMap<>())
-            .putAll(resource.getEndTimeMap());
+        for (Entry<String, Long> entry : resource.getEndTimeMap().entrySet()) {
+          int deviceIndex = MManager.getInstance().getDeviceIndex(entry.getKey());
+          getLatestTimeMap(timePartitionId).put(deviceIndex, entry.getValue());
+          getLatestFlushedTimeMap(timePartitionId).put(deviceIndex, entry.getValue());
+        }
       }
     }
+
+    for (int i = 0; i < deviceLocks.length; i++) {
+      deviceLocks[i] = new ReentrantLock();
+    }
   }
 
   private long getTimePartitionFromTsFileResource(TsFileResource resource) {
@@ -343,7 +378,8 @@ public class StorageGroupProcessor {
   }
 
   private List<TsFileResource> getAllFiles(List<String> folders) {
-    List<File> tsFiles = new ArrayList<>();
+    // time partition/file name -> TsFile
+    Map<String, File> tsFiles = new HashMap<>();
     for (String baseDir : folders) {
       File fileFolder = fsFactory.getFile(baseDir, storageGroupName);
       if (!fileFolder.exists()) {
@@ -359,14 +395,31 @@ public class StorageGroupProcessor {
         // the process was interrupted before the merged files could be named
         continueFailedRenames(timeRangeFileFolder, MERGE_SUFFIX);
 
-        Collections.addAll(tsFiles,
-            fsFactory.listFilesBySuffix(timeRangeFileFolder.getAbsolutePath(), TSFILE_SUFFIX));
+        // the TsFiles being moved to the cold folders when the system crashed are still valid in
+        // the old folders
+        for (File migratingFile : fsFactory
+            .listFilesBySuffix(timeRangeFileFolder.getAbsolutePath(), MIGRATING_SUFFIX)) {
+          migratingFile.delete();
+        }
+
+        for (File tsFile : fsFactory
+            .listFilesBySuffix(timeRangeFileFolder.getAbsolutePath(), TSFILE_SUFFIX)) {
+          // the cold folders come last, if a TsFile has been moved to a cold folder but the system
+          // crashed before the old one was removed, the old one is removed here
+          File oldFile = tsFiles.put(timeRangeFileFolder.getName() + File.separator
+              + tsFile.getName(), tsFile);
+          if (oldFile != null) {
+            logger.info("{} has been moved to {}, remove it", oldFile, tsFile);
+            new TsFileResource(oldFile).remove();
+          }
+        }
       }
 
     }
-    tsFiles.sort(this::compareFileName);
+    List<File> sortedTsFiles = new ArrayList<>(tsFiles.values());
+    sortedTsFiles.sort(this::compareFileName);
     List<TsFileResource> ret = new ArrayList<>();
-    tsFiles.forEach(f -> ret.add(new TsFileResource(f)));
+    sortedTsFiles.forEach(f -> ret.add(new TsFileResource(f)));
     return ret;
   }
 
@@ -484,98 +537,182 @@ public class StorageGroupProcessor {
     if (!checkTTL(insertPlan.getTime())) {
       throw new OutOfTTLException(insertPlan.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock();
+    if (insertPlan.getDeviceIndex() < 0) {
+      // the plans that are not executed by QueryProcessExecutor, e.g. of the rollups
+      insertPlan.setDeviceIndex(MManager.getInstance().getDeviceIndex(insertPlan.getDeviceId()));
+    }
+    long timePartitionId = fromTimeToTimePartition(insertPlan.getTime());
+    TsFileProcessor tsFileProcessor;
+    insertLock.readLock().lock();
+    ReentrantLock deviceLock = getDeviceLock(insertPlan.getDeviceId());
+    deviceLock.lock();
     try {
-      // init map
-      long timePartitionId = fromTimeToTimePartition(insertPlan.getTime());
-      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>())
-          .putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
-      latestFlushedTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new HashMap<>())
-          .putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
-
-      // insert to sequence or unSequence file
-      insertToTsFileProcessor(insertPlan,
-          insertPlan.getTime() > latestFlushedTimeForEachDevice.get(timePartitionId)
-              .get(insertPlan.getDeviceId()));
+      tsFileProcessor = getWorkTsFileProcessor(timePartitionId,
+          isSequence(timePartitionId, insertPlan.getDeviceIndex(), insertPlan.getTime()));
+      if (tsFileProcessor != null) {
+        insertToTsFileProcessor(insertPlan, tsFileProcessor, timePartitionId);
+      }
     } finally {
-      writeUnlock();
+      deviceLock.unlock();
+      insertLock.readLock().unlock();
+    }
+
+    if (tsFileProcessor == null) {
+      // the TsFileProcessor of the time partition has to be created
+      writeLock();
+      try {
+        tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId,
+            isSequence(timePartitionId, insertPlan.getDeviceIndex(), insertPlan.getTime()));
+        if (tsFileProcessor == null) {
+          return;
+        }
+        insertToTsFileProcessor(insertPlan, tsFileProcessor, timePartitionId);
+      } finally {
+        writeUnlock();
+      }
     }
+
+    tryToFlush(tsFileProcessor);
   }
 
   public Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
-    writeLock();
+    if (batchInsertPlan.getDeviceIndex() < 0) {
+      batchInsertPlan
+          .setDeviceIndex(MManager.getInstance().getDeviceIndex(batchInsertPlan.getDeviceId()));
+    }
+    Integer[] results = new Integer[batchInsertPlan.getRowCount()];
+    Set<TsFileProcessor> insertedProcessors = new HashSet<>();
+
+    boolean inserted;
+    insertLock.readLock().lock();
+    ReentrantLock deviceLock = getDeviceLock(batchInsertPlan.getDeviceId());
+    deviceLock.lock();
     try {
-      Integer[] results = new Integer[batchInsertPlan.getRowCount()];
-
-      /*
-       * assume that batch has been sorted by client
-       */
-      int loc = 0;
-      while (loc < batchInsertPlan.getRowCount()) {
-        long currTime = batchInsertPlan.getTimes()[loc];
-        // skip points that do not satisfy TTL
-        if (!checkTTL(currTime)) {
-          results[loc] = TSStatusCode.OUT_OF_TTL_ERROR.getStatusCode();
-          loc++;
-        } else {
-          break;
-        }
+      // the batch is inserted under the read lock only if all its TsFileProcessors exist
+      inserted = visitBatchSegments(batchInsertPlan, results,
+          (start, end, sequence, timePartitionId) ->
+              getWorkTsFileProcessor(timePartitionId, sequence) != null);
+      if (inserted) {
+        visitBatchSegments(batchInsertPlan, results, (start, end, sequence, timePartitionId) -> {
+          TsFileProcessor tsFileProcessor = getWorkTsFileProcessor(timePartitionId, sequence);
+          insertBatchToTsFileProcessor(batchInsertPlan, start, end, results, timePartitionId,
+              tsFileProcessor);
+          insertedProcessors.add(tsFileProcessor);
+          return true;
+        });
       }
-      // loc pointing at first legal position
-      if (loc == batchInsertPlan.getRowCount()) {
-        return results;
-      }
-      // before is first start point
-      int before = loc;
-      // before time partition
-      long beforeTimePartition = fromTimeToTimePartition(batchInsertPlan.getTimes()[before]);
-      // init map
-      long lastFlushTime = latestFlushedTimeForEachDevice.
-          computeIfAbsent(beforeTimePartition, id -> new HashMap<>()).
-          computeIfAbsent(batchInsertPlan.getDeviceId(), id -> Long.MIN_VALUE);
-      // if is sequence
-      boolean isSequence = false;
-      while (loc < batchInsertPlan.getRowCount()) {
-        long time = batchInsertPlan.getTimes()[loc];
-        long curTimePartition = fromTimeToTimePartition(time);
-        results[loc] = TSStatusCode.SUCCESS_STATUS.getStatusCode();
-        // start next partition
-        if (curTimePartition != beforeTimePartition) {
-          // insert last time partition
-          insertBatchToTsFileProcessor(batchInsertPlan, before, loc, isSequence, results,
-              beforeTimePartition);
-          // re initialize
-          before = loc;
-          beforeTimePartition = curTimePartition;
-          lastFlushTime = latestFlushedTimeForEachDevice.
-              computeIfAbsent(beforeTimePartition, id -> new HashMap<>()).
-              computeIfAbsent(batchInsertPlan.getDeviceId(), id -> Long.MIN_VALUE);
-          isSequence = false;
+    } finally {
+      deviceLock.unlock();
+      insertLock.readLock().unlock();
+    }
+
+    if (!inserted) {
+      writeLock();
+      try {
+        visitBatchSegments(batchInsertPlan, results, (start, end, sequence, timePartitionId) -> {
+          TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
+          insertBatchToTsFileProcessor(batchInsertPlan, start, end, results, timePartitionId,
+              tsFileProcessor);
+          if (tsFileProcessor != null) {
+            insertedProcessors.add(tsFileProcessor);
+          }
+          return true;
+        });
+      } finally {
+        writeUnlock();
+      }
+    }
+
+    for (TsFileProcessor tsFileProcessor : insertedProcessors) {
+      tryToFlush(tsFileProcessor);
+    }
+    return results;
+  }
+
+  /**
+   * Split the rows of a batch into segments of consecutive rows that belong to the same time
+   * partition and go into the same sequence or unsequence file, and visit them in order. Rows out
+   * of ttl are marked in the results and skipped. The caller should hold the lock of the device.
+   *
+   * @return false if the visitor stopped the visiting
+   */
+  private boolean visitBatchSegments(BatchInsertPlan batchInsertPlan, Integer[] results,
+      BatchSegmentVisitor visitor) throws QueryProcessException {
+    /*
+     * assume that batch has been sorted by client
+     */
+    int loc = 0;
+    while (loc < batchInsertPlan.getRowCount()) {
+      long currTime = batchInsertPlan.getTimes()[loc];
+      // skip points that do not satisfy TTL
+      if (!checkTTL(currTime)) {
+        results[loc] = TSStatusCode.OUT_OF_TTL_ERROR.getStatusCode();
+        loc++;
+      } else {
+        break;
+      }
+    }
+    // loc pointing at first legal position
+    if (loc == batchInsertPlan.getRowCount()) {
+      return true;
+    }
+    // before is first start point
+    int before = loc;
+    // before time partition
+    long beforeTimePartition = fromTimeToTimePartition(batchInsertPlan.getTimes()[before]);
+    // init map
+    long lastFlushTime = getLatestFlushedTimeMap(beforeTimePartition)
+        .get(batchInsertPlan.getDeviceIndex());
+    // if is sequence
+    boolean isSequence = false;
+    while (loc < batchInsertPlan.getRowCount()) {
+      long time = batchInsertPlan.getTimes()[loc];
+      long curTimePartition = fromTimeToTimePartition(time);
+      results[loc] = TSStatusCode.SUCCESS_STATUS.getStatusCode();
+      // start next partition
+      if (curTimePartition != beforeTimePartition) {
+        // visit last time partition
+        if (before < loc && !visitor.visit(before, loc, isSequence, beforeTimePartition)) {
+          return false;
         }
-        // still in this partition
-        else {
-          // judge if we should insert sequence
-          if (!isSequence && time > lastFlushTime) {
-            // insert into unsequence and then start sequence
-            insertBatchToTsFileProcessor(batchInsertPlan, before, loc, false, results,
-                beforeTimePartition);
-            before = loc;
-            isSequence = true;
+        // re initialize
+        before = loc;
+        beforeTimePartition = curTimePartition;
+        lastFlushTime = getLatestFlushedTimeMap(beforeTimePartition)
+            .get(batchInsertPlan.getDeviceIndex());
+        isSequence = false;
+      }
+      // still in this partition
+      else {
+        // judge if we should insert sequence
+        if (!isSequence && time > lastFlushTime) {
+          // visit unsequence and then start sequence
+          if (before < loc && !visitor.visit(before, loc, false, beforeTimePartition)) {
+            return false;
           }
-          loc++;
+          before = loc;
+          isSequence = true;
         }
+        loc++;
       }
+    }
 
-      // do not forget last part
-      if (before < loc) {
-        insertBatchToTsFileProcessor(batchInsertPlan, before, loc, isSequence, results,
-            beforeTimePartition);
-      }
+    // do not forget last part
+    return before >= loc || visitor.visit(before, loc, isSequence, beforeTimePartition);
+  }
 
-      return results;
-    } finally {
-      writeUnlock();
-    }
+  @FunctionalInterface
+  private interface BatchSegmentVisitor {
+
+    /**
+     * @param start           the first row of the segment
+     * @param end             the row after the last row of the segment
+     * @param sequence        whether the segment goes into the sequence file
+     * @param timePartitionId time partition of the segment
+     * @return false to stop visiting the remaining segments
+     */
+    boolean visit(int start, int end, boolean sequence, long timePartitionId)
+        throws QueryProcessException;
   }
 
   /**
@@ -585,24 +722,54 @@ public class StorageGroupProcessor {
     return dataTTL == Long.MAX_VALUE || (System.currentTimeMillis() - time) <= dataTTL;
   }
 
+  private ReentrantLock getDeviceLock(String deviceId) {
+    return deviceLocks[Math.floorMod(deviceId.hashCode(), deviceLocks.length)];
+  }
+
+  /**
+   * init the latest times of the device in the time partition and judge whether a point of the
+   * device goes into a sequence file. The caller should hold the lock of the device.
+   */
+  private boolean isSequence(long timePartitionId, int deviceIndex, long time) {
+    getLatestTimeMap(timePartitionId).putIfAbsent(deviceIndex, Long.MIN_VALUE);
+    return time > getLatestFlushedTimeMap(timePartitionId).get(deviceIndex);
+  }
+
+  /**
+   * @return device number -> latest time of the device in the time partition
+   */
+  private ConcurrentIntLongMap getLatestTimeMap(long timePartitionId) {
+    return latestTimeForEachDevice.computeIfAbsent(timePartitionId,
+        id -> new ConcurrentIntLongMap(Long.MIN_VALUE));
+  }
+
+  /**
+   * @return device number -> latest flushed time of the device in the time partition
+   */
+  private ConcurrentIntLongMap getLatestFlushedTimeMap(long timePartitionId) {
+    return latestFlushedTimeForEachDevice.computeIfAbsent(timePartitionId,
+        id -> new ConcurrentIntLongMap(Long.MIN_VALUE));
+  }
+
+  /**
+   * @return the working TsFileProcessor of the time partition, or null if it has not been created
+   */
+  private TsFileProcessor getWorkTsFileProcessor(long timePartitionId, boolean sequence) {
+    return sequence ? workSequenceTsFileProcessors.get(timePartitionId)
+        : workUnsequenceTsFileProcessors.get(timePartitionId);
+  }
+
   /**
    * insert batch to tsfile processor thread-safety that the caller need to guarantee
    *
    * @param batchInsertPlan batch insert plan
-   * @param sequence        whether is sequence
    * @param results         result array
    * @param timePartitionId time partition id
+   * @param tsFileProcessor the processor to insert into, null if it cannot be created
    */
   private void insertBatchToTsFileProcessor(BatchInsertPlan batchInsertPlan,
-      int start, int end, boolean sequence, Integer[] results, long timePartitionId)
-      throws QueryProcessException {
-    // return when start <= end
-    if (start >= end) {
-      return;
-    }
-
-    TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId,
-        sequence);
+      int start, int end, Integer[] results, long timePartitionId,
+      TsFileProcessor tsFileProcessor) throws QueryProcessException {
     if (tsFileProcessor == null) {
       for (int i = start; i < end; i++) {
         results[i] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
@@ -612,49 +779,44 @@ public class StorageGroupProcessor {
 
     boolean result = tsFileProcessor.insertBatch(batchInsertPlan, start, end, results);
 
-    latestTimeForEachDevice.computeIfAbsent(timePartitionId, t -> new HashMap<>())
-        .putIfAbsent(batchInsertPlan.getDeviceId(), Long.MIN_VALUE);
+    ConcurrentIntLongMap latestTimeMap = getLatestTimeMap(timePartitionId);
+    latestTimeMap.putIfAbsent(batchInsertPlan.getDeviceIndex(), Long.MIN_VALUE);
     // try to update the latest time of the device of this tsRecord
-    if (sequence && result
-        && latestTimeForEachDevice.get(timePartitionId).get(batchInsertPlan.getDeviceId())
-        < batchInsertPlan.getTimes()[end - 1]) {
-      latestTimeForEachDevice.get(timePartitionId)
-          .put(batchInsertPlan.getDeviceId(), batchInsertPlan.getTimes()[end - 1]);
-    }
-
-    // check memtable size and may async try to flush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+    if (tsFileProcessor.isSequence() && result) {
+      latestTimeMap.putIfGreater(batchInsertPlan.getDeviceIndex(),
+          batchInsertPlan.getTimes()[end - 1]);
     }
   }
 
-
-  private void insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
-      throws QueryProcessException {
-    TsFileProcessor tsFileProcessor;
-    boolean result;
-    long timePartitionId = fromTimeToTimePartition(insertPlan.getTime());
-
-    tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
-
-    if (tsFileProcessor == null) {
-      return;
-    }
-
+  private void insertToTsFileProcessor(InsertPlan insertPlan, TsFileProcessor tsFileProcessor,
+      long timePartitionId) throws QueryProcessException {
     // insert TsFileProcessor
-    result = tsFileProcessor.insert(insertPlan);
+    boolean result = tsFileProcessor.insert(insertPlan);
 
     // try to update the latest time of the device of this tsRecord
-    if (result
-        && latestTimeForEachDevice.get(timePartitionId).get(insertPlan.getDeviceId()) < insertPlan
-        .getTime()) {
-      latestTimeForEachDevice.get(timePartitionId)
-          .put(insertPlan.getDeviceId(), insertPlan.getTime());
+    if (result) {
+      getLatestTimeMap(timePartitionId).putIfGreater(insertPlan.getDeviceIndex(),
+          insertPlan.getTime());
     }
+  }
 
-    // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+  /**
+   * check memtable size and may async try to flush the work memtable. The flush changes the
+   * working TsFileProcessors, so it is done under the write lock, after checking that no other
+   * insertion has flushed or closed the processor in the meantime.
+   */
+  private void tryToFlush(TsFileProcessor tsFileProcessor) {
+    if (!tsFileProcessor.shouldFlush()) {
+      return;
+    }
+    writeLock();
+    try {
+      if (getWorkTsFileProcessor(tsFileProcessor.getTimeRangeId(), tsFileProcessor.isSequence())
+          == tsFileProcessor && tsFileProcessor.shouldFlush()) {
+        fileFlushPolicy.apply(this, tsFileProcessor, tsFileProcessor.isSequence());
+      }
+    } finally {
+      writeUnlock();
     }
   }
 
@@ -832,18 +994,23 @@ public class StorageGroupProcessor {
 
   public void closeAllResources() {
     for (TsFileResource tsFileResource : unSequenceFileList) {
-      try {
-        tsFileResource.close();
-      } catch (IOException e) {
-        logger.error("Cannot close a TsFileResource {}", tsFileResource, e);
-      }
+      closeResource(tsFileResource);
     }
     for (TsFileResource tsFileResource : sequenceFileTreeSet) {
-      try {
-        tsFileResource.close();
-      } catch (IOException e) {
-        logger.error("Cannot close a TsFileResource {}", tsFileResource, e);
-      }
+      closeResource(tsFileResource);
+    }
+  }
+
+  private void closeResource(TsFileResource tsFileResource) {
+    if (tsFileResource.getUnsealedFileProcessor() != null) {
+      // the file is created by a concurrent insertion after the processors are closed, e.g., by
+      // the rollup refresh, and it will be closed by its processor
+      return;
+    }
+    try {
+      tsFileResource.close();
+    } catch (IOException e) {
+      logger.error("Cannot close a TsFileResource {}", tsFileResource, e);
     }
   }
 
@@ -954,6 +1121,136 @@ public class StorageGroupProcessor {
     }
   }
 
+  /**
+   * Move the sealed TsFiles whose data are all older than the cold data age threshold to the cold
+   * data directories, and recompress them if a cold data compressor is set. The migration shares
+   * the merging status with merges and compactions, so they never run at the same time.
+   */
+  public synchronized void migrateColdFiles() {
+    if (!DirectoryManager.getInstance().hasColdFolders()) {
+      return;
+    }
+    long timeLowerBound = System.currentTimeMillis()
+        - IoTDBDescriptor.getInstance().getConfig().getColdDataAgeThresholdMs();
+
+    List<TsFileResource> seqFiles;
+    List<TsFileResource> unseqFiles;
+    writeLock();
+    try {
+      if (isMerging) {
+        logger.info("{} a merge is ongoing, skip migrating cold files", storageGroupName);
+        return;
+      }
+      seqFiles = selectColdFiles(sequenceFileTreeSet, timeLowerBound);
+      unseqFiles = selectColdFiles(unSequenceFileList, timeLowerBound);
+      if (seqFiles.isEmpty() && unseqFiles.isEmpty()) {
+        return;
+      }
+      isMerging = true;
+      mergeStartTime = System.currentTimeMillis();
+    } finally {
+      writeUnlock();
+    }
+    logger.info("{} starts to migrate {} seqFiles and {} unseqFiles before {}", storageGroupName,
+        seqFiles.size(), unseqFiles.size(), new Date(timeLowerBound));
+
+    try {
+      for (TsFileResource seqFile : seqFiles) {
+        migrateColdFile(seqFile, true);
+      }
+      for (TsFileResource unseqFile : unseqFiles) {
+        migrateColdFile(unseqFile, false);
+      }
+    } finally {
+      writeLock();
+      try {
+        for (TsFileResource seqFile : seqFiles) {
+          seqFile.setMerging(false);
+        }
+        for (TsFileResource unseqFile : unseqFiles) {
+          unseqFile.setMerging(false);
+        }
+        isMerging = false;
+      } finally {
+        writeUnlock();
+      }
+    }
+  }
+
+  /**
+   * Select the sealed files out of the cold folders whose data are all before the time bound, and
+   * mark them as merging so that they are not removed by TTL. Thread-safety should be ensured by
+   * the caller.
+   */
+  private List<TsFileResource> selectColdFiles(Collection<TsFileResource> resources,
+      long timeLowerBound) {
+    List<TsFileResource> coldFiles = new ArrayList<>();
+    for (TsFileResource resource : resources) {
+      if (resource.isClosed() && !resource.isDeleted() && !resource.isMerging()
+          && !resource.getEndTimeMap().isEmpty() && !resource.stillLives(timeLowerBound)
+          && !UpgradeUtils.isNeedUpgrade(resource) && !DirectoryManager.getInstance()
+          .isColdFolder(resource.getFile().getParentFile().getParentFile().getParentFile())) {
+        resource.setMerging(true);
+        coldFiles.add(resource);
+      }
+    }
+    return coldFiles;
+  }
+
+  private void migrateColdFile(TsFileResource resource, boolean isSeq) {
+    File tempFile = null;
+    try {
+      String coldFolder = isSeq ? DirectoryManager.getInstance().getNextFolderForColdSequenceFile()
+          : DirectoryManager.getInstance().getNextFolderForColdUnSequenceFile();
+      if (coldFolder == null) {
+        return;
+      }
+      File oldFile = resource.getFile();
+      // the time partition folder
+      File partitionFolder = fsFactory.getFile(fsFactory.getFile(coldFolder, storageGroupName),
+          oldFile.getParentFile().getName());
+      partitionFolder.mkdirs();
+      File newFile = fsFactory.getFile(partitionFolder, oldFile.getName());
+      tempFile = fsFactory.getFile(newFile.getPath() + MIGRATING_SUFFIX);
+      // the file is sealed and protected from merges and TTL, so it can be copied without locks
+      TsFileMigrator.migrate(oldFile, tempFile,
+          IoTDBDescriptor.getInstance().getConfig().getColdDataCompressor());
+
+      writeLock();
+      mergeLock.writeLock().lock();
+      try {
+        boolean exists = isSeq ? sequenceFileTreeSet.contains(resource)
+            : unSequenceFileList.contains(resource);
+        if (!exists || resource.isDeleted()) {
+          return;
+        }
+        // ensure that the file is not used by any queries, otherwise it is moved next time
+        if (!resource.getWriteQueryLock().writeLock().tryLock()) {
+          logger.info("{} is being queried, move it later", oldFile);
+          return;
+        }
+        try {
+          TsFileMetaDataCache.getInstance().remove(resource);
+          DeviceMetaDataCache.getInstance().remove(resource);
+          FileReaderManager.getInstance().closeFileAndRemoveReader(resource);
+          resource.replaceFile(tempFile, newFile);
+        } finally {
+          resource.getWriteQueryLock().writeLock().unlock();
+        }
+      } finally {
+        mergeLock.writeLock().unlock();
+        writeUnlock();
+      }
+      logger.info("{} moved {} to {}", storageGroupName, oldFile, newFile);
+    } catch (IOException | DiskSpaceInsufficientException e) {
+      logger.error("{} cannot move {} to the cold folders", storageGroupName, resource, e);
+    } finally {
+      if (tempFile != null && tempFile.exists()) {
+        tempFile.delete();
+      }
+    }
+  }
+
   /**
    * This method will be blocked until all tsfile processors are closed.
    */
@@ -996,6 +1293,9 @@ public class StorageGroupProcessor {
       QueryFileManager filePathsManager) {
     insertLock.readLock().lock();
     mergeLock.readLock().lock();
+    // the memtable chunks of the device must not be written while they are being sorted
+    ReentrantLock deviceLock = getDeviceLock(deviceId);
+    deviceLock.lock();
     synchronized (lruForSensorUsedInQuery) {
       if (lruForSensorUsedInQuery.size() >= MAX_CACHE_SENSORS) {
         lruForSensorUsedInQuery.removeFirst();
@@ -1018,6 +1318,7 @@ public class StorageGroupProcessor {
       dataSource.setDataTTL(dataTTL);
       return dataSource;
     } finally {
+      deviceLock.unlock();
       insertLock.readLock().unlock();
       mergeLock.readLock().unlock();
     }
@@ -1131,10 +1432,14 @@ public class StorageGroupProcessor {
 
     try {
       Long lastUpdateTime = null;
-      for (Map<String, Long> latestTimeMap : latestTimeForEachDevice.values()) {
-        Long curTime = latestTimeMap.get(deviceId);
-        if (curTime != null && (lastUpdateTime == null || lastUpdateTime < curTime)) {
-          lastUpdateTime = curTime;
+      // a device that has never been written has no number and no data
+      int deviceIndex = MManager.getInstance().getDeviceIndexIfPresent(deviceId);
+      for (ConcurrentIntLongMap latestTimeMap : latestTimeForEachDevice.values()) {
+        if (deviceIndex >= 0 && latestTimeMap.containsKey(deviceIndex)) {
+          long curTime = latestTimeMap.get(deviceIndex);
+          if (lastUpdateTime == null || lastUpdateTime < curTime) {
+            lastUpdateTime = curTime;
+          }
         }
       }
 
@@ -1221,10 +1526,15 @@ public class StorageGroupProcessor {
    */
   private void updateEndTimeMap(TsFileProcessor tsFileProcessor) {
     TsFileResource resource = tsFileProcessor.getTsFileResource();
+    ConcurrentIntLongMap latestTimeMap = latestTimeForEachDevice
+        .get(tsFileProcessor.getTimeRangeId());
     for (Entry<String, Long> startTime : resource.getStartTimeMap().entrySet()) {
       String deviceId = startTime.getKey();
-      resource.forceUpdateEndTime(deviceId,
-          latestTimeForEachDevice.get(tsFileProcessor.getTimeRangeId()).get(deviceId));
+      // the devices in the file have been written, so they are numbered
+      int deviceIndex = MManager.getInstance().getDeviceIndexIfPresent(deviceId);
+      if (deviceIndex >= 0) {
+        resource.forceUpdateEndTime(deviceId, latestTimeMap.get(deviceIndex));
+      }
     }
   }
 
@@ -1234,7 +1544,7 @@ public class StorageGroupProcessor {
 
   private boolean updateLatestFlushTimeCallback(TsFileProcessor processor) {
     // update the largest timestamp in the last flushing memtable
-    Map<String, Long> curPartitionDeviceLatestTime = latestTimeForEachDevice
+    ConcurrentIntLongMap curPartitionDeviceLatestTime = latestTimeForEachDevice
         .get(processor.getTimeRangeId());
 
     if (curPartitionDeviceLatestTime == null) {
@@ -1244,11 +1554,7 @@ public class StorageGroupProcessor {
       return false;
     }
 
-    for (Entry<String, Long> entry : curPartitionDeviceLatestTime.entrySet()) {
-      latestFlushedTimeForEachDevice
-          .computeIfAbsent(processor.getTimeRangeId(), id -> new HashMap<>())
-          .put(entry.getKey(), entry.getValue());
-    }
+    getLatestFlushedTimeMap(processor.getTimeRangeId()).putAll(curPartitionDeviceLatestTime);
     return true;
   }
 
@@ -1318,6 +1624,7 @@ public class StorageGroupProcessor {
       waitForAllCurrentTsFileProcessorsClosed();
       if (unSequenceFileList.isEmpty() || sequenceFileTreeSet.isEmpty()) {
         logger.info("{} no files to be merged", storageGroupName);
+        compactSeqFiles();
         return;
       }
 
@@ -1332,6 +1639,7 @@ public class StorageGroupProcessor {
         if (mergeFiles.length == 0) {
           logger.info("{} cannot select merge candidates under the budget {}", storageGroupName,
               budget);
+          compactSeqFiles();
           return;
         }
         // avoid pending tasks holds the metadata and streams
@@ -1353,7 +1661,8 @@ public class StorageGroupProcessor {
             storageGroupName);
         mergingModification = new ModificationFile(
             storageGroupSysDir + File.separator + MERGING_MODIFICATION_FILE_NAME);
-        MergeManager.getINSTANCE().submitMainTask(mergeTask);
+        // the storage groups with more unsequence files are merged first
+        MergeManager.getINSTANCE().submitMainTask(mergeTask, unSequenceFileList.size());
         if (logger.isInfoEnabled()) {
           logger.info("{} submits a merge task {}, merging {} seqFiles, {} unseqFiles",
               storageGroupName, taskName, mergeFiles[0].size(), mergeFiles[1].size());
@@ -1369,6 +1678,36 @@ public class StorageGroupProcessor {
     }
   }
 
+  /**
+   * Submit a task to compact adjacent small sequence files if there are enough of them. The
+   * compaction shares the merging status with the merge of unsequence files, so they never run at
+   * the same time. Thread-safety should be ensured by the caller.
+   */
+  private void compactSeqFiles() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    SizeTieredCompactionSelector selector = new SizeTieredCompactionSelector(
+        config.getSeqFileCompactionSizeThreshold(), config.getSeqFileCompactionMinFileNum(),
+        config.getSeqFileCompactionMaxFileNum(), System.currentTimeMillis() - dataTTL);
+    List<TsFileResource> sourceFiles = selector.select(sequenceFileTreeSet);
+    if (sourceFiles.isEmpty()) {
+      return;
+    }
+    for (TsFileResource sourceFile : sourceFiles) {
+      sourceFile.setMerging(true);
+    }
+    String taskName = storageGroupName + "-compaction-" + System.currentTimeMillis();
+    CompactionTask compactionTask = new CompactionTask(sourceFiles, storageGroupSysDir.getPath(),
+        this::compactionEndAction, taskName, storageGroupName);
+    mergingModification = new ModificationFile(
+        storageGroupSysDir + File.separator + MERGING_MODIFICATION_FILE_NAME);
+    // a compaction is less urgent than any merge of unsequence files
+    MergeManager.getINSTANCE().submitMainTask(compactionTask, -1);
+    logger.info("{} submits a compaction task {}, compacting {} seqFiles", storageGroupName,
+        taskName, sourceFiles.size());
+    isMerging = true;
+    mergeStartTime = System.currentTimeMillis();
+  }
+
   private IMergeFileSelector getMergeFileSelector(long budget, MergeResource resource) {
     MergeFileStrategy strategy = IoTDBDescriptor.getInstance().getConfig().getMergeFileStrategy();
     switch (strategy) {
@@ -1466,6 +1805,59 @@ public class StorageGroupProcessor {
     logger.info("{} a merge task ends", storageGroupName);
   }
 
+  protected void compactionEndAction(List<TsFileResource> sourceFiles,
+      TsFileResource targetFile, File compactionLog) {
+    logger.info("{} a compaction task is ending...", storageGroupName);
+
+    if (targetFile == null) {
+      // compaction runtime exception arose, the source files are kept with all modifications
+      mergeLock.writeLock().lock();
+      try {
+        for (TsFileResource sourceFile : sourceFiles) {
+          sourceFile.setMerging(false);
+        }
+        removeMergingModification();
+        isMerging = false;
+      } finally {
+        mergeLock.writeLock().unlock();
+      }
+      logger.info("{} a compaction task abnormally ends", storageGroupName);
+      return;
+    }
+
+    mergeLock.writeLock().lock();
+    try {
+      // the modifications of the source files are applied to the target file, only those issued
+      // during the compaction are kept
+      updateMergeModification(targetFile);
+      // the target file is equal to the last source file in the order of the set, so the source
+      // files must be removed first
+      sequenceFileTreeSet.removeAll(sourceFiles);
+      sequenceFileTreeSet.add(targetFile);
+      removeMergingModification();
+      isMerging = false;
+    } finally {
+      mergeLock.writeLock().unlock();
+    }
+
+    for (TsFileResource sourceFile : sourceFiles) {
+      sourceFile.getWriteQueryLock().writeLock().lock();
+      try {
+        TsFileMetaDataCache.getInstance().remove(sourceFile);
+        DeviceMetaDataCache.getInstance().remove(sourceFile);
+        FileReaderManager.getInstance().closeFileAndRemoveReader(sourceFile);
+        sourceFile.setDeleted(true);
+        sourceFile.remove();
+      } catch (IOException e) {
+        logger.error("{} cannot remove {} after compaction", storageGroupName, sourceFile, e);
+      } finally {
+        sourceFile.getWriteQueryLock().writeLock().unlock();
+      }
+    }
+    compactionLog.delete();
+    logger.info("{} a compaction task ends", storageGroupName);
+  }
+
   /**
    * Load a new tsfile to storage group processor. The mechanism of the sync module will make sure
    * that there has no file which is overlapping with the new file.
@@ -1595,6 +1987,166 @@ public class StorageGroupProcessor {
     }
   }
 
+  /**
+   * Allocate a version for a file to be bulk loaded into the time partition, so that its data are
+   * newer than the existing data if it is loaded as an unsequence file.
+   *
+   * @UsedBy bulk load module
+   */
+  public long allocateVersionForBulkLoad(long timePartitionId) {
+    writeLock();
+    try {
+      return getVersionControllerByTimePartitionId(timePartitionId).nextVersion();
+    } finally {
+      writeUnlock();
+    }
+  }
+
+  public long getTimePartitionInterval() {
+    return partitionIntervalForStorageGroup;
+  }
+
+  /**
+   * Load the files rewritten by a bulk load, each of which only contains the data of one time
+   * partition. A file of seqCandidates is loaded into the sequence list if its data can be placed
+   * between the sequence files of its partition without overlapping any of them, otherwise it is
+   * loaded into the unsequence list. The files are registered all at once after they are moved into
+   * the data directories, so a query sees either all of them or none of them.
+   *
+   * @param seqCandidates the files whose chunks of each series do not overlap each other
+   * @param unseqFiles the files whose chunks of some series overlap each other
+   * @UsedBy bulk load module
+   */
+  public void loadBulkTsFiles(List<TsFileResource> seqCandidates, List<TsFileResource> unseqFiles)
+      throws TsFileProcessorException {
+    writeLock();
+    mergeLock.writeLock().lock();
+    // the moved files and their original places, which are restored if the load fails
+    Map<File, File> movedFiles = new LinkedHashMap<>();
+    try {
+      List<TsFileResource> seqFiles = new ArrayList<>();
+      List<TsFileResource> newUnseqFiles = new ArrayList<>(unseqFiles);
+      for (TsFileResource resource : seqCandidates) {
+        String fileName = getFileNameForBulkLoad(resource);
+        if (fileName != null) {
+          moveBulkLoadFile(resource, fileName, true, movedFiles);
+          seqFiles.add(resource);
+        } else {
+          newUnseqFiles.add(resource);
+        }
+      }
+      for (TsFileResource resource : newUnseqFiles) {
+        moveBulkLoadFile(resource, resource.getFile().getName(), false, movedFiles);
+      }
+
+      sequenceFileTreeSet.addAll(seqFiles);
+      unSequenceFileList.addAll(newUnseqFiles);
+      for (TsFileResource resource : seqFiles) {
+        updateLatestTimeMap(resource);
+        allDirectFileVersions.addAll(resource.getHistoricalVersions());
+      }
+      for (TsFileResource resource : newUnseqFiles) {
+        updateLatestTimeMap(resource);
+        allDirectFileVersions.addAll(resource.getHistoricalVersions());
+      }
+      logger.info("{} loads {} sequence files and {} unsequence files by bulk load",
+          storageGroupName, seqFiles.size(), newUnseqFiles.size());
+    } catch (DiskSpaceInsufficientException e) {
+      logger.error("Failed to bulk load tsfiles to storage group processor {} because the disk "
+          + "space is insufficient.", storageGroupName);
+      IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+      restoreBulkLoadFiles(movedFiles);
+      throw new TsFileProcessorException(e);
+    } catch (IOException e) {
+      restoreBulkLoadFiles(movedFiles);
+      throw new TsFileProcessorException(
+          String.format("Failed to bulk load tsfiles to storage group %s because %s",
+              storageGroupName, e.getMessage()));
+    } finally {
+      mergeLock.writeLock().unlock();
+      writeUnlock();
+    }
+  }
+
+  /**
+   * @return the name with which the file keeps the order of the sequence files of its partition,
+   * or null if the file cannot be placed between them. A device in an unsealed file is regarded as
+   * having data until the end of time, as its memtables are not flushed yet.
+   */
+  private String getFileNameForBulkLoad(TsFileResource newTsFileResource) {
+    long timePartitionId = getTimePartitionFromTsFileResource(newTsFileResource);
+    String partitionName = Long.toString(timePartitionId);
+    List<TsFileResource> sequenceList = new ArrayList<>(sequenceFileTreeSet);
+    int preIndex = -1;
+    int subsequentIndex = sequenceList.size();
+    for (int i = 0; i < sequenceList.size(); i++) {
+      TsFileResource seqFile = sequenceList.get(i);
+      if (!seqFile.getFile().getParentFile().getName().equals(partitionName)) {
+        continue;
+      }
+      boolean hasPre = false;
+      boolean hasSubsequence = false;
+      for (Entry<String, Long> entry : newTsFileResource.getStartTimeMap().entrySet()) {
+        Long startTime = seqFile.getStartTimeMap().get(entry.getKey());
+        if (startTime == null) {
+          continue;
+        }
+        long endTime = seqFile.isClosed() ? seqFile.getEndTimeMap().get(entry.getKey())
+            : Long.MAX_VALUE;
+        if (startTime > newTsFileResource.getEndTimeMap().get(entry.getKey())) {
+          hasSubsequence = true;
+        } else if (entry.getValue() > endTime) {
+          hasPre = true;
+        } else {
+          return null;
+        }
+      }
+      // every file after the first subsequent one must be subsequent too
+      if ((hasPre && hasSubsequence) || (hasPre && subsequentIndex != sequenceList.size())) {
+        return null;
+      }
+      if (hasPre) {
+        preIndex = i;
+      } else if (hasSubsequence && subsequentIndex == sequenceList.size()) {
+        subsequentIndex = i;
+      }
+    }
+    return getFileNameForLoadingFile(newTsFileResource.getFile().getName(), preIndex,
+        subsequentIndex, timePartitionId);
+  }
+
+  private void moveBulkLoadFile(TsFileResource resource, String fileName, boolean sequence,
+      Map<File, File> movedFiles) throws DiskSpaceInsufficientException, IOException {
+    String baseDir = sequence ? DirectoryManager.getInstance().getNextFolderForSequenceFile()
+        : DirectoryManager.getInstance().getNextFolderForUnSequenceFile();
+    File targetFile = fsFactory.getFile(baseDir, storageGroupName + File.separator
+        + getTimePartitionFromTsFileResource(resource) + File.separator + fileName);
+    File sourceFile = resource.getFile();
+    if (!targetFile.getParentFile().exists()) {
+      targetFile.getParentFile().mkdirs();
+    }
+    FileUtils.moveFile(sourceFile, targetFile);
+    movedFiles.put(sourceFile, targetFile);
+    File sourceResourceFile = fsFactory.getFile(sourceFile + TsFileResource.RESOURCE_SUFFIX);
+    File targetResourceFile = fsFactory.getFile(targetFile + TsFileResource.RESOURCE_SUFFIX);
+    FileUtils.moveFile(sourceResourceFile, targetResourceFile);
+    movedFiles.put(sourceResourceFile, targetResourceFile);
+    resource.setFile(targetFile);
+    logger.info("Bulk load tsfile in {} list, move file from {} to {}",
+        sequence ? "sequence" : "unsequence", sourceFile, targetFile);
+  }
+
+  private void restoreBulkLoadFiles(Map<File, File> movedFiles) {
+    for (Entry<File, File> entry : movedFiles.entrySet()) {
+      try {
+        FileUtils.moveFile(entry.getValue(), entry.getKey());
+      } catch (IOException e) {
+        logger.error("Cannot move {} back to {} after a failed bulk load", entry.getValue(),
+            entry.getKey(), e);
+      }
+    }
+  }
+
   /**
    * Get an appropriate filename to ensure the order between files. The tsfile is named after
    * ({systemTime}-{versionNum}-{mergeNum}.tsfile).
@@ -1657,24 +2209,19 @@ public class StorageGroupProcessor {
    */
   private void updateLatestTimeMap(TsFileResource newTsFileResource) {
     for (Entry<String, Long> entry : newTsFileResource.getEndTimeMap().entrySet()) {
-      String device = entry.getKey();
-      long endTime = newTsFileResource.getEndTimeMap().get(device);
-      long timePartitionId = fromTimeToTimePartition(endTime);
-      if (!latestTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new HashMap<>())
-          .containsKey(device)
-          || latestTimeForEachDevice.get(timePartitionId).get(device) < endTime) {
-        latestTimeForEachDevice.get(timePartitionId).put(device, endTime);
-      }
-
-      Map<String, Long> latestFlushTimeForPartition = latestFlushedTimeForEachDevice
-          .getOrDefault(timePartitionId, new HashMap<>());
-
-      if (!latestFlushTimeForPartition.containsKey(device)
-          || latestFlushTimeForPartition.get(device) < endTime) {
-        latestFlushedTimeForEachDevice
-            .computeIfAbsent(timePartitionId, id -> new HashMap<String, Long>())
-            .put(device, endTime);
+      // the loaded file may contain any device path, and only the registered devices are numbered
+      // so that the file cannot grow the dictionary with devices that can never be written
+      int deviceIndex = MManager.getInstance().getDeviceIndexIfPresent(entry.getKey());
+      if (deviceIndex < 0) {
+        if (!MManager.getInstance().pathExist(entry.getKey())) {
+          continue;
+        }
+        deviceIndex = MManager.getInstance().getDeviceIndex(entry.getKey());
       }
+      long endTime = entry.getValue();
+      long timePartitionId = fromTimeToTimePartition(endTime);
+      getLatestTimeMap(timePartitionId).putIfGreater(deviceIndex, endTime);
+      getLatestFlushedTimeMap(timePartitionId).putIfGreater(deviceIndex, endTime);
     }
   }
 
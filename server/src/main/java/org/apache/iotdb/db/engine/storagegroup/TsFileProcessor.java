@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -37,11 +38,11 @@ import org.apache.iotdb.db.engine.flush.FlushManager;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.engine.flush.NotifyFlushMemTable;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
-import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.CloseTsFileCallBack;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.UpdateEndTimeCallBack;
 import org.apache.iotdb.db.engine.version.VersionController;
@@ -87,7 +88,12 @@ public class TsFileProcessor {
    * and its flushingMemTables are all flushed, then the flush thread will close this file.)
    */
   private volatile boolean shouldClose;
-  private IMemTable workMemTable;
+  /**
+   * the memtable of this processor that receives insertions. Different devices may be inserted
+   * concurrently, so the first insertion after a flush creates it under workMemTableCreationLock.
+   */
+  private volatile IMemTable workMemTable;
+  private final Object workMemTableCreationLock = new Object();
   private VersionController versionController;
   /**
    * this callback is called after the corresponding TsFile is called endFile().
@@ -97,7 +103,7 @@ public class TsFileProcessor {
    * this callback is called before the workMemtable is added into the flushingMemTables.
    */
   private UpdateEndTimeCallBack updateLatestFlushTimeCallback;
-  private WriteLogNode logNode;
+  private volatile WriteLogNode logNode;
   private boolean sequence;
   private long totalMemTableSize;
 
@@ -150,12 +156,8 @@ public class TsFileProcessor {
    */
   public boolean insert(InsertPlan insertPlan) throws QueryProcessException {
 
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-    }
-
     // insert insertPlan to the work memtable
-    workMemTable.insert(insertPlan);
+    getOrCreateWorkMemTable().insert(insertPlan);
 
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
       try {
@@ -180,12 +182,8 @@ public class TsFileProcessor {
   public boolean insertBatch(BatchInsertPlan batchInsertPlan, int start, int end,
       Integer[] results) throws QueryProcessException {
 
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-    }
-
     // insert insertPlan to the work memtable
-    workMemTable.insertBatch(batchInsertPlan, start, end);
+    getOrCreateWorkMemTable().insertBatch(batchInsertPlan, start, end);
 
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
       try {
@@ -212,6 +210,20 @@ public class TsFileProcessor {
     return true;
   }
 
+  private IMemTable getOrCreateWorkMemTable() {
+    IMemTable memTable = workMemTable;
+    if (memTable == null) {
+      synchronized (workMemTableCreationLock) {
+        memTable = workMemTable;
+        if (memTable == null) {
+          memTable = MemTablePool.getInstance().getAvailableMemTable(this);
+          workMemTable = memTable;
+        }
+      }
+    }
+    return memTable;
+  }
+
   /**
    * Delete data which belongs to the timeseries `deviceId.measurementId` and the timestamp of which
    * <= 'timestamp' in the deletion. <br/>
@@ -240,8 +252,9 @@ public class TsFileProcessor {
 
 
   boolean shouldFlush() {
-    return workMemTable != null
-        && workMemTable.memSize() > getMemtableSizeThresholdBasedOnSeriesNum();
+    IMemTable memTable = workMemTable;
+    return memTable != null
+        && memTable.memSize() > getMemtableSizeThresholdBasedOnSeriesNum();
   }
 
   /**
@@ -417,6 +430,8 @@ public class TsFileProcessor {
     try {
       writer.makeMetadataVisible();
       flushingMemTables.remove(memTable);
+      // the flushed data is visible to the rollup refresh from now on
+      RollupManager.getInstance().onFlush(memTable);
       memTable.release();
       MemTablePool.getInstance().putBack(memTable, storageGroupName);
       logger.debug("storage group {} flush finished, remove a memtable from flushing list, "
@@ -535,11 +550,14 @@ public class TsFileProcessor {
   }
 
   WriteLogNode getLogNode() {
-    if (logNode == null) {
-      logNode = MultiFileLogNodeManager.getInstance()
+    WriteLogNode node = logNode;
+    if (node == null) {
+      // concurrent callers get the same node from the manager
+      node = MultiFileLogNodeManager.getInstance()
           .getNode(storageGroupName + "-" + tsFileResource.getFile().getName());
+      logNode = node;
     }
-    return logNode;
+    return node;
   }
 
   public void close() throws TsFileProcessorException {
@@ -583,7 +601,7 @@ public class TsFileProcessor {
       String measurementId, TSDataType dataType, Map<String, String> props, QueryContext context) {
     flushQueryLock.readLock().lock();
     try {
-      MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger();
+      List<ReadOnlyMemChunk> memChunks = new ArrayList<>();
       for (IMemTable flushingMemTable : flushingMemTables) {
         if (flushingMemTable.isSignalMemTable()) {
           continue;
@@ -591,20 +609,17 @@ public class TsFileProcessor {
         ReadOnlyMemChunk memChunk = flushingMemTable
             .query(deviceId, measurementId, dataType, props, context.getQueryTimeLowerBound());
         if (memChunk != null) {
-          memSeriesLazyMerger.addMemSeries(memChunk);
+          memChunks.add(memChunk);
         }
       }
       if (workMemTable != null) {
         ReadOnlyMemChunk memChunk = workMemTable.query(deviceId, measurementId, dataType, props,
             context.getQueryTimeLowerBound());
         if (memChunk != null) {
-          memSeriesLazyMerger.addMemSeries(memChunk);
+          memChunks.add(memChunk);
         }
       }
-      // memSeriesLazyMerger has handled the props,
-      // so we do not need to handle it again in the following readOnlyMemChunk
-      ReadOnlyMemChunk timeValuePairSorter = new ReadOnlyMemChunk(dataType, memSeriesLazyMerger,
-          Collections.emptyMap());
+      ReadOnlyMemChunk timeValuePairSorter = ReadOnlyMemChunk.merge(dataType, memChunks, props);
 
       ModificationFile modificationFile = tsFileResource.getModFile();
       List<Modification> modifications = context.getPathModifications(modificationFile,
@@ -623,6 +638,10 @@ public class TsFileProcessor {
     }
   }
 
+  public boolean isSequence() {
+    return sequence;
+  }
+
   public long getTimeRangeId() {
     return timeRangeId;
   }
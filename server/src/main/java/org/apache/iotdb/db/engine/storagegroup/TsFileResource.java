@@ -24,7 +24,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -108,7 +107,7 @@ public class TsFileResource {
   public TsFileResource(File file) {
     this.file = file;
     this.startTimeMap = new ConcurrentHashMap<>();
-    this.endTimeMap = new HashMap<>();
+    this.endTimeMap = new ConcurrentHashMap<>();
   }
   
   /**
@@ -167,14 +166,14 @@ public class TsFileResource {
     try (InputStream inputStream = fsFactory.getBufferedInputStream(
         file + RESOURCE_SUFFIX)) {
       int size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> startTimes = new HashMap<>();
+      Map<String, Long> startTimes = new ConcurrentHashMap<>();
       for (int i = 0; i < size; i++) {
         String path = ReadWriteIOUtils.readString(inputStream);
         long time = ReadWriteIOUtils.readLong(inputStream);
         startTimes.put(path, time);
       }
       size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> endTimes = new HashMap<>();
+      Map<String, Long> endTimes = new ConcurrentHashMap<>();
       for (int i = 0; i < size; i++) {
         String path = ReadWriteIOUtils.readString(inputStream);
         long time = ReadWriteIOUtils.readLong(inputStream);
@@ -304,6 +303,44 @@ public class TsFileResource {
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
   }
 
+  /**
+   * Replace the file with a copy of it in another directory, e.g., when the file is moved to
+   * another storage tier. The resource and the modifications are moved along with the file, and
+   * the copy becomes visible only after they are in place, so that the old file is still valid if
+   * the system crashes before. The caller should ensure that the file is not used by others.
+   *
+   * @param tempFile the copy, which is renamed to newFile
+   * @param newFile the file in the new directory with the same name
+   */
+  void replaceFile(File tempFile, File newFile) throws IOException {
+    File oldFile = file;
+    if (modFile != null) {
+      modFile.close();
+      modFile = null;
+    }
+    File oldModFile = fsFactory.getFile(oldFile.getPath() + ModificationFile.FILE_SUFFIX);
+    File newModFile = fsFactory.getFile(newFile.getPath() + ModificationFile.FILE_SUFFIX);
+    if (oldModFile.exists()) {
+      FileUtils.copyFile(oldModFile, newModFile);
+    } else {
+      newModFile.delete();
+    }
+    file = newFile;
+    try {
+      serialize();
+      FileUtils.moveFile(tempFile, newFile);
+    } catch (IOException e) {
+      fsFactory.getFile(newFile.getPath() + RESOURCE_SUFFIX).delete();
+      newModFile.delete();
+      file = oldFile;
+      throw e;
+    }
+
+    oldFile.delete();
+    fsFactory.getFile(oldFile.getPath() + RESOURCE_SUFFIX).delete();
+    oldModFile.delete();
+  }
+
   @Override
   public String toString() {
     return file.toString();
@@ -338,7 +375,7 @@ public class TsFileResource {
     this.deleted = deleted;
   }
 
-  boolean isMerging() {
+  public boolean isMerging() {
     return isMerging;
   }
 
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.tier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.apache.commons.io.IOUtils;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+/**
+ * TsFileMigrator copies a sealed TsFile to another storage tier. If a compressor is given, the
+ * pages are uncompressed and compressed again with it while being copied, and the encoded values,
+ * the statistics and the layout of the chunks are kept, so the copy can replace the original file
+ * along with its resource and modifications.
+ */
+public class TsFileMigrator {
+
+  /**
+   * the suffix of the copies being written, which are removed during recovery
+   */
+  public static final String MIGRATING_SUFFIX = ".migrating";
+
+  private TsFileMigrator() {
+    // util class
+  }
+
+  /**
+   * @param source a sealed TsFile
+   * @param target the copy, which is overwritten if it exists
+   * @param compressor the compressor of the copy, or null to copy the file as it is
+   */
+  public static void migrate(File source, File target, CompressionType compressor)
+      throws IOException {
+    if (compressor == null) {
+      copy(source, target);
+    } else {
+      recompress(source, target, compressor);
+    }
+  }
+
+  private static void copy(File source, File target) throws IOException {
+    FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+    try (InputStream in = fsFactory.getBufferedInputStream(source.getPath());
+        OutputStream out = fsFactory.getBufferedOutputStream(target.getPath())) {
+      IOUtils.copy(in, out);
+    }
+  }
+
+  private static void recompress(File source, File target, CompressionType compressor)
+      throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(source.getPath())) {
+      TsFileIOWriter writer = new TsFileIOWriter(target);
+      try {
+        // the chunk groups are rewritten in the order of the file with their versions
+        for (ChunkGroupMetaData chunkGroupMetaData : reader
+            .getSortedChunkGroupMetaDataListByDeviceIds()) {
+          writer.startChunkGroup(chunkGroupMetaData.getDeviceID());
+          for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+            recompressChunk(reader.readMemChunk(chunkMetaData), chunkMetaData, compressor,
+                writer);
+          }
+          writer.endChunkGroup(chunkGroupMetaData.getVersion());
+        }
+        Schema schema = new Schema();
+        for (MeasurementSchema measurementSchema : reader.readFileMetadata()
+            .getMeasurementSchema().values()) {
+          schema.registerMeasurement(new MeasurementSchema(measurementSchema.getMeasurementId(),
+              measurementSchema.getType(), measurementSchema.getEncodingType(), compressor,
+              measurementSchema.getProps()));
+        }
+        writer.endFile(schema);
+      } finally {
+        if (writer.canWrite()) {
+          writer.close();
+        }
+      }
+    }
+  }
+
+  private static void recompressChunk(Chunk chunk, ChunkMetaData chunkMetaData,
+      CompressionType compressor, TsFileIOWriter writer) throws IOException {
+    ChunkHeader chunkHeader = chunk.getHeader();
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(chunkHeader.getCompressionType());
+    ICompressor newCompressor = ICompressor.getCompressor(compressor);
+
+    PublicBAOS pages = new PublicBAOS();
+    ByteBuffer chunkData = chunk.getData();
+    int numOfPages = 0;
+    while (chunkData.hasRemaining()) {
+      PageHeader pageHeader = PageHeader.deserializeFrom(chunkData, chunkHeader.getDataType());
+      byte[] compressed = new byte[pageHeader.getCompressedSize()];
+      chunkData.get(compressed);
+      byte[] uncompressed = unCompressor.uncompress(compressed);
+      byte[] recompressed = newCompressor.compress(uncompressed);
+
+      new PageHeader(uncompressed.length, recompressed.length, pageHeader.getStatistics())
+          .serializeTo(pages);
+      pages.write(recompressed);
+      numOfPages++;
+    }
+
+    MeasurementSchema measurementSchema = new MeasurementSchema(chunkHeader.getMeasurementID(),
+        chunkHeader.getDataType(), chunkHeader.getEncodingType(), compressor);
+    writer.startFlushChunk(measurementSchema, compressor, chunkHeader.getDataType(),
+        chunkHeader.getEncodingType(), chunkMetaData.getStatistics(), pages.size(), numOfPages);
+    writer.writeBytesToStream(pages);
+    writer.endCurrentChunk();
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map from the names of the children of an MNode to the children, in which the children
+ * are kept in an array in insertion order. The keys are not stored as each child is mapped from its
+ * own name. A few children are looked up by linear search, more children by an open addressing
+ * hash table of their positions in the array, so it takes less than half of the memory of a
+ * LinkedHashMap.
+ */
+class ArrayChildrenMap extends AbstractMap<String, MNode> implements Serializable {
+
+  private static final long serialVersionUID = 2785106392735468226L;
+  private static final MNode[] EMPTY = new MNode[0];
+  // the children are looked up by linear search if there are no more children than this
+  private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+  private MNode[] children = EMPTY;
+  private int size;
+  // the positions of the children plus one, in the slots of the hashes of their names; null if
+  // the children are looked up by linear search
+  private int[] index;
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public MNode get(Object key) {
+    int position = indexOf(key);
+    return position >= 0 ? children[position] : null;
+  }
+
+  /**
+   * @param key must be the name of the child
+   */
+  @Override
+  public MNode put(String key, MNode child) {
+    if (!key.equals(child.getName())) {
+      throw new IllegalArgumentException(
+          String.format("Child [%s] cannot be mapped from [%s]", child.getName(), key));
+    }
+    int position = indexOf(key);
+    if (position >= 0) {
+      MNode old = children[position];
+      children[position] = child;
+      return old;
+    }
+    if (size == children.length) {
+      children = Arrays.copyOf(children, Math.max(2, size * 2));
+    }
+    children[size++] = child;
+    if (size > LINEAR_SEARCH_THRESHOLD) {
+      if (index == null || size * 2 > index.length) {
+        rebuildIndex();
+      } else {
+        addToIndex(size - 1);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public MNode remove(Object key) {
+    int position = indexOf(key);
+    if (position < 0) {
+      return null;
+    }
+    MNode old = children[position];
+    removeAt(position);
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    children = EMPTY;
+    size = 0;
+    index = null;
+  }
+
+  @Override
+  public Set<Entry<String, MNode>> entrySet() {
+    return new AbstractSet<Entry<String, MNode>>() {
+      @Override
+      public Iterator<Entry<String, MNode>> iterator() {
+        return new ChildIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private int indexOf(Object key) {
+    if (index == null) {
+      for (int i = 0; i < size; i++) {
+        if (isNameOf(key, i)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    if (key == null) {
+      return -1;
+    }
+    int mask = index.length - 1;
+    for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+      if (isNameOf(key, index[slot] - 1)) {
+        return index[slot] - 1;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isNameOf(Object key, int position) {
+    String name = children[position].getName();
+    // the names are interned, so the references are compared first
+    return name == key || name.equals(key);
+  }
+
+  private void removeAt(int position) {
+    System.arraycopy(children, position + 1, children, position, size - position - 1);
+    children[--size] = null;
+    // the positions after the removed one are all changed
+    if (size > LINEAR_SEARCH_THRESHOLD) {
+      rebuildIndex();
+    } else {
+      index = null;
+    }
+  }
+
+  private void rebuildIndex() {
+    // keep the load factor no more than 0.5
+    index = new int[Integer.highestOneBit(size * 4 - 1)];
+    for (int i = 0; i < size; i++) {
+      addToIndex(i);
+    }
+  }
+
+  private void addToIndex(int position) {
+    int mask = index.length - 1;
+    int slot = hash(children[position].getName()) & mask;
+    while (index[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    index[slot] = position + 1;
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private class ChildIterator implements Iterator<Entry<String, MNode>> {
+
+    private int next;
+    private int last = -1;
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public Entry<String, MNode> next() {
+      if (next >= size) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      MNode child = children[last];
+      return new SimpleImmutableEntry<>(child.getName(), child);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(last);
+      next = last;
+      last = -1;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+
+/**
+ * Assigns each device a number, so that the latest-time maps of the storage groups can be keyed on
+ * ints instead of device paths. The numbers are assigned in the order in which the devices are
+ * first seen and only live in memory: they are not persisted, not reused after they are released
+ * and never appear in TsFiles or RPCs, where the device paths are still used.
+ * <p>
+ * The number of a device is also cached on its MNode (see {@link MManager#getDeviceIndex(MNode)}),
+ * so the inserts that have looked up the device node do not hash the device path again.
+ */
+class DeviceDictionary {
+
+  private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+  // guarded by this
+  private int nextIndex;
+
+  int getIndex(String deviceId) {
+    Integer index = indexes.get(deviceId);
+    if (index != null) {
+      return index;
+    }
+    synchronized (this) {
+      return indexes.computeIfAbsent(deviceId, id -> nextIndex++);
+    }
+  }
+
+  /**
+   * @return the number of the device, or -1 if the device has not been numbered
+   */
+  int getIndexIfPresent(String deviceId) {
+    Integer index = indexes.get(deviceId);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Release the numbers of the devices in a storage group whose data is deleted, as the latest
+   * times of a device are lost with its number.
+   */
+  void releaseStorageGroup(String storageGroup) {
+    String prefix = storageGroup + IoTDBConstant.PATH_SEPARATOR;
+    indexes.keySet()
+        .removeIf(deviceId -> deviceId.equals(storageGroup) || deviceId.startsWith(prefix));
+  }
+
+  /**
+   * Release all the numbers. The numbers are still not reused, so a number held by a storage
+   * group that is not cleared with the dictionary does not refer to another device.
+   */
+  void clear() {
+    indexes.clear();
+  }
+}
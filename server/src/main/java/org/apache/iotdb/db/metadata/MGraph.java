@@ -51,6 +51,19 @@ public class MGraph implements Serializable {
     ptreeMap = new HashMap<>();
   }
 
+  MGraph(MTree mtree) {
+    this.mtree = mtree;
+    ptreeMap = new HashMap<>();
+  }
+
+  MTree getMTree() {
+    return mtree;
+  }
+
+  Map<String, PTree> getPTreeMap() {
+    return ptreeMap;
+  }
+
   /**
    * Add a {@code PTree} to current {@code MGraph}.
    */
@@ -207,6 +220,14 @@ public class MGraph implements Serializable {
     throw new MTreePathException("Timeseries's root", rootName);
   }
 
+  /**
+   * function for getting all timeseries paths in the storage group, including the reserved ones.
+   */
+  HashMap<String, List<String>> getAllPathInStorageGroup(String storageGroupName)
+      throws PathException {
+    return mtree.getAllPath(storageGroupName + ".*", true);
+  }
+
   List<MNode> getAllStorageGroupNodes() {
     return mtree.getAllStorageGroupNodes();
   }
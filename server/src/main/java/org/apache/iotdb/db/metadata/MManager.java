@@ -21,9 +21,10 @@ package org.apache.iotdb.db.metadata;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,8 +32,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -77,6 +80,15 @@ public class MManager {
   private MGraph mgraph;
   private BufferedWriter logWriter;
   private boolean writeToLog;
+  // the snapshot file of the mgraph, which covers a prefix of the log file
+  private String snapshotFilePath;
+  // the number of operations logged after the last snapshot
+  private int logNumSinceSnapshot;
+  private final Object snapshotLock = new Object();
+  // the length of the log file covered by the snapshot written last, guarded by snapshotLock
+  private long snapshotLogLength;
+  // the thread taking the periodic snapshot, which is only started with the write lock held
+  private volatile Thread snapshotThread;
   private String schemaDir;
 
   private RandomDeleteCache<String, PathCheckRet> checkAndGetDataTypeCache;
@@ -85,6 +97,12 @@ public class MManager {
   private Map<String, Integer> seriesNumberInStorageGroups = new HashMap<>();
   private long maxSeriesNumberAmongStorageGroup;
   private boolean initialized;
+  // increased whenever a storage group or a time series is added or removed, so that the cached
+  // plans of the prepared statements can be invalidated
+  private volatile long schemaVersion;
+
+  // the numbers of the devices, which are kept over clear() as they may be still referenced
+  private final DeviceDictionary deviceDictionary = new DeviceDictionary();
 
   private MManager() {
 
@@ -100,6 +118,7 @@ public class MManager {
       }
     }
     logFilePath = schemaDir + File.separator + MetadataConstant.METADATA_LOG;
+    snapshotFilePath = schemaDir + File.separator + MetadataConstant.METADATA_SNAPSHOT;
     writeToLog = false;
 
     int cacheSize = IoTDBDescriptor.getInstance().getConfig().getmManagerCacheSize();
@@ -132,6 +151,13 @@ public class MManager {
     };
   }
 
+  /**
+   * @return a number that changes whenever a storage group or a time series is added or removed
+   */
+  public long getSchemaVersion() {
+    return schemaVersion;
+  }
+
   public static MManager getInstance() {
     return MManagerHolder.INSTANCE;
   }
@@ -168,30 +194,170 @@ public class MManager {
 
   private void initFromLog(File logFile)
       throws IOException, PathException, MetadataException {
-    // init the metadata from the operation log
+    // init the metadata from the snapshot and the operation log after it
     mgraph = new MGraph(ROOT_NAME);
+    long logOffset = loadSnapshot(logFile);
+    synchronized (snapshotLock) {
+      snapshotLogLength = logOffset;
+    }
+    logNumSinceSnapshot = 0;
     if (logFile.exists()) {
-      try (FileReader fr = new FileReader(logFile);
-          BufferedReader br = new BufferedReader(fr)) {
+      try (FileInputStream fis = new FileInputStream(logFile);
+          BufferedReader br = new BufferedReader(new InputStreamReader(fis))) {
+        fis.getChannel().position(logOffset);
         String cmd;
         while ((cmd = br.readLine()) != null) {
           operation(cmd);
+          logNumSinceSnapshot++;
         }
       }
     }
+    logger.info("Metadata is recovered from {} bytes of snapshot-covered mlog and {} operations "
+        + "after it", logOffset, logNumSinceSnapshot);
+    int snapshotInterval = IoTDBDescriptor.getInstance().getConfig().getMlogSnapshotInterval();
+    if (snapshotInterval > 0 && logNumSinceSnapshot >= snapshotInterval) {
+      createSnapshot();
+    }
+  }
+
+  /**
+   * load the mgraph from the snapshot file if it covers a prefix of the log file.
+   *
+   * @return the length of the log file prefix covered by the snapshot, 0 if no snapshot is loaded
+   */
+  private long loadSnapshot(File logFile) throws PathException, MetadataException {
+    File snapshotFile = SystemFileFactory.INSTANCE.getFile(snapshotFilePath);
+    if (!snapshotFile.exists()) {
+      return 0;
+    }
+    MetadataSnapshot snapshot;
+    try {
+      snapshot = MetadataSnapshot.read(snapshotFile, logFile);
+    } catch (IOException e) {
+      logger.warn("Cannot read metadata snapshot {}, replaying the whole mlog", snapshotFile, e);
+      return 0;
+    }
+    if (snapshot == null) {
+      logger.warn("Metadata snapshot {} does not match the mlog, replaying the whole mlog",
+          snapshotFile);
+      return 0;
+    }
+
+    mgraph = snapshot.getMGraph();
+    // the storage groups and the timeseries are registered as they are when they are created
+    seriesNumberInStorageGroups = mgraph.countSeriesNumberInEachStorageGroup();
+    int seriesNum = 0;
+    try {
+      for (Entry<String, Integer> entry : seriesNumberInStorageGroups.entrySet()) {
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
+        ActiveTimeSeriesCounter.getInstance().init(entry.getKey());
+        seriesNum += entry.getValue();
+      }
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(seriesNum);
+    } catch (ConfigAdjusterException e) {
+      throw new MetadataException(e);
+    }
+    return snapshot.getLogLength();
+  }
+
+  /**
+   * Write a snapshot of the mgraph, which covers all the operations in the log file so far. The
+   * modifications of metadata are only blocked while the mgraph is copied in memory, not while the
+   * copy is written.
+   */
+  public void createSnapshot() {
+    byte[] graph;
+    long logLength;
+    long startTime = System.currentTimeMillis();
+    lock.readLock().lock();
+    try {
+      File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
+      logLength = logFile.exists() ? logFile.length() : 0;
+      graph = MetadataSnapshot.serialize(mgraph);
+      logNumSinceSnapshot = 0;
+    } catch (IOException e) {
+      logger.error("Cannot take metadata snapshot, the mlog will be replayed from the last one", e);
+      return;
+    } finally {
+      lock.readLock().unlock();
+    }
+    long copyTime = System.currentTimeMillis() - startTime;
+
+    synchronized (snapshotLock) {
+      try {
+        // a newer snapshot may have been written meanwhile, which is not replaced by an older one
+        if (logLength >= snapshotLogLength) {
+          MetadataSnapshot.write(graph, logLength, SystemFileFactory.INSTANCE.getFile(logFilePath),
+              SystemFileFactory.INSTANCE.getFile(snapshotFilePath));
+          snapshotLogLength = logLength;
+        }
+        logger.info("Metadata snapshot is taken in {} ms, {} ms of which copies the mgraph",
+            System.currentTimeMillis() - startTime, copyTime);
+      } catch (IOException e) {
+        logger.error("Cannot take metadata snapshot, the mlog will be replayed from the last one",
+            e);
+      }
+    }
+  }
+
+  /**
+   * take a snapshot in the background every mlog_snapshot_interval logged operations, so that the
+   * operation is not blocked by the writing. The caller should hold the write lock.
+   */
+  private void onOperationLogged() {
+    int snapshotInterval = IoTDBDescriptor.getInstance().getConfig().getMlogSnapshotInterval();
+    if (snapshotInterval > 0 && ++logNumSinceSnapshot >= snapshotInterval
+        && (snapshotThread == null || !snapshotThread.isAlive())) {
+      snapshotThread = new Thread(this::createSnapshot, ThreadName.METADATA_SNAPSHOT.getName());
+      snapshotThread.start();
+    }
+  }
+
+  /**
+   * wait until the snapshot being taken in the background, if any, is written.
+   */
+  void waitForSnapshot() {
+    Thread thread = snapshotThread;
+    if (thread != null) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * clear the metadata in memory and recover it from the snapshot and the mlog as a restart does.
+   *
+   * this is just for TEST ONLY
+   */
+  void reload() {
+    clear();
+    writeToLog = false;
+    initialized = false;
+    init();
   }
 
   /**
    * function for clearing MGraph.
    */
   public void clear() {
+    // the snapshot of the cleared mgraph is not written after the mlog is cleared or replaced
+    waitForSnapshot();
     lock.writeLock().lock();
     try {
       this.mgraph = new MGraph(ROOT_NAME);
+      this.schemaVersion++;
       this.checkAndGetDataTypeCache.clear();
       this.mNodeCache.clear();
       this.seriesNumberInStorageGroups.clear();
       this.maxSeriesNumberAmongStorageGroup = 0;
+      this.deviceDictionary.clear();
+      this.logNumSinceSnapshot = 0;
+      synchronized (snapshotLock) {
+        this.snapshotLogLength = 0;
+      }
       if (logWriter != null) {
         logWriter.close();
         logWriter = null;
@@ -387,6 +553,7 @@ public class MManager {
       throws PathException, IOException, StorageGroupException {
 
     mgraph.addPathToMTree(path, dataType, encoding, compressor, props);
+    schemaVersion++;
     String storageGroupName = mgraph.getStorageGroupNameByPath(path);
     int size = seriesNumberInStorageGroups.get(storageGroupName);
     seriesNumberInStorageGroups.put(storageGroupName, size + 1);
@@ -404,6 +571,7 @@ public class MManager {
       }
       writer.newLine();
       writer.flush();
+      onOperationLogged();
     }
   }
 
@@ -509,6 +677,10 @@ public class MManager {
           emptyStorageGroups.add(emptiedStorageGroup);
         }
       }
+      // the data files of the emptied storage groups are deleted by the caller
+      for (String storageGroup : emptyStorageGroups) {
+        deviceDictionary.releaseStorageGroup(storageGroup);
+      }
       return emptyStorageGroups;
     }
     return Collections.emptySet();
@@ -560,11 +732,13 @@ public class MManager {
       checkAndGetDataTypeCache.clear();
       mNodeCache.clear();
       String storageGroupName = mgraph.deletePath(path);
+      schemaVersion++;
       if (writeToLog) {
         BufferedWriter writer = getLogWriter();
         writer.write(MetadataOperationType.DELETE_PATH_FROM_MTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
       String storageGroup = getStorageGroupNameByPath(path);
       int size = seriesNumberInStorageGroups.get(storageGroup);
@@ -596,6 +770,7 @@ public class MManager {
         return;
       }
       mgraph.setStorageGroup(path);
+      schemaVersion++;
       IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
       ActiveTimeSeriesCounter.getInstance().init(path);
       seriesNumberInStorageGroups.put(path, 0);
@@ -604,6 +779,7 @@ public class MManager {
         writer.write(MetadataOperationType.SET_STORAGE_GROUP_TO_MTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } catch (StorageGroupException e) {
       throw new MetadataException(e);
@@ -640,6 +816,7 @@ public class MManager {
         writer.write(MetadataOperationType.DELETE_STORAGE_GROUP_FROM_MTREE + jointPath);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
       for (String delStorageGroup : pathList) {
         try {
@@ -647,6 +824,8 @@ public class MManager {
           mNodeCache.clear();
           IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(-1);
           mgraph.deleteStorageGroup(delStorageGroup);
+          deviceDictionary.releaseStorageGroup(delStorageGroup);
+          schemaVersion++;
           IoTDBConfigDynamicAdapter.getInstance()
               .addOrDeleteTimeSeries(seriesNumberInStorageGroups.remove(delStorageGroup) * (-1));
           ActiveTimeSeriesCounter.getInstance().delete(delStorageGroup);
@@ -696,6 +875,7 @@ public class MManager {
         writer.write(MetadataOperationType.ADD_A_PTREE + "," + ptreeRootName);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -716,6 +896,7 @@ public class MManager {
         writer.write(MetadataOperationType.ADD_A_PATH_TO_PTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -735,6 +916,7 @@ public class MManager {
         writer.write(MetadataOperationType.DELETE_PATH_FROM_PTREE + "," + path);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -754,6 +936,7 @@ public class MManager {
         writer.write(MetadataOperationType.LINK_MNODE_TO_PTREE + "," + path + "," + mpath);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -774,6 +957,7 @@ public class MManager {
         writer.write(MetadataOperationType.UNLINK_MNODE_FROM_PTREE + "," + path + "," + mpath);
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -1103,6 +1287,26 @@ public class MManager {
     }
   }
 
+  /**
+   * Return all paths in the storage group, including the reserved ones skipped by {@link
+   * #getPaths(String)}, e.g., the derived series of the rollups.
+   */
+  public List<String> getAllPathsInStorageGroup(String storageGroupName)
+      throws MetadataException {
+    lock.readLock().lock();
+    try {
+      List<String> res = new ArrayList<>();
+      for (List<String> ps : mgraph.getAllPathInStorageGroup(storageGroupName).values()) {
+        res.addAll(ps);
+      }
+      return res;
+    } catch (PathException e) {
+      throw new MetadataException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   /**
    * function for getting all timeseries paths under the given seriesPath.
    */
@@ -1165,6 +1369,44 @@ public class MManager {
     }
   }
 
+  /**
+   * The latest-time maps of the storage groups are keyed on the numbers of the devices instead of
+   * their paths. A device is numbered when it is first written, whether or not it is registered in
+   * the MTree, so only the write path should call this method. The number is kept until the
+   * storage group of the device is deleted or emptied, since the latest times of the device are
+   * kept until then.
+   *
+   * @return the number of the device
+   */
+  public int getDeviceIndex(String deviceId) {
+    return deviceDictionary.getIndex(deviceId);
+  }
+
+  /**
+   * Same as getDeviceIndex(String), but the number is cached on the device node, so the inserts
+   * that have looked up the node do not hash the device path again.
+   *
+   * @param deviceNode the node of a device, e.g. returned by getNodeByPathFromCache()
+   */
+  public int getDeviceIndex(MNode deviceNode) {
+    int deviceIndex = deviceNode.getDeviceIndex();
+    if (deviceIndex < 0) {
+      deviceIndex = deviceDictionary.getIndex(deviceNode.getFullPath());
+      deviceNode.setDeviceIndex(deviceIndex);
+    }
+    return deviceIndex;
+  }
+
+  /**
+   * Unlike getDeviceIndex(), a device that has not been numbered yet is not numbered by this
+   * method, so it can be used with any device path, e.g. of a deletion.
+   *
+   * @return the number of the device, or -1 if the device has never been written
+   */
+  public int getDeviceIndexIfPresent(String deviceId) {
+    return deviceDictionary.getIndexIfPresent(deviceId);
+  }
+
   /**
    * function for getting node by path.
    */
@@ -1460,6 +1702,7 @@ public class MManager {
             .write(String.format("%s,%s,%s", MetadataOperationType.SET_TTL, storageGroup, dataTTL));
         writer.newLine();
         writer.flush();
+        onOperationLogged();
       }
     } finally {
       lock.writeLock().unlock();
@@ -20,7 +20,6 @@ package org.apache.iotdb.db.metadata;
 
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -31,6 +30,12 @@ import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 /**
  * This class is the implementation of Metadata Node where "MNode" is the shorthand of "Metadata
  * Node". One MNode instance represents one node in the Metadata Tree
+ * <p>
+ * As there may be tens of millions of nodes, an MNode is kept compact: the names are interned, the
+ * children are kept in an {@link ArrayChildrenMap} instead of a LinkedHashMap, the full path
+ * of a leaf is computed when needed instead of being cached, the fields of storage groups are
+ * only allocated for storage groups and the leaves of the same measurement
+ * in a storage group share one schema (see {@link MTree#addTimeseriesPath}).
  */
 public class MNode implements Serializable {
 
@@ -42,9 +47,8 @@ public class MNode implements Serializable {
   private boolean isLeaf;
   // Whether current node is Storage group in the Metadata Tree
   private boolean isStorageGroup;
-  // Map for the schema in this storage group
-  private Map<String, MeasurementSchema> schemaMap;
-  private Map<String, Integer> numSchemaMap;
+  // the fields only used by storage groups, null for the other nodes
+  private StorageGroupInfo storageGroupInfo;
   // Corresponding data file name for current node
   private String dataFileName;
   // Column's Schema for one timeseries represented by current node if current
@@ -53,14 +57,11 @@ public class MNode implements Serializable {
   private MNode parent;
   private Map<String, MNode> children;
 
+  // only cached for the internal nodes, which are much fewer than the leaves
   private String fullPath;
-
-  /**
-   * when the data in a storage group is older than dataTTL, it is considered invalid and will
-   * be eventually removed.
-   * only set at storage group level.
-   */
-  private long dataTTL = Long.MAX_VALUE;
+  // the number of the device in MManager plus one, or 0 if the node is not numbered, which is
+  // also the value of a deserialized node as the numbers only live in memory
+  private transient int deviceIndexPlusOne;
 
   /**
    * Constructor of MNode.
@@ -71,14 +72,22 @@ public class MNode implements Serializable {
     this.isLeaf = isLeaf;
     this.isStorageGroup = false;
     if (!isLeaf) {
-      children = new LinkedHashMap<>();
+      children = new ArrayChildrenMap();
     }
   }
 
   public MNode(String name, MNode parent, TSDataType dataType, TSEncoding encoding,
       CompressionType type) {
     this(name, parent, true);
-    this.schema = new MeasurementSchema(name, dataType, encoding, type);
+    this.schema = new MeasurementSchema(this.name, dataType, encoding, type);
+  }
+
+  /**
+   * Constructor of a leaf MNode whose schema may be shared with other leaves.
+   */
+  public MNode(String name, MNode parent, MeasurementSchema schema) {
+    this(name, parent, true);
+    this.schema = schema;
   }
 
   public boolean isStorageGroup() {
@@ -91,20 +100,27 @@ public class MNode implements Serializable {
   public void setStorageGroup(boolean b) {
     this.isStorageGroup = b;
     if (b) {
-      schemaMap = new HashMap<>();
-      numSchemaMap = new HashMap<>();
-    } else {
-      numSchemaMap = null;
-      schemaMap = null;
+      getOrCreateStorageGroupInfo().schemaMap = new HashMap<>();
+      storageGroupInfo.numSchemaMap = new HashMap<>();
+    } else if (storageGroupInfo != null) {
+      storageGroupInfo.numSchemaMap = null;
+      storageGroupInfo.schemaMap = null;
     }
   }
 
+  private StorageGroupInfo getOrCreateStorageGroupInfo() {
+    if (storageGroupInfo == null) {
+      storageGroupInfo = new StorageGroupInfo();
+    }
+    return storageGroupInfo;
+  }
+
   public Map<String, MeasurementSchema> getSchemaMap() {
-    return schemaMap;
+    return storageGroupInfo == null ? null : storageGroupInfo.schemaMap;
   }
 
   public Map<String, Integer> getNumSchemaMap() {
-    return numSchemaMap;
+    return storageGroupInfo == null ? null : storageGroupInfo.numSchemaMap;
   }
 
   public boolean isLeaf() {
@@ -215,15 +231,17 @@ public class MNode implements Serializable {
   }
 
   public void setName(String name) {
-    this.name = name;
+    this.name = name == null ? null : name.intern();
   }
 
   public long getDataTTL() {
-    return dataTTL;
+    return storageGroupInfo == null ? Long.MAX_VALUE : storageGroupInfo.dataTTL;
   }
 
   public void setDataTTL(long dataTTL) {
-    this.dataTTL = dataTTL;
+    if (storageGroupInfo != null || dataTTL != Long.MAX_VALUE) {
+      getOrCreateStorageGroupInfo().dataTTL = dataTTL;
+    }
   }
 
   public String getFullPath() {
@@ -236,6 +254,35 @@ public class MNode implements Serializable {
       curr = curr.parent;
       builder.insert(0, IoTDBConstant.PATH_SEPARATOR).insert(0, curr.name);
     }
+    if (isLeaf) {
+      return builder.toString();
+    }
     return fullPath = builder.toString();
   }
+
+  /**
+   * @return the number of the device cached by MManager, or -1 if it is not cached
+   */
+  int getDeviceIndex() {
+    return deviceIndexPlusOne - 1;
+  }
+
+  void setDeviceIndex(int deviceIndex) {
+    this.deviceIndexPlusOne = deviceIndex + 1;
+  }
+
+  private static class StorageGroupInfo implements Serializable {
+
+    private static final long serialVersionUID = -3408306853626418337L;
+
+    // Map for the schema in this storage group
+    private Map<String, MeasurementSchema> schemaMap;
+    private Map<String, Integer> numSchemaMap;
+
+    /**
+     * when the data in a storage group is older than dataTTL, it is considered invalid and will
+     * be eventually removed.
+     */
+    private long dataTTL = Long.MAX_VALUE;
+  }
 }
@@ -24,6 +24,7 @@ import com.alibaba.fastjson.serializer.SerializerFeature;
 import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -59,6 +60,10 @@ public class MTree implements Serializable {
     this.root = new MNode(rootName, null, false);
   }
 
+  MTree(MNode root) {
+    this.root = root;
+  }
+
   /**
    * function for adding timeseries.It should check whether seriesPath exists.
    */
@@ -71,10 +76,9 @@ public class MTree implements Serializable {
     MNode cur = findLeafParent(nodeNames);
     String levelPath = cur.getDataFileName();
 
-    MNode leaf = new MNode(nodeNames[nodeNames.length - 1], cur, dataType, encoding, compressor);
-    if (props != null && !props.isEmpty()) {
-      leaf.getSchema().setProps(props);
-    }
+    String measurement = nodeNames[nodeNames.length - 1];
+    MNode leaf = new MNode(measurement, cur,
+        getSharedSchema(cur, measurement, dataType, encoding, compressor, props));
     leaf.setDataFileName(levelPath);
     if (cur.isLeaf()) {
       throw new MTreePathException(timeseriesPath, "can't be created",
@@ -83,6 +87,34 @@ public class MTree implements Serializable {
     cur.addChild(nodeNames[nodeNames.length - 1], leaf);
   }
 
+  /**
+   * The devices of a storage group usually have the same measurements, so the schema of a new leaf
+   * is shared with the existing leaves of the measurement in the storage group if they are the
+   * same, instead of taking memory for each time series.
+   *
+   * @param parent the parent of the new leaf
+   * @return the schema in the schema map of the storage group if it is the same, otherwise a new
+   * schema
+   */
+  static MeasurementSchema getSharedSchema(MNode parent, String measurement, TSDataType dataType,
+      TSEncoding encoding, CompressionType compressor, Map<String, String> props) {
+    if (props == null || props.isEmpty()) {
+      props = Collections.emptyMap();
+    }
+    MNode storageGroup = parent;
+    while (storageGroup != null && !storageGroup.isStorageGroup()) {
+      storageGroup = storageGroup.getParent();
+    }
+    if (storageGroup != null) {
+      MeasurementSchema schema = storageGroup.getSchemaMap().get(measurement);
+      if (schema != null && schema.getType() == dataType && schema.getEncodingType() == encoding
+          && schema.getCompressor() == compressor && props.equals(schema.getProps())) {
+        return schema;
+      }
+    }
+    return new MeasurementSchema(measurement.intern(), dataType, encoding, compressor, props);
+  }
+
   /**
    * function for adding deviceId
    */
@@ -590,17 +622,26 @@ public class MTree implements Serializable {
 
   /**
    * Get all paths for given seriesPath regular expression Regular expression in this method is
-   * formed by the amalgamation of seriesPath and the character '*'.
+   * formed by the amalgamation of seriesPath and the character '*'. The '*' does not match the
+   * reserved nodes.
    *
    * @return A HashMap whose Keys are separated by the storage file name.
    */
   HashMap<String, List<String>> getAllPath(String pathReg) throws PathException {
+    return getAllPath(pathReg, false);
+  }
+
+  /**
+   * @param includeReserved whether the '*' matches the reserved nodes
+   */
+  HashMap<String, List<String>> getAllPath(String pathReg, boolean includeReserved)
+      throws PathException {
     HashMap<String, List<String>> paths = new HashMap<>();
     String[] nodes = MetaUtils.getNodeNames(pathReg, PATH_SEPARATOR);
     if (nodes.length == 0 || !nodes[0].equals(getRoot().getName())) {
       throw new MTreePathException("Timeseries", pathReg);
     }
-    findPath(getRoot(), nodes, 1, "", paths);
+    findPath(getRoot(), nodes, 1, "", paths, includeReserved);
     return paths;
   }
 
@@ -674,7 +715,9 @@ public class MTree implements Serializable {
       throw new MTreePathException("Path: \"" + path + "\" doesn't have a child node");
     }
     for (MNode child : cur.getChildren().values()) {
-      ret.add(path + "." + child.getName());
+      if (!MetaUtils.isReserved(child.getName())) {
+        ret.add(path + "." + child.getName());
+      }
     }
     return ret;
   }  
@@ -807,6 +850,9 @@ public class MTree implements Serializable {
     } else {
       boolean deviceAdded = false;
       for (MNode child : node.getChildren().values()) {
+        if (MetaUtils.isReserved(child.getName())) {
+          continue;
+        }
         if(child.isLeaf() && !deviceAdded){
           res.add(parent + node.getName());
           deviceAdded = true;
@@ -853,7 +899,9 @@ public class MTree implements Serializable {
     }
     if (node.hasChildren()) {
       for (MNode child : node.getChildren().values()) {
-        findNodes(child, path + "." + child.toString(), res, targetLevel - 1);
+        if (!MetaUtils.isReserved(child.getName())) {
+          findNodes(child, path + "." + child.toString(), res, targetLevel - 1);
+        }
       }
     }
   }
@@ -956,7 +1004,7 @@ public class MTree implements Serializable {
   }
 
   private void findPath(MNode node, String[] nodes, int idx, String parent,
-      HashMap<String, List<String>> paths) {
+      HashMap<String, List<String>> paths, boolean includeReserved) {
     if (node.isLeaf()) {
       if (nodes.length <= idx) {
         String fileName = node.getDataFileName();
@@ -980,11 +1028,14 @@ public class MTree implements Serializable {
 
     if (!("*").equals(nodeReg)) {
       if (node.hasChild(nodeReg)) {
-        findPath(node.getChild(nodeReg), nodes, idx + 1, parent + node.getName() + ".", paths);
+        findPath(node.getChild(nodeReg), nodes, idx + 1, parent + node.getName() + ".", paths,
+            includeReserved);
       }
     } else {
       for (MNode child : node.getChildren().values()) {
-        findPath(child, nodes, idx + 1, parent + node.getName() + ".", paths);
+        if (includeReserved || !MetaUtils.isReserved(child.getName())) {
+          findPath(child, nodes, idx + 1, parent + node.getName() + ".", paths, includeReserved);
+        }
       }
     }
   }
@@ -1021,7 +1072,9 @@ public class MTree implements Serializable {
       }
     } else {
       for (MNode child : node.getChildren().values()) {
-        findPath(child, nodes, idx + 1, parent + node.getName() + ".", res);
+        if (!MetaUtils.isReserved(child.getName())) {
+          findPath(child, nodes, idx + 1, parent + node.getName() + ".", res);
+        }
       }
     }
   }
@@ -19,6 +19,32 @@
 package org.apache.iotdb.db.metadata;
 
 public class MetaUtils {
+
+  /**
+   * The nodes whose names start with it hold the derived series of the rollups, which are
+   * maintained by the server itself. They are not matched by the wildcards in the queries and the
+   * metadata listings, and the users can neither create, insert into nor delete them.
+   */
+  public static final String RESERVED_NODE_PREFIX = "__rollup_";
+
+  public static boolean isReserved(String nodeName) {
+    return nodeName.startsWith(RESERVED_NODE_PREFIX);
+  }
+
+  /**
+   * @return whether any node of the path is reserved
+   */
+  public static boolean containsReserved(String path) {
+    int index = path.indexOf(RESERVED_NODE_PREFIX);
+    while (index >= 0) {
+      if (index == 0 || path.charAt(index - 1) == '.') {
+        return true;
+      }
+      index = path.indexOf(RESERVED_NODE_PREFIX, index + 1);
+    }
+    return false;
+  }
+
   public static String[] getNodeNames(String path, String separator) {
     String[] nodeNames;
     path = path.trim();
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * A binary snapshot of an {@code MGraph}, with which MManager only replays the operations that are
+ * logged in the mlog after the snapshot is taken instead of the whole mlog.
+ * <p>
+ * The snapshot file consists of a magic string, the length of the mlog prefix it covers and a
+ * checksum of the tail of that prefix (so that a snapshot of another mlog is never applied), the
+ * nodes of the MTree in pre-order and the PTrees with their nodes in pre-order.
+ */
+class MetadataSnapshot {
+
+  private static final String MAGIC_STRING = "IoTDB-MTree-Snapshot-v1";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // the size of the tail of the covered mlog which the checksum is computed on
+  private static final int CHECKSUM_LENGTH = 4096;
+
+  private static final byte LEAF_FLAG = 0x01;
+  private static final byte STORAGE_GROUP_FLAG = 0x02;
+  private static final byte DATA_FILE_NAME_FLAG = 0x04;
+
+  private final MGraph mgraph;
+  private final long logLength;
+
+  private MetadataSnapshot(MGraph mgraph, long logLength) {
+    this.mgraph = mgraph;
+    this.logLength = logLength;
+  }
+
+  MGraph getMGraph() {
+    return mgraph;
+  }
+
+  /**
+   * @return the length of the mlog prefix whose operations are included in the snapshot
+   */
+  long getLogLength() {
+    return logLength;
+  }
+
+  /**
+   * Write the snapshot of the graph into a temporary file and then move it to the snapshot file,
+   * so that a crash during the writing leaves the last snapshot intact.
+   *
+   * @param logFile the mlog, whose current content is covered by the graph
+   */
+  static void write(MGraph mgraph, File logFile, File snapshotFile) throws IOException {
+    long logLength = logFile.exists() ? logFile.length() : 0;
+    write(serialize(mgraph), logLength, logFile, snapshotFile);
+  }
+
+  /**
+   * Serialize the nodes of the graph in memory, so that the graph can be modified again while
+   * the copy is being written.
+   */
+  static byte[] serialize(MGraph mgraph) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeMNode(mgraph.getMTree().getRoot(), out);
+
+      Map<String, PTree> ptreeMap = mgraph.getPTreeMap();
+      out.writeInt(ptreeMap.size());
+      for (PTree ptree : ptreeMap.values()) {
+        writePNode(ptree.getRoot(), out);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Write a graph serialized by {@link #serialize(MGraph)} as the snapshot of the first logLength
+   * bytes of the mlog.
+   */
+  static void write(byte[] graph, long logLength, File logFile, File snapshotFile)
+      throws IOException {
+    File tempFile = new File(snapshotFile.getPath() + TEMP_SUFFIX);
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      out.writeUTF(MAGIC_STRING);
+      out.writeLong(logLength);
+      out.writeLong(checksum(logFile, logLength));
+      out.write(graph);
+    }
+    Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return the snapshot in the file, or null if it does not cover a prefix of the given mlog
+   */
+  static MetadataSnapshot read(File snapshotFile, File logFile) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+      if (!MAGIC_STRING.equals(in.readUTF())) {
+        throw new IOException("Unrecognized metadata snapshot " + snapshotFile);
+      }
+      long logLength = in.readLong();
+      long checksum = in.readLong();
+      long currentLogLength = logFile.exists() ? logFile.length() : 0;
+      if (logLength > currentLogLength || checksum != checksum(logFile, logLength)) {
+        return null;
+      }
+
+      MGraph mgraph = new MGraph(new MTree(readMNode(in, null, null)));
+      int ptreeNum = in.readInt();
+      for (int i = 0; i < ptreeNum; i++) {
+        PNode root = readPNode(in, null);
+        PTree ptree = new PTree(root.getName(), mgraph.getMTree());
+        ptree.setRoot(root);
+        mgraph.getPTreeMap().put(root.getName(), ptree);
+      }
+      return new MetadataSnapshot(mgraph, logLength);
+    }
+  }
+
+  private static long checksum(File logFile, long logLength) throws IOException {
+    CRC32 crc32 = new CRC32();
+    if (logLength == 0) {
+      return crc32.getValue();
+    }
+    int length = (int) Math.min(CHECKSUM_LENGTH, logLength);
+    byte[] bytes = new byte[length];
+    try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+      file.seek(logLength - length);
+      file.readFully(bytes);
+    }
+    crc32.update(bytes);
+    return crc32.getValue();
+  }
+
+  private static void writeMNode(MNode node, DataOutputStream out) throws IOException {
+    out.writeUTF(node.getName());
+    byte flags = 0;
+    if (node.isLeaf()) {
+      flags |= LEAF_FLAG;
+    }
+    if (node.isStorageGroup()) {
+      flags |= STORAGE_GROUP_FLAG;
+    }
+    if (node.getDataFileName() != null) {
+      flags |= DATA_FILE_NAME_FLAG;
+    }
+    out.writeByte(flags);
+    if (node.getDataFileName() != null) {
+      out.writeUTF(node.getDataFileName());
+    }
+    if (node.isStorageGroup()) {
+      out.writeLong(node.getDataTTL());
+    }
+
+    if (node.isLeaf()) {
+      MeasurementSchema schema = node.getSchema();
+      out.writeShort(schema.getType().serialize());
+      out.writeShort(schema.getEncodingType().serialize());
+      out.writeShort(schema.getCompressor().serialize());
+      Map<String, String> props = schema.getProps();
+      if (props == null) {
+        out.writeInt(-1);
+      } else {
+        out.writeInt(props.size());
+        for (Entry<String, String> entry : props.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeUTF(entry.getValue());
+        }
+      }
+    } else {
+      out.writeInt(node.getChildren().size());
+      for (MNode child : node.getChildren().values()) {
+        writeMNode(child, out);
+      }
+    }
+  }
+
+  /**
+   * @param storageGroup the storage group the node belongs to, whose schema maps are rebuilt from
+   *                     the leaves under it
+   */
+  private static MNode readMNode(DataInputStream in, MNode parent, MNode storageGroup)
+      throws IOException {
+    String name = in.readUTF();
+    byte flags = in.readByte();
+    String dataFileName = (flags & DATA_FILE_NAME_FLAG) != 0 ? in.readUTF() : null;
+
+    MNode node;
+    if ((flags & LEAF_FLAG) != 0) {
+      TSDataType dataType = TSDataType.deserialize(in.readShort());
+      TSEncoding encoding = TSEncoding.deserialize(in.readShort());
+      CompressionType compressor = CompressionType.deserialize(in.readShort());
+      int propNum = in.readInt();
+      Map<String, String> props = null;
+      if (propNum >= 0) {
+        props = new HashMap<>(propNum + 1, 1);
+        for (int i = 0; i < propNum; i++) {
+          props.put(in.readUTF(), in.readUTF());
+        }
+      }
+      node = new MNode(name, parent,
+          MTree.getSharedSchema(parent, name, dataType, encoding, compressor, props));
+    } else {
+      node = new MNode(name, parent, false);
+    }
+    node.setDataFileName(dataFileName);
+    if ((flags & STORAGE_GROUP_FLAG) != 0) {
+      node.setStorageGroup(true);
+      node.setDataTTL(in.readLong());
+      storageGroup = node;
+    }
+
+    if (node.isLeaf()) {
+      if (storageGroup != null) {
+        // same as MManager.addPathToMTree, the first series of a measurement provides its schema
+        storageGroup.getSchemaMap().putIfAbsent(name, node.getSchema());
+        storageGroup.getNumSchemaMap().merge(name, 1, Integer::sum);
+      }
+    } else {
+      int childNum = in.readInt();
+      for (int i = 0; i < childNum; i++) {
+        MNode child = readMNode(in, node, storageGroup);
+        node.addChild(child.getName(), child);
+      }
+    }
+    return node;
+  }
+
+  private static void writePNode(PNode node, DataOutputStream out) throws IOException {
+    out.writeUTF(node.getName());
+    out.writeBoolean(node.isLeaf());
+    if (node.isLeaf()) {
+      out.writeInt(node.getLinkedMTreePathMap().size());
+      for (String path : node.getLinkedMTreePathMap().keySet()) {
+        out.writeUTF(path);
+      }
+    } else {
+      out.writeInt(node.getChildren().size());
+      for (PNode child : node.getChildren().values()) {
+        writePNode(child, out);
+      }
+    }
+  }
+
+  private static PNode readPNode(DataInputStream in, PNode parent) throws IOException {
+    PNode node = new PNode(in.readUTF(), parent, in.readBoolean());
+    int num = in.readInt();
+    if (node.isLeaf()) {
+      LinkedHashMap<String, Integer> linkedMTreePathMap = new LinkedHashMap<>();
+      for (int i = 0; i < num; i++) {
+        linkedMTreePathMap.put(in.readUTF(), 1);
+      }
+      node.setLinkedMTreePathMap(linkedMTreePathMap);
+    } else {
+      for (int i = 0; i < num; i++) {
+        PNode child = readPNode(in, node);
+        node.addChild(child.getName(), child);
+      }
+    }
+    return node;
+  }
+}
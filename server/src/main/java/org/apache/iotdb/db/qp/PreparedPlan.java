@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.apache.iotdb.db.exception.query.LogicalOperatorException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.constant.DatetimeUtils;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.logical.crud.BasicFunctionOperator;
+import org.apache.iotdb.db.qp.logical.crud.FilterOperator;
+import org.apache.iotdb.db.qp.logical.crud.InOperator;
+import org.apache.iotdb.db.qp.logical.crud.InsertOperator;
+import org.apache.iotdb.db.qp.logical.crud.QueryOperator;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.strategy.ParseDriver;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+/**
+ * PreparedPlan is a statement with parameter markers '?', which is parsed once and then executed
+ * many times with different parameters. A parameter may be a node of a path, or a time or a value
+ * in the where clause of a query or in the values of an insertion, and it is given as it would be
+ * written in the statement.
+ * <p>
+ * The optimized logical plan of a query is cached for each binding of its path parameters until
+ * the schema is changed, so that only its filter is bound and transformed in an execution, and an
+ * insertion is bound without being parsed. Other statements, fill queries and group by device
+ * queries are parsed again with the parameters bound.
+ */
+public class PreparedPlan {
+
+  // the bindings of the path parameters of a query whose plans are cached
+  private static final int MAX_CACHED_QUERY_NUM = 16;
+
+  private QueryProcessor processor;
+  private String statement;
+  private ZoneId zoneId;
+  private int parameterCount;
+  // the statement parsed with all the parameters unbound
+  private Operator operator;
+
+  // the indexes of the parameters that are nodes of paths or times
+  private Set<Integer> pathParameters = new HashSet<>();
+  private Set<Integer> timeParameters = new HashSet<>();
+
+  private Map<List<String>, CachedQuery> cachedQueries = new LinkedHashMap<List<String>, CachedQuery>(
+      MAX_CACHED_QUERY_NUM, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Entry<List<String>, CachedQuery> eldest) {
+      return size() > MAX_CACHED_QUERY_NUM;
+    }
+  };
+
+  PreparedPlan(QueryProcessor processor, String statement, ZoneId zoneId)
+      throws QueryProcessException, ParseCancellationException {
+    this.processor = processor;
+    this.statement = statement;
+    this.zoneId = zoneId;
+    this.parameterCount = ParseDriver.countParameters(statement);
+    this.operator = processor.parse(statement, zoneId, Collections.emptyList());
+
+    Set<Integer> parameters = new HashSet<>();
+    switch (operator.getType()) {
+      case QUERY:
+        QueryOperator query = (QueryOperator) operator;
+        collectPathParameters(query.getSelectOperator().getSuffixPaths(), parameters);
+        if (query.getFromOperator() != null) {
+          collectPathParameters(query.getFromOperator().getPrefixPaths(), parameters);
+        }
+        if (query.getFilterOperator() != null) {
+          collectFilterParameters(query.getFilterOperator(), parameters);
+        }
+        break;
+      case INSERT:
+        InsertOperator insert = (InsertOperator) operator;
+        collectPathParameters(insert.getSelectedPaths(), parameters);
+        for (String measurement : insert.getMeasurementList()) {
+          collectParameter(measurement, pathParameters, parameters);
+        }
+        for (String value : insert.getValueList()) {
+          collectParameter(value, null, parameters);
+        }
+        if (insert.getTimeParameter() != null) {
+          collectParameter(insert.getTimeParameter(), timeParameters, parameters);
+        }
+        break;
+      default:
+        // the parameters of other statements are not supported
+    }
+    if (parameters.size() != parameterCount) {
+      throw new QueryProcessException(
+          "Parameters can only be the paths, times and values of queries and insertions");
+    }
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public int getParameterCount() {
+    return parameterCount;
+  }
+
+  /**
+   * @param parameters the parameters in the order of the markers
+   * @return a new physical plan of the statement with the given parameters
+   */
+  public PhysicalPlan bind(List<String> parameters) throws QueryProcessException {
+    if (parameters.size() != parameterCount) {
+      throw new QueryProcessException(String
+          .format("%d parameters are expected but %d are given", parameterCount,
+              parameters.size()));
+    }
+    List<String> texts = new ArrayList<>(parameterCount);
+    for (int i = 0; i < parameterCount; i++) {
+      texts.add(checkParameter(i, parameters.get(i)));
+    }
+
+    switch (operator.getType()) {
+      case INSERT:
+        return bindInsert((InsertOperator) operator, texts);
+      case QUERY:
+        QueryOperator query = (QueryOperator) operator;
+        if (!query.isFill() && !query.isGroupByDevice()) {
+          return bindQuery(texts);
+        }
+        // the time of a fill query and the filters of the devices are decided in the
+        // physical plan, so they cannot be bound later
+        return parseAgain(texts);
+      default:
+        return parseAgain(texts);
+    }
+  }
+
+  private PhysicalPlan parseAgain(List<String> texts) throws QueryProcessException {
+    return processor.transformToPhysicalPlan(
+        processor.logicalOptimize(processor.parse(statement, zoneId, texts)));
+  }
+
+  private PhysicalPlan bindInsert(InsertOperator insert, List<String> texts)
+      throws QueryProcessException {
+    Path device = bindPath(insert.getSelectedPaths().get(0), texts);
+    String[] measurements = new String[insert.getMeasurementList().length];
+    for (int i = 0; i < measurements.length; i++) {
+      String measurement = bindText(insert.getMeasurementList()[i], texts);
+      if (measurement.contains("\"") || measurement.contains("\'")) {
+        measurement = measurement.substring(1, measurement.length() - 1);
+      }
+      measurements[i] = measurement;
+    }
+    String[] values = new String[insert.getValueList().length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = bindText(insert.getValueList()[i], texts);
+    }
+    long time = insert.getTimeParameter() == null ? insert.getTime()
+        : Long.parseLong(bindText(insert.getTimeParameter(), texts));
+    if (measurements.length != values.length) {
+      throw new QueryProcessException(String
+          .format("the measurementList's size %d is not consistent with the valueList's size %d",
+              measurements.length, values.length));
+    }
+    return new InsertPlan(device.getFullPath(), time, measurements, values);
+  }
+
+  private PhysicalPlan bindQuery(List<String> texts) throws QueryProcessException {
+    List<String> pathTexts = new ArrayList<>(parameterCount);
+    for (int i = 0; i < parameterCount; i++) {
+      pathTexts.add(pathParameters.contains(i) ? texts.get(i) : null);
+    }
+    CachedQuery cachedQuery;
+    synchronized (cachedQueries) {
+      cachedQuery = cachedQueries.get(pathTexts);
+      if (cachedQuery == null
+          || cachedQuery.schemaVersion != MManager.getInstance().getSchemaVersion()) {
+        cachedQuery = new CachedQuery(pathTexts);
+        cachedQueries.put(pathTexts, cachedQuery);
+      }
+    }
+    return cachedQuery.bind(texts);
+  }
+
+  /**
+   * check a parameter against the position of its marker, and convert a time to a number.
+   */
+  private String checkParameter(int index, String parameter) throws QueryProcessException {
+    if (parameter == null) {
+      throw new QueryProcessException(String.format("Parameter #%d is unset", index + 1));
+    }
+    if (pathParameters.contains(index)) {
+      if (parameter.isEmpty() || parameter.contains(TsFileConstant.PATH_SEPARATOR)
+          || parameter.contains("*") || parameter.trim().length() != parameter
+          .length()) {
+        throw new QueryProcessException(String
+            .format("Parameter #%d should be a single node of a path: %s", index + 1, parameter));
+      }
+    } else if (timeParameters.contains(index)) {
+      return Long.toString(parseTime(index, parameter));
+    }
+    return parameter;
+  }
+
+  private long parseTime(int index, String parameter) throws QueryProcessException {
+    if (parameter.length() > 1 && (parameter.startsWith("'") && parameter.endsWith("'")
+        || parameter.startsWith("\"") && parameter.endsWith("\""))) {
+      // a time set as a string
+      parameter = parameter.substring(1, parameter.length() - 1);
+    }
+    try {
+      return Long.parseLong(parameter);
+    } catch (NumberFormatException e) {
+      // not a timestamp
+    }
+    if (parameter.equalsIgnoreCase(SQLConstant.NOW_FUNC)) {
+      return System.currentTimeMillis();
+    }
+    try {
+      return DatetimeUtils.convertDatetimeStrToLong(parameter, zoneId);
+    } catch (LogicalOperatorException e) {
+      throw new QueryProcessException(
+          String.format("Parameter #%d should be a time: %s", index + 1, parameter));
+    }
+  }
+
+  private void collectPathParameters(Collection<Path> paths, Set<Integer> parameters) {
+    for (Path path : paths) {
+      for (String node : path.getFullPath().split(TsFileConstant.PATH_SEPARATER_NO_REGEX)) {
+        collectParameter(node, pathParameters, parameters);
+      }
+    }
+  }
+
+  private void collectFilterParameters(FilterOperator filter, Set<Integer> parameters) {
+    if (!filter.isLeaf()) {
+      for (FilterOperator child : filter.getChildren()) {
+        collectFilterParameters(child, parameters);
+      }
+      return;
+    }
+    collectPathParameters(Collections.singletonList(filter.getSinglePath()), parameters);
+    Set<Integer> kind = filter.getSinglePath().equals(SQLConstant.RESERVED_TIME)
+        ? timeParameters : null;
+    if (filter instanceof BasicFunctionOperator) {
+      collectParameter(((BasicFunctionOperator) filter).getValue(), kind, parameters);
+    } else if (filter instanceof InOperator) {
+      for (String value : ((InOperator) filter).getValues()) {
+        collectParameter(value, kind, parameters);
+      }
+    }
+  }
+
+  private static void collectParameter(String text, Set<Integer> kind, Set<Integer> parameters) {
+    int index = getParameterIndex(text);
+    if (index >= 0) {
+      parameters.add(index);
+      if (kind != null) {
+        kind.add(index);
+      }
+    }
+  }
+
+  /**
+   * @return the index of the parameter if the text is an unbound parameter, otherwise -1
+   */
+  private static int getParameterIndex(String text) {
+    if (text == null || text.length() <= SQLConstant.PARAMETER_MARKER.length()
+        || !text.startsWith(SQLConstant.PARAMETER_MARKER)) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = SQLConstant.PARAMETER_MARKER.length(); i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      index = index * 10 + (c - '0');
+    }
+    return index;
+  }
+
+  private static String bindText(String text, List<String> texts) {
+    int index = getParameterIndex(text);
+    return index >= 0 ? texts.get(index) : text;
+  }
+
+  private static Path bindPath(Path path, List<String> texts) {
+    String[] nodes = path.getFullPath().split(TsFileConstant.PATH_SEPARATER_NO_REGEX);
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = bindText(nodes[i], texts);
+    }
+    return new Path(String.join(TsFileConstant.PATH_SEPARATOR, nodes));
+  }
+
+  private static void bindFilter(FilterOperator filter, List<String> texts) {
+    if (!filter.isLeaf()) {
+      for (FilterOperator child : filter.getChildren()) {
+        bindFilter(child, texts);
+      }
+    } else if (filter instanceof BasicFunctionOperator) {
+      BasicFunctionOperator basicFunction = (BasicFunctionOperator) filter;
+      basicFunction.setValue(bindText(basicFunction.getValue(), texts));
+    } else if (filter instanceof InOperator) {
+      Set<String> values = ((InOperator) filter).getValues();
+      List<String> boundValues = new ArrayList<>(values.size());
+      for (String value : values) {
+        boundValues.add(bindText(value, texts));
+      }
+      values.clear();
+      values.addAll(boundValues);
+    }
+  }
+
+  /**
+   * The optimized logical plan of a query with its path parameters bound, the filter of which is
+   * bound in each execution.
+   */
+  private class CachedQuery {
+
+    private long schemaVersion;
+    private QueryOperator query;
+    private FilterOperator filter;
+
+    private CachedQuery(List<String> pathTexts) throws QueryProcessException {
+      // the version is read first so that a concurrent change invalidates the plan
+      schemaVersion = MManager.getInstance().getSchemaVersion();
+      query = (QueryOperator) processor
+          .logicalOptimize(processor.parse(statement, zoneId, pathTexts));
+      filter = query.getFilterOperator();
+      query.setFilterOperator(null);
+    }
+
+    private synchronized PhysicalPlan bind(List<String> texts) throws QueryProcessException {
+      FilterOperator boundFilter = null;
+      if (filter != null) {
+        boundFilter = filter.copy();
+        bindFilter(boundFilter, texts);
+      }
+      query.setFilterOperator(boundFilter);
+      try {
+        return processor.transformToPhysicalPlan(query);
+      } finally {
+        query.setFilterOperator(null);
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.qp;
 
 import java.time.ZoneId;
+import java.util.List;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -28,8 +29,11 @@ import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.executor.IQueryProcessExecutor;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.logical.crud.FilterOperator;
+import org.apache.iotdb.db.qp.logical.crud.QueryOperator;
 import org.apache.iotdb.db.qp.logical.crud.SFWOperator;
+import org.apache.iotdb.db.qp.logical.sys.ExplainOperator;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.strategy.InsertStatementParser;
 import org.apache.iotdb.db.qp.strategy.ParseDriver;
 import org.apache.iotdb.db.qp.strategy.PhysicalGenerator;
 import org.apache.iotdb.db.qp.strategy.optimizer.ConcatPathOptimizer;
@@ -62,12 +66,41 @@ public class QueryProcessor {
 
   public PhysicalPlan parseSQLToPhysicalPlan(String sqlStr, ZoneId zoneId)
       throws QueryProcessException, ParseCancellationException {
+    // most insertions are simple enough to be parsed without the grammar
+    PhysicalPlan insertPlan = InsertStatementParser.parse(sqlStr);
+    if (insertPlan != null) {
+      return insertPlan;
+    }
     Operator operator = parseDriver.parse(sqlStr, zoneId);
     operator = logicalOptimize(operator, executor);
     PhysicalGenerator physicalGenerator = new PhysicalGenerator(executor);
     return physicalGenerator.transformToPhysicalPlan(operator);
   }
 
+  /**
+   * parse a statement with parameter markers '?' once, so that it can be executed many times with
+   * different parameters.
+   *
+   * @return the prepared statement, whose parameters are bound by {@link PreparedPlan#bind}
+   */
+  public PreparedPlan prepare(String sqlStr, ZoneId zoneId)
+      throws QueryProcessException, ParseCancellationException {
+    return new PreparedPlan(this, sqlStr, zoneId);
+  }
+
+  Operator parse(String sqlStr, ZoneId zoneId, List<String> parameters)
+      throws ParseCancellationException {
+    return parseDriver.parse(sqlStr, zoneId, parameters);
+  }
+
+  Operator logicalOptimize(Operator operator) throws LogicalOperatorException {
+    return logicalOptimize(operator, executor);
+  }
+
+  PhysicalPlan transformToPhysicalPlan(Operator operator) throws QueryProcessException {
+    return new PhysicalGenerator(executor).transformToPhysicalPlan(operator);
+  }
+
 
   /**
    * given an unoptimized logical operator tree and return a optimized result.
@@ -96,9 +129,17 @@ public class QueryProcessor {
       case LOAD_CONFIGURATION:
       case SHOW:
       case LOAD_FILES:
+      case BULK_LOAD_FILES:
       case REMOVE_FILE:
       case MOVE_FILE:
+      case ROLLUP:
+      case KILL_QUERY:
         return operator;
+      case EXPLAIN:
+        ExplainOperator explain = (ExplainOperator) operator;
+        explain.setQueryOperator(
+            (QueryOperator) optimizeSFWOperator(explain.getQueryOperator(), executor));
+        return explain;
       case QUERY:
       case UPDATE:
       case DELETE:
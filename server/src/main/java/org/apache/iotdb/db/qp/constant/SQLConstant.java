@@ -42,6 +42,8 @@ public class SQLConstant {
   public static final String IS_AGGREGATION = "IS_AGGREGATION";
   public static final String NOW_FUNC = "now()";
   public static final String START_TIME_STR = "1970-1-01T00:00:00";
+  // an unbound parameter of a prepared statement is parsed as this marker followed by its index
+  public static final String PARAMETER_MARKER = "?";
 
   public static final String LINE_FEED_SIGNAL = "\n";
   public static final String ROOT = "root";
@@ -137,6 +139,11 @@ public class SQLConstant {
   public static final int TOK_COUNT_TIMESERIES = 77;
   public static final int TOK_COUNT_NODE_TIMESERIES = 78;
   public static final int TOK_COUNT_NODES = 79;
+  public static final int TOK_ROLLUP_CREATE = 80;
+  public static final int TOK_ROLLUP_DROP = 81;
+  public static final int TOK_KILL_QUERY = 82;
+  public static final int TOK_EXPLAIN = 83;
+  public static final int TOK_BULK_LOAD_FILES = 84;
 
   public static final Map<Integer, String> tokenSymbol = new HashMap<>();
   public static final Map<Integer, String> tokenNames = new HashMap<>();
@@ -203,6 +210,7 @@ public class SQLConstant {
     tokenNames.put(TOK_DYNAMIC_PARAMETER, "TOK_DYNAMIC_PARAMETER");
 
     tokenNames.put(TOK_LOAD_FILES, "TOK_LOAD_FILES");
+    tokenNames.put(TOK_BULK_LOAD_FILES, "TOK_BULK_LOAD_FILES");
     tokenNames.put(TOK_REMOVE_FILE, "TOK_REMOVE_FILE");
     tokenNames.put(TOK_MOVE_FILE, "TOK_MOVE_FILE");
   }
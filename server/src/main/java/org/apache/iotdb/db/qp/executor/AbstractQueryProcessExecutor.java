@@ -25,6 +25,8 @@ import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_COUNT;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_DEVICES;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ITEM;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PARAMETER;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_INTERVAL;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_PATH;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STORAGE_GROUP;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES_COMPRESSION;
@@ -39,12 +41,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.engine.flush.pool.FlushTaskPoolManager;
+import org.apache.iotdb.db.engine.rollup.Rollup;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.path.PathException;
@@ -59,12 +65,15 @@ import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.qp.physical.sys.CountPlan;
+import org.apache.iotdb.db.qp.physical.sys.ExplainPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowChildPathsPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowDevicesPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTTLPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryProfile;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.DeviceIterateDataSet;
 import org.apache.iotdb.db.query.dataset.ListDataSet;
 import org.apache.iotdb.db.query.dataset.SingleDataSet;
@@ -89,6 +98,8 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
       return processDataQuery((QueryPlan) queryPlan, context);
     } else if (queryPlan instanceof AuthorPlan) {
       return processAuthorQuery((AuthorPlan) queryPlan, context);
+    } else if (queryPlan instanceof ExplainPlan) {
+      return processExplain((ExplainPlan) queryPlan, context);
     } else if (queryPlan instanceof ShowPlan) {
       return processShowQuery((ShowPlan) queryPlan);
     } else {
@@ -101,6 +112,8 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
     switch (showPlan.getShowContentType()) {
       case TTL:
         return processShowTTLQuery((ShowTTLPlan) showPlan);
+      case ROLLUP:
+        return processShowRollupQuery();
       case DYNAMIC_PARAMETER:
         return processShowDynamicParameterQuery();
       case FLUSH_TASK_INFO:
@@ -274,6 +287,24 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
     return listDataSet;
   }
 
+  private QueryDataSet processShowRollupQuery() {
+    ListDataSet listDataSet = new ListDataSet(
+        Arrays.asList(new Path(COLUMN_ROLLUP_PATH), new Path(COLUMN_ROLLUP_INTERVAL)),
+        Arrays.asList(TSDataType.TEXT, TSDataType.INT64));
+    int timestamp = 0;
+    for (Rollup rollup : RollupManager.getInstance().getRollups()) {
+      RowRecord rowRecord = new RowRecord(timestamp++);
+      Field path = new Field(TSDataType.TEXT);
+      path.setBinaryV(new Binary(rollup.getPattern().getFullPath()));
+      Field interval = new Field(TSDataType.INT64);
+      interval.setLongV(rollup.getInterval());
+      rowRecord.addField(path);
+      rowRecord.addField(interval);
+      listDataSet.putRecord(rowRecord);
+    }
+    return listDataSet;
+  }
+
   private QueryDataSet processShowVersion() {
     SingleDataSet singleDataSet = new SingleDataSet(Collections.singletonList(new Path(IoTDBConstant.COLUMN_VERSION)),
         Collections.singletonList(TSDataType.TEXT));
@@ -322,6 +353,61 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
     return listDataSet;
   }
 
+  /**
+   * EXPLAIN shows the files selected for each series of the query. EXPLAIN ANALYZE runs the query,
+   * drops its results and shows the profile of it.
+   */
+  private QueryDataSet processExplain(ExplainPlan explainPlan, QueryContext context)
+      throws StorageEngineException, QueryFilterOptimizationException, QueryProcessException,
+      IOException {
+    QueryPlan queryPlan = explainPlan.getQueryPlan();
+    if (!queryPlan.isAlign()) {
+      throw new QueryProcessException("EXPLAIN doesn't support disable align clause.");
+    }
+    if (queryPlan.isGroupByDevice()) {
+      throw new QueryProcessException("EXPLAIN doesn't support group by device clause.");
+    }
+    ListDataSet listDataSet = new ListDataSet(
+        Arrays.asList(new Path(COLUMN_ITEM), new Path(COLUMN_VALUE)),
+        Arrays.asList(TSDataType.TEXT, TSDataType.TEXT));
+    int timestamp = 0;
+    addRowRecordForShowQuery(listDataSet, timestamp++, "query type",
+        queryPlan.getOperatorType().toString());
+    List<Path> paths = queryPlan.getDeduplicatedPaths().isEmpty() ? queryPlan.getPaths()
+        : queryPlan.getDeduplicatedPaths();
+    addRowRecordForShowQuery(listDataSet, timestamp++, "series", String.valueOf(paths));
+    addRowRecordForShowQuery(listDataSet, timestamp++, "filter",
+        String.valueOf(queryPlan.getExpression()));
+
+    // the profile of the explained query replaces the one of the EXPLAIN statement
+    QueryProfile profile = new QueryProfile(queryPlan.toString());
+    context.setProfile(profile);
+    if (explainPlan.isAnalyze()) {
+      long startTime = System.nanoTime();
+      QueryDataSet queryDataSet = processDataQuery(queryPlan, context);
+      long rowNum = 0;
+      while (queryDataSet.hasNext()) {
+        queryDataSet.next();
+        rowNum++;
+      }
+      profile.executed(System.nanoTime() - startTime);
+      profile.rowsEmitted(rowNum);
+      for (Entry<String, String> item : profile.toItems().entrySet()) {
+        addRowRecordForShowQuery(listDataSet, timestamp++, item.getKey(), item.getValue());
+      }
+    } else {
+      for (Path path : paths) {
+        QueryResourceManager.getInstance().getQueryDataSource(path, context);
+      }
+      Map<String, String> items = profile.toItems();
+      for (String key : Arrays.asList("sequence files", "unsequence files",
+          "file selection time")) {
+        addRowRecordForShowQuery(listDataSet, timestamp++, key, items.get(key));
+      }
+    }
+    return listDataSet;
+  }
+
   private void addRowRecordForShowQuery(ListDataSet listDataSet, int timestamp, String item,
       String value) {
     RowRecord rowRecord = new RowRecord(timestamp);
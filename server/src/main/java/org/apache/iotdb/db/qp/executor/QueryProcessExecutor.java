@@ -28,6 +28,8 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.load.TsFileBulkLoader;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -36,6 +38,7 @@ import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.metadata.MNode;
+import org.apache.iotdb.db.metadata.MetaUtils;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator.AuthorType;
@@ -44,6 +47,7 @@ import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.*;
 import org.apache.iotdb.db.qp.physical.sys.*;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryMemoryManager;
 import org.apache.iotdb.db.query.dataset.ListDataSet;
 import org.apache.iotdb.db.utils.AuthUtils;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
@@ -66,7 +70,6 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
-import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -136,12 +139,21 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
       case LOAD_FILES:
         operateLoadFiles((OperateFilePlan) plan);
         return true;
+      case BULK_LOAD_FILES:
+        operateBulkLoadFiles((OperateFilePlan) plan);
+        return true;
       case REMOVE_FILE:
         operateRemoveFile((OperateFilePlan) plan);
         return true;
       case MOVE_FILE:
         operateMoveFile((OperateFilePlan) plan);
         return true;
+      case ROLLUP:
+        operateRollup((RollupPlan) plan);
+        return true;
+      case KILL_QUERY:
+        operateKillQuery((KillQueryPlan) plan);
+        return true;
       default:
         throw new UnsupportedOperationException(
             String.format("operation %s is not supported", plan.getOperatorType()));
@@ -179,19 +191,9 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     TsFileResource tsFileResource = new TsFileResource(file);
     tsFileResource.setClosed(true);
     try {
-      // check file
-      RestorableTsFileIOWriter restorableTsFileIOWriter = new RestorableTsFileIOWriter(file);
-      if (restorableTsFileIOWriter.hasCrashed()) {
-        restorableTsFileIOWriter.close();
-        throw new QueryProcessException(
-            String.format("Cannot load file %s because the file has crashed.",
-                file.getAbsolutePath()));
-      }
       Map<String, MeasurementSchema> schemaMap = new HashMap<>();
       List<ChunkGroupMetaData> chunkGroupMetaData = new ArrayList<>();
-      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath(), false)) {
-        reader.selfCheck(schemaMap, chunkGroupMetaData, false);
-      }
+      checkLoadingFile(file, schemaMap, chunkGroupMetaData);
 
       FileLoaderUtils.checkTsFileResource(tsFileResource);
       if (UpgradeUtils.isNeedUpgrade(tsFileResource)) {
@@ -213,6 +215,72 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
   }
 
+  /**
+   * check whether the file is complete and read its schemas and chunk groups. The file is only
+   * read, so an incomplete file is rejected as it is instead of being truncated.
+   */
+  private void checkLoadingFile(File file, Map<String, MeasurementSchema> schemaMap,
+      List<ChunkGroupMetaData> chunkGroupMetaData) throws IOException, QueryProcessException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath(), false)) {
+      if (!reader.isComplete()) {
+        throw new QueryProcessException(
+            String.format("Cannot load file %s because the file has crashed.",
+                file.getAbsolutePath()));
+      }
+      reader.selfCheck(schemaMap, chunkGroupMetaData, false);
+    }
+  }
+
+  private void operateBulkLoadFiles(OperateFilePlan plan) throws QueryProcessException {
+    File file = plan.getFile();
+    if (!file.exists()) {
+      throw new QueryProcessException(
+          String.format("File path %s doesn't exists.", file.getPath()));
+    }
+    List<File> files = new ArrayList<>();
+    collectTsFiles(file, files);
+    if (files.isEmpty()) {
+      return;
+    }
+    for (File tsFile : files) {
+      try {
+        Map<String, MeasurementSchema> schemaMap = new HashMap<>();
+        List<ChunkGroupMetaData> chunkGroupMetaData = new ArrayList<>();
+        checkLoadingFile(tsFile, schemaMap, chunkGroupMetaData);
+        if (UpgradeUtils.isNeedUpgrade(new TsFileResource(tsFile))) {
+          throw new QueryProcessException(
+              "the file's version is old which needs to be upgraded.");
+        }
+        if (plan.isAutoCreateSchema()) {
+          createSchemaAutomatically(chunkGroupMetaData, schemaMap, plan.getSgLevel());
+        }
+      } catch (Exception e) {
+        throw new QueryProcessException(
+            String.format("Cannot load file %s because %s", tsFile.getAbsolutePath(),
+                e.getMessage()));
+      }
+    }
+    try {
+      new TsFileBulkLoader(files).load();
+    } catch (Exception e) {
+      throw new QueryProcessException(
+          String.format("Cannot bulk load %s because %s", file.getAbsolutePath(), e.getMessage()));
+    }
+  }
+
+  private void collectTsFiles(File curFile, List<File> files) {
+    if (curFile.isDirectory()) {
+      File[] subFiles = curFile.listFiles();
+      if (subFiles != null) {
+        for (File subFile : subFiles) {
+          collectTsFiles(subFile, files);
+        }
+      }
+    } else if (curFile.getName().endsWith(TSFILE_SUFFIX)) {
+      files.add(curFile);
+    }
+  }
+
   private void createSchemaAutomatically(List<ChunkGroupMetaData> chunkGroupMetaDatas,
       Map<String, MeasurementSchema> knownSchemas, int sgLevel)
       throws CacheException, QueryProcessException, MetadataException, StorageEngineException {
@@ -265,6 +333,21 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
   }
 
+  private void operateRollup(RollupPlan plan) throws QueryProcessException {
+    if (plan.isCreate()) {
+      RollupManager.getInstance().createRollup(plan.getPath(), plan.getInterval());
+    } else {
+      RollupManager.getInstance().dropRollup(plan.getPath(), plan.getInterval());
+    }
+  }
+
+  private void operateKillQuery(KillQueryPlan plan) throws QueryProcessException {
+    if (!QueryMemoryManager.getInstance().kill(plan.getQueryId())) {
+      throw new QueryProcessException(
+          String.format("Query %d is not running", plan.getQueryId()));
+    }
+  }
+
   private void operateTTL(SetTTLPlan plan) throws QueryProcessException {
     try {
       MManager.getInstance().setTTL(plan.getStorageGroup(), plan.getDataTTL());
@@ -340,6 +423,10 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     try {
       String[] measurementList = insertPlan.getMeasurements();
       String deviceId = insertPlan.getDeviceId();
+      if (MetaUtils.containsReserved(deviceId)) {
+        throw new QueryProcessException(
+            String.format("Device %s contains a reserved node name", deviceId));
+      }
       MNode node = mManager.getNodeByPathFromCache(deviceId);
       String[] strValues = insertPlan.getValues();
       TSDataType[] dataTypes = new TSDataType[measurementList.length];
@@ -349,6 +436,7 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
         dataTypes[i] = measurementNode.getSchema().getType();
       }
       insertPlan.setDataTypes(dataTypes);
+      insertPlan.setDeviceIndex(mManager.getDeviceIndex(node));
       storageEngine.insert(insertPlan);
     } catch (PathException | StorageEngineException | MetadataException e) {
       throw new QueryProcessException(e);
@@ -413,6 +501,10 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     try {
       String[] measurementList = batchInsertPlan.getMeasurements();
       String deviceId = batchInsertPlan.getDeviceId();
+      if (MetaUtils.containsReserved(deviceId)) {
+        throw new QueryProcessException(
+            String.format("Device %s contains a reserved node name", deviceId));
+      }
       MNode node = mManager.getNodeByPathFromCache(deviceId);
       TSDataType[] dataTypes = batchInsertPlan.getDataTypes();
       IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
@@ -442,6 +534,7 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
                   measurementNode.getSchema().getType()));
         }
       }
+      batchInsertPlan.setDeviceIndex(mManager.getDeviceIndex(node));
       return storageEngine.insertBatch(batchInsertPlan);
 
     } catch (PathException | StorageEngineException | MetadataException e) {
@@ -543,6 +636,10 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     CompressionType compressor = createTimeSeriesPlan.getCompressor();
     TSEncoding encoding = createTimeSeriesPlan.getEncoding();
     Map<String, String> props = createTimeSeriesPlan.getProps();
+    if (MetaUtils.containsReserved(path.getFullPath())) {
+      throw new QueryProcessException(
+          String.format("Timeseries %s contains a reserved node name", path));
+    }
     try {
       boolean result = mManager.addPathToMTree(path, dataType, encoding, compressor, props);
       if (result) {
@@ -557,8 +654,16 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
   private boolean deleteTimeSeries(DeleteTimeSeriesPlan deleteTimeSeriesPlan)
       throws QueryProcessException {
     List<Path> deletePathList = deleteTimeSeriesPlan.getPaths();
+    for (Path path : deletePathList) {
+      if (MetaUtils.containsReserved(path.getFullPath())) {
+        throw new QueryProcessException(
+            String.format("Timeseries %s contains a reserved node name", path));
+      }
+    }
     try {
       deleteDataOfTimeSeries(deletePathList);
+      // the derived series are deleted with their source series
+      RollupManager.getInstance().onDeleteTimeseries(deletePathList);
       Set<String> emptyStorageGroups = mManager.deletePaths(deletePathList, false);
       for (String deleteStorageGroup : emptyStorageGroups) {
         storageEngine.deleteAllDataFilesInOneStorageGroup(deleteStorageGroup);
@@ -872,6 +977,10 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
   private void addPathToMTree(Path path, TSDataType dataType, TSEncoding encoding,
       CompressionType compressionType)
       throws PathException, MetadataException, StorageEngineException {
+    if (MetaUtils.containsReserved(path.getFullPath())) {
+      throw new MetadataException(
+          String.format("Timeseries %s contains a reserved node name", path));
+    }
     boolean result = mManager.addPathToMTree(
         path, dataType, encoding, compressionType, Collections.emptyMap());
     if (result) {
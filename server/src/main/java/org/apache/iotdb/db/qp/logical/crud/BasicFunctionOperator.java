@@ -66,6 +66,10 @@ public class BasicFunctionOperator extends FunctionOperator {
     return value;
   }
 
+  public void setValue(String value) {
+    this.value = value;
+  }
+
   @Override
   public void reverseFunc() {
     int intType = SQLConstant.reverseWords.get(tokenIntType);
@@ -26,6 +26,8 @@ public class InsertOperator extends SFWOperator {
   private long time;
   private String[] measurementList;
   private String[] valueList;
+  // the marker of the parameter that gives the time in a prepared statement, or null
+  private String timeParameter;
 
   public InsertOperator(int tokenIntType) {
     super(tokenIntType);
@@ -56,4 +58,12 @@ public class InsertOperator extends SFWOperator {
     this.time = time;
   }
 
+  public String getTimeParameter() {
+    return timeParameter;
+  }
+
+  public void setTimeParameter(String timeParameter) {
+    this.timeParameter = timeParameter;
+  }
+
 }
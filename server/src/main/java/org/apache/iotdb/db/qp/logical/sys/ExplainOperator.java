@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.logical.sys;
+
+import org.apache.iotdb.db.qp.logical.RootOperator;
+import org.apache.iotdb.db.qp.logical.crud.QueryOperator;
+
+/**
+ * ExplainOperator wraps the query of "EXPLAIN [ANALYZE] SELECT ...".
+ */
+public class ExplainOperator extends RootOperator {
+
+  private QueryOperator queryOperator;
+  private boolean analyze;
+
+  public ExplainOperator(int tokenIntType, QueryOperator queryOperator, boolean analyze) {
+    super(tokenIntType);
+    this.operatorType = OperatorType.EXPLAIN;
+    this.queryOperator = queryOperator;
+    this.analyze = analyze;
+  }
+
+  public QueryOperator getQueryOperator() {
+    return queryOperator;
+  }
+
+  public void setQueryOperator(QueryOperator queryOperator) {
+    this.queryOperator = queryOperator;
+  }
+
+  public boolean isAnalyze() {
+    return analyze;
+  }
+}
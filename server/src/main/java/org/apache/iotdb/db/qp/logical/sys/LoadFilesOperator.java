@@ -31,11 +31,18 @@ public class LoadFilesOperator extends RootOperator {
   private String errMsg;
 
   public LoadFilesOperator(File file, boolean autoCreateSchema, int sgLevel) {
-    super(SQLConstant.TOK_LOAD_FILES);
+    this(file, autoCreateSchema, sgLevel, false);
+  }
+
+  /**
+   * @param bulk whether the files are rewritten by a bulk load instead of being loaded as they are
+   */
+  public LoadFilesOperator(File file, boolean autoCreateSchema, int sgLevel, boolean bulk) {
+    super(bulk ? SQLConstant.TOK_BULK_LOAD_FILES : SQLConstant.TOK_LOAD_FILES);
     this.file = file;
     this.autoCreateSchema = autoCreateSchema;
     this.sgLevel = sgLevel;
-    this.operatorType = OperatorType.LOAD_FILES;
+    this.operatorType = bulk ? OperatorType.BULK_LOAD_FILES : OperatorType.LOAD_FILES;
   }
 
   public LoadFilesOperator(boolean invalid, String errMsg) {
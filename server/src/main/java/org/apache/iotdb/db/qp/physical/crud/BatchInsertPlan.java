@@ -34,6 +34,8 @@ import org.apache.iotdb.tsfile.utils.BytesUtils;
 public class BatchInsertPlan extends PhysicalPlan {
 
   private String deviceId;
+  // the number of the device in MManager, -1 if it is not resolved yet
+  private int deviceIndex = -1;
   private String[] measurements;
   private TSDataType[] dataTypes;
 
@@ -197,6 +199,7 @@ public class BatchInsertPlan extends PhysicalPlan {
   @Override
   public void deserializeFrom(ByteBuffer buffer) {
     this.deviceId = readString(buffer);
+    this.deviceIndex = -1;
 
     int measurementSize = buffer.getInt();
     this.measurements = new String[measurementSize];
@@ -224,6 +227,19 @@ public class BatchInsertPlan extends PhysicalPlan {
 
   public void setDeviceId(String deviceId) {
     this.deviceId = deviceId;
+    this.deviceIndex = -1;
+  }
+
+  /**
+   * @return the number of the device in MManager, with which the in-memory structures of the
+   * storage group are keyed, or -1 if it is not resolved yet
+   */
+  public int getDeviceIndex() {
+    return deviceIndex;
+  }
+
+  public void setDeviceIndex(int deviceIndex) {
+    this.deviceIndex = deviceIndex;
   }
 
   public String[] getMeasurements() {
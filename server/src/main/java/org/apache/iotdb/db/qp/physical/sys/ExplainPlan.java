@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.physical.sys;
+
+import java.util.List;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+/**
+ * ExplainPlan shows the files a query selects, or if analyze is true, runs the query and shows
+ * where its time goes.
+ */
+public class ExplainPlan extends PhysicalPlan {
+
+  private QueryPlan queryPlan;
+  private boolean analyze;
+
+  public ExplainPlan(QueryPlan queryPlan, boolean analyze) {
+    super(true, OperatorType.EXPLAIN);
+    this.queryPlan = queryPlan;
+    this.analyze = analyze;
+  }
+
+  @Override
+  public List<Path> getPaths() {
+    return queryPlan.getPaths();
+  }
+
+  public QueryPlan getQueryPlan() {
+    return queryPlan;
+  }
+
+  public boolean isAnalyze() {
+    return analyze;
+  }
+
+  @Override
+  public String toString() {
+    return (analyze ? "EXPLAIN ANALYZE " : "EXPLAIN ") + queryPlan;
+  }
+}
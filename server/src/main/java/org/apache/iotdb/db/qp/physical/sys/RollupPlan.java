@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.physical.sys;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+public class RollupPlan extends PhysicalPlan {
+
+  private boolean create;
+  private Path path;
+  private long interval;
+
+  /**
+   * @param create true to create the rollup, false to drop it
+   * @param path the path pattern of the source series
+   * @param interval the length of a rollup bucket
+   */
+  public RollupPlan(boolean create, Path path, long interval) {
+    super(false, OperatorType.ROLLUP);
+    this.create = create;
+    this.path = path;
+    this.interval = interval;
+  }
+
+  @Override
+  public List<Path> getPaths() {
+    return Collections.singletonList(path);
+  }
+
+  public boolean isCreate() {
+    return create;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public long getInterval() {
+    return interval;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s ROLLUP ON %s GROUP BY %dms", create ? "CREATE" : "DROP", path,
+        interval);
+  }
+}
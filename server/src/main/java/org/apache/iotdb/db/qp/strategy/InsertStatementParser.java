@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+
+/**
+ * InsertStatementParser recognizes the insertions of the simple form, e.g., "insert into
+ * root.sg.d1(timestamp, s1, s2) values(1, 2.0, 'text')", and transforms them into InsertPlans
+ * without the grammar, which costs more than the insertions themselves. The paths should consist
+ * of identifiers and integers, the time should be an integer or now(), and the values should be
+ * numbers, identifiers or strings without escapes. null is returned for any other statement, which
+ * should be parsed by the ParseDriver, so that the results and the errors are the same.
+ */
+public class InsertStatementParser {
+
+  // the identifiers are checked by the lexer, as most of the keywords cannot be identifiers
+  private static final int MAX_CACHED_WORD_NUM = 10000;
+  private static final Map<String, Boolean> identifierCache = new ConcurrentHashMap<>();
+
+  private String sql;
+  private int pos;
+
+  private InsertStatementParser(String sql) {
+    this.sql = sql;
+  }
+
+  /**
+   * @return the plan of the insertion, or null if the statement is not a simple insertion
+   */
+  public static InsertPlan parse(String sql) {
+    return new InsertStatementParser(sql).parseInsertion();
+  }
+
+  private InsertPlan parseInsertion() {
+    skipWhitespaces();
+    if (!acceptKeyword("insert") || !skipWhitespaces() || !acceptKeyword("into")
+        || !skipWhitespaces()) {
+      return null;
+    }
+    String deviceId = readPath();
+    if (deviceId == null) {
+      return null;
+    }
+
+    skipWhitespaces();
+    if (!accept('(')) {
+      return null;
+    }
+    skipWhitespaces();
+    if (!acceptKeyword("timestamp") && !acceptKeyword("time")) {
+      return null;
+    }
+    List<String> measurements = new ArrayList<>();
+    skipWhitespaces();
+    while (accept(',')) {
+      skipWhitespaces();
+      String measurement = readWord();
+      if (!isNode(measurement)) {
+        return null;
+      }
+      measurements.add(measurement);
+      skipWhitespaces();
+    }
+    if (!accept(')')) {
+      return null;
+    }
+
+    skipWhitespaces();
+    if (!acceptKeyword("values")) {
+      return null;
+    }
+    skipWhitespaces();
+    if (!accept('(')) {
+      return null;
+    }
+    skipWhitespaces();
+    Long time = readTime();
+    if (time == null) {
+      return null;
+    }
+    String[] values = new String[measurements.size()];
+    int valueNum = 0;
+    skipWhitespaces();
+    while (accept(',')) {
+      skipWhitespaces();
+      String value = readValue();
+      if (value == null) {
+        return null;
+      }
+      if (valueNum < values.length) {
+        values[valueNum] = value;
+      }
+      valueNum++;
+      skipWhitespaces();
+    }
+    if (!accept(')')) {
+      return null;
+    }
+    skipWhitespaces();
+    if (pos != sql.length() || valueNum != values.length) {
+      // the inconsistent values are reported by the usual way
+      return null;
+    }
+    return new InsertPlan(deviceId, time, measurements.toArray(new String[0]), values);
+  }
+
+  /**
+   * read a path like root.sg.d1, whose nodes are identifiers or integers.
+   */
+  private String readPath() {
+    int start = pos;
+    if (!acceptKeyword("root")) {
+      return null;
+    }
+    while (accept('.')) {
+      if (!isNode(readWord())) {
+        return null;
+      }
+    }
+    return sql.substring(start, pos);
+  }
+
+  private Long readTime() {
+    String word = readWord();
+    if (isInteger(word)) {
+      try {
+        return Long.parseLong(word);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    if (!word.equalsIgnoreCase("now")) {
+      return null;
+    }
+    skipWhitespaces();
+    if (!accept('(')) {
+      return null;
+    }
+    skipWhitespaces();
+    return accept(')') ? System.currentTimeMillis() : null;
+  }
+
+  /**
+   * read a value the same as its text in the grammar.
+   */
+  private String readValue() {
+    if (pos >= sql.length()) {
+      return null;
+    }
+    char quote = sql.charAt(pos);
+    if (quote == '\'' || quote == '"') {
+      for (int i = pos + 1; i < sql.length(); i++) {
+        char c = sql.charAt(i);
+        if (c == '\\') {
+          return null;
+        } else if (c == quote) {
+          String value = sql.substring(pos, i + 1);
+          pos = i + 1;
+          return value;
+        }
+      }
+      return null;
+    }
+
+    int start = pos;
+    while (pos < sql.length() && (isWordChar(sql.charAt(pos)) || sql.charAt(pos) == '.'
+        || sql.charAt(pos) == '-' || sql.charAt(pos) == '+')) {
+      pos++;
+    }
+    String value = sql.substring(start, pos);
+    if (isNumber(value) || isIdentifier(value)) {
+      return value;
+    }
+    return null;
+  }
+
+  private String readWord() {
+    int start = pos;
+    while (pos < sql.length() && isWordChar(sql.charAt(pos))) {
+      pos++;
+    }
+    return sql.substring(start, pos);
+  }
+
+  private boolean acceptKeyword(String keyword) {
+    int end = pos + keyword.length();
+    if (!sql.regionMatches(true, pos, keyword, 0, keyword.length())
+        || (end < sql.length() && isWordChar(sql.charAt(end)))) {
+      return false;
+    }
+    pos = end;
+    return true;
+  }
+
+  private boolean accept(char c) {
+    if (pos < sql.length() && sql.charAt(pos) == c) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return whether any whitespace is skipped
+   */
+  private boolean skipWhitespaces() {
+    int start = pos;
+    while (pos < sql.length() && isWhitespace(sql.charAt(pos))) {
+      pos++;
+    }
+    return pos > start;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+  }
+
+  /**
+   * the characters other than ASCII may be a part of an identifier, so they are read to be checked
+   * by the lexer.
+   */
+  private static boolean isWordChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+        || c > 0x7F;
+  }
+
+  private static boolean isNode(String word) {
+    return isInteger(word) || isIdentifier(word);
+  }
+
+  private static boolean isInteger(String word) {
+    if (word.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      if (word.charAt(i) < '0' || word.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return whether the text is a number like -1, 1.5 or 1.5e-3, which is a real literal or an
+   * integer in the grammar
+   */
+  private static boolean isNumber(String text) {
+    int i = 0;
+    if (i < text.length() && text.charAt(i) == '-') {
+      i++;
+    }
+    int integerStart = i;
+    i = skipDigits(text, i);
+    int integerDigits = i - integerStart;
+    int fractionDigits = 0;
+    boolean hasPoint = false;
+    if (i < text.length() && text.charAt(i) == '.') {
+      hasPoint = true;
+      int fractionStart = ++i;
+      i = skipDigits(text, i);
+      fractionDigits = i - fractionStart;
+    }
+    if (integerDigits == 0 && fractionDigits == 0) {
+      return false;
+    }
+    if (i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+      // the exponent follows the digits directly, like 1e3 or 1.5e3 but not 1.e3
+      if (hasPoint ? fractionDigits == 0 : integerDigits == 0) {
+        return false;
+      }
+      i++;
+      if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+        i++;
+      }
+      int exponentStart = i;
+      i = skipDigits(text, i);
+      if (i == exponentStart) {
+        return false;
+      }
+    }
+    return i == text.length();
+  }
+
+  private static int skipDigits(String text, int i) {
+    while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return whether the word is lexed as a single identifier rather than a keyword or others
+   */
+  private static boolean isIdentifier(String word) {
+    if (word.isEmpty()) {
+      return false;
+    }
+    Boolean isIdentifier = identifierCache.get(word);
+    if (isIdentifier == null) {
+      SqlBaseLexer lexer = new SqlBaseLexer(CharStreams.fromString(word));
+      isIdentifier = lexer.nextToken().getType() == SqlBaseLexer.ID
+          && lexer.nextToken().getType() == Token.EOF;
+      if (identifierCache.size() < MAX_CACHED_WORD_NUM) {
+        identifierCache.put(word, isIdentifier);
+      }
+    }
+    return isIdentifier;
+  }
+}
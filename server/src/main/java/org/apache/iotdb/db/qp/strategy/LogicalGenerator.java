@@ -32,6 +32,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.runtime.SQLParserException;
 import org.apache.iotdb.db.qp.constant.DatetimeUtils;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.logical.RootOperator;
 import org.apache.iotdb.db.qp.logical.crud.BasicFunctionOperator;
 import org.apache.iotdb.db.qp.logical.crud.DeleteDataOperator;
@@ -51,10 +52,13 @@ import org.apache.iotdb.db.qp.logical.sys.DeleteStorageGroupOperator;
 import org.apache.iotdb.db.qp.logical.sys.DeleteTimeSeriesOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadConfigurationOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadDataOperator;
+import org.apache.iotdb.db.qp.logical.sys.ExplainOperator;
+import org.apache.iotdb.db.qp.logical.sys.KillQueryOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadFilesOperator;
 import org.apache.iotdb.db.qp.logical.sys.MoveFileOperator;
 import org.apache.iotdb.db.qp.logical.sys.PropertyOperator;
 import org.apache.iotdb.db.qp.logical.sys.RemoveFileOperator;
+import org.apache.iotdb.db.qp.logical.sys.RollupOperator;
 import org.apache.iotdb.db.qp.logical.sys.SetStorageGroupOperator;
 import org.apache.iotdb.db.qp.logical.sys.SetTTLOperator;
 import org.apache.iotdb.db.qp.logical.sys.ShowChildPathsOperator;
@@ -67,7 +71,9 @@ import org.apache.iotdb.db.qp.strategy.SqlBaseParser.AlterUserContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.AndExpressionContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.AttributeClausesContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.AutoCreateSchemaContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.BulkLoadFilesContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ConstantContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.CreateRollupStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.CountNodesContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.CountTimeseriesContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.CreatePropertyContext;
@@ -80,6 +86,7 @@ import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DeleteStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DeleteStorageGroupContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DeleteTimeseriesContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DropRoleContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DropRollupStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.DropUserContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.FillClauseContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.FromClauseContext;
@@ -95,6 +102,8 @@ import org.apache.iotdb.db.qp.strategy.SqlBaseParser.InClauseContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.InsertColumnSpecContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.InsertStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.InsertValuesSpecContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ExplainStatementContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.KillQueryStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.LimitClauseContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.LinkPathContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ListAllRoleOfUserContext;
@@ -132,6 +141,7 @@ import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SetTTLStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowAllTTLStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowChildPathsContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowDevicesContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowRollupStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowStorageGroupContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowTTLStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.ShowTimeseriesContext;
@@ -232,21 +242,32 @@ public class LogicalGenerator extends SqlBaseBaseListener {
   @Override
   public void enterLoadFiles(LoadFilesContext ctx) {
     super.enterLoadFiles(ctx);
-    AutoCreateSchemaContext acsc = ctx.autoCreateSchema();
+    initializedOperator = parseLoadFiles(ctx.FILE().getText(), ctx.autoCreateSchema(), false);
+  }
+
+  @Override
+  public void enterBulkLoadFiles(BulkLoadFilesContext ctx) {
+    super.enterBulkLoadFiles(ctx);
+    initializedOperator = parseLoadFiles(ctx.FILE().getText(), ctx.autoCreateSchema(), true);
+  }
+
+  private LoadFilesOperator parseLoadFiles(String file, AutoCreateSchemaContext acsc,
+      boolean bulk) {
     if (acsc != null) {
       if (!acsc.ID().getText().equalsIgnoreCase("true") && !acsc.ID().getText()
           .equalsIgnoreCase("false")) {
-        initializedOperator = new LoadFilesOperator(true,
-            "Please check the statement: load [FILE] true/false [storage group level]");
+        return new LoadFilesOperator(true, String.format(
+            "Please check the statement: load %s[FILE] true/false [storage group level]",
+            bulk ? "bulk " : ""));
       } else {
         int sgLevel = acsc.INT() == null ? IoTDBDescriptor.getInstance().getConfig()
             .getDefaultStorageGroupLevel() : Integer.parseInt(acsc.INT().getText());
-        initializedOperator = new LoadFilesOperator(new File(ctx.FILE().getText()), Boolean
-            .parseBoolean(acsc.ID().getText()), sgLevel);
+        return new LoadFilesOperator(new File(file), Boolean.parseBoolean(acsc.ID().getText()),
+            sgLevel, bulk);
       }
     } else {
-      initializedOperator = new LoadFilesOperator(new File(ctx.getChild(1).getText()), true,
-          IoTDBDescriptor.getInstance().getConfig().getDefaultStorageGroupLevel());
+      return new LoadFilesOperator(new File(file), true,
+          IoTDBDescriptor.getInstance().getConfig().getDefaultStorageGroupLevel(), bulk);
     }
   }
 
@@ -649,6 +670,55 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     initializedOperator = new ShowTTLOperator(storageGroups);
   }
 
+  @Override
+  public void enterCreateRollupStatement(CreateRollupStatementContext ctx) {
+    super.enterCreateRollupStatement(ctx);
+    RollupOperator operator = new RollupOperator(SQLConstant.TOK_ROLLUP_CREATE);
+    operator.setPath(parsePrefixPath(ctx.prefixPath()));
+    operator.setInterval(parseDuration(ctx.DURATION().getText()));
+    if (operator.getInterval() <= 0) {
+      throw new SQLParserException("The interval of a rollup should be positive.");
+    }
+    initializedOperator = operator;
+    operatorType = SQLConstant.TOK_ROLLUP_CREATE;
+  }
+
+  @Override
+  public void enterDropRollupStatement(DropRollupStatementContext ctx) {
+    super.enterDropRollupStatement(ctx);
+    RollupOperator operator = new RollupOperator(SQLConstant.TOK_ROLLUP_DROP);
+    operator.setPath(parsePrefixPath(ctx.prefixPath()));
+    operator.setInterval(parseDuration(ctx.DURATION().getText()));
+    initializedOperator = operator;
+    operatorType = SQLConstant.TOK_ROLLUP_DROP;
+  }
+
+  @Override
+  public void enterShowRollupStatement(ShowRollupStatementContext ctx) {
+    super.enterShowRollupStatement(ctx);
+    initializedOperator = new ShowOperator(SQLConstant.TOK_SHOW, OperatorType.ROLLUP);
+  }
+
+  @Override
+  public void enterKillQueryStatement(KillQueryStatementContext ctx) {
+    super.enterKillQueryStatement(ctx);
+    initializedOperator = new KillQueryOperator(SQLConstant.TOK_KILL_QUERY,
+        Long.parseLong(ctx.INT().getText()));
+    operatorType = SQLConstant.TOK_KILL_QUERY;
+  }
+
+  @Override
+  public void exitExplainStatement(ExplainStatementContext ctx) {
+    super.exitExplainStatement(ctx);
+    // the explained statement has been parsed into initializedOperator
+    if (!(initializedOperator instanceof QueryOperator)) {
+      throw new SQLParserException("EXPLAIN only supports select statements");
+    }
+    initializedOperator = new ExplainOperator(SQLConstant.TOK_EXPLAIN,
+        (QueryOperator) initializedOperator, ctx.ANALYZE() != null);
+    operatorType = SQLConstant.TOK_EXPLAIN;
+  }
+
   private String[] parsePrivilege(PrivilegesContext ctx) {
     List<TerminalNode> privilegeList = ctx.STRING_LITERAL();
     List<String> privileges = new ArrayList<>();
@@ -741,10 +811,6 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     // parse sliding step
     if (ctx.DURATION().size() == 2) {
       queryOp.setSlidingStep(parseDuration(ctx.DURATION(1).getText()));
-      if (queryOp.getSlidingStep() < queryOp.getUnit()) {
-        throw new SQLParserException(
-            "The third parameter sliding step shouldn't be smaller than the second parameter time interval.");
-      }
     }
 
     long startTime;
@@ -917,11 +983,17 @@ public class LogicalGenerator extends SqlBaseBaseListener {
   @Override
   public void enterInsertValuesSpec(InsertValuesSpecContext ctx) {
     super.enterInsertValuesSpec(ctx);
-    long timestamp;
+    long timestamp = 0;
     if (ctx.dateFormat() != null) {
       timestamp = parseTimeFormat(ctx.dateFormat().getText());
-    } else {
+    } else if (ctx.INT() != null) {
       timestamp = Long.parseLong(ctx.INT().getText());
+    } else if (ctx.QUESTION_MARK().getText().startsWith(SQLConstant.PARAMETER_MARKER)) {
+      // the time is bound when the prepared statement is executed
+      insertOp.setTimeParameter(ctx.QUESTION_MARK().getText());
+    } else {
+      // a bound time has been converted to a timestamp
+      timestamp = Long.parseLong(ctx.QUESTION_MARK().getText());
     }
     insertOp.setTime(timestamp);
     List<String> valueList = new ArrayList<>();
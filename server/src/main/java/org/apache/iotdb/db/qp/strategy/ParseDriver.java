@@ -19,13 +19,17 @@
 package org.apache.iotdb.db.qp.strategy;
 
 import java.time.ZoneId;
+import java.util.List;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.logical.Operator;
 
 /**
@@ -40,10 +44,20 @@ public class ParseDriver {
   }
 
   public Operator parse(String sql, ZoneId zoneId) throws ParseCancellationException {
+    return parse(sql, zoneId, null);
+  }
+
+  /**
+   * Parse a statement that may contain parameter markers '?'.
+   *
+   * @param parameters the texts of the parameter markers in the order of their occurrence. A marker
+   * without a text (null or beyond the list) is left unbound as "?" followed by its index, and null
+   * means that the statement must not contain any parameter marker.
+   */
+  public Operator parse(String sql, ZoneId zoneId, List<String> parameters)
+      throws ParseCancellationException {
     LogicalGenerator logicalGenerator = new LogicalGenerator(zoneId);
-    CharStream charStream1 = CharStreams.fromString(sql);
-    SqlBaseLexer lexer1 = new SqlBaseLexer(charStream1);
-    CommonTokenStream tokens1 = new CommonTokenStream(lexer1);
+    CommonTokenStream tokens1 = lex(sql, parameters);
     SqlBaseParser parser1 = new SqlBaseParser(tokens1);
     parser1.getInterpreter().setPredictionMode(PredictionMode.SLL);
     parser1.removeErrorListeners();
@@ -53,9 +67,7 @@ public class ParseDriver {
       tree = parser1.singleStatement();  // STAGE 1
     }
     catch (Exception ex) {
-      CharStream charStream2 = CharStreams.fromString(sql);
-      SqlBaseLexer lexer2 = new SqlBaseLexer(charStream2);
-      CommonTokenStream tokens2 = new CommonTokenStream(lexer2);
+      CommonTokenStream tokens2 = lex(sql, parameters);
       SqlBaseParser parser2 = new SqlBaseParser(tokens2);
       parser2.getInterpreter().setPredictionMode(PredictionMode.LL);
       parser2.removeErrorListeners();
@@ -66,4 +78,43 @@ public class ParseDriver {
     walker.walk(logicalGenerator, tree);
     return logicalGenerator.getLogicalPlan();
   }
+
+  /**
+   * @return the number of the parameter markers '?' in the statement
+   */
+  public static int countParameters(String sql) {
+    SqlBaseLexer lexer = new SqlBaseLexer(CharStreams.fromString(sql));
+    int count = 0;
+    for (Token token = lexer.nextToken(); token.getType() != Token.EOF;
+        token = lexer.nextToken()) {
+      if (token.getType() == SqlBaseLexer.QUESTION_MARK) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private CommonTokenStream lex(String sql, List<String> parameters) {
+    CharStream charStream = CharStreams.fromString(sql);
+    SqlBaseLexer lexer = new SqlBaseLexer(charStream);
+    CommonTokenStream tokens = new CommonTokenStream(lexer);
+    tokens.fill();
+    int index = 0;
+    for (Token token : tokens.getTokens()) {
+      if (token.getType() != SqlBaseLexer.QUESTION_MARK) {
+        continue;
+      }
+      if (parameters == null) {
+        throw new ParseCancellationException(
+            "Parameter markers (?) can only be used in prepared statements");
+      }
+      String text = index < parameters.size() ? parameters.get(index) : null;
+      // the parameter is bound by replacing the text of its token, as QUESTION_MARK is accepted
+      // wherever a parameter may be used
+      ((CommonToken) token)
+          .setText(text != null ? text : SQLConstant.PARAMETER_MARKER + index);
+      index++;
+    }
+    return tokens;
+  }
 }
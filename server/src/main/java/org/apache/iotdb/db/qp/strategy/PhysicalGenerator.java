@@ -49,10 +49,13 @@ import org.apache.iotdb.db.qp.logical.sys.DataAuthOperator;
 import org.apache.iotdb.db.qp.logical.sys.DeleteStorageGroupOperator;
 import org.apache.iotdb.db.qp.logical.sys.DeleteTimeSeriesOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadDataOperator;
+import org.apache.iotdb.db.qp.logical.sys.ExplainOperator;
+import org.apache.iotdb.db.qp.logical.sys.KillQueryOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadFilesOperator;
 import org.apache.iotdb.db.qp.logical.sys.MoveFileOperator;
 import org.apache.iotdb.db.qp.logical.sys.PropertyOperator;
 import org.apache.iotdb.db.qp.logical.sys.RemoveFileOperator;
+import org.apache.iotdb.db.qp.logical.sys.RollupOperator;
 import org.apache.iotdb.db.qp.logical.sys.SetStorageGroupOperator;
 import org.apache.iotdb.db.qp.logical.sys.SetTTLOperator;
 import org.apache.iotdb.db.qp.logical.sys.ShowChildPathsOperator;
@@ -72,10 +75,13 @@ import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DataAuthPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.ExplainPlan;
+import org.apache.iotdb.db.qp.physical.sys.KillQueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.LoadConfigurationPlan;
 import org.apache.iotdb.db.qp.physical.sys.LoadDataPlan;
 import org.apache.iotdb.db.qp.physical.sys.OperateFilePlan;
 import org.apache.iotdb.db.qp.physical.sys.PropertyPlan;
+import org.apache.iotdb.db.qp.physical.sys.RollupPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetTTLPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowChildPathsPlan;
@@ -170,6 +176,28 @@ public class PhysicalGenerator {
             throw new LogicalOperatorException(String
                 .format("not supported operator type %s in ttl operation.", operator.getType()));
         }
+      case ROLLUP:
+        switch (operator.getTokenIntType()) {
+          case SQLConstant.TOK_ROLLUP_CREATE:
+            RollupOperator createRollupOperator = (RollupOperator) operator;
+            return new RollupPlan(true, createRollupOperator.getPath(),
+                createRollupOperator.getInterval());
+          case SQLConstant.TOK_ROLLUP_DROP:
+            RollupOperator dropRollupOperator = (RollupOperator) operator;
+            return new RollupPlan(false, dropRollupOperator.getPath(),
+                dropRollupOperator.getInterval());
+          case SQLConstant.TOK_SHOW:
+            return new ShowPlan(ShowContentType.ROLLUP);
+          default:
+            throw new LogicalOperatorException(String
+                .format("not supported operator type %s in rollup operation.", operator.getType()));
+        }
+      case KILL_QUERY:
+        return new KillQueryPlan(((KillQueryOperator) operator).getQueryId());
+      case EXPLAIN:
+        ExplainOperator explain = (ExplainOperator) operator;
+        return new ExplainPlan((QueryPlan) transformToPhysicalPlan(explain.getQueryOperator()),
+            explain.isAnalyze());
       case LOAD_CONFIGURATION:
         return new LoadConfigurationPlan();
       case SHOW:
@@ -205,11 +233,12 @@ public class PhysicalGenerator {
                 .format("not supported operator type %s in show operation.", operator.getType()));
         }
       case LOAD_FILES:
+      case BULK_LOAD_FILES:
         if (((LoadFilesOperator) operator).isInvalid()) {
           throw new LogicalOperatorException(((LoadFilesOperator) operator).getErrMsg());
         }
         return new OperateFilePlan(((LoadFilesOperator) operator).getFile(),
-            OperatorType.LOAD_FILES, ((LoadFilesOperator) operator).isAutoCreateSchema(),
+            operator.getType(), ((LoadFilesOperator) operator).isAutoCreateSchema(),
             ((LoadFilesOperator) operator).getSgLevel());
       case REMOVE_FILE:
         return new OperateFilePlan(((RemoveFileOperator) operator).getFile(),
@@ -105,6 +105,15 @@ public abstract class AggregateFunction {
   public abstract void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException;
 
+  /**
+   * Merge the partial result of another aggregation of the same kind into this one. The partial
+   * results are merged in ascending order of time and the time ranges they cover do not overlap,
+   * and the other aggregation must not have been asked for its result.
+   *
+   * @param partial aggregation over the time range following those already merged
+   */
+  public abstract void merge(AggregateFunction partial);
+
   /**
    * Judge if aggregation results have been calculated. In other words, if the aggregated result
    * does not need to compute the remaining data, it returns true.
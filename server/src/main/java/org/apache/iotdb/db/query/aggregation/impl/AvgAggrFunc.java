@@ -151,14 +151,22 @@ public class AvgAggrFunc extends AggregateFunction {
   @Override
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         updateMean(seriesDataType, value);
       }
     }
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AvgAggrFunc other = (AvgAggrFunc) partial;
+    sum += other.sum;
+    cnt += other.cnt;
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
@@ -137,8 +137,9 @@ public class CountAggrFunc extends AggregateFunction {
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
     int cnt = 0;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         cnt++;
       }
@@ -149,6 +150,12 @@ public class CountAggrFunc extends AggregateFunction {
     resultData.setLongRet(preValue);
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((CountAggrFunc) partial).resultData;
+    resultData.setLongRet(resultData.getLongRet() + other.getLongRet());
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
@@ -138,8 +138,9 @@ public class FirstValueAggrFunc extends AggregateFunction {
       return;
     }
 
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         resultData.putTimeAndValue(0, value);
         break;
@@ -147,6 +148,14 @@ public class FirstValueAggrFunc extends AggregateFunction {
     }
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((FirstValueAggrFunc) partial).resultData;
+    if (!resultData.isSetTime() && other.isSetTime()) {
+      resultData.putTimeAndValue(0, other.getValue());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return resultData.isSetTime();
@@ -121,8 +121,9 @@ public class LastValueAggrFunc extends AggregateFunction {
 
     long time = -1;
     Object lastVal = null;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         time = timestamps[i];
         lastVal = value;
@@ -133,6 +134,14 @@ public class LastValueAggrFunc extends AggregateFunction {
     }
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((LastValueAggrFunc) partial).resultData;
+    if (other.isSetTime()) {
+      updateLastResult(other.getTimestamp(), other.getValue());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
@@ -108,8 +108,9 @@ public class MaxTimeAggrFunc extends AggregateFunction {
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
     long time = -1;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         time = timestamps[i];
       }
@@ -121,6 +122,14 @@ public class MaxTimeAggrFunc extends AggregateFunction {
     updateMaxTimeResult(0, time);
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((MaxTimeAggrFunc) partial).resultData;
+    if (other.isSetValue()) {
+      updateMaxTimeResult(0, other.getLongRet());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
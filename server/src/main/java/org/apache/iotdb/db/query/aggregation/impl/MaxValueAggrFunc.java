@@ -142,8 +142,9 @@ public class MaxValueAggrFunc extends AggregateFunction {
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
     Comparable<Object> maxVal = null;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value == null) {
         continue;
       }
@@ -154,6 +155,15 @@ public class MaxValueAggrFunc extends AggregateFunction {
     updateResult(maxVal);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((MaxValueAggrFunc) partial).resultData;
+    if (other.isSetValue()) {
+      updateResult((Comparable<Object>) other.getValue());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
@@ -138,8 +138,9 @@ public class MinTimeAggrFunc extends AggregateFunction {
     if (resultData.isSetValue()) {
       return;
     }
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         resultData.setTimestamp(0);
         resultData.setLongRet(timestamps[i]);
@@ -148,6 +149,14 @@ public class MinTimeAggrFunc extends AggregateFunction {
     }
   }
 
+  @Override
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((MinTimeAggrFunc) partial).resultData;
+    if (!resultData.isSetValue() && other.isSetValue()) {
+      resultData.putTimeAndValue(0, other.getLongRet());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return resultData.isSetValue();
@@ -137,8 +137,9 @@ public class MinValueAggrFunc extends AggregateFunction {
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
     Comparable<Object> minVal = null;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value == null) {
         continue;
       }
@@ -149,6 +150,15 @@ public class MinValueAggrFunc extends AggregateFunction {
     updateResult(minVal);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public void merge(AggregateFunction partial) {
+    AggreResultData other = ((MinValueAggrFunc) partial).resultData;
+    if (other.isSetValue()) {
+      updateResult((Comparable<Object>) other.getValue());
+    }
+  }
+
   @Override
   public boolean isCalculatedAggregationResult() {
     return false;
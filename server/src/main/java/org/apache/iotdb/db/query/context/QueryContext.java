@@ -26,7 +26,9 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.query.control.QueryMemoryManager;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.ReadProfile;
 
 /**
  * QueryContext contains the shared information with in a query.
@@ -49,6 +51,11 @@ public class QueryContext {
 
   private long queryTimeLowerBound = Long.MIN_VALUE;
 
+  /**
+   * null if the query is not profiled
+   */
+  private QueryProfile profile;
+
   public QueryContext() {
   }
 
@@ -93,6 +100,50 @@ public class QueryContext {
     this.queryTimeLowerBound = queryTimeLowerBound;
   }
 
+  /**
+   * @throws org.apache.iotdb.db.exception.runtime.QueryAbortedException if the query is killed or
+   * timed out
+   */
+  public void checkAlive() {
+    QueryMemoryManager.getInstance().checkAlive(queryId);
+  }
+
+  /**
+   * Reserve the memory of the data to be read, wait if the free query memory is not enough.
+   *
+   * @throws org.apache.iotdb.db.exception.runtime.QueryAbortedException if the query is killed,
+   * timed out or rejected
+   */
+  public void reserveMemory(long bytes) {
+    QueryMemoryManager.getInstance().reserve(queryId, bytes);
+  }
+
+  /**
+   * Reserve the memory of the data that is already read without waiting.
+   */
+  public void forceReserveMemory(long bytes) {
+    QueryMemoryManager.getInstance().forceReserve(queryId, bytes);
+  }
+
+  public void releaseMemory(long bytes) {
+    QueryMemoryManager.getInstance().release(queryId, bytes);
+  }
+
+  public QueryProfile getProfile() {
+    return profile;
+  }
+
+  public void setProfile(QueryProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * @return the profile of the chunks and pages read, or null if the query is not profiled
+   */
+  public ReadProfile getReadProfile() {
+    return profile == null ? null : profile.getReadProfile();
+  }
+
   public boolean chunkNotSatisfy(ChunkMetaData chunkMetaData) {
     return chunkMetaData.getEndTime() < queryTimeLowerBound;
   }
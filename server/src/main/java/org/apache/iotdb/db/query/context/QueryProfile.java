@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.context;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.iotdb.tsfile.read.common.ReadProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryProfile collects where the time of a query goes, it is shown by EXPLAIN ANALYZE. The file
+ * counters are summed over the queried series. A query that takes longer than
+ * slow_query_threshold_in_ms is logged into the slow query log by a profile that only times the
+ * query and counts its rows, as timing every chunk and page costs too much for all queries.
+ */
+public class QueryProfile {
+
+  private static final Logger SLOW_QUERY_LOGGER = LoggerFactory.getLogger(QueryProfile.class);
+
+  private String statement;
+
+  private LongAdder seqFiles = new LongAdder();
+  private LongAdder unseqFiles = new LongAdder();
+  private LongAdder filesSkipped = new LongAdder();
+  private LongAdder fileSelectionTimeNs = new LongAdder();
+  private LongAdder metadataLoadTimeNs = new LongAdder();
+  private LongAdder unseqMergeTimeNs = new LongAdder();
+  private LongAdder rows = new LongAdder();
+  private LongAdder executionTimeNs = new LongAdder();
+
+  private ReadProfile readProfile = new ReadProfile();
+  /**
+   * whether the files, chunks and pages read by the query are profiled.
+   */
+  private boolean readsProfiled;
+
+  public QueryProfile(String statement) {
+    this(statement, true);
+  }
+
+  public QueryProfile(String statement, boolean readsProfiled) {
+    this.statement = statement;
+    this.readsProfiled = readsProfiled;
+  }
+
+  public void filesSelected(int seqFileNum, int unseqFileNum, long timeNs) {
+    seqFiles.add(seqFileNum);
+    unseqFiles.add(unseqFileNum);
+    fileSelectionTimeNs.add(timeNs);
+  }
+
+  /**
+   * a file is skipped by its start and end times without reading its metadata.
+   */
+  public void fileSkipped() {
+    filesSkipped.increment();
+  }
+
+  public void metadataLoaded(long timeNs) {
+    metadataLoadTimeNs.add(timeNs);
+  }
+
+  /**
+   * @param timeNs the time of merging the unsequence chunks, including reading them
+   */
+  public void unseqMerged(long timeNs) {
+    unseqMergeTimeNs.add(timeNs);
+  }
+
+  public void rowsEmitted(long rowNum) {
+    rows.add(rowNum);
+  }
+
+  /**
+   * @param timeNs the time of executing the query or fetching a batch of its results
+   */
+  public void executed(long timeNs) {
+    executionTimeNs.add(timeNs);
+  }
+
+  public ReadProfile getReadProfile() {
+    return readProfile;
+  }
+
+  public long getExecutionTimeNs() {
+    return executionTimeNs.sum();
+  }
+
+  public Map<String, String> toItems() {
+    Map<String, String> items = new LinkedHashMap<>();
+    items.put("execution time", formatTime(executionTimeNs.sum()));
+    items.put("rows", String.valueOf(rows.sum()));
+    if (!readsProfiled) {
+      return items;
+    }
+    items.put("sequence files", String.valueOf(seqFiles.sum()));
+    items.put("unsequence files", String.valueOf(unseqFiles.sum()));
+    items.put("files skipped by statistics", String.valueOf(filesSkipped.sum()));
+    items.put("file selection time", formatTime(fileSelectionTimeNs.sum()));
+    items.put("metadata load time", formatTime(metadataLoadTimeNs.sum()));
+    items.put("chunks read", String.valueOf(readProfile.getChunksRead()));
+    items.put("chunks skipped by statistics", String.valueOf(readProfile.getChunksSkipped()));
+    items.put("bytes read", String.valueOf(readProfile.getBytesRead()));
+    items.put("chunk load time", formatTime(readProfile.getChunkLoadTimeNs()));
+    items.put("pages read", String.valueOf(readProfile.getPagesRead()));
+    items.put("pages skipped by statistics", String.valueOf(readProfile.getPagesSkipped()));
+    items.put("uncompress time", formatTime(readProfile.getUncompressTimeNs()));
+    items.put("decode time", formatTime(readProfile.getDecodeTimeNs()));
+    items.put("unsequence merge time", formatTime(unseqMergeTimeNs.sum()));
+    return items;
+  }
+
+  /**
+   * log the statement and the counters into the slow query log if the execution time reaches the
+   * threshold.
+   *
+   * @param thresholdInMs no query is logged if it is not positive
+   */
+  public void logIfSlow(long queryId, long thresholdInMs) {
+    if (thresholdInMs <= 0
+        || TimeUnit.NANOSECONDS.toMillis(executionTimeNs.sum()) < thresholdInMs) {
+      return;
+    }
+    SLOW_QUERY_LOGGER.info("Query {} [{}] is slow: {}", queryId, statement, toItems());
+  }
+
+  private static String formatTime(long timeNs) {
+    return String.format("%.3f ms", timeNs / 1_000_000.0);
+  }
+}
@@ -19,15 +19,24 @@
 package org.apache.iotdb.db.query.control;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.UnClosedTsFileReader;
@@ -37,26 +46,26 @@ import org.slf4j.LoggerFactory;
 /**
  * FileReaderManager is a singleton, which is used to manage
  * all file readers(opened file streams) to ensure that each file is opened at most once.
+ * <p>
+ * A file is opened by the first thread getting its reader without holding any lock, while the
+ * other threads getting the same reader wait for the opening. When there are more opened readers
+ * than max_opened_file_reader_num, the least recently used readers that are not referenced by any
+ * query are closed.
  */
-public class FileReaderManager implements IService {
+public class FileReaderManager implements IService, FileReaderManagerMBean {
 
   private static final Logger logger = LoggerFactory.getLogger(FileReaderManager.class);
 
-  /**
-   * max number of file streams being cached, must be lower than 65535.
-   */
-  private static final int MAX_CACHED_FILE_SIZE = 30000;
-
   /**
    * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap
    * is the corresponding reader.
    */
-  private Map<TsFileResource, TsFileSequenceReader> closedFileReaderMap;
+  private Map<TsFileResource, CachedReader> closedFileReaderMap;
   /**
    * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap
    * is the corresponding reader.
    */
-  private Map<TsFileResource, TsFileSequenceReader> unclosedFileReaderMap;
+  private Map<TsFileResource, CachedReader> unclosedFileReaderMap;
 
   /**
    * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap
@@ -69,6 +78,11 @@ public class FileReaderManager implements IService {
    */
   private Map<TsFileResource, AtomicInteger> unclosedReferenceMap;
 
+  private AtomicInteger openedReaderNum = new AtomicInteger();
+  private AtomicLong evictedReaderCount = new AtomicLong();
+  private AtomicLong waitCount = new AtomicLong();
+  private AtomicLong waitTimeNs = new AtomicLong();
+
   private ScheduledExecutorService executorService;
 
   private FileReaderManager() {
@@ -88,14 +102,14 @@ public class FileReaderManager implements IService {
 
   public synchronized void closeFileAndRemoveReader(TsFileResource seqFile) throws IOException {
     closedReferenceMap.remove(seqFile);
-    TsFileSequenceReader reader = closedFileReaderMap.remove(seqFile);
+    CachedReader reader = closedFileReaderMap.remove(seqFile);
     if (reader != null) {
-      reader.close();
+      closeReader(reader);
     }
     unclosedReferenceMap.remove(seqFile);
     reader = unclosedFileReaderMap.remove(seqFile);
     if (reader != null) {
-      reader.close();
+      closeReader(reader);
     }
   }
 
@@ -111,20 +125,16 @@ public class FileReaderManager implements IService {
     }, 0, examinePeriod, TimeUnit.MILLISECONDS);
   }
 
-  private void clearMap(Map<TsFileResource, TsFileSequenceReader> readerMap,
+  private void clearMap(Map<TsFileResource, CachedReader> readerMap,
       Map<TsFileResource, AtomicInteger> refMap) {
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : readerMap.entrySet()) {
-      TsFileSequenceReader reader = entry.getValue();
+    for (Map.Entry<TsFileResource, CachedReader> entry : readerMap.entrySet()) {
+      CachedReader reader = entry.getValue();
       AtomicInteger refAtom = refMap.get(entry.getKey());
 
-      if (refAtom != null && refAtom.get() == 0) {
-        try {
-          reader.close();
-        } catch (IOException e) {
-          logger.error("Can not close TsFileSequenceReader {} !", reader.getFileName(), e);
-        }
+      if (refAtom != null && refAtom.get() == 0 && reader.future.isDone()) {
         readerMap.remove(entry.getKey());
         refMap.remove(entry.getKey());
+        closeReaderQuietly(reader);
       }
     }
   }
@@ -139,25 +149,131 @@ public class FileReaderManager implements IService {
    * @return the reader of the file specified by filePath.
    * @throws IOException when reader cannot be created.
    */
-  public synchronized TsFileSequenceReader get(TsFileResource tsFile, boolean isClosed)
+  public TsFileSequenceReader get(TsFileResource tsFile, boolean isClosed)
       throws IOException {
 
-    Map<TsFileResource, TsFileSequenceReader> readerMap = !isClosed ? unclosedFileReaderMap
+    Map<TsFileResource, CachedReader> readerMap = !isClosed ? unclosedFileReaderMap
         : closedFileReaderMap;
-    if (!readerMap.containsKey(tsFile)) {
-
-      if (readerMap.size() >= MAX_CACHED_FILE_SIZE) {
-        logger.warn("Query has opened {} files !", readerMap.size());
+    CachedReader cachedReader = readerMap.get(tsFile);
+    if (cachedReader == null) {
+      CachedReader newReader = new CachedReader();
+      cachedReader = readerMap.putIfAbsent(tsFile, newReader);
+      if (cachedReader == null) {
+        cachedReader = newReader;
+        open(tsFile, isClosed, readerMap, newReader);
       }
+    }
+    cachedReader.lastAccessTime = System.nanoTime();
+    return waitForReader(cachedReader);
+  }
 
+  private void open(TsFileResource tsFile, boolean isClosed,
+      Map<TsFileResource, CachedReader> readerMap, CachedReader cachedReader) throws IOException {
+    try {
       TsFileSequenceReader tsFileReader = !isClosed ? new UnClosedTsFileReader(tsFile.getFile().getPath())
           : new TsFileSequenceReader(tsFile.getFile().getPath());
+      openedReaderNum.incrementAndGet();
+      cachedReader.future.complete(tsFileReader);
+    } catch (IOException | RuntimeException e) {
+      // the file will be opened again by the next query
+      readerMap.remove(tsFile, cachedReader);
+      cachedReader.future.completeExceptionally(e);
+      throw e;
+    }
+
+    int maxOpenedReaderNum = getMaxOpenedFileReaderNum();
+    if (openedReaderNum.get() > maxOpenedReaderNum) {
+      // evict a tenth of the readers at a time so that the eviction is not done for each opening
+      evictUnusedReaders(maxOpenedReaderNum - maxOpenedReaderNum / 10);
+    }
+  }
+
+  private TsFileSequenceReader waitForReader(CachedReader cachedReader) throws IOException {
+    // the file may be being opened by another thread, and the thread opening it has finished
+    // opening here, so only the other threads are counted as waiting
+    boolean opening = !cachedReader.future.isDone();
+    long startTime = opening ? System.nanoTime() : 0;
+    try {
+      return cachedReader.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      if (opening) {
+        waitCount.incrementAndGet();
+        waitTimeNs.addAndGet(System.nanoTime() - startTime);
+      }
+    }
+  }
 
-      readerMap.put(tsFile, tsFileReader);
-      return tsFileReader;
+  /**
+   * Close the least recently used readers that are not referenced by any query until there are
+   * at most targetNum opened readers.
+   */
+  private synchronized void evictUnusedReaders(int targetNum) {
+    List<Entry<TsFileResource, CachedReader>> candidates = new ArrayList<>();
+    collectUnusedReaders(closedFileReaderMap, closedReferenceMap, candidates);
+    collectUnusedReaders(unclosedFileReaderMap, unclosedReferenceMap, candidates);
+    candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessTime));
+
+    int evictedNum = 0;
+    for (Entry<TsFileResource, CachedReader> entry : candidates) {
+      if (openedReaderNum.get() <= targetNum) {
+        break;
+      }
+      // the value identifies the map it is in
+      if (closedFileReaderMap.remove(entry.getKey(), entry.getValue())
+          || unclosedFileReaderMap.remove(entry.getKey(), entry.getValue())) {
+        closeReaderQuietly(entry.getValue());
+        evictedNum++;
+      }
+    }
+    evictedReaderCount.addAndGet(evictedNum);
+    if (openedReaderNum.get() > targetNum) {
+      logger.warn("Queries have opened {} files, and only {} unused ones are closed",
+          openedReaderNum.get(), evictedNum);
+    } else {
+      logger.debug("{} unused file readers are closed", evictedNum);
     }
+  }
 
-    return readerMap.get(tsFile);
+  private static void collectUnusedReaders(Map<TsFileResource, CachedReader> readerMap,
+      Map<TsFileResource, AtomicInteger> refMap,
+      List<Entry<TsFileResource, CachedReader>> candidates) {
+    for (Entry<TsFileResource, CachedReader> entry : readerMap.entrySet()) {
+      AtomicInteger refAtom = refMap.get(entry.getKey());
+      if ((refAtom == null || refAtom.get() == 0) && entry.getValue().future.isDone()) {
+        candidates.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Close the reader, waiting for it if it is being opened.
+   */
+  private void closeReader(CachedReader cachedReader) throws IOException {
+    TsFileSequenceReader reader;
+    try {
+      reader = cachedReader.future.get();
+    } catch (ExecutionException e) {
+      // the file is not opened
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    openedReaderNum.decrementAndGet();
+    reader.close();
+  }
+
+  private void closeReaderQuietly(CachedReader cachedReader) {
+    try {
+      closeReader(cachedReader);
+    } catch (IOException e) {
+      logger.error("Can not close TsFileSequenceReader !", e);
+    }
   }
 
   /**
@@ -196,13 +312,13 @@ public class FileReaderManager implements IService {
    * integration tests will not conflict with each other.
    */
   public synchronized void closeAndRemoveAllOpenedReaders() throws IOException {
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : closedFileReaderMap.entrySet()) {
-      entry.getValue().close();
+    for (Map.Entry<TsFileResource, CachedReader> entry : closedFileReaderMap.entrySet()) {
+      closeReader(entry.getValue());
       closedReferenceMap.remove(entry.getKey());
       closedFileReaderMap.remove(entry.getKey());
     }
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : unclosedFileReaderMap.entrySet()) {
-      entry.getValue().close();
+    for (Map.Entry<TsFileResource, CachedReader> entry : unclosedFileReaderMap.entrySet()) {
+      closeReader(entry.getValue());
       unclosedReferenceMap.remove(entry.getKey());
       unclosedFileReaderMap.remove(entry.getKey());
     }
@@ -216,13 +332,44 @@ public class FileReaderManager implements IService {
         || (!isClosed && unclosedFileReaderMap.containsKey(tsFile));
   }
 
+  @Override
+  public int getOpenedFileReaderNum() {
+    return openedReaderNum.get();
+  }
+
+  @Override
+  public int getMaxOpenedFileReaderNum() {
+    return IoTDBDescriptor.getInstance().getConfig().getMaxOpenedFileReaderNum();
+  }
+
+  @Override
+  public long getEvictedFileReaderCount() {
+    return evictedReaderCount.get();
+  }
+
+  @Override
+  public long getFileReaderWaitCount() {
+    return waitCount.get();
+  }
+
+  @Override
+  public long getFileReaderWaitTimeInMs() {
+    return TimeUnit.NANOSECONDS.toMillis(waitTimeNs.get());
+  }
+
   @Override
   public void start() {
-    // Do nothing
+    if (executorService == null || executorService.isShutdown()) {
+      executorService = IoTDBThreadPoolFactory.newScheduledThreadPool(1,
+          "open-files-manager");
+      clearUnUsedFilesInFixTime();
+    }
+    JMXService.registerMBean(getInstance(), getID().getJmxName());
   }
 
   @Override
   public void stop() {
+    JMXService.deregisterMBean(getID().getJmxName());
     if (executorService == null || executorService.isShutdown()) {
       return;
     }
@@ -241,6 +388,15 @@ public class FileReaderManager implements IService {
     return ServiceType.FILE_READER_MANAGER_SERVICE;
   }
 
+  /**
+   * A cached reader, the file of which is opened by the first thread getting it.
+   */
+  private static class CachedReader {
+
+    private CompletableFuture<TsFileSequenceReader> future = new CompletableFuture<>();
+    private volatile long lastAccessTime = System.nanoTime();
+  }
+
   private static class FileReaderManagerHelper {
 
     private static final FileReaderManager INSTANCE = new FileReaderManager();
@@ -248,4 +404,4 @@ public class FileReaderManager implements IService {
     private FileReaderManagerHelper() {
     }
   }
-}
\ No newline at end of file
+}
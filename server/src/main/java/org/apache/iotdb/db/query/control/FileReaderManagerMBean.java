@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+public interface FileReaderManagerMBean {
+
+  int getOpenedFileReaderNum();
+
+  int getMaxOpenedFileReaderNum();
+
+  long getEvictedFileReaderCount();
+
+  /**
+   * @return the number of times that a query waits for a file reader being opened by another query
+   */
+  long getFileReaderWaitCount();
+
+  /**
+   * @return the total time that queries wait for file readers being opened by other queries
+   */
+  long getFileReaderWaitTimeInMs();
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.runtime.QueryAbortedException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.db.utils.MemUtils;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryMemoryManager bounds the memory used by the data read in the running queries and aborts the
+ * queries that are killed or timed out.
+ * <p>
+ * The operators of a query reserve the estimated sizes of the data they read through the
+ * QueryContext. A reservation waits while the free query memory is not enough, and the query is
+ * rejected if the memory is not released by other queries in time. The reservations of a query are
+ * all released when the query ends. A query that is not registered, e.g., the one of a test or a
+ * non-data query, is not restricted.
+ */
+public class QueryMemoryManager implements IService, QueryMemoryManagerMBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryMemoryManager.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private Map<Long, RunningQuery> runningQueries = new ConcurrentHashMap<>();
+
+  /**
+   * the fields below are guarded by this
+   */
+  private long totalMemory;
+  private long usedMemory;
+  private int waitingQueryNum;
+
+  private AtomicLong rejectedQueryCount = new AtomicLong();
+  private AtomicLong killedQueryCount = new AtomicLong();
+  private AtomicLong timeoutQueryCount = new AtomicLong();
+
+  private QueryMemoryManager() {
+    totalMemory = computeTotalMemory();
+  }
+
+  public static QueryMemoryManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * The query memory is the read memory that is not allocated to the metadata caches.
+   */
+  private static long computeTotalMemory() {
+    long memory = config.getAllocateMemoryForRead();
+    if (config.isMetaDataCacheEnable()) {
+      memory -= config.getAllocateMemoryForFileMetaDataCache()
+          + config.getAllocateMemoryForChumkMetaDataCache();
+    }
+    return Math.max(memory, 0);
+  }
+
+  void registerQuery(long queryId) {
+    long timeout = config.getQueryTimeoutInMs();
+    long startTime = System.currentTimeMillis();
+    long deadline = timeout > 0 ? startTime + timeout : Long.MAX_VALUE;
+    runningQueries.put(queryId, new RunningQuery(startTime, deadline));
+  }
+
+  /**
+   * Remove the query and release all the memory reserved by it.
+   */
+  void unregisterQuery(long queryId) {
+    RunningQuery query = runningQueries.remove(queryId);
+    if (query != null) {
+      synchronized (this) {
+        query.unregistered = true;
+        usedMemory -= query.reservedMemory;
+        query.reservedMemory = 0;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * @throws QueryAbortedException if the query is killed or timed out
+   */
+  public void checkAlive(long queryId) {
+    RunningQuery query = runningQueries.get(queryId);
+    if (query != null) {
+      checkAlive(queryId, query);
+    }
+  }
+
+  private void checkAlive(long queryId, RunningQuery query) {
+    if (query.killed) {
+      throw new QueryAbortedException(String.format("Query %d is killed", queryId));
+    }
+    if (System.currentTimeMillis() > query.deadline) {
+      if (!query.timedOut) {
+        query.timedOut = true;
+        timeoutQueryCount.incrementAndGet();
+        logger.warn("Query {} is timed out after {}ms", queryId, config.getQueryTimeoutInMs());
+      }
+      throw new QueryAbortedException(String.format("Query %d is timed out after %dms", queryId,
+          config.getQueryTimeoutInMs()));
+    }
+  }
+
+  /**
+   * Reserve the memory for the query, wait if the free memory is not enough. A reservation larger
+   * than the total query memory is granted when no memory is reserved, so that a large query is
+   * still able to run alone.
+   *
+   * @throws QueryAbortedException if the query is killed or timed out, or the memory is not
+   * released by other queries in max_query_memory_wait_time_in_ms
+   */
+  public void reserve(long queryId, long bytes) {
+    RunningQuery query = runningQueries.get(queryId);
+    if (query == null) {
+      return;
+    }
+    checkAlive(queryId, query);
+    if (bytes <= 0) {
+      return;
+    }
+    synchronized (this) {
+      long waitDeadline = System.currentTimeMillis() + config.getMaxQueryMemoryWaitTimeInMs();
+      while (!query.unregistered && usedMemory > 0 && usedMemory + bytes > totalMemory) {
+        checkAlive(queryId, query);
+        long waitTime = Math.min(waitDeadline, query.deadline) - System.currentTimeMillis();
+        if (waitTime <= 0) {
+          rejectedQueryCount.incrementAndGet();
+          logger.warn("Query {} is rejected, {} of query memory is required but {} of {} is free",
+              queryId, MemUtils.bytesCntToStr(bytes), MemUtils.bytesCntToStr(totalMemory -
+                  usedMemory), MemUtils.bytesCntToStr(totalMemory));
+          throw new QueryAbortedException(String.format("Query %d is rejected because the "
+              + "query memory is exhausted, please retry later", queryId));
+        }
+        waitingQueryNum++;
+        try {
+          wait(waitTime);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new QueryAbortedException(String.format("Query %d is interrupted", queryId));
+        } finally {
+          waitingQueryNum--;
+        }
+      }
+      reserveUnchecked(query, bytes);
+    }
+  }
+
+  /**
+   * Reserve the memory for the query without waiting. This is used for the data that is already
+   * read, e.g., by the threads of QueryTaskPoolManager that must not be blocked.
+   */
+  public void forceReserve(long queryId, long bytes) {
+    RunningQuery query = runningQueries.get(queryId);
+    if (query == null || bytes <= 0) {
+      return;
+    }
+    synchronized (this) {
+      reserveUnchecked(query, bytes);
+    }
+  }
+
+  /**
+   * The caller should hold the monitor of this. Nothing is reserved if the query is unregistered
+   * after it is looked up, as its reservations would never be released.
+   */
+  private void reserveUnchecked(RunningQuery query, long bytes) {
+    if (query.unregistered) {
+      return;
+    }
+    usedMemory += bytes;
+    query.reservedMemory += bytes;
+  }
+
+  public void release(long queryId, long bytes) {
+    RunningQuery query = runningQueries.get(queryId);
+    if (query == null || bytes <= 0) {
+      return;
+    }
+    synchronized (this) {
+      bytes = Math.min(bytes, query.reservedMemory);
+      usedMemory -= bytes;
+      query.reservedMemory -= bytes;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Mark the query as killed, it is aborted when it reads more data or waits for memory, and its
+   * resources are released when it is closed.
+   *
+   * @return false if the query is not running
+   */
+  public boolean kill(long queryId) {
+    RunningQuery query = runningQueries.get(queryId);
+    if (query == null) {
+      return false;
+    }
+    if (!query.killed) {
+      query.killed = true;
+      killedQueryCount.incrementAndGet();
+      logger.info("Query {} is killed", queryId);
+    }
+    synchronized (this) {
+      // wake up the query if it is waiting for memory
+      notifyAll();
+    }
+    return true;
+  }
+
+  public boolean isRunning(long queryId) {
+    return runningQueries.containsKey(queryId);
+  }
+
+  @Override
+  public synchronized long getTotalQueryMemory() {
+    return totalMemory;
+  }
+
+  @Override
+  public synchronized long getUsedQueryMemory() {
+    return usedMemory;
+  }
+
+  @Override
+  public int getRunningQueryNum() {
+    return runningQueries.size();
+  }
+
+  @Override
+  public synchronized int getWaitingQueryNum() {
+    return waitingQueryNum;
+  }
+
+  @Override
+  public long getRejectedQueryCount() {
+    return rejectedQueryCount.get();
+  }
+
+  @Override
+  public long getKilledQueryCount() {
+    return killedQueryCount.get();
+  }
+
+  @Override
+  public long getTimeoutQueryCount() {
+    return timeoutQueryCount.get();
+  }
+
+  @Override
+  public String[] getRunningQueries() {
+    long currentTime = System.currentTimeMillis();
+    return runningQueries.entrySet().stream().map(e -> {
+      long reservedMemory;
+      synchronized (this) {
+        reservedMemory = e.getValue().reservedMemory;
+      }
+      return String.format("queryId: %d, elapsed: %dms, reserved memory: %s", e.getKey(),
+          currentTime - e.getValue().startTime, MemUtils.bytesCntToStr(reservedMemory));
+    }).toArray(String[]::new);
+  }
+
+  @TestOnly
+  public synchronized void setTotalQueryMemory(long totalMemory) {
+    this.totalMemory = totalMemory;
+    notifyAll();
+  }
+
+  @Override
+  public void start() {
+    synchronized (this) {
+      totalMemory = computeTotalMemory();
+    }
+    JMXService.registerMBean(getInstance(), getID().getJmxName());
+    logger.info("Query memory is {}", MemUtils.bytesCntToStr(getTotalQueryMemory()));
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(getID().getJmxName());
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.QUERY_MEMORY_MANAGER_SERVICE;
+  }
+
+  private static class RunningQuery {
+
+    private long startTime;
+    private long deadline;
+    private volatile boolean killed;
+    private volatile boolean timedOut;
+    /**
+     * the fields below are guarded by the QueryMemoryManager
+     */
+    private long reservedMemory;
+    private boolean unregistered;
+
+    private RunningQuery(long startTime, long deadline) {
+      this.startTime = startTime;
+      this.deadline = deadline;
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private static final QueryMemoryManager INSTANCE = new QueryMemoryManager();
+
+    private InstanceHolder() {
+    }
+  }
+}
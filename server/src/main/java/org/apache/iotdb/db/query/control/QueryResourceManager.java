@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.serialize.IExternalSortFileDeserializer;
@@ -68,6 +69,7 @@ public class QueryResourceManager {
     long queryId = queryIdAtom.incrementAndGet();
     if (isDataQuery) {
       filePathsManager.addQueryId(queryId);
+      QueryMemoryManager.getInstance().registerQuery(queryId);
     }
     return queryId;
   }
@@ -86,9 +88,30 @@ public class QueryResourceManager {
   public QueryDataSource getQueryDataSource(Path selectedPath,
       QueryContext context) throws StorageEngineException {
 
+    long startTime = System.nanoTime();
     SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(selectedPath, null);
-    return StorageEngine
+    QueryDataSource queryDataSource = StorageEngine
         .getInstance().query(singleSeriesExpression, context, filePathsManager);
+    if (context.getProfile() != null) {
+      context.getProfile().filesSelected(queryDataSource.getSeqResources().size(),
+          queryDataSource.getUnseqResources().size(), System.nanoTime() - startTime);
+    }
+    // the snapshots of the memtables share the arrays of the memtables, only the small lists of
+    // the arrays are copied. They are accounted without waiting, as the files of the data source
+    // are already referenced and would not be closed or merged while the query waits
+    context.forceReserveMemory(getMemChunkCopiedSize(queryDataSource.getSeqResources())
+        + getMemChunkCopiedSize(queryDataSource.getUnseqResources()));
+    return queryDataSource;
+  }
+
+  private static long getMemChunkCopiedSize(List<TsFileResource> resources) {
+    long size = 0;
+    for (TsFileResource resource : resources) {
+      if (resource.getReadOnlyMemChunk() != null) {
+        size += resource.getReadOnlyMemChunk().getCopiedSize();
+      }
+    }
+    return size;
   }
 
   /**
@@ -96,6 +119,7 @@ public class QueryResourceManager {
    * query tokens created by this jdbc request must be cleared.
    */
   public void endQuery(long queryId) throws StorageEngineException {
+    QueryMemoryManager.getInstance().unregisterQuery(queryId);
     // close file stream of external sort files, and delete
     if (externalSortFileMap.get(queryId) != null) {
       for (IExternalSortFileDeserializer deserializer : externalSortFileMap.get(queryId)) {
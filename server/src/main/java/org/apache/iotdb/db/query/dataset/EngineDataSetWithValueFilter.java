@@ -30,11 +30,23 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
 public class EngineDataSetWithValueFilter extends QueryDataSet {
 
+  /**
+   * timestamps are taken from the time generator in blocks of this size, so that each reader is
+   * asked for the values of a whole block at once instead of one timestamp at a time.
+   */
+  private static final int TIME_BLOCK_SIZE = 1024;
+
   private EngineTimeGenerator timeGenerator;
   private List<IReaderByTimestamp> seriesReaderByTimestampList;
   private boolean hasCachedRowRecord;
   private RowRecord cachedRowRecord;
 
+  private long[] timestamps = new long[TIME_BLOCK_SIZE];
+  // values[i][j] is the value of the i-th series under timestamps[j]
+  private Object[][] values;
+  private int rowCount;
+  private int rowIndex;
+
   /**
    * constructor of EngineDataSetWithValueFilter.
    *
@@ -48,6 +60,7 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     super(paths, dataTypes);
     this.timeGenerator = timeGenerator;
     this.seriesReaderByTimestampList = readers;
+    this.values = new Object[readers.size()][];
   }
 
   @Override
@@ -73,13 +86,11 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
    * @return if there has next row record.
    */
   private boolean cacheRowRecord() throws IOException {
-    while (timeGenerator.hasNext()) {
+    while (rowIndex < rowCount || fetchRows()) {
+      RowRecord rowRecord = new RowRecord(timestamps[rowIndex]);
       boolean hasField = false;
-      long timestamp = timeGenerator.next();
-      RowRecord rowRecord = new RowRecord(timestamp);
-      for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
-        IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
-        Object value = reader.getValueInTimestamp(timestamp);
+      for (int i = 0; i < values.length; i++) {
+        Object value = values[i][rowIndex];
         if (value == null) {
           rowRecord.addField(new Field(null));
         } else {
@@ -87,6 +98,7 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
           rowRecord.addField(getField(value, dataTypes.get(i)));
         }
       }
+      rowIndex++;
       if (hasField) {
         hasCachedRowRecord = true;
         cachedRowRecord = rowRecord;
@@ -96,6 +108,24 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     return hasCachedRowRecord;
   }
 
+  /**
+   * Fetch the next block of timestamps from the time generator and look up the values of all
+   * series under them with one batch call per reader.
+   *
+   * @return false if there is no more timestamp
+   */
+  private boolean fetchRows() throws IOException {
+    rowCount = timeGenerator.next(timestamps);
+    rowIndex = 0;
+    if (rowCount == 0) {
+      return false;
+    }
+    for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
+      values[i] = seriesReaderByTimestampList.get(i).getValuesInTimestamps(timestamps, rowCount);
+    }
+    return true;
+  }
+
   public EngineTimeGenerator getTimeGenerator() {
     return timeGenerator;
   }
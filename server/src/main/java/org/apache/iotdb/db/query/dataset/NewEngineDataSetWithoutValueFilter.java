@@ -19,9 +19,12 @@
 
 package org.apache.iotdb.db.query.dataset;
 
+import org.apache.iotdb.db.exception.runtime.QueryAbortedException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -40,6 +43,7 @@ import java.util.List;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
 
@@ -47,10 +51,13 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
 
     private final ManagedSeriesReader reader;
     private BlockingQueue<BatchData> blockingQueue;
+    private QueryContext context;
 
-    public ReadTask(ManagedSeriesReader reader, BlockingQueue<BatchData> blockingQueue) {
+    public ReadTask(ManagedSeriesReader reader, BlockingQueue<BatchData> blockingQueue,
+        QueryContext context) {
       this.reader = reader;
       this.blockingQueue = blockingQueue;
+      this.context = context;
     }
 
     @Override
@@ -66,6 +73,8 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
             if (batchData.isEmpty()) {
               continue;
             }
+            // the batch is already read, it is released after being consumed
+            context.forceReserveMemory(estimateSize(batchData));
             blockingQueue.put(batchData);
             // if the queue also has free space, just submit another itself
             if (blockingQueue.remainingCapacity() > 0) {
@@ -87,6 +96,8 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
           // remove itself from the QueryTaskPoolManager
           reader.setManagedByQueryManager(false);
         }
+      } catch (QueryAbortedException e) {
+        LOGGER.debug("Stop reading the series reader: {}", e.getMessage());
       } catch (InterruptedException e) {
         LOGGER.error("Interrupted while putting into the blocking queue: ", e);
       } catch (IOException e) {
@@ -119,6 +130,11 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
   // capacity for blocking queue
   private static final int BLOCKING_QUEUE_CAPACITY = 5;
 
+  // the interval of checking whether the query is aborted while waiting for a batch
+  private static final long CHECK_ALIVE_INTERVAL_MS = 100;
+
+  private QueryContext context;
+
   private static final QueryTaskPoolManager pool = QueryTaskPoolManager.getInstance();
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NewEngineDataSetWithoutValueFilter.class);
@@ -130,11 +146,14 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
    * @param paths paths in List structure
    * @param dataTypes time series data type
    * @param readers readers in List(IPointReader) structure
+   * @param context the memory of the batches in the blocking queues is reserved in the context
    */
   public NewEngineDataSetWithoutValueFilter(List<Path> paths, List<TSDataType> dataTypes,
-                                            List<ManagedSeriesReader> readers) throws InterruptedException {
+                                            List<ManagedSeriesReader> readers, QueryContext context)
+      throws InterruptedException {
     super(paths, dataTypes);
     this.seriesReaderWithoutValueFilterList = readers;
+    this.context = context;
     blockingQueueArray = new BlockingQueue[readers.size()];
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
       blockingQueueArray[i] = new LinkedBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
@@ -150,7 +169,7 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
       ManagedSeriesReader reader = seriesReaderWithoutValueFilterList.get(i);
       reader.setHasRemaining(true);
       reader.setManagedByQueryManager(true);
-      pool.submit(new ReadTask(reader, blockingQueueArray[i]));
+      pool.submit(new ReadTask(reader, blockingQueueArray[i], context));
     }
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
       fillCache(i);
@@ -331,13 +350,22 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
   }
 
   private void fillCache(int seriesIndex) throws InterruptedException {
-    BatchData batchData = blockingQueueArray[seriesIndex].take();
+    context.checkAlive();
+    BatchData batchData;
+    // the read task stops if the query is aborted, so the queue is polled with a timeout
+    while ((batchData = blockingQueueArray[seriesIndex]
+        .poll(CHECK_ALIVE_INTERVAL_MS, TimeUnit.MILLISECONDS)) == null) {
+      context.checkAlive();
+    }
     // no more batch data in this time series queue
     if (batchData instanceof SignalBatchData) {
       noMoreDataInQueueArray[seriesIndex] = true;
     }
     // there are more batch data in this time series queue
     else {
+      if (cachedBatchDataArray[seriesIndex] != null) {
+        context.releaseMemory(estimateSize(cachedBatchDataArray[seriesIndex]));
+      }
       cachedBatchDataArray[seriesIndex] = batchData;
 
       synchronized (seriesReaderWithoutValueFilterList.get(seriesIndex)) {
@@ -349,13 +377,17 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
           // now we should submit it again
           if (!reader.isManagedByQueryManager() && reader.hasRemaining()) {
             reader.setManagedByQueryManager(true);
-            pool.submit(new ReadTask(reader, blockingQueueArray[seriesIndex]));
+            pool.submit(new ReadTask(reader, blockingQueueArray[seriesIndex], context));
           }
         }
       }
     }
   }
 
+  private static long estimateSize(BatchData batchData) {
+    return batchData.length() * MemUtils.getPointSize(batchData.getDataType());
+  }
+
   private void putPBOSToBuffer(PublicBAOS[] bitmapBAOSList, List<ByteBuffer> bitmapBufferList,
                                int tsIndex) {
     ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapBAOSList[tsIndex].size());
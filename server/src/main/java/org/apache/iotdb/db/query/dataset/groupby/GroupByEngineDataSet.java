@@ -18,7 +18,10 @@
  */
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
@@ -27,10 +30,18 @@ import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.factory.AggreFuncFactory;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Pair;
 
+/**
+ * The base class of group by time queries. When the sliding step is smaller than the unit, the
+ * windows overlap, and instead of aggregating every window from scratch the time axis is split
+ * into panes of gcd(unit, slidingStep). Each pane is aggregated only once, and the result of a
+ * window is merged from the partial results of the panes it covers.
+ */
 public abstract class GroupByEngineDataSet extends QueryDataSet {
 
   protected long queryId;
@@ -45,6 +56,23 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
   protected List<AggregateFunction> functions;
   protected boolean hasCachedTimeInterval;
 
+  /**
+   * the length of a pane, only used when the windows overlap.
+   */
+  private long paneSize;
+  private List<String> aggregations;
+  private List<TSDataType> dataTypes;
+  /**
+   * the aggregated panes in ascending order of time, the first one of which starts at
+   * firstPaneStartTime.
+   */
+  private Deque<List<AggregateFunction>> panes = new ArrayDeque<>();
+  private long firstPaneStartTime;
+  /**
+   * the aggregate functions of the dropped panes to be reused.
+   */
+  private Deque<List<AggregateFunction>> freePanes = new ArrayDeque<>();
+
   /**
    * groupBy query.
    */
@@ -56,6 +84,8 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
     this.intervalStartTime = groupByPlan.getStartTime();
     this.intervalEndTime = groupByPlan.getEndTime();
     this.functions = new ArrayList<>();
+    this.paneSize = slidingStep < unit ? gcd(unit, slidingStep) : 0;
+    this.firstPaneStartTime = intervalStartTime;
 
     // init group by time partition
     this.usedIndex = 0;
@@ -64,14 +94,21 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
   }
 
   protected void initAggreFuction(GroupByPlan groupByPlan) throws PathException {
+    this.aggregations = groupByPlan.getDeduplicatedAggregations();
+    this.dataTypes = groupByPlan.getDeduplicatedDataTypes();
+    functions.addAll(createFunctions());
+  }
+
+  private List<AggregateFunction> createFunctions() throws PathException {
     // construct AggregateFunctions
+    List<AggregateFunction> ret = new ArrayList<>();
     for (int i = 0; i < paths.size(); i++) {
       AggregateFunction function = AggreFuncFactory
-          .getAggrFuncByName(groupByPlan.getDeduplicatedAggregations().get(i),
-              groupByPlan.getDeduplicatedDataTypes().get(i));
+          .getAggrFuncByName(aggregations.get(i), dataTypes.get(i));
       function.init();
-      functions.add(function);
+      ret.add(function);
     }
+    return ret;
   }
 
   @Override
@@ -92,6 +129,90 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
     }
   }
 
+  @Override
+  protected RowRecord nextWithoutConstraint() throws IOException {
+    if (!hasCachedTimeInterval) {
+      throw new IOException("need to call hasNext() before calling next() in "
+          + getClass().getSimpleName() + ".");
+    }
+    hasCachedTimeInterval = false;
+    for (AggregateFunction function : functions) {
+      function.init();
+    }
+    if (paneSize > 0) {
+      mergePanes();
+    } else {
+      aggregate(startTime, endTime, functions);
+    }
+
+    RowRecord record = new RowRecord(startTime);
+    for (AggregateFunction function : functions) {
+      record.addField(getField(function.getResult()));
+    }
+    return record;
+  }
+
+  /**
+   * Calculate the aggregations of all series with the points in [start, end) into the given
+   * initialized functions. The time ranges of successive calls are ascending and do not overlap.
+   *
+   * @param results the functions of the series in the order of paths
+   */
+  protected abstract void aggregate(long start, long end, List<AggregateFunction> results)
+      throws IOException;
+
+  /**
+   * aggregate the panes in the current window which are not aggregated yet, drop the panes
+   * before the window, and merge the panes in the window into the functions.
+   */
+  private void mergePanes() throws IOException {
+    while (!panes.isEmpty() && firstPaneStartTime < startTime) {
+      freePanes.push(panes.poll());
+      firstPaneStartTime += paneSize;
+    }
+    if (panes.isEmpty()) {
+      firstPaneStartTime = startTime;
+    }
+
+    long paneStartTime = firstPaneStartTime + panes.size() * paneSize;
+    while (paneStartTime < endTime) {
+      List<AggregateFunction> pane = allocatePane();
+      aggregate(paneStartTime, Math.min(paneStartTime + paneSize, intervalEndTime + 1), pane);
+      panes.add(pane);
+      paneStartTime += paneSize;
+    }
+
+    for (List<AggregateFunction> pane : panes) {
+      for (int i = 0; i < functions.size(); i++) {
+        functions.get(i).merge(pane.get(i));
+      }
+    }
+  }
+
+  private List<AggregateFunction> allocatePane() throws IOException {
+    List<AggregateFunction> pane = freePanes.poll();
+    if (pane == null) {
+      try {
+        return createFunctions();
+      } catch (PathException e) {
+        throw new IOException(e);
+      }
+    }
+    for (AggregateFunction function : pane) {
+      function.init();
+    }
+    return pane;
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
   /**
    * this method is only used in the test class to get the next time partition.
    */
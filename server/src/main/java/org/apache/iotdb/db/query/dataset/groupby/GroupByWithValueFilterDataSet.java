@@ -32,7 +32,6 @@ import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
 import org.apache.iotdb.tsfile.read.common.Path;
-import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
 
 public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
@@ -85,42 +84,34 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
   }
 
   @Override
-  protected RowRecord nextWithoutConstraint() throws IOException {
-    if (!hasCachedTimeInterval) {
-      throw new IOException("need to call hasNext() before calling next()"
-          + " in GroupByWithoutValueFilterDataSet.");
-    }
-    hasCachedTimeInterval = false;
-    for (AggregateFunction function : functions) {
-      function.init();
-    }
-
+  protected void aggregate(long start, long end, List<AggregateFunction> results)
+      throws IOException {
     long[] timestampArray = new long[timeStampFetchSize];
     int timeArrayLength = 0;
     if (hasCachedTimestamp) {
-      if (timestamp < endTime) {
-        if (timestamp >= startTime) {
+      if (timestamp < end) {
+        if (timestamp >= start) {
           hasCachedTimestamp = false;
           timestampArray[timeArrayLength++] = timestamp;
         }
       } else {
-        return constructRowRecord();
+        return;
       }
     }
 
     while (timestampGenerator.hasNext()) {
       // construct timestamp array
-      timeArrayLength = constructTimeArrayForOneCal(timestampArray, timeArrayLength);
+      timeArrayLength = constructTimeArrayForOneCal(end, timestampArray, timeArrayLength);
 
       // cal result using timestamp array
       for (int i = 0; i < paths.size(); i++) {
-        functions.get(i).calcAggregationUsingTimestamps(
+        results.get(i).calcAggregationUsingTimestamps(
             timestampArray, timeArrayLength, allDataReaderList.get(i));
       }
 
       timeArrayLength = 0;
       // judge if it's end
-      if (timestamp >= endTime) {
+      if (timestamp >= end) {
         hasCachedTimestamp = true;
         break;
       }
@@ -129,25 +120,25 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
     if (timeArrayLength > 0) {
       // cal result using timestamp array
       for (int i = 0; i < paths.size(); i++) {
-        functions.get(i).calcAggregationUsingTimestamps(
+        results.get(i).calcAggregationUsingTimestamps(
             timestampArray, timeArrayLength, allDataReaderList.get(i));
       }
     }
-    return constructRowRecord();
   }
 
   /**
    * construct an array of timestamps for one batch of a group by partition calculating.
    *
+   * @param end             the end time of the group by partition, exclusive
    * @param timestampArray  timestamp array
    * @param timeArrayLength the current size of timestamp array
    * @return time array size
    */
-  private int constructTimeArrayForOneCal(long[] timestampArray, int timeArrayLength)
+  private int constructTimeArrayForOneCal(long end, long[] timestampArray, int timeArrayLength)
       throws IOException {
     for (int cnt = 1; cnt < timeStampFetchSize && timestampGenerator.hasNext(); cnt++) {
       timestamp = timestampGenerator.next();
-      if (timestamp < endTime) {
+      if (timestamp < end) {
         timestampArray[timeArrayLength++] = timestamp;
       } else {
         hasCachedTimestamp = true;
@@ -156,10 +147,4 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
     }
     return timeArrayLength;
   }
-
-  private RowRecord constructRowRecord() {
-    RowRecord record = new RowRecord(startTime);
-    functions.forEach(function -> record.addField(getField(function.getResult())));
-    return record;
-  }
 }
@@ -24,7 +24,6 @@ import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
-import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
@@ -102,49 +101,40 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
   }
 
   @Override
-  protected RowRecord nextWithoutConstraint() throws IOException {
-    if (!hasCachedTimeInterval) {
-      throw new IOException("need to call hasNext() before calling next() "
-          + "in GroupByWithoutValueFilterDataSet.");
-    }
-    hasCachedTimeInterval = false;
-    RowRecord record = new RowRecord(startTime);
-    for (int i = 0; i < functions.size(); i++) {
-      AggreResultData res;
+  protected void aggregate(long start, long end, List<AggregateFunction> results)
+      throws IOException {
+    for (int i = 0; i < results.size(); i++) {
       try {
-        res = nextSeries(i);
+        nextSeries(i, start, end, results.get(i));
       } catch (QueryProcessException e) {
         throw new IOException(e);
       }
-      if (res == null) {
-        record.addField(new Field(null));
-      } else {
-        record.addField(getField(res));
-      }
     }
-    return record;
   }
 
   /**
    * calculate the group by result of the series indexed by idx.
    *
    * @param idx series id
+   * @param start the start time of the group, inclusive
+   * @param end the end time of the group, exclusive
+   * @param function the initialized aggregate function of the series
    */
-  private AggreResultData nextSeries(int idx) throws IOException, QueryProcessException {
+  private void nextSeries(int idx, long start, long end, AggregateFunction function)
+      throws IOException, QueryProcessException {
     IPointReader unsequenceReader = unSequenceReaderList.get(idx);
     IAggregateReader sequenceReader = sequenceReaderList.get(idx);
-    AggregateFunction function = functions.get(idx);
-    function.init();
 
     // skip the points with timestamp less than startTime
-    skipBeforeStartTimeData(idx, sequenceReader, unsequenceReader);
+    skipBeforeStartTimeData(idx, start, sequenceReader, unsequenceReader);
 
     // cal group by in batch data
-    boolean finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
+    boolean finishCheckSequenceData = calGroupByInBatchData(idx, end, function,
+        unsequenceReader);
     if (finishCheckSequenceData) {
       // check unsequence data
-      function.calculateValueFromUnsequenceReader(unsequenceReader, endTime);
-      return function.getResult().deepCopy();
+      function.calculateValueFromUnsequenceReader(unsequenceReader, end);
+      return;
     }
 
     // continue checking sequence data
@@ -155,15 +145,15 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       if (pageHeader == null) {
         batchDataList.set(idx, sequenceReader.nextBatch());
         hasCachedSequenceDataList.set(idx, true);
-        finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
+        finishCheckSequenceData = calGroupByInBatchData(idx, end, function, unsequenceReader);
       } else {
         // page data
         long minTime = pageHeader.getStartTime();
         long maxTime = pageHeader.getEndTime();
         // no point in sequence data with a timestamp less than endTime
-        if (minTime >= endTime) {
+        if (minTime >= end) {
           finishCheckSequenceData = true;
-        } else if (canUseHeader(minTime, maxTime, unsequenceReader, function)) {
+        } else if (canUseHeader(start, end, minTime, maxTime, unsequenceReader, function)) {
           // cal using page header
           function.calculateValueFromPageHeader(pageHeader);
           sequenceReader.skipPageData();
@@ -171,7 +161,8 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
           // cal using page data
           batchDataList.set(idx, sequenceReader.nextBatch());
           hasCachedSequenceDataList.set(idx, true);
-          finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
+          finishCheckSequenceData = calGroupByInBatchData(idx, end, function,
+              unsequenceReader);
         }
 
         if (finishCheckSequenceData) {
@@ -180,19 +171,19 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       }
     }
     // cal using unsequence data
-    function.calculateValueFromUnsequenceReader(unsequenceReader, endTime);
-    return function.getResult().deepCopy();
+    function.calculateValueFromUnsequenceReader(unsequenceReader, end);
   }
 
   /**
    * calculate groupBy's result in batch data.
    *
    * @param idx              series index
+   * @param end              the end time of the group, exclusive
    * @param function         aggregate function of the series
    * @param unsequenceReader unsequence reader of the series
    * @return if all sequential data been computed
    */
-  private boolean calGroupByInBatchData(int idx, AggregateFunction function,
+  private boolean calGroupByInBatchData(int idx, long end, AggregateFunction function,
       IPointReader unsequenceReader)
       throws IOException, QueryProcessException {
     BatchData batchData = batchDataList.get(idx);
@@ -200,7 +191,7 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     boolean finishCheckSequenceData = false;
     // there was unprocessed data in last batch
     if (hasCachedSequenceData && batchData.hasCurrent()) {
-      function.calculateValueFromPageData(batchData, unsequenceReader, endTime);
+      function.calculateValueFromPageData(batchData, unsequenceReader, end);
     }
 
     if (hasCachedSequenceData && batchData.hasCurrent()) {
@@ -217,19 +208,20 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
    * skip the points with timestamp less than startTime.
    *
    * @param idx              the index of series
+   * @param start            the start time of the group, inclusive
    * @param sequenceReader   sequence Reader
    * @param unsequenceReader unsequence Reader
    * @throws IOException exception when reading file
    */
-  private void skipBeforeStartTimeData(int idx, IAggregateReader sequenceReader,
+  private void skipBeforeStartTimeData(int idx, long start, IAggregateReader sequenceReader,
       IPointReader unsequenceReader)
       throws IOException {
 
     // skip the unsequenceReader points with timestamp less than startTime
-    skipPointInUnsequenceData(unsequenceReader);
+    skipPointInUnsequenceData(start, unsequenceReader);
 
     // skip the cached batch data points with timestamp less than startTime
-    if (skipPointInBatchData(idx)) {
+    if (skipPointInBatchData(idx, start)) {
       return;
     }
 
@@ -240,24 +232,24 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       if (pageHeader == null) {
         batchDataList.set(idx, sequenceReader.nextBatch());
         hasCachedSequenceDataList.set(idx, true);
-        if (skipPointInBatchData(idx)) {
+        if (skipPointInBatchData(idx, start)) {
           return;
         }
       } else {
         // page data
 
         // timestamps of all points in the page are less than startTime
-        if (pageHeader.getEndTime() < startTime) {
+        if (pageHeader.getEndTime() < start) {
           sequenceReader.skipPageData();
           continue;
-        } else if (pageHeader.getStartTime() >= startTime) {
+        } else if (pageHeader.getStartTime() >= start) {
           // timestamps of all points in the page are greater or equal to startTime, needn't to skip
           return;
         }
         // the page has overlap with startTime
         batchDataList.set(idx, sequenceReader.nextBatch());
         hasCachedSequenceDataList.set(idx, true);
-        if (skipPointInBatchData(idx)) {
+        if (skipPointInBatchData(idx, start)) {
           return;
         }
       }
@@ -267,10 +259,12 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
   /**
    * skip points in unsequence reader whose timestamp is less than startTime.
    *
+   * @param start            the start time of the group, inclusive
    * @param unsequenceReader unsequence reader
    */
-  private void skipPointInUnsequenceData(IPointReader unsequenceReader) throws IOException {
-    while (unsequenceReader.hasNext() && unsequenceReader.current().getTimestamp() < startTime) {
+  private void skipPointInUnsequenceData(long start, IPointReader unsequenceReader)
+      throws IOException {
+    while (unsequenceReader.hasNext() && unsequenceReader.current().getTimestamp() < start) {
       unsequenceReader.next();
     }
   }
@@ -279,9 +273,10 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
    * skip points in batch data whose timestamp is less than startTime.
    *
    * @param idx series index
+   * @param start the start time of the group, inclusive
    * @return whether has next in batch data
    */
-  private boolean skipPointInBatchData(int idx) {
+  private boolean skipPointInBatchData(int idx, long start) {
     BatchData batchData = batchDataList.get(idx);
     boolean hasCachedSequenceData = hasCachedSequenceDataList.get(idx);
     if (!hasCachedSequenceData) {
@@ -289,7 +284,7 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
 
     // skip the cached batch data points with timestamp less than startTime
-    while (batchData.hasCurrent() && batchData.currentTime() < startTime) {
+    while (batchData.hasCurrent() && batchData.currentTime() < start) {
       batchData.next();
     }
     batchDataList.set(idx, batchData);
@@ -301,14 +296,14 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
   }
 
-  private boolean canUseHeader(long minTime, long maxTime, IPointReader unSequenceReader,
-      AggregateFunction function)
+  private boolean canUseHeader(long start, long end, long minTime, long maxTime,
+      IPointReader unSequenceReader, AggregateFunction function)
       throws IOException, QueryProcessException {
     if (timeFilter != null && !timeFilter.containStartEndTime(minTime, maxTime)) {
       return false;
     }
 
-    TimeRange range = new TimeRange(startTime, endTime - 1);
+    TimeRange range = new TimeRange(start, end - 1);
     if (!range.contains(new TimeRange(minTime, maxTime))) {
       return false;
     }
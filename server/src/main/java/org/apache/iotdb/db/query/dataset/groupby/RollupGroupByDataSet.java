@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.iotdb.db.engine.rollup.Rollup;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+/**
+ * RollupGroupByDataSet answers a group by query without value filters from the derived series of
+ * the rollups selected by {@link RollupManager#selectRollups(GroupByPlan)}. The leading windows
+ * that end before the materialized time of every column are merged from the materialized
+ * buckets, and the remaining windows are calculated from the raw data by a
+ * {@link GroupByWithoutValueFilterDataSet}. The columns without a selected rollup are calculated
+ * from the raw data in all windows.
+ */
+public class RollupGroupByDataSet extends QueryDataSet {
+
+  private QueryContext context;
+  private GroupByPlan groupByPlan;
+  private long unit;
+  private long slidingStep;
+  private long intervalStartTime;
+
+  /**
+   * the number of the leading windows merged from the buckets.
+   */
+  private long rolledUpWindowNum;
+  private long usedIndex;
+  private long[] intervals;
+  private List<BucketColumn> columns = new ArrayList<>();
+  /**
+   * the data set of the rolled up columns in the windows after the rolled up ones.
+   */
+  private QueryDataSet rawDataSet;
+  /**
+   * the data set of the columns without a selected rollup in all windows, or null if every column
+   * is rolled up.
+   */
+  private QueryDataSet rawColumnDataSet;
+
+  public RollupGroupByDataSet(QueryContext context, GroupByPlan groupByPlan, long[] intervals)
+      throws StorageEngineException, IOException {
+    super(groupByPlan.getDeduplicatedPaths(), groupByPlan.getDeduplicatedDataTypes());
+    this.context = context;
+    this.groupByPlan = groupByPlan;
+    this.unit = groupByPlan.getUnit();
+    this.slidingStep = groupByPlan.getSlidingStep();
+    this.intervalStartTime = groupByPlan.getStartTime();
+    long intervalEndTime = groupByPlan.getEndTime();
+    this.intervals = intervals;
+
+    long splitTime = Long.MAX_VALUE;
+    boolean hasRawColumn = false;
+    for (int i = 0; i < paths.size(); i++) {
+      if (intervals[i] > 0) {
+        splitTime = Math.min(splitTime,
+            RollupManager.getInstance().getMaterializedTime(paths.get(i), intervals[i]));
+      } else {
+        hasRawColumn = true;
+      }
+    }
+    // the last window cut by the end time is not made of whole buckets
+    long lastWindowStartTime = Math.min(splitTime - unit, intervalEndTime - unit + 1);
+    if (splitTime == Long.MIN_VALUE || lastWindowStartTime < intervalStartTime) {
+      rolledUpWindowNum = 0;
+    } else {
+      rolledUpWindowNum = (lastWindowStartTime - intervalStartTime) / slidingStep + 1;
+    }
+
+    if (rolledUpWindowNum > 0) {
+      long rolledUpEndTime = intervalStartTime + (rolledUpWindowNum - 1) * slidingStep + unit;
+      Filter timeFilter = FilterFactory
+          .and(TimeFilter.gtEq(intervalStartTime), TimeFilter.lt(rolledUpEndTime));
+      for (int i = 0; i < paths.size(); i++) {
+        if (intervals[i] > 0) {
+          columns.add(new BucketColumn(paths.get(i), dataTypes.get(i),
+              groupByPlan.getDeduplicatedAggregations().get(i).toLowerCase(), intervals[i],
+              timeFilter));
+        }
+      }
+    }
+    if (hasRawColumn) {
+      rawColumnDataSet = createRawDataSet(intervalStartTime, false);
+    }
+  }
+
+  @Override
+  protected boolean hasNextWithoutConstraint() throws IOException {
+    if (usedIndex < rolledUpWindowNum) {
+      return true;
+    }
+    return getRawDataSet().hasNext();
+  }
+
+  @Override
+  protected RowRecord nextWithoutConstraint() throws IOException {
+    // the raw columns have the same windows as the rolled up ones
+    RowRecord rawColumnRecord = rawColumnDataSet != null && rawColumnDataSet.hasNext()
+        ? rawColumnDataSet.next() : null;
+    RowRecord record;
+    if (usedIndex >= rolledUpWindowNum) {
+      record = getRawDataSet().next();
+    } else {
+      long startTime = intervalStartTime + usedIndex * slidingStep;
+      usedIndex++;
+      record = new RowRecord(startTime);
+      for (BucketColumn column : columns) {
+        record.addField(column.aggregate(startTime, startTime + unit));
+      }
+      if (usedIndex == rolledUpWindowNum) {
+        for (BucketColumn column : columns) {
+          column.close();
+        }
+      }
+    }
+    return rawColumnRecord == null ? record : merge(record, rawColumnRecord);
+  }
+
+  /**
+   * @return the record of all columns in the order of the paths
+   */
+  private RowRecord merge(RowRecord rolledUpRecord, RowRecord rawColumnRecord) {
+    RowRecord record = new RowRecord(rolledUpRecord.getTimestamp());
+    Iterator<Field> rolledUpFields = rolledUpRecord.getFields().iterator();
+    Iterator<Field> rawFields = rawColumnRecord.getFields().iterator();
+    for (long interval : intervals) {
+      record.addField(interval > 0 ? rolledUpFields.next() : rawFields.next());
+    }
+    return record;
+  }
+
+  /**
+   * @return the data set of the rolled up columns in the windows after the rolled up ones, the
+   * readers of which only read the raw data of these windows
+   */
+  private QueryDataSet getRawDataSet() throws IOException {
+    if (rawDataSet == null) {
+      rawDataSet = createRawDataSet(intervalStartTime + rolledUpWindowNum * slidingStep, true);
+    }
+    return rawDataSet;
+  }
+
+  /**
+   * @param rolledUp whether the data set is of the columns with a selected rollup or those without
+   * @return the data set of the windows from the start time calculated from the raw data
+   */
+  private QueryDataSet createRawDataSet(long startTime, boolean rolledUp) throws IOException {
+    GroupByPlan rawPlan = new GroupByPlan();
+    rawPlan.setStartTime(startTime);
+    rawPlan.setEndTime(groupByPlan.getEndTime());
+    rawPlan.setUnit(unit);
+    rawPlan.setSlidingStep(slidingStep);
+    for (int i = 0; i < paths.size(); i++) {
+      if (intervals[i] > 0 == rolledUp) {
+        rawPlan.addDeduplicatedPaths(paths.get(i));
+        rawPlan.addDeduplicatedDataTypes(dataTypes.get(i));
+        rawPlan.addDeduplicatedAggregations(groupByPlan.getDeduplicatedAggregations().get(i));
+      }
+    }
+    rawPlan.setExpression(new GlobalTimeExpression(TimeFilter.gtEq(startTime)));
+    try {
+      return new GroupByWithoutValueFilterDataSet(context, rawPlan);
+    } catch (PathException | StorageEngineException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * BucketColumn reads the buckets of a column in ascending order of time and keeps those of the
+   * current window, which are reused by the next window if the windows overlap.
+   */
+  private class BucketColumn {
+
+    private String aggregation;
+    private TSDataType dataType;
+    private IPointReader countReader;
+    private IPointReader sumReader;
+    private IPointReader valueReader;
+    private Deque<Bucket> buckets = new ArrayDeque<>();
+
+    private BucketColumn(Path path, TSDataType dataType, String aggregation, long interval,
+        Filter timeFilter) throws StorageEngineException, IOException {
+      this.aggregation = aggregation;
+      this.dataType = dataType;
+      this.countReader = createReader(path, interval, SQLConstant.COUNT, timeFilter);
+      switch (aggregation) {
+        case SQLConstant.SUM:
+        case SQLConstant.AVG:
+          sumReader = createReader(path, interval, SQLConstant.SUM, timeFilter);
+          break;
+        case SQLConstant.MIN_VALUE:
+        case SQLConstant.MAX_VALUE:
+          valueReader = createReader(path, interval, aggregation, timeFilter);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private IPointReader createReader(Path path, long interval, String derivedAggregation,
+        Filter timeFilter) throws StorageEngineException, IOException {
+      return new SeriesReaderWithoutValueFilter(
+          Rollup.getDerivedPath(path, interval, derivedAggregation),
+          Rollup.getDerivedType(dataType, derivedAggregation), timeFilter, context, true);
+    }
+
+    /**
+     * @return the aggregation of the buckets in [start, end)
+     */
+    private Field aggregate(long start, long end) throws IOException {
+      while (!buckets.isEmpty() && buckets.peek().time < start) {
+        buckets.poll();
+      }
+      while (countReader.hasNext() && countReader.current().getTimestamp() < end) {
+        TimeValuePair count = countReader.next();
+        // an empty bucket is written to overwrite the old result of a refreshed bucket
+        if (count.getValue().getLong() > 0) {
+          buckets.add(new Bucket(count.getTimestamp(), count.getValue().getLong(),
+              readAt(sumReader, count.getTimestamp()), readAt(valueReader, count.getTimestamp())));
+        }
+      }
+
+      long totalCount = 0;
+      double sum = 0;
+      TsPrimitiveType value = null;
+      for (Bucket bucket : buckets) {
+        totalCount += bucket.count;
+        if (bucket.sum != null) {
+          sum += bucket.sum.getDouble();
+        }
+        if (bucket.value != null && (value == null || isBetter(bucket.value, value))) {
+          value = bucket.value;
+        }
+      }
+
+      Field field;
+      switch (aggregation) {
+        case SQLConstant.COUNT:
+          field = new Field(TSDataType.INT64);
+          field.setLongV(totalCount);
+          return field;
+        case SQLConstant.SUM:
+          field = new Field(TSDataType.DOUBLE);
+          field.setDoubleV(sum);
+          return field;
+        case SQLConstant.AVG:
+          if (totalCount == 0) {
+            return new Field(null);
+          }
+          field = new Field(TSDataType.DOUBLE);
+          field.setDoubleV(sum / totalCount);
+          return field;
+        default:
+          return value == null ? new Field(null) : getField(value.getValue(), dataType);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isBetter(TsPrimitiveType candidate, TsPrimitiveType current) {
+      int cmp = ((Comparable<Object>) candidate.getValue()).compareTo(current.getValue());
+      return SQLConstant.MIN_VALUE.equals(aggregation) ? cmp < 0 : cmp > 0;
+    }
+
+    /**
+     * @return the value of the reader at the time, skipping the values before it
+     */
+    private TsPrimitiveType readAt(IPointReader reader, long time) throws IOException {
+      if (reader == null) {
+        return null;
+      }
+      while (reader.hasNext() && reader.current().getTimestamp() < time) {
+        reader.next();
+      }
+      if (reader.hasNext() && reader.current().getTimestamp() == time) {
+        return reader.next().getValue();
+      }
+      return null;
+    }
+
+    private void close() throws IOException {
+      countReader.close();
+      if (sumReader != null) {
+        sumReader.close();
+      }
+      if (valueReader != null) {
+        valueReader.close();
+      }
+      buckets.clear();
+    }
+  }
+
+  private static class Bucket {
+
+    private long time;
+    private long count;
+    private TsPrimitiveType sum;
+    private TsPrimitiveType value;
+
+    private Bucket(long time, long count, TsPrimitiveType sum, TsPrimitiveType value) {
+      this.time = time;
+      this.count = count;
+      this.sum = sum;
+      this.value = value;
+    }
+  }
+}
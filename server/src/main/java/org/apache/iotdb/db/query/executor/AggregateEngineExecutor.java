@@ -291,17 +291,11 @@ public class AggregateEngineExecutor {
       List<IReaderByTimestamp> readersOfSelectedSeries)
       throws IOException {
 
+    long[] timeArray = new long[aggregateFetchSize];
     while (timestampGenerator.hasNext()) {
 
       // generate timestamps for aggregate
-      long[] timeArray = new long[aggregateFetchSize];
-      int timeArrayLength = 0;
-      for (int cnt = 0; cnt < aggregateFetchSize; cnt++) {
-        if (!timestampGenerator.hasNext()) {
-          break;
-        }
-        timeArray[timeArrayLength++] = timestampGenerator.next();
-      }
+      int timeArrayLength = timestampGenerator.next(timeArray);
 
       // cal part of aggregate result
       for (int i = 0; i < readersOfSelectedSeries.size(); i++) {
@@ -84,7 +84,7 @@ public class EngineExecutor {
 
     try {
       return new NewEngineDataSetWithoutValueFilter(deduplicatedPaths, deduplicatedDataTypes,
-          readersOfSelectedSeries);
+          readersOfSelectedSeries, context);
     } catch (InterruptedException e) {
       throw new StorageEngineException(e.getMessage());
     }
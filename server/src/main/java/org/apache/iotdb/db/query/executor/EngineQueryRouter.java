@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.query.executor;
 
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
@@ -28,6 +29,7 @@ import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.dataset.groupby.GroupByWithValueFilterDataSet;
 import org.apache.iotdb.db.query.dataset.groupby.GroupByWithoutValueFilterDataSet;
+import org.apache.iotdb.db.query.dataset.groupby.RollupGroupByDataSet;
 import org.apache.iotdb.db.query.fill.IFill;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -124,6 +126,11 @@ public class EngineQueryRouter implements IEngineQueryRouter {
     long startTime = groupByPlan.getStartTime();
     long endTime = groupByPlan.getEndTime();
 
+    long[] rollupIntervals = RollupManager.getInstance().selectRollups(groupByPlan);
+    if (rollupIntervals != null) {
+      return new RollupGroupByDataSet(context, groupByPlan, rollupIntervals);
+    }
+
     IExpression expression = groupByPlan.getExpression();
     List<Path> selectedSeries = groupByPlan.getDeduplicatedPaths();
 
@@ -36,5 +36,22 @@ public interface IReaderByTimestamp {
    */
   Object getValueInTimestamp(long timestamp) throws IOException;
 
+  /**
+   * Returns the values under the first <code>length</code> timestamps, the i-th value is null if
+   * there is no value under <code>timestamps[i]</code>.
+   * <p>
+   * This is the batch version of <code>getValueInTimestamp</code>, so the same attention applies:
+   * the timestamps must be strictly increasing, and greater than any timestamp passed to this
+   * reader before. Readers that can merge a sorted batch more efficiently than one lookup per
+   * timestamp should override this method.
+   */
+  default Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = getValueInTimestamp(timestamps[i]);
+    }
+    return values;
+  }
+
   boolean hasNext() throws IOException;
 }
@@ -24,8 +24,10 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.ReadProfile;
 import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReaderByTimestamp;
 
@@ -41,6 +43,9 @@ public class ChunkReaderWrap {
   // attributes for mem chunk
   private ReadOnlyMemChunk readOnlyMemChunk;
 
+  // collects the counters of the disk chunk if not null
+  private ReadProfile profile;
+
   /**
    * This is used in test.
    */
@@ -77,6 +82,21 @@ public class ChunkReaderWrap {
     }
   }
 
+  public IBatchReader getIBatchReader() throws IOException {
+    if (type.equals(ChunkReaderType.DISK_CHUNK)) {
+      long startTime = System.nanoTime();
+      Chunk chunk = chunkLoader.getChunk(chunkMetaData);
+      ChunkReader chunkReader = new ChunkReader(chunk, filter);
+      if (profile != null) {
+        profile.chunkLoaded(chunk.getHeader().getDataSize(), System.nanoTime() - startTime);
+        chunkReader.setProfile(profile);
+      }
+      return new DiskChunkReader(chunkReader);
+    } else {
+      return new MemChunkReader(readOnlyMemChunk, filter);
+    }
+  }
+
   public IReaderByTimestamp getIReaderByTimestamp() throws IOException {
     if (type.equals(ChunkReaderType.DISK_CHUNK)) {
       Chunk chunk = chunkLoader.getChunk(chunkMetaData);
@@ -87,6 +107,10 @@ public class ChunkReaderWrap {
     }
   }
 
+  public void setProfile(ReadProfile profile) {
+    this.profile = profile;
+  }
+
   public String getMeasurementUid() {
     if (chunkMetaData != null) {
       return chunkMetaData.getMeasurementUid();
@@ -28,7 +28,8 @@ import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 
 /**
  * To read chunk data on disk, this class implements an interface {@link IPointReader} based on the
- * data reader {@link ChunkReader}.
+ * data reader {@link ChunkReader}, and also {@link IBatchReader}, which returns the chunk page by
+ * page.
  * <p>
  * Note that <code>ChunkReader</code> is an abstract class with three concrete classes, two of which
  * are used here: <code>ChunkReaderWithoutFilter</code> and <code>ChunkReaderWithFilter</code>.
@@ -72,12 +73,20 @@ public class DiskChunkReader implements IPointReader, IBatchReader {
 
   @Override
   public boolean hasNextBatch() throws IOException {
-    return false;
+    return hasNext();
   }
 
+  /**
+   * return the remaining points of the current page as they are read by the chunk reader.
+   */
   @Override
   public BatchData nextBatch() throws IOException {
-    return null;
+    if (!hasNext()) {
+      throw new IOException("no next batch");
+    }
+    BatchData ret = data;
+    data = null;
+    return ret;
   }
 
   @Override
@@ -65,6 +65,53 @@ public class DiskChunkReaderByTimestamp implements IReaderByTimestamp {
     return null;
   }
 
+  /**
+   * The timestamps are merged with the points of each page, and the pages that end before the next
+   * timestamp are skipped without being decoded.
+   */
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    int i = 0;
+    while (i < length && hasNextData(timestamps[i])) {
+      while (i < length && data.hasCurrent()) {
+        long time = data.currentTime();
+        if (time < timestamps[i]) {
+          data.next();
+        } else {
+          if (time == timestamps[i]) {
+            values[i] = data.currentValue();
+            data.next();
+          }
+          i++;
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * make sure that data has a current point, skipping the pages that end before the timestamp.
+   *
+   * @return false if there are no more points
+   */
+  private boolean hasNextData(long timestamp) throws IOException {
+    if (data != null && data.hasCurrent()) {
+      return true;
+    }
+    if (chunkReaderByTimestamp == null) {
+      return false;
+    }
+    chunkReaderByTimestamp.setCurrentTimestamp(timestamp);
+    while (chunkReaderByTimestamp.hasNextSatisfiedPage()) {
+      data = chunkReaderByTimestamp.nextPageData();
+      if (data.hasCurrent()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public boolean hasNext() throws IOException {
     if (data != null && data.hasCurrent()) {
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.PointIterator;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
@@ -28,14 +29,13 @@ import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
  * To read chunk data in memory
  */
 public class MemChunkReader implements IPointReader, IAggregateReader {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
+  private PointIterator timeValuePairIterator;
   private Filter filter;
   private boolean hasCachedTimeValuePair;
   private TimeValuePair cachedTimeValuePair;
@@ -43,7 +43,7 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
   private TSDataType dataType;
 
   public MemChunkReader(ReadOnlyMemChunk readableChunk, Filter filter) {
-    timeValuePairIterator = readableChunk.getIterator();
+    timeValuePairIterator = readableChunk.getPointIterator();
     this.filter = filter;
     this.dataType = readableChunk.getDataType();
   }
@@ -54,13 +54,12 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
       return true;
     }
     while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
+      if (satisfy()) {
         hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
+        cachedTimeValuePair = timeValuePairIterator.next();
         break;
       }
+      timeValuePairIterator.skip();
     }
     return hasCachedTimeValuePair;
   }
@@ -96,16 +95,22 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
       hasCachedTimeValuePair = false;
       batchData.putAnObject(cachedTimeValuePair.getTimestamp(), cachedTimeValuePair.getValue().getValue());
     }
+    // the points are copied into the batch as primitives, they are only boxed for the filter
     while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
-        batchData.putAnObject(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue());
+      if (satisfy()) {
+        timeValuePairIterator.putCurrent(batchData);
+      } else {
+        timeValuePairIterator.skip();
       }
     }
     return batchData;
   }
 
+  private boolean satisfy() {
+    return filter == null || filter
+        .satisfy(timeValuePairIterator.currentTime(), timeValuePairIterator.currentValue());
+  }
+
   @Override
   public void close() {
     // Do nothing because mem chunk reader will not open files
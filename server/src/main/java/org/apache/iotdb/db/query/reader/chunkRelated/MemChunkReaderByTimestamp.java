@@ -18,11 +18,10 @@
  */
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
-import java.util.Iterator;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.PointIterator;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileReaderByTimestamp;
-import org.apache.iotdb.db.utils.TimeValuePair;
 
 /**
  * To read data in memory by timestamp, this class implements an interface {@link
@@ -33,46 +32,48 @@ import org.apache.iotdb.db.utils.TimeValuePair;
  */
 public class MemChunkReaderByTimestamp implements IReaderByTimestamp {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
-  private boolean hasCachedTimeValuePair;
-  private TimeValuePair cachedTimeValuePair;
+  private PointIterator timeValuePairIterator;
 
   public MemChunkReaderByTimestamp(ReadOnlyMemChunk readableChunk) {
-    timeValuePairIterator = readableChunk.getIterator();
+    timeValuePairIterator = readableChunk.getPointIterator();
   }
 
   @Override
   public boolean hasNext() {
-    if (hasCachedTimeValuePair) {
-      return true;
-    }
     return timeValuePairIterator.hasNext();
   }
 
-  private TimeValuePair next() {
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      return cachedTimeValuePair;
-    } else {
-      return timeValuePairIterator.next();
+  /**
+   * The points before the timestamp are skipped by a binary search in the snapshot.
+   */
+  @Override
+  public Object getValueInTimestamp(long timestamp) {
+    timeValuePairIterator.skipTo(timestamp);
+    if (timeValuePairIterator.hasNext() && timeValuePairIterator.currentTime() == timestamp) {
+      Object value = timeValuePairIterator.currentValue();
+      timeValuePairIterator.skip();
+      return value;
     }
+    return null;
   }
 
-  // TODO consider change timeValuePairIterator to List structure, and use binary search instead of
-  // sequential search
+  /**
+   * The points before each timestamp are skipped by a binary search in the snapshot instead of one
+   * by one.
+   */
   @Override
-  public Object getValueInTimestamp(long timestamp) {
-    while (hasNext()) {
-      TimeValuePair timeValuePair = next();
-      long time = timeValuePair.getTimestamp();
-      if (time == timestamp) {
-        return timeValuePair.getValue().getValue();
-      } else if (time > timestamp) {
-        hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) {
+    Object[] values = new Object[length];
+    for (int i = 0; i < length; i++) {
+      timeValuePairIterator.skipTo(timestamps[i]);
+      if (!timeValuePairIterator.hasNext()) {
         break;
       }
+      if (timeValuePairIterator.currentTime() == timestamps[i]) {
+        values[i] = timeValuePairIterator.currentValue();
+        timeValuePairIterator.skip();
+      }
     }
-    return null;
+    return values;
   }
 }
@@ -85,6 +85,41 @@ public class UnSealedTsFileReaderByTimestamp implements IReaderByTimestamp {
     return unSealedTsFileMemReaderByTs.getValueInTimestamp(timestamp);
   }
 
+  /**
+   * The timestamps are looked up on disk first. If the disk data runs out, the timestamps without
+   * a value are looked up in memory. As the data in memory is after the data on disk, they have no
+   * value in memory if they are before the end of the disk data, which gives the same results as
+   * <code>getValueInTimestamp</code>.
+   */
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    if (unSealedTsFileDiskReaderEnded) {
+      return unSealedTsFileMemReaderByTs.getValuesInTimestamps(timestamps, length);
+    }
+    Object[] values = unSealedTsFileDiskReaderByTs.getValuesInTimestamps(timestamps, length);
+    if (unSealedTsFileDiskReaderByTs.hasNext()) {
+      return values;
+    }
+    unSealedTsFileDiskReaderEnded = true;
+    // positions in timestamps that are still without a value
+    int[] missing = new int[length];
+    long[] missingTimes = new long[length];
+    int missingCount = 0;
+    for (int i = 0; i < length; i++) {
+      if (values[i] == null) {
+        missing[missingCount] = i;
+        missingTimes[missingCount] = timestamps[i];
+        missingCount++;
+      }
+    }
+    Object[] memValues = unSealedTsFileMemReaderByTs.getValuesInTimestamps(missingTimes,
+        missingCount);
+    for (int i = 0; i < missingCount; i++) {
+      values[missing[i]] = memValues[i];
+    }
+    return values;
+  }
+
   @Override
   public boolean hasNext() throws IOException {
     if (unSealedTsFileDiskReaderEnded) {
@@ -24,11 +24,11 @@ import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryProfile;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
-import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeBatchReader;
 import org.apache.iotdb.db.utils.QueryUtils;
-import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
@@ -47,19 +47,20 @@ import java.util.List;
  * To read a list of unsequence TsFiles, this class implements <code>IBatchReader</code> for the
  * TsFiles. Note that an unsequence TsFile can be either closed or unclosed. An unclosed unsequence
  * TsFile consists of data on disk and data in memtables that will be flushed to this unclosed
- * TsFile. This class is used in {@link org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter}.
+ * TsFile. The chunks are merged batch by batch, the pages which overlap no other chunk are returned
+ * as they are read and only the overlapping time ranges are merged point by point. This class is
+ * used in {@link org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter}.
  */
 public class NewUnseqResourceMergeReader implements IBatchReader {
 
-  private PriorityMergeReader priorityMergeReader = new PriorityMergeReader();
+  private PriorityMergeBatchReader priorityMergeReader = new PriorityMergeBatchReader(
+      IoTDBDescriptor.getInstance().getConfig().getBatchSize());
   private List<ChunkMetaData> chunkMetaDataList = new ArrayList<>();
   private Filter timeFilter;
+  private QueryProfile profile;
   private int index = 0; // used to index current metadata in metaDataList
 
-  private int batchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
-
   private BatchData batchData;
-  private TSDataType dataType;
   private boolean hasCachedBatch;
 
   /**
@@ -67,9 +68,8 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
    */
   public NewUnseqResourceMergeReader(Path seriesPath, TSDataType dataType,
       List<TsFileResource> unseqResources, QueryContext context, Filter filter) throws IOException {
-
-    this.dataType = dataType;
     this.timeFilter = filter;
+    this.profile = context.getProfile();
     int priority = 1;
 
     // get all ChunkMetadata
@@ -78,6 +78,9 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       // if unseq tsfile is closed or has flushed chunk groups, then endtime map is not empty
       if (!tsFileResource.getEndTimeMap().isEmpty()) {
         if (!ResourceRelatedUtil.isTsFileSatisfied(tsFileResource, timeFilter, seriesPath)) {
+          if (profile != null) {
+            profile.fileSkipped();
+          }
           continue;
         }
       }
@@ -88,7 +91,11 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       List<ChunkMetaData> currentChunkMetaDataList;
       if (tsFileResource.isClosed()) {
         // get chunk metadata list of current closed tsfile
+        long startTime = System.nanoTime();
         currentChunkMetaDataList = DeviceMetaDataCache.getInstance().get(tsFileResource, seriesPath);
+        if (profile != null) {
+          profile.metadataLoaded(System.nanoTime() - startTime);
+        }
 
         // get modifications and apply to chunk metadatas
         List<Modification> pathModifications = context
@@ -111,6 +118,8 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
             chunkMetaData.setPriority(priority++);
             chunkMetaData.setChunkLoader(chunkLoader);
             chunkMetaDataList.add(chunkMetaData);
+          } else if (profile != null) {
+            profile.getReadProfile().chunkSkipped();
           }
         }
       }
@@ -121,7 +130,7 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       if (!tsFileResource.isClosed()) {
         ChunkReaderWrap memChunkReaderWrap = new ChunkReaderWrap(
             tsFileResource.getReadOnlyMemChunk(), timeFilter);
-        priorityMergeReader.addReaderWithPriority(memChunkReaderWrap.getIPointReader(), priority++);
+        priorityMergeReader.addReaderWithPriority(memChunkReaderWrap.getIBatchReader(), priority++);
       }
     }
 
@@ -130,7 +139,7 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
 
     // put chunk readers in order into PriorityMergeReader until merge reader has valid point
     // NOTE: chunk readers may not have next point because of the time filter
-    while (!priorityMergeReader.hasNext() && index < chunkMetaDataList.size()) {
+    while (!priorityMergeReader.hasNextBatch() && index < chunkMetaDataList.size()) {
       addNextChunkIntoPriorityMergeReader();
     }
   }
@@ -138,48 +147,64 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
 
   /**
    * Create a ChunkReader with priority for each ChunkMetadata and put the ChunkReader to
-   * mergeReader one by one
+   * mergeReader one by one. The chunks starting after the current time of the merge reader are not
+   * added yet, so the batches returned by the merge reader must end before the next of them.
    */
   @Override
   public boolean hasNextBatch() throws IOException {
     if (hasCachedBatch) {
       return true;
     }
+    if (profile == null) {
+      return mergeNextBatch();
+    }
+    long startTime = System.nanoTime();
+    try {
+      return mergeNextBatch();
+    } finally {
+      profile.unseqMerged(System.nanoTime() - startTime);
+    }
+  }
 
-    batchData = new BatchData(dataType);
-
-    for (int rowCount = 0; rowCount < batchSize; rowCount++) {
-      if (priorityMergeReader.hasNext()) {
-
-        // current time of priority merge reader >= next chunks start time
-        // put all chunks into merge reader
-        while (index < chunkMetaDataList.size() && priorityMergeReader.current().getTimestamp()
-            >= chunkMetaDataList.get(index).getStartTime()) {
-          addNextChunkIntoPriorityMergeReader();
-        }
+  private boolean mergeNextBatch() throws IOException {
+    while (priorityMergeReader.hasNextBatch()) {
+      // current time of priority merge reader >= next chunks start time
+      // put all chunks into merge reader
+      while (index < chunkMetaDataList.size() && priorityMergeReader.currentTime()
+          >= chunkMetaDataList.get(index).getStartTime()) {
+        addNextChunkIntoPriorityMergeReader();
+      }
+      if (!priorityMergeReader.hasNextBatch()) {
+        // the added chunks have no point satisfying the filter
+        break;
+      }
 
-        TimeValuePair timeValuePair = priorityMergeReader.next();
-        batchData.putAnObject(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue());
+      long nextChunkStartTime = index < chunkMetaDataList.size()
+          ? chunkMetaDataList.get(index).getStartTime() : Long.MAX_VALUE;
+      batchData = priorityMergeReader.nextBatch(nextChunkStartTime);
 
-        // largest time of priority merge reader < next chunk start time
-        // put chunk readers until merge reader has a valid point
-        while (!priorityMergeReader.hasNext() && index < chunkMetaDataList.size()) {
-          addNextChunkIntoPriorityMergeReader();
-        }
+      // largest time of priority merge reader < next chunk start time
+      // put chunk readers until merge reader has a valid point
+      while (!priorityMergeReader.hasNextBatch() && index < chunkMetaDataList.size()) {
+        addNextChunkIntoPriorityMergeReader();
+      }
 
-      } else {
-        break;
+      if (batchData != null && batchData.hasCurrent()) {
+        hasCachedBatch = true;
+        return true;
       }
     }
-    hasCachedBatch = !batchData.isEmpty();
-    return hasCachedBatch;
+    return false;
   }
 
   private void addNextChunkIntoPriorityMergeReader() throws IOException {
     // add next chunk into priority merge reader
     ChunkMetaData metaData = chunkMetaDataList.get(index++);
     ChunkReaderWrap diskChunkReader = new ChunkReaderWrap(metaData, metaData.getChunkLoader(), timeFilter);
-    priorityMergeReader.addReaderWithPriority(diskChunkReader.getIPointReader(), metaData.getPriority());
+    if (profile != null) {
+      diskChunkReader.setProfile(profile.getReadProfile());
+    }
+    priorityMergeReader.addReaderWithPriority(diskChunkReader.getIBatchReader(), metaData.getPriority());
   }
 
   @Override
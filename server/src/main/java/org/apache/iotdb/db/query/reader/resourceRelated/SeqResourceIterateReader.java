@@ -113,6 +113,9 @@ public class SeqResourceIterateReader extends IterateReader {
     TsFileResource tsFileResource = seqResources.get(idx);
     if (tsFileResource.isClosed()) {
       if (!ResourceRelatedUtil.isTsFileSatisfied(tsFileResource, filter, seriesPath)) {
+        if (context.getProfile() != null) {
+          context.getProfile().fileSkipped();
+        }
         return false;
       }
       currentSeriesReader = initSealedTsFileReader(tsFileResource, filter, context);
@@ -123,6 +126,9 @@ public class SeqResourceIterateReader extends IterateReader {
       // If endTimeMap size is not 0, call isTsFileNotSatisfied to check.
       if (tsFileResource.getEndTimeMap().size() != 0) {
         if (!ResourceRelatedUtil.isTsFileSatisfied(tsFileResource, filter, seriesPath)) {
+          if (context.getProfile() != null) {
+            context.getProfile().fileSkipped();
+          }
           return false;
         }
       }
@@ -135,8 +141,12 @@ public class SeqResourceIterateReader extends IterateReader {
   private IAggregateReader initSealedTsFileReader(TsFileResource sealedTsFile, Filter filter,
       QueryContext context) throws IOException {
     // prepare metaDataList
+    long startTime = System.nanoTime();
     List<ChunkMetaData> metaDataList = DeviceMetaDataCache.getInstance()
         .get(sealedTsFile, seriesPath);
+    if (context.getProfile() != null) {
+      context.getProfile().metadataLoaded(System.nanoTime() - startTime);
+    }
     List<Modification> pathModifications = context.getPathModifications(sealedTsFile.getModFile(),
         seriesPath.getFullPath());
     if (!pathModifications.isEmpty()) {
@@ -152,6 +162,8 @@ public class SeqResourceIterateReader extends IterateReader {
     IChunkLoader chunkLoader = new ChunkLoaderImpl(tsFileReader);
 
     // init fileSeriesReader
-    return new FileSeriesReader(chunkLoader, metaDataList, filter);
+    FileSeriesReader fileSeriesReader = new FileSeriesReader(chunkLoader, metaDataList, filter);
+    fileSeriesReader.setProfile(context.getReadProfile());
+    return fileSeriesReader;
   }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.reader.resourceRelated;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.modification.Modification;
@@ -100,6 +101,58 @@ public class SeqResourceReaderByTimestamp implements IReaderByTimestamp {
     return value;
   }
 
+  /**
+   * Each TsFile looks up the timestamps before the start time of the next TsFile of the series in
+   * one batch, as the data of a sequence TsFile is before the next one.
+   */
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    int start = 0;
+    while (start < length) {
+      if (seriesReader == null || !seriesReader.hasNext()
+          || timestamps[start] >= getNextStartTime()) {
+        boolean isConstructed = false;
+        while (!isConstructed && nextIntervalFileIndex < seqResources.size()) {
+          isConstructed = constructNextReader(nextIntervalFileIndex++, timestamps[start]);
+        }
+        if (!isConstructed) {
+          break;
+        }
+      }
+      long nextStartTime = getNextStartTime();
+      int end = start;
+      while (end < length && timestamps[end] < nextStartTime) {
+        end++;
+      }
+      if (end == start) {
+        continue;
+      }
+      long[] fileTimestamps = timestamps;
+      if (start > 0) {
+        fileTimestamps = Arrays.copyOfRange(timestamps, start, end);
+      }
+      Object[] fileValues = seriesReader.getValuesInTimestamps(fileTimestamps, end - start);
+      System.arraycopy(fileValues, 0, values, start, end - start);
+      start = end;
+    }
+    return values;
+  }
+
+  /**
+   * @return the start time of the series in the TsFiles after the one of the current reader, or
+   * Long.MAX_VALUE if there is no such TsFile
+   */
+  private long getNextStartTime() {
+    for (int i = nextIntervalFileIndex; i < seqResources.size(); i++) {
+      Long startTime = seqResources.get(i).getStartTimeMap().get(seriesPath.getDevice());
+      if (startTime != null) {
+        return startTime;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
   @Override
   public boolean hasNext() throws IOException {
     if (seriesReader != null && seriesReader.hasNext()) {
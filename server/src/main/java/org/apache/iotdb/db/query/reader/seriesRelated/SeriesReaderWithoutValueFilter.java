@@ -26,6 +26,7 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.NewUnseqResourceMergeReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeBatchReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -45,13 +46,17 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
   private IBatchReader seqResourceIterateReader;
   private IBatchReader unseqResourceMergeReader;
 
-  // cache batch data for sequence reader
-  private BatchData seqBatchData;
-  // cache batch data for unsequence reader
-  private BatchData unseqBatchData;
+  private static final int SEQ_PRIORITY = 1;
+  private static final int UNSEQ_PRIORITY = 2;
+
+  // merges the batches of the two readers, created when the reader is first used
+  private PriorityMergeBatchReader mergeReader;
 
   private int batchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
 
+  // to abort the reading if the query is killed or timed out, null if not used in a query
+  private QueryContext context;
+
   /**
    * will be removed after removing IPointReader
    */
@@ -84,6 +89,7 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
    */
   public SeriesReaderWithoutValueFilter(Path seriesPath, TSDataType dataType, Filter timeFilter,
       QueryContext context, boolean pushdownUnseq) throws StorageEngineException, IOException {
+    this.context = context;
     QueryDataSource queryDataSource = QueryResourceManager.getInstance()
             .getQueryDataSource(seriesPath, context);
     timeFilter = queryDataSource.updateTimeFilter(timeFilter);
@@ -133,84 +139,29 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
 
   @Override
   public boolean hasNextBatch() throws IOException {
-    return hasNextInSeq() || hasNextInUnSeq();
-  }
-
-  private boolean hasNextInSeq() throws IOException {
-    // has next point in cached seqBatchData
-    if (seqBatchData != null && seqBatchData.hasCurrent()) {
-      return true;
+    if (context != null) {
+      context.checkAlive();
     }
-    // has next batch in seq reader
-    while (seqResourceIterateReader.hasNextBatch()) {
-      seqBatchData = seqResourceIterateReader.nextBatch();
-      if (seqBatchData != null && seqBatchData.hasCurrent()) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private boolean hasNextInUnSeq() throws IOException {
-    // has next point in cached unseqBatchData
-    if (unseqBatchData != null && unseqBatchData.hasCurrent())
-      return true;
-    // has next batch in unseq reader
-    while (unseqResourceMergeReader != null && unseqResourceMergeReader.hasNextBatch()) {
-      unseqBatchData = unseqResourceMergeReader.nextBatch();
-      if (unseqBatchData != null && unseqBatchData.hasCurrent()) {
-        return true;
+    if (mergeReader == null) {
+      // the sources are added lazily so that no data is read until the reader is used
+      mergeReader = new PriorityMergeBatchReader(batchSize);
+      mergeReader.addReaderWithPriority(seqResourceIterateReader, SEQ_PRIORITY);
+      if (unseqResourceMergeReader != null) {
+        mergeReader.addReaderWithPriority(unseqResourceMergeReader, UNSEQ_PRIORITY);
       }
     }
-    return false;
+    return mergeReader.hasNextBatch();
   }
 
+  /**
+   * The batches of sequence and unsequence data which do not overlap are returned untouched, only
+   * the overlapping time ranges are merged point by point, where the unsequence data points
+   * overwrite the sequence ones of the same timestamps.
+   */
   @Override
   public BatchData nextBatch() throws IOException {
-    // has next in both seq data and unseq data
-    if (hasNextInSeq() && hasNextInUnSeq()) {
-      // if the count reaches batch data size
-      int count = 0;
-      BatchData batchData = new BatchData(seqBatchData.getDataType());
-      while (count < batchSize && hasNextInSeq() && hasNextInUnSeq()) {
-        long timeInSeq = seqBatchData.currentTime();
-        long timeInUnseq = unseqBatchData.currentTime();
-        Object currentValue;
-        long currentTime;
-        if (timeInSeq < timeInUnseq) { // sequence data time is less than the unsequence data time, just use the sequence data point
-          currentTime = timeInSeq;
-          currentValue = seqBatchData.currentValue();
-          seqBatchData.next();
-        } else if (timeInSeq == timeInUnseq) { // the time equals, use the unseq data point to overwrite the seq data point
-          currentTime = timeInUnseq;
-          currentValue = unseqBatchData.currentValue();
-          unseqBatchData.next();
-          // Note that seqBatchData here still moves next even though the current data to be read is
-          // overwritten by unsequence data source. Only in this way can hasNext() work correctly.
-          seqBatchData.next();
-        } else { // sequence data time is greater than the unsequence data time, just use the unsequence data point
-          currentTime = timeInUnseq;
-          currentValue = unseqBatchData.currentValue();
-          unseqBatchData.next();
-        }
-        batchData.putAnObject(currentTime, currentValue);
-        count++;
-      }
-      return batchData;
-    }
-
-    // only has next in seq data
-    if (hasNextInSeq()) {
-      BatchData res = seqBatchData;
-      seqBatchData = null;
-      return res;
-    }
-
-    // only has next in unseq data
-    if (hasNextInUnSeq()) {
-      BatchData res = unseqBatchData;
-      unseqBatchData = null;
-      return res;
+    if (hasNextBatch()) {
+      return mergeReader.nextBatch();
     }
     return null;
   }
@@ -260,7 +211,14 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
 
   @Override
   public void close() throws IOException {
+    if (mergeReader != null) {
+      // the used up readers are already closed by the merge reader
+      mergeReader.close();
+      return;
+    }
     seqResourceIterateReader.close();
-    unseqResourceMergeReader.close();
+    if (unseqResourceMergeReader != null) {
+      unseqResourceMergeReader.close();
+    }
   }
 }
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import java.util.PriorityQueue;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+
+/**
+ * This class implements {@link IBatchReader} for data sources with different priorities. For an
+ * equal timestamp the point of the source with the highest priority is returned.
+ * <p>
+ * Unlike {@link PriorityMergeReader}, which merges the sources point by point, the remaining part
+ * of a batch that overlaps no other source is returned untouched, and only the overlapping time
+ * ranges are merged point by point into new batches of at most batchSize points. Note that a
+ * returned batch may have been partially read, so it must be read from its current position.
+ */
+public class PriorityMergeBatchReader implements IBatchReader {
+
+  private PriorityQueue<Element> heap = new PriorityQueue<>((o1, o2) -> {
+    int timeCompare = Long.compare(o1.currTime(), o2.currTime());
+    return timeCompare != 0 ? timeCompare : Integer.compare(o2.priority, o1.priority);
+  });
+
+  private int batchSize;
+
+  public PriorityMergeBatchReader(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @param reader the batches of which are in ascending order of time
+   */
+  public void addReaderWithPriority(IBatchReader reader, int priority) throws IOException {
+    Element element = new Element(reader, priority);
+    if (element.hasCurrent()) {
+      heap.add(element);
+    } else {
+      reader.close();
+    }
+  }
+
+  @Override
+  public boolean hasNextBatch() {
+    return !heap.isEmpty();
+  }
+
+  /**
+   * @return the smallest timestamp of the remaining points, only valid if hasNextBatch() is true
+   */
+  public long currentTime() {
+    return heap.peek().currTime();
+  }
+
+  @Override
+  public BatchData nextBatch() throws IOException {
+    return nextBatch(Long.MAX_VALUE);
+  }
+
+  /**
+   * Return the next batch, the points of which are all before the given bound. This is used when
+   * more sources starting from the bound may be added later.
+   *
+   * @param bound must be greater than currentTime()
+   */
+  public BatchData nextBatch(long bound) throws IOException {
+    BatchData ret = null;
+    while (!heap.isEmpty() && heap.peek().currTime() < bound
+        && (ret == null || ret.length() < batchSize)) {
+      Element top = heap.poll();
+      // the points of the top before this time overlap no other source
+      long overlapTime = heap.isEmpty() ? bound : Math.min(heap.peek().currTime(), bound);
+
+      if (top.lastTime() < overlapTime) {
+        if (ret != null) {
+          // leave the batch to the next call so that it is passed through
+          heap.add(top);
+          return ret;
+        }
+        // the rest of the batch overlaps nothing, so it is passed through
+        ret = top.batchData;
+        top.batchData = null;
+        updateHeap(top);
+        return ret;
+      }
+
+      if (ret == null) {
+        ret = new BatchData(top.batchData.getDataType());
+      }
+      if (top.currTime() < overlapTime) {
+        do {
+          putCurrent(ret, top.batchData);
+          top.batchData.next();
+        } while (top.batchData.hasCurrent() && top.currTime() < overlapTime
+            && ret.length() < batchSize);
+      } else {
+        // the timestamp is shared with other sources, whose points are overwritten by the top
+        long time = top.currTime();
+        putCurrent(ret, top.batchData);
+        top.batchData.next();
+        while (!heap.isEmpty() && heap.peek().currTime() == time) {
+          Element e = heap.poll();
+          e.batchData.next();
+          updateHeap(e);
+        }
+      }
+      updateHeap(top);
+    }
+    return ret;
+  }
+
+  /**
+   * put the element back into the heap if it has remaining points, otherwise close it.
+   */
+  private void updateHeap(Element element) throws IOException {
+    if (element.hasCurrent()) {
+      heap.add(element);
+    } else {
+      element.close();
+    }
+  }
+
+  private static void putCurrent(BatchData dest, BatchData src) {
+    long time = src.currentTime();
+    switch (src.getDataType()) {
+      case BOOLEAN:
+        dest.putBoolean(time, src.getBoolean());
+        break;
+      case INT32:
+        dest.putInt(time, src.getInt());
+        break;
+      case INT64:
+        dest.putLong(time, src.getLong());
+        break;
+      case FLOAT:
+        dest.putFloat(time, src.getFloat());
+        break;
+      case DOUBLE:
+        dest.putDouble(time, src.getDouble());
+        break;
+      case TEXT:
+        dest.putBinary(time, src.getBinary());
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(src.getDataType()));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    while (!heap.isEmpty()) {
+      Element e = heap.poll();
+      e.close();
+    }
+  }
+
+  class Element {
+
+    IBatchReader reader;
+    BatchData batchData;
+    int priority;
+
+    Element(IBatchReader reader, int priority) {
+      this.reader = reader;
+      this.priority = priority;
+    }
+
+    /**
+     * fetch the next non-empty batch if the current one is used up.
+     */
+    boolean hasCurrent() throws IOException {
+      while (batchData == null || !batchData.hasCurrent()) {
+        if (!reader.hasNextBatch()) {
+          return false;
+        }
+        batchData = reader.nextBatch();
+      }
+      return true;
+    }
+
+    long currTime() {
+      return batchData.currentTime();
+    }
+
+    long lastTime() {
+      // the times in a batch are ascending
+      return batchData.getTimeByIndex(batchData.length() - 1);
+    }
+
+    void close() throws IOException {
+      reader.close();
+    }
+  }
+}
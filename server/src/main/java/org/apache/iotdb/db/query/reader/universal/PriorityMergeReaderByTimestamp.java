@@ -50,6 +50,41 @@ public class PriorityMergeReaderByTimestamp implements IReaderByTimestamp {
     return value;
   }
 
+  /**
+   * Merges the batch reader by reader from the highest priority. Each reader only looks up the
+   * timestamps that no reader of higher priority has a value for, so every reader is still called
+   * with increasing timestamps and a timestamp is never looked up in a reader below the one that
+   * answers it, just like <code>getValueInTimestamp</code>.
+   */
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    // positions in timestamps that are still without a value
+    int[] missing = new int[length];
+    long[] missingTimes = new long[length];
+    int missingCount = length;
+    for (int i = 0; i < length; i++) {
+      missing[i] = i;
+      missingTimes[i] = timestamps[i];
+    }
+
+    for (int i = readerList.size() - 1; i >= 0 && missingCount > 0; i--) {
+      Object[] readerValues = readerList.get(i).getValuesInTimestamps(missingTimes, missingCount);
+      int remaining = 0;
+      for (int j = 0; j < missingCount; j++) {
+        if (readerValues[j] != null) {
+          values[missing[j]] = readerValues[j];
+        } else {
+          missing[remaining] = missing[j];
+          missingTimes[remaining] = missingTimes[j];
+          remaining++;
+        }
+      }
+      missingCount = remaining;
+    }
+    return values;
+  }
+
   /**
    * This is an empty method.
    * <p>
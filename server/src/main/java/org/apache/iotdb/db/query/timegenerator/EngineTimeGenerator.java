@@ -59,6 +59,20 @@ public class EngineTimeGenerator implements TimeGenerator {
     return operatorNode.next();
   }
 
+  /**
+   * Fill the given array with the next timestamps in increasing order.
+   *
+   * @return the number of generated timestamps, which is less than the length of the array only if
+   * the generator is exhausted
+   */
+  public int next(long[] timestamps) throws IOException {
+    int length = 0;
+    while (length < timestamps.length && operatorNode.hasNext()) {
+      timestamps[length++] = operatorNode.next();
+    }
+    return length;
+  }
+
   @Override
   public Object getValue(Path path, long time) {
     return null;
@@ -32,10 +32,14 @@ public enum ServiceType {
   CLOSE_MERGE_SERVICE("Close&Merge ServerService", ""),
   JVM_MEM_CONTROL_SERVICE("Memory Controller", ""),
   AUTHORIZATION_SERVICE("Authorization ServerService", ""),
-  FILE_READER_MANAGER_SERVICE("File reader manager ServerService", ""),
+  FILE_READER_MANAGER_SERVICE("File reader manager ServerService",
+      generateJmxName(IoTDBConstant.IOTDB_PACKAGE, "File Reader Manager")),
+  QUERY_MEMORY_MANAGER_SERVICE("Query memory manager ServerService",
+      generateJmxName(IoTDBConstant.IOTDB_PACKAGE, "Query Memory Manager")),
   SYNC_SERVICE("SYNC ServerService", ""),
   UPGRADE_SERVICE("UPGRADE DataService", ""),
   MERGE_SERVICE("Merge Manager", ""),
+  ROLLUP_SERVICE("Rollup Manager", ""),
   PERFORMANCE_STATISTIC_SERVICE("PERFORMANCE_STATISTIC_SERVICE", "PERFORMANCE_STATISTIC_SERVICE"),
   MANAGE_DYNAMIC_PARAMETERS_SERVICE("Manage Dynamic Parameters", "Manage Dynamic Parameters"),
   TVLIST_ALLOCATOR_SERVICE("TVList Allocator", ""),
@@ -27,6 +27,8 @@ import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ITEM;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PARAMETER;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PRIVILEGE;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_INTERVAL;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_PATH;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STORAGE_GROUP;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES_COMPRESSION;
@@ -57,10 +59,18 @@ class StaticResps {
       Arrays.asList(COLUMN_STORAGE_GROUP, COLUMN_TTL),
       Arrays.asList(TSDataType.TEXT.toString(), TSDataType.INT64.toString()));
 
+  static final TSExecuteStatementResp SHOW_ROLLUP_RESP = getNoTimeExecuteResp(
+      Arrays.asList(COLUMN_ROLLUP_PATH, COLUMN_ROLLUP_INTERVAL),
+      Arrays.asList(TSDataType.TEXT.toString(), TSDataType.INT64.toString()));
+
   static final TSExecuteStatementResp FLUSH_INFO_RESP = getNoTimeExecuteResp(
       Arrays.asList(COLUMN_ITEM, COLUMN_VALUE),
       Arrays.asList(TSDataType.TEXT.toString(), TSDataType.TEXT.toString()));
 
+  static final TSExecuteStatementResp EXPLAIN_RESP = getNoTimeExecuteResp(
+      Arrays.asList(COLUMN_ITEM, COLUMN_VALUE),
+      Arrays.asList(TSDataType.TEXT.toString(), TSDataType.TEXT.toString()));
+
   static final TSExecuteStatementResp DYNAMIC_PARAMETER_RESP = getNoTimeExecuteResp(
       Arrays.asList(COLUMN_PARAMETER, COLUMN_VALUE),
       Arrays.asList(TSDataType.TEXT.toString(), TSDataType.TEXT.toString()));
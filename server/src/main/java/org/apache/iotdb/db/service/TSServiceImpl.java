@@ -20,6 +20,8 @@ package org.apache.iotdb.db.service;
 
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PRIVILEGE;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_INTERVAL;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLLUP_PATH;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STORAGE_GROUP;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TTL;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_USER;
@@ -55,10 +57,12 @@ import org.apache.iotdb.db.exception.QueryInBatchStatementException;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryAbortedException;
 import org.apache.iotdb.db.exception.runtime.SQLParserException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupNotSetException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.metrics.server.SqlArgument;
+import org.apache.iotdb.db.qp.PreparedPlan;
 import org.apache.iotdb.db.qp.QueryProcessor;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
@@ -72,9 +76,12 @@ import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.ExplainPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryProfile;
+import org.apache.iotdb.db.query.control.QueryMemoryManager;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.NewEngineDataSetWithoutValueFilter;
 import org.apache.iotdb.db.query.dataset.NonAlignEngineDataSet;
@@ -92,6 +99,7 @@ import org.apache.iotdb.service.rpc.thrift.TSDeleteDataReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteInsertRowInBatchResp;
+import org.apache.iotdb.service.rpc.thrift.TSExecutePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataReq;
@@ -104,6 +112,8 @@ import org.apache.iotdb.service.rpc.thrift.TSInsertInBatchReq;
 import org.apache.iotdb.service.rpc.thrift.TSInsertReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSQueryNonAlignDataSet;
@@ -150,9 +160,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private Map<Long, Set<Long>> sessionId2StatementId = new ConcurrentHashMap<>();
   // (statementId -> Set(queryId))
   private Map<Long, Set<Long>> statementId2QueryId = new ConcurrentHashMap<>();
+  // (statementId -> PreparedPlan)
+  private Map<Long, PreparedPlan> statementId2PreparedPlan = new ConcurrentHashMap<>();
 
   // (queryId -> QueryDataSet)
   private Map<Long, QueryDataSet> queryId2DataSet = new ConcurrentHashMap<>();
+  // the profiles of the running queries, to log the slow ones when they end
+  private Map<Long, QueryProfile> queryId2Profile = new ConcurrentHashMap<>();
 
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
@@ -170,8 +184,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       case COLUMN_USER:
       case COLUMN_PRIVILEGE:
       case COLUMN_STORAGE_GROUP:
+      case COLUMN_ROLLUP_PATH:
         return TSDataType.TEXT;
       case COLUMN_TTL:
+      case COLUMN_ROLLUP_INTERVAL:
         return TSDataType.INT64;
       default:
         // do nothing
@@ -256,9 +272,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     List<Exception> exceptions = new ArrayList<>();
     Set<Long> statementIds = sessionId2StatementId.getOrDefault(sessionId, Collections.emptySet());
     for (long statementId : statementIds) {
+      statementId2PreparedPlan.remove(statementId);
       Set<Long> queryIds = statementId2QueryId.getOrDefault(statementId, Collections.emptySet());
       for (long queryId : queryIds) {
         queryId2DataSet.remove(queryId);
+        finishProfile(queryId);
 
         try {
           QueryResourceManager.getInstance().endQuery(queryId);
@@ -282,8 +300,14 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
   @Override
   public TSStatus cancelOperation(TSCancelOperationReq req) {
-    //TODO implement
-    return getStatus(TSStatusCode.QUERY_NOT_ALLOWED, "Cancellation is not implemented");
+    if (!checkLogin(req.getSessionId())) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return getStatus(TSStatusCode.NOT_LOGIN_ERROR);
+    }
+    // the query is aborted when it reads more data, and its resources are released when the
+    // statement is closed
+    QueryMemoryManager.getInstance().kill(req.getQueryId());
+    return getStatus(TSStatusCode.SUCCESS_STATUS);
   }
 
   @Override
@@ -297,6 +321,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       // statement close
       if (req.isSetStatementId()) {
         long stmtId = req.getStatementId();
+        statementId2PreparedPlan.remove(stmtId);
         Set<Long> queryIdSet = statementId2QueryId.remove(stmtId);
         if (queryIdSet != null) {
           for (long queryId : queryIdSet) {
@@ -321,9 +346,20 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private void releaseQueryResource(long queryId) throws StorageEngineException {
     // remove the corresponding Physical Plan
     queryId2DataSet.remove(queryId);
+    finishProfile(queryId);
     QueryResourceManager.getInstance().endQuery(queryId);
   }
 
+  /**
+   * log the query into the slow query log if it is profiled and slow.
+   */
+  private void finishProfile(long queryId) {
+    QueryProfile profile = queryId2Profile.remove(queryId);
+    if (profile != null) {
+      profile.logIfSlow(queryId, config.getSlowQueryThresholdInMs());
+    }
+  }
+
   /**
    * convert from TSStatusCode to TSStatus according to status code and status message
    *
@@ -545,7 +581,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       PhysicalPlan physicalPlan = processor.parseSQLToPhysicalPlan(statement,
               sessionIdZoneIdMap.get(req.getSessionId()));
       if (physicalPlan.isQuery()) {
-        resp = executeQueryStatement(req.statementId, physicalPlan, req.fetchSize,
+        resp = executeQueryStatement(req.statementId, physicalPlan, statement, req.fetchSize,
                 sessionIdUsernameMap.get(req.getSessionId()));
         long endTime = System.currentTimeMillis();
         sqlArgument = new SqlArgument(resp, physicalPlan, statement, startTime, endTime);
@@ -575,17 +611,95 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  @Override
+  public TSPrepareStatementResp prepareStatement(TSPrepareStatementReq req) {
+    if (!checkLogin(req.getSessionId())) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return new TSPrepareStatementResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR));
+    }
+    if (!isStatementOfSession(req.getSessionId(), req.getStatementId())) {
+      return new TSPrepareStatementResp(getStatus(TSStatusCode.NO_PERMISSION_ERROR,
+              getNotOwnedMessage(req.getStatementId())));
+    }
+    try {
+      PreparedPlan preparedPlan = processor.prepare(req.getStatement(),
+              sessionIdZoneIdMap.get(req.getSessionId()));
+      statementId2PreparedPlan.put(req.getStatementId(), preparedPlan);
+      TSPrepareStatementResp resp = new TSPrepareStatementResp(
+              getStatus(TSStatusCode.SUCCESS_STATUS));
+      resp.setParameterCount(preparedPlan.getParameterCount());
+      return resp;
+    } catch (ParseCancellationException | SQLParserException | QueryProcessException e) {
+      logger.debug(e.getMessage());
+      return new TSPrepareStatementResp(getStatus(TSStatusCode.SQL_PARSE_ERROR,
+              "Statement cannot be prepared: " + e.getMessage()));
+    }
+  }
+
+  @Override
+  public TSExecuteStatementResp executePreparedStatement(TSExecutePreparedStatementReq req) {
+    long startTime = System.currentTimeMillis();
+    try {
+      if (!checkLogin(req.getSessionId())) {
+        logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+        return getTSExecuteStatementResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR));
+      }
+      if (!isStatementOfSession(req.getSessionId(), req.getStatementId())) {
+        return getTSExecuteStatementResp(getStatus(TSStatusCode.NO_PERMISSION_ERROR,
+                getNotOwnedMessage(req.getStatementId())));
+      }
+      PreparedPlan preparedPlan = statementId2PreparedPlan.get(req.getStatementId());
+      if (preparedPlan == null) {
+        return getTSExecuteStatementResp(getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR,
+                "Statement " + req.getStatementId() + " is not prepared"));
+      }
+      PhysicalPlan physicalPlan = preparedPlan.bind(req.getParameters());
+      if (physicalPlan.isQuery()) {
+        String statement = preparedPlan.getStatement();
+        TSExecuteStatementResp resp = executeQueryStatement(req.getStatementId(), physicalPlan,
+                statement, req.fetchSize, sessionIdUsernameMap.get(req.getSessionId()));
+        long endTime = System.currentTimeMillis();
+        sqlArgumentsList.add(new SqlArgument(resp, physicalPlan, statement, startTime, endTime));
+        if (sqlArgumentsList.size() > MAX_SIZE) {
+          sqlArgumentsList.subList(0, DELETE_SIZE).clear();
+        }
+        return resp;
+      } else {
+        return executeUpdateStatement(physicalPlan, req.getSessionId());
+      }
+    } catch (ParseCancellationException e) {
+      logger.debug(e.getMessage());
+      return getTSExecuteStatementResp(getStatus(TSStatusCode.SQL_PARSE_ERROR, e.getMessage()));
+    } catch (SQLParserException e) {
+      logger.error("check metadata error: ", e);
+      return getTSExecuteStatementResp(getStatus(TSStatusCode.METADATA_ERROR,
+              "Check metadata error: " + e.getMessage()));
+    } catch (QueryProcessException e) {
+      logger.info(ERROR_PARSING_SQL, e.getMessage());
+      return getTSExecuteStatementResp(getStatus(TSStatusCode.SQL_PARSE_ERROR,
+              "Statement format is not right: " + e.getMessage()));
+    }
+  }
+
   /**
    * @param plan must be a plan for Query: FillQueryPlan, AggregationPlan, GroupByPlan, some
    * AuthorPlan
    */
   private TSExecuteStatementResp executeQueryStatement(long statementId, PhysicalPlan plan,
-                                                       int fetchSize, String username) {
+                                                       String statement, int fetchSize,
+                                                       String username) {
     long t1 = System.currentTimeMillis();
     try {
       TSExecuteStatementResp resp; // column headers
       if (plan instanceof AuthorPlan) {
         resp = getAuthQueryColumnHeaders(plan);
+      } else if (plan instanceof ExplainPlan) {
+        QueryPlan queryPlan = ((ExplainPlan) plan).getQueryPlan();
+        if (!checkAuthorization(queryPlan.getPaths(), queryPlan, username)) {
+          return getTSExecuteStatementResp(getStatus(TSStatusCode.NO_PERMISSION_ERROR,
+                  "No permissions for this operation " + queryPlan.getOperatorType()));
+        }
+        resp = StaticResps.EXPLAIN_RESP;
       } else if (plan instanceof ShowPlan) {
         resp = getShowQueryColumnHeaders((ShowPlan) plan);
       } else {
@@ -612,6 +726,14 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
       statementId2QueryId.computeIfAbsent(statementId, k -> new HashSet<>()).add(queryId);
 
+      // the data queries are timed for the slow query log, and their reads are not profiled
+      QueryProfile profile = null;
+      if (plan instanceof QueryPlan && config.getSlowQueryThresholdInMs() > 0) {
+        profile = new QueryProfile(statement, false);
+        queryId2Profile.put(queryId, profile);
+      }
+      long startTime = System.nanoTime();
+
       // create and cache dataset
       QueryDataSet newDataSet = createQueryDataSet(queryId, plan);
       if (plan instanceof QueryPlan && !((QueryPlan) plan).isAlign()) {
@@ -623,8 +745,18 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         TSQueryDataSet result = fillRpcReturnData(fetchSize, newDataSet, username);
         resp.setQueryDataSet(result);
         resp.setQueryId(queryId);
+        if (profile != null) {
+          profile.rowsEmitted(result.bufferForTime().limit() / Long.BYTES);
+        }
+      }
+      if (profile != null) {
+        profile.executed(System.nanoTime() - startTime);
       }
       return resp;
+    } catch (QueryAbortedException e) {
+      logger.info("{}: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSExecuteStatementResp(
+              getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, e.getMessage()));
     } catch (Exception e) {
       logger.error("{}: Internal server error: ", IoTDBConstant.GLOBAL_DB_NAME, e);
       return getTSExecuteStatementResp(
@@ -655,7 +787,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       return getTSExecuteStatementResp(getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR,
               "Statement is not a query statement."));
     }
-    return executeQueryStatement(req.statementId, physicalPlan, req.fetchSize,
+    return executeQueryStatement(req.statementId, physicalPlan, statement, req.fetchSize,
             sessionIdUsernameMap.get(req.getSessionId()));
   }
 
@@ -664,6 +796,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     switch (showPlan.getShowContentType()) {
       case TTL:
         return StaticResps.TTL_RESP;
+      case ROLLUP:
+        return StaticResps.SHOW_ROLLUP_RESP;
       case FLUSH_TASK_INFO:
         return StaticResps.FLUSH_INFO_RESP;
       case DYNAMIC_PARAMETER:
@@ -891,11 +1025,18 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       QueryDataSet queryDataSet = queryId2DataSet.get(req.queryId);
+      QueryProfile profile = queryId2Profile.get(req.queryId);
+      long startTime = System.nanoTime();
       if (req.isAlign) {
         TSQueryDataSet result = fillRpcReturnData(req.fetchSize, queryDataSet,
                 sessionIdUsernameMap.get(req.sessionId));
         boolean hasResultSet = result.bufferForTime().limit() != 0;
+        if (profile != null) {
+          profile.executed(System.nanoTime() - startTime);
+          profile.rowsEmitted(result.bufferForTime().limit() / Long.BYTES);
+        }
         if (!hasResultSet) {
+          finishProfile(req.queryId);
           QueryResourceManager.getInstance().endQuery(req.queryId);
           queryId2DataSet.remove(req.queryId);
         }
@@ -916,7 +1057,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
             break;
           }
         }
+        if (profile != null) {
+          profile.executed(System.nanoTime() - startTime);
+        }
         if (!hasResultSet) {
+          finishProfile(req.queryId);
           queryId2DataSet.remove(req.queryId);
         }
         TSFetchResultsResp resp = getTSFetchResultsResp(getStatus(TSStatusCode.SUCCESS_STATUS,
@@ -926,6 +1071,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         resp.setIsAlign(false);
         return resp;
       }
+    } catch (QueryAbortedException e) {
+      logger.info("{}: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSFetchResultsResp(getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, e.getMessage()));
     } catch (Exception e) {
       logger.error("{}: Internal server error: ", IoTDBConstant.GLOBAL_DB_NAME, e);
       return getTSFetchResultsResp(getStatus(TSStatusCode.INTERNAL_SERVER_ERROR, e.getMessage()));
@@ -1367,6 +1515,19 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return statementId;
   }
 
+  /**
+   * The prepared plans are keyed by the statement id, so a session may only prepare and execute
+   * the statements it requested, or it could run the plan of another user.
+   */
+  private boolean isStatementOfSession(long sessionId, long statementId) {
+    Set<Long> statementIds = sessionId2StatementId.get(sessionId);
+    return statementIds != null && statementIds.contains(statementId);
+  }
+
+  private static String getNotOwnedMessage(long statementId) {
+    return "Statement " + statementId + " does not belong to the session";
+  }
+
   private TSStatus checkAuthority(PhysicalPlan plan, long sessionId) {
     List<Path> paths = plan.getPaths();
     try {
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.utils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
@@ -95,6 +96,25 @@ public class MemUtils {
     return memSize;
   }
 
+  /**
+   * function for getting the size of a point of the given type, the content of a TEXT value is
+   * not included.
+   */
+  public static long getPointSize(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case FLOAT:
+        return 8L + 4L;
+      case BOOLEAN:
+        return 8L + 1L;
+      case INT64:
+      case DOUBLE:
+      case TEXT:
+      default:
+        return 8L + 8L;
+    }
+  }
+
   /**
    * Calculate how much memory will be used if the given record is written to sequence file.
    */
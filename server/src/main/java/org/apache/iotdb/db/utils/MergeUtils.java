@@ -30,6 +30,8 @@ import java.util.Set;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.encoding.common.EndianType;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
@@ -99,10 +101,19 @@ public class MergeUtils {
     return totalSize;
   }
 
+  /**
+   * write the undeleted points of a chunk into the chunk writer, the pages that can be appended by
+   * appendNextPage() are not decoded.
+   */
   public static int writeChunkWithoutUnseq(Chunk chunk, IChunkWriter chunkWriter) throws IOException {
     ChunkReader chunkReader = new ChunkReader(chunk, null);
     int ptWritten = 0;
     while (chunkReader.hasNextSatisfiedPage()) {
+      int appendedPointNum = appendNextPage(chunk, chunkReader, chunkWriter);
+      if (appendedPointNum > 0) {
+        ptWritten += appendedPointNum;
+        continue;
+      }
       BatchData batchData = chunkReader.nextPageData();
       for (int i = 0; i < batchData.length(); i++) {
         writeBatchPoint(batchData, i, chunkWriter);
@@ -112,6 +123,34 @@ public class MergeUtils {
     return ptWritten;
   }
 
+  /**
+   * append the next page of the chunk reader into the chunk writer without decoding it, if none of
+   * its points is deleted and it is encoded and compressed the same as the current chunk of the
+   * writer.
+   *
+   * @return the number of points in the page if it is appended, otherwise 0 and the page should be
+   * read by chunkReader.nextPageData()
+   */
+  public static int appendNextPage(Chunk chunk, ChunkReader chunkReader, IChunkWriter chunkWriter)
+      throws IOException {
+    PageHeader pageHeader = chunkReader.nextPageHeader();
+    // pages of old files are written in little endian and must be rewritten
+    if (pageHeader.getStartTime() <= chunk.getDeletedAt()
+        || chunk.getEndianType() != EndianType.BIG_ENDIAN
+        || !chunkWriter.appendPage(chunk.getHeader(), pageHeader, chunkReader.nextPageRawData())) {
+      return 0;
+    }
+    chunkReader.skipPageData();
+    return (int) pageHeader.getNumOfValues();
+  }
+
+  /**
+   * @return the serialized size of the chunk in a TsFile, including its header
+   */
+  public static long getChunkSize(Chunk chunk) {
+    return (long) chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+  }
+
   public static void writeBatchPoint(BatchData batchData, int i, IChunkWriter chunkWriter) {
     switch (chunkWriter.getDataType()) {
       case TEXT:
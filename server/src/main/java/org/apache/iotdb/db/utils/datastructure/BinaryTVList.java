@@ -83,6 +83,19 @@ public class BinaryTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public BinaryTVList snapshot() {
+    BinaryTVList snapshot = new BinaryTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private Binary[] cloneValue(Binary[] array) {
     Binary[] cloneArray = new Binary[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -107,8 +120,10 @@ public class BinaryTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (Binary[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (Binary[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
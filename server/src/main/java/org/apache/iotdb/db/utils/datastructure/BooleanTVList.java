@@ -82,6 +82,19 @@ public class BooleanTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public BooleanTVList snapshot() {
+    BooleanTVList snapshot = new BooleanTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private boolean[] cloneValue(boolean[] array) {
     boolean[] cloneArray = new boolean[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -106,8 +119,10 @@ public class BooleanTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (boolean[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (boolean[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
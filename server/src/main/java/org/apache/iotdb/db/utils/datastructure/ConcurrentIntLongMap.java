@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+/**
+ * A thread-safe map from ints to longs without boxing, e.g., from the numbers of devices to their
+ * latest timestamps. The keys are spread over segments of primitive hash maps, each of which is
+ * guarded by its own lock, so that the updates of different keys rarely contend.
+ */
+public class ConcurrentIntLongMap {
+
+  private static final int SEGMENT_NUM = 16;
+
+  private final Int2LongOpenHashMap[] segments = new Int2LongOpenHashMap[SEGMENT_NUM];
+
+  /**
+   * @param defaultValue the value returned by get() for an absent key
+   */
+  public ConcurrentIntLongMap(long defaultValue) {
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments[i] = new Int2LongOpenHashMap();
+      segments[i].defaultReturnValue(defaultValue);
+    }
+  }
+
+  private Int2LongOpenHashMap segment(int key) {
+    return segments[key & (SEGMENT_NUM - 1)];
+  }
+
+  /**
+   * @return the value of the key, or the default value if the key is absent
+   */
+  public long get(int key) {
+    Int2LongOpenHashMap segment = segment(key);
+    synchronized (segment) {
+      return segment.get(key);
+    }
+  }
+
+  public boolean containsKey(int key) {
+    Int2LongOpenHashMap segment = segment(key);
+    synchronized (segment) {
+      return segment.containsKey(key);
+    }
+  }
+
+  public void put(int key, long value) {
+    Int2LongOpenHashMap segment = segment(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  /**
+   * @return the current value of the key if it is present, otherwise the given value, which is
+   * put into the map
+   */
+  public long putIfAbsent(int key, long value) {
+    Int2LongOpenHashMap segment = segment(key);
+    synchronized (segment) {
+      if (segment.containsKey(key)) {
+        return segment.get(key);
+      }
+      segment.put(key, value);
+      return value;
+    }
+  }
+
+  /**
+   * put the value if the key is absent or its current value is less than the given one.
+   */
+  public void putIfGreater(int key, long value) {
+    Int2LongOpenHashMap segment = segment(key);
+    synchronized (segment) {
+      if (!segment.containsKey(key) || segment.get(key) < value) {
+        segment.put(key, value);
+      }
+    }
+  }
+
+  public void putAll(ConcurrentIntLongMap other) {
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      // copy the segment first so that the locks of the two maps are never held together
+      Int2LongOpenHashMap copy;
+      synchronized (other.segments[i]) {
+        copy = new Int2LongOpenHashMap(other.segments[i]);
+      }
+      synchronized (segments[i]) {
+        segments[i].putAll(copy);
+      }
+    }
+  }
+
+  /**
+   * apply the action on each entry, the entries of a segment are visited under its lock.
+   */
+  public void forEach(IntLongConsumer action) {
+    for (Int2LongOpenHashMap segment : segments) {
+      synchronized (segment) {
+        ObjectIterator<Int2LongMap.Entry> iterator = segment.int2LongEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+          Int2LongMap.Entry entry = iterator.next();
+          action.accept(entry.getIntKey(), entry.getLongValue());
+        }
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Int2LongOpenHashMap segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public void clear() {
+    for (Int2LongOpenHashMap segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface IntLongConsumer {
+
+    void accept(int key, long value);
+  }
+}
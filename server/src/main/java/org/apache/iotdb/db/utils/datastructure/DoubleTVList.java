@@ -82,6 +82,19 @@ public class DoubleTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public DoubleTVList snapshot() {
+    DoubleTVList snapshot = new DoubleTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private double[] cloneValue(double[] array) {
     double[] cloneArray = new double[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -106,8 +119,10 @@ public class DoubleTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (double[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (double[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
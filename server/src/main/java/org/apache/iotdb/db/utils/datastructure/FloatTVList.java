@@ -82,6 +82,19 @@ public class FloatTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public FloatTVList snapshot() {
+    FloatTVList snapshot = new FloatTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private float[] cloneValue(float[] array) {
     float[] cloneArray = new float[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -106,8 +119,10 @@ public class FloatTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (float[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (float[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
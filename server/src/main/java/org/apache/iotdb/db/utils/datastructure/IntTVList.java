@@ -82,6 +82,19 @@ public class IntTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public IntTVList snapshot() {
+    IntTVList snapshot = new IntTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private int[] cloneValue(int[] array) {
     int[] cloneArray = new int[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -106,8 +119,10 @@ public class IntTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (int[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (int[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
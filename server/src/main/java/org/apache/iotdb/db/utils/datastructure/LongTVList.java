@@ -82,6 +82,19 @@ public class LongTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public LongTVList snapshot() {
+    LongTVList snapshot = new LongTVList();
+    shareAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValues() {
+    values.replaceAll(this::cloneValue);
+  }
+
   private long[] cloneValue(long[] array) {
     long[] cloneArray = new long[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -106,8 +119,10 @@ public class LongTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (long[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (long[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
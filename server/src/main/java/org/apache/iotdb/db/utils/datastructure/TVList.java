@@ -40,6 +40,12 @@ public abstract class TVList {
   protected long[][] sortedTimestamps;
   protected boolean sorted = true;
 
+  /**
+   * whether the arrays are also referenced by snapshots of this list, if so they must be copied
+   * before any point is moved in place and must not be released to the pool.
+   */
+  protected boolean shared;
+
   /**
    * this field is effective only in the Tvlist in a RealOnlyMemChunk.
    */
@@ -59,6 +65,10 @@ public abstract class TVList {
     return size;
   }
 
+  public boolean isSorted() {
+    return sorted;
+  }
+
   public long getTime(int index) {
     if (index >= size) {
       throw new ArrayIndexOutOfBoundsException(index);
@@ -182,6 +192,37 @@ public abstract class TVList {
 
   public abstract TVList clone();
 
+  /**
+   * Create a read-only view of the points in this list, which shares the arrays of this list
+   * instead of copying them. Points appended later are written beyond the size of the snapshot so
+   * they are not seen by it, and the arrays are copied on write before sorting or deleting moves
+   * any point, so the snapshot stays unchanged without any lock. This list should be sorted before
+   * taking the snapshot if the snapshot is to be read in time order.
+   */
+  public abstract TVList snapshot();
+
+  protected void shareAs(TVList snapshot) {
+    snapshot.timestamps.addAll(timestamps);
+    snapshot.size = size;
+    snapshot.sorted = sorted;
+    snapshot.minTime = minTime;
+    snapshot.shared = true;
+    shared = true;
+  }
+
+  /**
+   * Replace the arrays with private copies if they are shared with snapshots.
+   */
+  protected void copyOnWrite() {
+    if (shared) {
+      timestamps.replaceAll(this::cloneTime);
+      copyValues();
+      shared = false;
+    }
+  }
+
+  protected abstract void copyValues();
+
   protected abstract void releaseLastValueArray();
 
   protected void releaseLastTimeArray() {
@@ -189,6 +230,7 @@ public abstract class TVList {
   }
 
   public void delete(long upperBound) {
+    copyOnWrite();
     int newSize = 0;
     minTime = Long.MAX_VALUE;
     for (int i = 0; i < size; i++) {
@@ -229,12 +271,15 @@ public abstract class TVList {
 
     clearValue();
     clearSortedValue();
+    shared = false;
   }
 
   protected void clearTime() {
     if (timestamps != null) {
-      for (long[] dataArray : timestamps) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!shared) {
+        for (long[] dataArray : timestamps) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       timestamps.clear();
     }
@@ -273,6 +318,7 @@ public abstract class TVList {
     if (lo == hi) {
       return;
     }
+    copyOnWrite();
     if (hi - lo <= SMALL_ARRAY_LENGTH) {
       int initRunLen = countRunAndMakeAscending(lo, hi);
       binarySort(lo, hi, lo + initRunLen);
@@ -23,13 +23,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import org.apache.iotdb.db.auth.authorizer.IAuthorizer;
 import org.apache.iotdb.db.auth.authorizer.LocalFileAuthorizer;
+import org.apache.iotdb.db.auth.entity.PrivilegeType;
 import org.apache.iotdb.db.auth.entity.User;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -274,6 +277,42 @@ public class LocalFileAuthorizerTest {
     }
   }
 
+  @Test
+  public void testCachedPrivileges() throws AuthException {
+    IAuthorizer authorizer = LocalFileAuthorizer.getInstance();
+    authorizer.createUser("user", "password");
+    authorizer.createRole("role");
+    List<Path> paths = Arrays.asList(new Path("root.a.b.c"), new Path("root.a.b.d"));
+    int read = PrivilegeType.READ_TIMESERIES.ordinal();
+    assertFalse(authorizer.checkUserPrivileges("user", paths, read));
+
+    // the cached privileges are invalidated by the changes of the user and the role
+    authorizer.grantPrivilegeToUser("user", "root.a", read);
+    assertTrue(authorizer.checkUserPrivileges("user", paths, read));
+    authorizer.revokePrivilegeFromUser("user", "root.a", read);
+    assertFalse(authorizer.checkUserPrivileges("user", paths, read));
+
+    authorizer.grantRoleToUser("role", "user");
+    authorizer.grantPrivilegeToRole("role", "root.a.b", read);
+    assertTrue(authorizer.checkUserPrivileges("user", paths, read));
+    authorizer.revokePrivilegeFromRole("role", "root.a.b", read);
+    assertFalse(authorizer.checkUserPrivileges("user", "root.a.b.c", read));
+    authorizer.grantPrivilegeToRole("role", "root.a.b", read);
+    authorizer.revokeRoleFromUser("role", "user");
+    assertFalse(authorizer.checkUserPrivileges("user", paths, read));
+    authorizer.grantRoleToUser("role", "user");
+    authorizer.deleteRole("role");
+    assertFalse(authorizer.checkUserPrivileges("user", paths, read));
+
+    authorizer.deleteUser("user");
+    try {
+      authorizer.checkUserPrivileges("user", paths, read);
+      fail();
+    } catch (AuthException e) {
+      assertEquals("No such user : user", e.getMessage());
+    }
+  }
+
   @Test
   public void testListUser() throws AuthException {
     IAuthorizer authorizer = LocalFileAuthorizer.getInstance();
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.auth;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.auth.authorizer.PrivilegeTrie;
+import org.apache.iotdb.db.auth.entity.PathPrivilege;
+import org.apache.iotdb.db.utils.AuthUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.Test;
+
+public class PrivilegeTrieTest {
+
+  private static final int READ = 3;
+  private static final int INSERT = 1;
+
+  @Test
+  public void testCheck() {
+    List<PathPrivilege> privileges = new ArrayList<>();
+    AuthUtils.addPrivilege("root.sg1", READ, privileges);
+    AuthUtils.addPrivilege("root.sg2.d1.s1", INSERT, privileges);
+    List<PathPrivilege> rolePrivileges = new ArrayList<>();
+    AuthUtils.addPrivilege("root.sg2.d2", INSERT, rolePrivileges);
+    PrivilegeTrie trie = new PrivilegeTrie();
+    trie.addPrivileges(privileges);
+    trie.addPrivileges(rolePrivileges);
+
+    String[] paths = {"root", "root.sg1", "root.sg1.d1.s1", "root.sg10.d1", "root.sg2.d1",
+        "root.sg2.d1.s1", "root.sg2.d1.s2", "root.sg2.d2.s1", "other"};
+    for (String path : paths) {
+      for (int privilege : new int[]{READ, INSERT}) {
+        boolean expected = AuthUtils.checkPrivilege(path, privilege, privileges)
+            || AuthUtils.checkPrivilege(path, privilege, rolePrivileges);
+        assertTrue(path, expected == trie.check(path, privilege));
+        assertTrue(path, expected == trie
+            .checkAll(Collections.singletonList(new Path(path)), privilege));
+      }
+    }
+  }
+
+  @Test
+  public void testCheckAll() {
+    List<PathPrivilege> privileges = new ArrayList<>();
+    AuthUtils.addPrivilege("root.sg.d1", READ, privileges);
+    AuthUtils.addPrivilege("root.sg.d2.s1", READ, privileges);
+    AuthUtils.addPrivilege("root.sg.d2.s2", READ, privileges);
+    PrivilegeTrie trie = new PrivilegeTrie();
+    trie.addPrivileges(privileges);
+
+    assertTrue(trie.checkAll(Arrays.asList(new Path("root.sg.d1.s1"), new Path("root.sg.d1.s2"),
+        new Path("root.sg.d2.s1"), new Path("root.sg.d2.s2"), new Path("root.sg.d1.s3")), READ));
+    assertFalse(trie.checkAll(Arrays.asList(new Path("root.sg.d2.s1"), new Path("root.sg.d2.s3")),
+        READ));
+    assertFalse(trie.checkAll(Arrays.asList(new Path("root.sg.d1.s1"), new Path("root.sg.d3.s1")),
+        READ));
+    assertFalse(trie.checkAll(Collections.singletonList(new Path("root.sg.d1.s1")), INSERT));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TsFileBulkLoaderTest {
+
+  private AbstractQueryProcessExecutor queryExecutor = new QueryProcessExecutor();
+  private QueryProcessor processor = new QueryProcessor(queryExecutor);
+
+  private long prevPartitionInterval;
+  private File externalFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("bulk_load_test"),
+      "external.tsfile");
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevPartitionInterval = IoTDBDescriptor.getInstance().getConfig().getPartitionInterval();
+    // a time partition is 1000ms long
+    IoTDBDescriptor.getInstance().getConfig().setPartitionInterval(1);
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    for (long time = 5000; time < 5100; time++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", time,
+          time));
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    FileUtils.deleteDirectory(externalFile.getParentFile());
+    IoTDBDescriptor.getInstance().getConfig().setPartitionInterval(prevPartitionInterval);
+  }
+
+  @Test
+  public void testBulkLoad() throws Exception {
+    writeExternalFile();
+    execute(String.format("load bulk %s", externalFile.getAbsolutePath()));
+
+    // the source file is left untouched
+    assertTrue(externalFile.exists());
+
+    StorageGroupProcessor storageGroupProcessor = StorageEngine.getInstance()
+        .getProcessor("root.vehicle");
+    // the chunk of root.vehicle.d0 is split into partitions 1, 2 and 5, and the file of partition
+    // 5 overlaps the existing sequence file so it becomes an unsequence file
+    assertEquals(4, storageGroupProcessor.getSequenceFileTreeSet().size());
+    assertEquals(1, storageGroupProcessor.getUnSequenceFileList().size());
+
+    Map<Long, Long> d0 = query("SELECT s0 FROM root.vehicle.d0");
+    assertEquals(1100, d0.size());
+    for (long time = 1500; time < 2500; time++) {
+      assertEquals(-time, (long) d0.get(time));
+    }
+    // the loaded points overwrite the existing ones
+    assertEquals(-5055L, (long) d0.get(5055L));
+    assertEquals(5060L, (long) d0.get(5060L));
+
+    Map<Long, Long> d1 = query("SELECT s0 FROM root.vehicle.d1");
+    assertEquals(100, d1.size());
+    assertEquals(-3050L, (long) d1.get(3050L));
+  }
+
+  @Test
+  public void testIncompleteFile() throws Exception {
+    writeExternalFile();
+    // cut the tail of the file so that its metadata is lost
+    try (FileChannel channel = FileChannel.open(externalFile.toPath(),
+        StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 10);
+    }
+    long length = externalFile.length();
+    try {
+      execute(String.format("load bulk %s", externalFile.getAbsolutePath()));
+      fail();
+    } catch (QueryProcessException e) {
+      assertTrue(e.getMessage().contains("crashed"));
+    }
+    // the rejected file is not truncated
+    assertEquals(length, externalFile.length());
+    assertEquals(1, StorageEngine.getInstance().getProcessor("root.vehicle")
+        .getSequenceFileTreeSet().size());
+  }
+
+  private void writeExternalFile() throws Exception {
+    externalFile.getParentFile().mkdirs();
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s0", TSDataType.INT64, TSEncoding.RLE));
+    TsFileWriter writer = new TsFileWriter(externalFile, schema);
+    for (long time = 1500; time < 2500; time++) {
+      write(writer, "root.vehicle.d0", time);
+    }
+    for (long time = 5050; time < 5060; time++) {
+      write(writer, "root.vehicle.d0", time);
+    }
+    for (long time = 3000; time < 3100; time++) {
+      write(writer, "root.vehicle.d1", time);
+    }
+    writer.close();
+  }
+
+  private void write(TsFileWriter writer, String device, long time) throws Exception {
+    TSRecord record = new TSRecord(time, device);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s0", String.valueOf(-time)));
+    writer.write(record);
+  }
+
+  private Map<Long, Long> query(String sql) throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      QueryDataSet dataSet = queryExecutor
+          .processQuery(processor.parseSQLToPhysicalPlan(sql), new QueryContext(queryId));
+      Map<Long, Long> points = new HashMap<>();
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        points.put(record.getTimestamp(), record.getFields().get(0).getLongV());
+      }
+      return points;
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
@@ -22,6 +22,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Random;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.query.reader.chunkRelated.MemChunkReader;
 import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
@@ -29,6 +31,7 @@ import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.Assert;
 import org.junit.Before;
@@ -88,6 +91,40 @@ public class PrimitiveMemTableTest {
     }
   }
 
+  @Test
+  public void snapshotTest() {
+    IMemTable memTable = new PrimitiveMemTable();
+    for (int i = 0; i < 1000; i++) {
+      memTable.write("d1", "s1", TSDataType.INT64, i, (long) i);
+    }
+    ReadOnlyMemChunk memChunk = memTable
+        .query("d1", "s1", TSDataType.INT64, Collections.emptyMap(), Long.MIN_VALUE);
+
+    // out-of-order points and a deletion after the query started are not seen by it
+    for (int i = 999; i >= 0; i--) {
+      memTable.write("d1", "s1", TSDataType.INT64, i, (long) -i);
+    }
+    memTable.delete("d1", "s1", 500);
+    memTable.getMemTableMap().get("d1").get("s1").getSortedTVList();
+
+    BatchData batchData = new MemChunkReader(memChunk, null).nextBatch();
+    Assert.assertEquals(1000, batchData.length());
+    for (int i = 0; i < batchData.length(); i++) {
+      Assert.assertEquals(i, batchData.getTimeByIndex(i));
+      Assert.assertEquals(i, batchData.getLongByIndex(i));
+    }
+
+    Iterator<TimeValuePair> tvPair = memTable
+        .query("d1", "s1", TSDataType.INT64, Collections.emptyMap(), Long.MIN_VALUE)
+        .getIterator();
+    for (int i = 501; i < 1000; i++) {
+      TimeValuePair timeValuePair = tvPair.next();
+      Assert.assertEquals(i, timeValuePair.getTimestamp());
+      Assert.assertEquals((long) -i, timeValuePair.getValue().getValue());
+    }
+    Assert.assertFalse(tvPair.hasNext());
+  }
+
   private void write(IMemTable memTable, String deviceId, String sensorId, TSDataType dataType,
       int size) {
     TimeValuePair[] ret = genTimeValuePair(size, dataType);
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.merge.recover.CompactionLogger;
+import org.apache.iotdb.db.engine.merge.selector.SizeTieredCompactionSelector;
+import org.apache.iotdb.db.engine.merge.task.CompactionTask;
+import org.apache.iotdb.db.engine.merge.task.RecoverCompactionTask;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactionTaskTest extends MergeTest {
+
+  private File tempSGDir;
+  private TsFileResource targetFile;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException, PathException {
+    super.setUp();
+    tempSGDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("tempSG"));
+    tempSGDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    if (targetFile != null) {
+      targetFile.remove();
+    }
+    super.tearDown();
+    FileUtils.deleteDirectory(tempSGDir);
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    // all points of a series in the files are merged into one chunk
+    IoTDBDescriptor.getInstance().getConfig().setChunkMergePointThreshold(10000);
+    compact(seqResources);
+
+    assertTrue(targetFile.getFile().exists());
+    assertFalse(new File(tempSGDir, CompactionLogger.COMPACTION_LOG_NAME).exists());
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        targetFile.getFile().getPath())) {
+      assertEquals(1, reader.getChunkMetadataList(path).size());
+    }
+    assertEquals(0, (long) targetFile.getStartTimeMap().get(deviceIds[0]));
+    assertEquals(seqFileNum * ptNum - 1, (long) targetFile.getEndTimeMap().get(deviceIds[0]));
+    assertEquals(seqFileNum, targetFile.getHistoricalVersions().size());
+    checkData(path, 0);
+  }
+
+  @Test
+  public void testCompactionWithLargeChunks() throws Exception {
+    // the chunks are large enough, so they are copied as they are
+    IoTDBDescriptor.getInstance().getConfig().setChunkMergePointThreshold(1);
+    compact(seqResources);
+
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        targetFile.getFile().getPath())) {
+      assertEquals(seqFileNum * ptNum / flushInterval, reader.getChunkMetadataList(path).size());
+    }
+    checkData(path, 0);
+  }
+
+  @Test
+  public void testCompactionWithDeletion() throws Exception {
+    IoTDBDescriptor.getInstance().getConfig().setChunkMergePointThreshold(10000);
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    seqResources.get(0).getModFile().write(new Deletion(path, 10000, 49));
+    seqResources.get(0).getModFile().close();
+    compact(seqResources);
+
+    // the deleted points are removed from the target file
+    checkData(path, 50);
+  }
+
+  @Test
+  public void testSelect() {
+    SizeTieredCompactionSelector selector = new SizeTieredCompactionSelector(Long.MAX_VALUE, 3, 4,
+        Long.MIN_VALUE);
+    List<TsFileResource> selected = selector.select(seqResources);
+    assertEquals(seqResources.subList(0, 4), selected);
+
+    seqResources.get(1).setMerging(true);
+    selected = selector.select(seqResources);
+    assertEquals(seqResources.subList(2, 5), selected);
+    seqResources.get(1).setMerging(false);
+
+    // too few small files
+    selector = new SizeTieredCompactionSelector(Long.MAX_VALUE, seqFileNum + 1, 100,
+        Long.MIN_VALUE);
+    assertTrue(selector.select(seqResources).isEmpty());
+    // no small files
+    selector = new SizeTieredCompactionSelector(1, 2, 100, Long.MIN_VALUE);
+    assertTrue(selector.select(seqResources).isEmpty());
+  }
+
+  @Test
+  public void testRecoverUnfinished() throws Exception {
+    File target = new File(seqResources.get(seqFileNum - 1).getFile().getParentFile(), "target");
+    File tempTarget = new File(target.getPath() + CompactionTask.COMPACTION_SUFFIX);
+    assertTrue(tempTarget.createNewFile());
+    CompactionLogger logger = new CompactionLogger(tempSGDir.getPath());
+    logger.logFiles(seqResources, target);
+    logger.close();
+
+    new RecoverCompactionTask(tempSGDir.getPath(), "test")
+        .recoverCompaction(new File(tempSGDir, "merge.mods"));
+    // the compaction is rolled back
+    assertFalse(tempTarget.exists());
+    for (TsFileResource seqFile : seqResources) {
+      assertTrue(seqFile.getFile().exists());
+    }
+    assertFalse(new File(tempSGDir, CompactionLogger.COMPACTION_LOG_NAME).exists());
+  }
+
+  @Test
+  public void testRecoverFinished() throws Exception {
+    File target = new File(seqResources.get(seqFileNum - 1).getFile().getParentFile(), "target");
+    assertTrue(target.createNewFile());
+    targetFile = new TsFileResource(target);
+    CompactionLogger logger = new CompactionLogger(tempSGDir.getPath());
+    logger.logFiles(seqResources, target);
+    logger.close();
+
+    new RecoverCompactionTask(tempSGDir.getPath(), "test")
+        .recoverCompaction(new File(tempSGDir, "merge.mods"));
+    // the compaction is finished
+    assertTrue(target.exists());
+    for (TsFileResource seqFile : seqResources) {
+      assertFalse(seqFile.getFile().exists());
+    }
+    assertFalse(new File(tempSGDir, CompactionLogger.COMPACTION_LOG_NAME).exists());
+  }
+
+  private void compact(List<TsFileResource> sourceFiles) throws Exception {
+    CompactionTask compactionTask = new CompactionTask(sourceFiles, tempSGDir.getPath(),
+        (s, t, l) -> {
+          assertNotNull(t);
+          l.delete();
+        }, "test", MERGE_TEST_SG);
+    compactionTask.call();
+    targetFile = compactionTask.getTargetFile();
+  }
+
+  private void checkData(Path path, long startTime) throws IOException {
+    QueryContext context = new QueryContext();
+    SeqResourceIterateReader tsFilesReader = new SeqResourceIterateReader(path,
+        Collections.singletonList(targetFile), null, context);
+    long expectedTime = startTime;
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      for (int i = 0; i < batchData.length(); i++) {
+        assertEquals(expectedTime, batchData.getTimeByIndex(i));
+        assertEquals(expectedTime, batchData.getDoubleByIndex(i), 0.001);
+        expectedTime++;
+      }
+    }
+    assertEquals(seqFileNum * ptNum, expectedTime);
+    tsFilesReader.close();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.merge.manage.MergeThrottle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MergeSchedulingTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevMergeThreadNum;
+
+  @Before
+  public void setUp() {
+    prevMergeThreadNum = config.getMergeThreadNum();
+    config.setMergeThreadNum(1);
+    MergeManager.getINSTANCE().start();
+  }
+
+  @After
+  public void tearDown() {
+    MergeManager.getINSTANCE().stop();
+    config.setMergeThreadNum(prevMergeThreadNum);
+  }
+
+  @Test
+  public void testPriority() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    // occupy the only merge thread so that the following tasks are queued
+    Future<Void> blockingTask = MergeManager.getINSTANCE().submitMainTask(() -> {
+      latch.await();
+      return null;
+    }, 0);
+    List<Integer> finishedTasks = Collections.synchronizedList(new ArrayList<>());
+    int[] priorities = {1, 3, -1, 2, 3};
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < priorities.length; i++) {
+      int taskId = i;
+      futures.add(MergeManager.getINSTANCE().submitMainTask(() -> {
+        finishedTasks.add(taskId);
+        return null;
+      }, priorities[i]));
+    }
+    latch.countDown();
+    blockingTask.get();
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    // higher priorities first, and the tasks of the same priority in the order of submission
+    assertEquals(Arrays.asList(1, 4, 3, 0, 2), finishedTasks);
+  }
+
+  @Test
+  public void testBandwidth() {
+    MergeThrottle throttle = new MergeThrottle(1024 * 1024, 0);
+    long startTime = System.currentTimeMillis();
+    throttle.acquire(1024 * 1024);
+    // the bytes above are paid by waiting here
+    throttle.acquire(1);
+    long elapsedTime = System.currentTimeMillis() - startTime;
+    assertTrue(String.valueOf(elapsedTime), elapsedTime >= 800);
+  }
+
+  @Test
+  public void testBackOff() {
+    Measurement.INSTANCE.addOperationLatency(Operation.EXECUTE_QUERY,
+        System.currentTimeMillis() - 2000);
+
+    MergeThrottle throttle = new MergeThrottle(0, 5000);
+    long startTime = System.currentTimeMillis();
+    throttle.acquire(1024);
+    assertTrue(System.currentTimeMillis() - startTime < 500);
+
+    throttle = new MergeThrottle(0, 1000);
+    startTime = System.currentTimeMillis();
+    throttle.acquire(1024);
+    // the merge pauses for at most one second at a time
+    long elapsedTime = System.currentTimeMillis() - startTime;
+    assertTrue(String.valueOf(elapsedTime), elapsedTime >= 1000 && elapsedTime < 2000);
+  }
+}
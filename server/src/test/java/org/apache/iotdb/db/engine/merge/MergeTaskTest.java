@@ -36,6 +36,7 @@ import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.After;
@@ -235,4 +236,38 @@ public class MergeTaskTest extends MergeTest {
     assertEquals(70, count);
     tsFilesReader.close();
   }
+
+  @Test
+  public void mergeSmallChunksTest() throws Exception {
+    // the small chunks are concatenated, the pages overlapping no unseq data are copied
+    IoTDBDescriptor.getInstance().getConfig().setChunkMergePointThreshold(10000);
+    MergeTask mergeTask =
+        new MergeTask(new MergeResource(seqResources, unseqResources.subList(0, 1)),
+            tempSGDir.getPath(), (k, v, l) -> {}, "test", false, 1, MERGE_TEST_SG);
+    mergeTask.call();
+
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        seqResources.get(0).getFile().getPath())) {
+      assertEquals(1, reader.getChunkMetadataList(path).size());
+    }
+    QueryContext context = new QueryContext();
+    SeqResourceIterateReader tsFilesReader = new SeqResourceIterateReader(path,
+        Collections.singletonList(seqResources.get(0)), null, context);
+    long time = 0;
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      for (int i = 0; i < batchData.length(); i++) {
+        assertEquals(time, batchData.getTimeByIndex(i));
+        if (time < ptNum / unseqFileNum) {
+          assertEquals(time + 10000.0, batchData.getDoubleByIndex(i), 0.001);
+        } else {
+          assertEquals(time, batchData.getDoubleByIndex(i), 0.001);
+        }
+        time++;
+      }
+    }
+    assertEquals(ptNum, time);
+    tsFilesReader.close();
+  }
 }
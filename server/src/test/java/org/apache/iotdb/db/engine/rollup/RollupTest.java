@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
+import org.apache.iotdb.db.query.dataset.groupby.RollupGroupByDataSet;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the group by queries answered from the rollups against the same queries on the raw data,
+ * which are not routed to the rollups because of the time filter.
+ */
+public class RollupTest {
+
+  private static final String SELECT = "select count(s0), sum(s0), avg(s1), min_value(s0), "
+      + "max_value(s1), count(s1) from root.vehicle.d0";
+  private static final Path S0 = new Path("root.vehicle.d0.s0");
+  private static final Path DERIVED_COUNT = Rollup.getDerivedPath(S0, 10, "count");
+
+  private AbstractQueryProcessExecutor queryExecutor = new QueryProcessExecutor();
+  private QueryProcessor processor = new QueryProcessor(queryExecutor);
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=GORILLA");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testBackfill() throws Exception {
+    insert(1, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    RollupManager.getInstance().waitForRefresh();
+
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 10));
+    check(0, 999, 50, 50, true);
+    check(0, 999, 50, 20, true);
+    // the last window is cut by the end time
+    check(100, 1234, 100, 100, true);
+    // the start time is not aligned to the buckets
+    check(5, 999, 50, 50, false);
+  }
+
+  @Test
+  public void testIncremental() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle.d0 GROUP BY 10ms");
+    execute("CREATE ROLLUP ON root.vehicle.*.s0 GROUP BY 100ms");
+    insert(1, 500, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(501, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 10));
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 100));
+    check(0, 999, 200, 100, true);
+    check(0, 999, 30, 30, true);
+
+    // late data in the materialized buckets and in the memtable
+    insert(5, 900, 37);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(1001, 1100, 3);
+    RollupManager.getInstance().waitForRefresh();
+    check(0, 1099, 200, 100, true);
+    check(0, 1099, 30, 10, true);
+  }
+
+  @Test
+  public void testUnflushedLateData() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    insert(1, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 10));
+
+    // the late data in the memtable is visible whether the buckets are refreshed or not
+    execute("insert into root.vehicle.d0(timestamp,s0,s1) values(505,1000,1000.0)");
+    check(0, 999, 50, 50, true);
+
+    RollupManager.getInstance().waitForRefresh();
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 10));
+    check(0, 999, 50, 50, true);
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    insert(1, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    execute("DELETE FROM root.vehicle.d0.s0 WHERE time <= 333");
+    execute("DELETE FROM root.vehicle.d0.s1 WHERE time <= 339");
+    RollupManager.getInstance().waitForRefresh();
+    check(0, 999, 50, 50, true);
+    check(300, 399, 10, 10, true);
+  }
+
+  @Test
+  public void testRestartAndDrop() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    insert(1, 600, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+
+    RollupManager.getInstance().stop();
+    // the data written when the rollups are not maintained
+    insert(601, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().start();
+    RollupManager.getInstance().waitForRefresh();
+    assertEquals(1000, RollupManager.getInstance().getMaterializedTime(S0, 10));
+    check(0, 999, 50, 50, true);
+
+    List<String> shown = new ArrayList<>();
+    QueryDataSet dataSet = query("SHOW ROLLUP");
+    while (dataSet.hasNext()) {
+      shown.add(dataSet.next().toString());
+    }
+    assertEquals(1, shown.size());
+    assertTrue(shown.get(0).endsWith("root.vehicle\t10"));
+
+    assertTrue(MManager.getInstance().pathExist(DERIVED_COUNT.getFullPath()));
+    execute("DROP ROLLUP ON root.vehicle GROUP BY 10ms");
+    assertTrue(RollupManager.getInstance().getRollups().isEmpty());
+    check(0, 999, 50, 50, false);
+    // the derived series are deleted in the refresh thread
+    RollupManager.getInstance().waitForRefresh();
+    assertFalse(MManager.getInstance().pathExist(DERIVED_COUNT.getFullPath()));
+  }
+
+  @Test
+  public void testReservedSeries() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    insert(1, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+    assertTrue(MManager.getInstance().pathExist(DERIVED_COUNT.getFullPath()));
+
+    // the derived series are not matched by the wildcards
+    assertEquals(2, query("select * from root.vehicle.d0").getPaths().size());
+    assertEquals(2, count(query("SHOW TIMESERIES root.vehicle")));
+    assertEquals(1, count(query("SHOW DEVICES root.vehicle")));
+    assertEquals(2, MManager.getInstance().getPaths("root.*").size());
+    assertEquals(10, MManager.getInstance().getAllPathsInStorageGroup("root.vehicle").size());
+    check("select count(*), avg(*) from root.vehicle.d0", 0, 999, 50, 50, true);
+
+    // the columns without a rollup are calculated from the raw data
+    check("select first_value(s0), count(s1), last_value(s1), max_value(s0) from root.vehicle.d0",
+        0, 999, 50, 20, true);
+
+    // the users cannot write or delete the derived series
+    try {
+      queryExecutor.insert(new InsertPlan(DERIVED_COUNT.getDevice(), 2000,
+          DERIVED_COUNT.getMeasurement(), "1"));
+      fail();
+    } catch (QueryProcessException e) {
+      // expected
+    }
+    try {
+      queryExecutor.processNonQuery(
+          new DeleteTimeSeriesPlan(Collections.singletonList(DERIVED_COUNT)));
+      fail();
+    } catch (QueryProcessException e) {
+      // expected
+    }
+    assertTrue(MManager.getInstance().pathExist(DERIVED_COUNT.getFullPath()));
+  }
+
+  @Test
+  public void testDeleteTimeseries() throws Exception {
+    execute("CREATE ROLLUP ON root.vehicle GROUP BY 10ms");
+    insert(1, 1000, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+
+    // the derived series are deleted with their source series
+    execute("DELETE TIMESERIES root.vehicle.d0.s0");
+    RollupManager.getInstance().waitForRefresh();
+    assertFalse(MManager.getInstance().pathExist(DERIVED_COUNT.getFullPath()));
+    assertTrue(MManager.getInstance()
+        .pathExist(Rollup.getDerivedPath(new Path("root.vehicle.d0.s1"), 10, "count").getFullPath()));
+    assertEquals(Long.MIN_VALUE, RollupManager.getInstance().getMaterializedTime(S0, 10));
+    check("select count(s1), avg(s1) from root.vehicle.d0", 0, 999, 50, 50, true);
+
+    // a series created again is rolled up from the new data
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    insert(1, 500, 1);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    RollupManager.getInstance().waitForRefresh();
+    check(0, 999, 50, 50, true);
+  }
+
+  private void check(long startTime, long endTime, long unit, long slidingStep, boolean routed)
+      throws Exception {
+    check(SELECT, startTime, endTime, unit, slidingStep, routed);
+  }
+
+  private void check(String select, long startTime, long endTime, long unit, long slidingStep,
+      boolean routed) throws Exception {
+    String groupBy = String.format(" GROUP BY ([%d, %d], %dms, %dms)", startTime, endTime, unit,
+        slidingStep);
+    QueryDataSet dataSet = query(select + groupBy);
+    assertEquals(routed, dataSet instanceof RollupGroupByDataSet);
+    // the time filter prevents the query from being routed to the rollups
+    QueryDataSet expectedDataSet = query(select + " where time >= 0" + groupBy);
+    while (expectedDataSet.hasNext()) {
+      assertTrue(dataSet.hasNext());
+      assertEquals(expectedDataSet.next().toString(), dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
+  /**
+   * insert the points at startTime, startTime + step, ..., before endTime + 1.
+   */
+  private void insert(long startTime, long endTime, long step) throws Exception {
+    for (long time = startTime; time <= endTime; time += step) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,%s)", time,
+          time % 97 - 40, time % 13 * 0.5));
+    }
+  }
+
+  private static int count(QueryDataSet dataSet) throws Exception {
+    int count = 0;
+    while (dataSet.hasNext()) {
+      dataSet.next();
+      count++;
+    }
+    return count;
+  }
+
+  private QueryDataSet query(String sql) throws Exception {
+    return queryExecutor
+        .processQuery(processor.parseSQLToPhysicalPlan(sql), EnvironmentUtils.TEST_QUERY_CONTEXT);
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
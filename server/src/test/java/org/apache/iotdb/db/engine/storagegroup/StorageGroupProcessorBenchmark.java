@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.MetadataManagerHelper;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * Multi-threaded insert benchmark of a storage group. Each thread inserts into its own devices,
+ * so the throughput should scale with the number of threads until the WAL or the memory becomes
+ * the bottleneck.
+ */
+public class StorageGroupProcessorBenchmark {
+
+  private static String storageGroup = "root.vehicle.d0";
+  private static String systemDir = TestConstant.OUTPUT_DATA_DIR.concat("info");
+  private static int numOfDevice = 64;
+  private static int numOfPointPerDevice = 2000;
+  private static int[] threadNums = {1, 2, 4, 8};
+
+  private static String[] measurements = {"s0", "s1"};
+  private static TSDataType[] dataTypes = {TSDataType.INT32, TSDataType.INT64};
+
+  public static void main(String[] args) throws Exception {
+    MetadataManagerHelper.initMetadata();
+    EnvironmentUtils.envSetUp();
+    ActiveTimeSeriesCounter.getInstance().init(storageGroup);
+    try {
+      for (int threadNum : threadNums) {
+        StorageGroupProcessor processor = new StorageGroupProcessor(systemDir, storageGroup,
+            new DirectFlushPolicy());
+        long elapsed = insert(processor, threadNum);
+        processor.syncDeleteDataFiles();
+        long numOfPoint = (long) numOfDevice * numOfPointPerDevice * measurements.length;
+        System.out.println(String.format(
+            "Num of threads: %d, Num of devices: %d, Num of points: %d, "
+                + "The total time: %d ms, Throughput: %d points/s. ",
+            threadNum, numOfDevice, numOfPoint, elapsed, numOfPoint * 1000 / Math.max(1,
+                elapsed)));
+      }
+    } finally {
+      EnvironmentUtils.cleanEnv();
+      EnvironmentUtils.cleanDir(TestConstant.OUTPUT_DATA_DIR);
+    }
+  }
+
+  private static long insert(StorageGroupProcessor processor, int threadNum) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    final long startTime = System.currentTimeMillis();
+    for (int i = 0; i < threadNum; i++) {
+      int threadId = i;
+      futures.add(pool.submit(() -> {
+        // the thread owns the devices whose ids are congruent to threadId modulo threadNum
+        for (int time = 1; time <= numOfPointPerDevice; time++) {
+          for (int d = threadId; d < numOfDevice; d += threadNum) {
+            InsertPlan plan = new InsertPlan(storageGroup + ".device" + d, time, measurements,
+                new String[]{String.valueOf(time), String.valueOf(time)});
+            plan.setDataTypes(dataTypes);
+            processor.insert(plan);
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    final long endTime = System.currentTimeMillis();
+    pool.shutdown();
+    return endTime - startTime;
+  }
+}
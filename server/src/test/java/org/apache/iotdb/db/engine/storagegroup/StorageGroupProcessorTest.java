@@ -25,6 +25,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.constant.TestConstant;
@@ -121,6 +124,46 @@ public class StorageGroupProcessorTest {
     Assert.assertEquals(0, pair.right.size());
   }
 
+  @Test
+  public void testConcurrentInsert() throws Exception {
+    int threadNum = 4;
+    int pointNum = 1000;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      String device = deviceId + ".t" + i;
+      futures.add(pool.submit(() -> {
+        for (int j = 1; j <= pointNum; j++) {
+          TSRecord record = new TSRecord(j, device);
+          record.addTuple(
+              DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+          processor.insert(new InsertPlan(record));
+        }
+        return null;
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    pool.shutdown();
+
+    Assert.assertEquals(1, processor.getWorkSequenceTsFileProcessors().size());
+    TsFileProcessor tsFileProcessor = processor.getWorkSequenceTsFileProcessors().iterator()
+        .next();
+    for (int i = 0; i < threadNum; i++) {
+      Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair = tsFileProcessor
+          .query(deviceId + ".t" + i, measurementId, TSDataType.INT32, Collections.emptyMap(),
+              new QueryContext());
+      List<TimeValuePair> timeValuePairs = pair.left.getSortedTimeValuePairList();
+      Assert.assertEquals(pointNum, timeValuePairs.size());
+      long time = 1;
+      for (TimeValuePair timeValuePair : timeValuePairs) {
+        Assert.assertEquals(time, timeValuePair.getTimestamp());
+        Assert.assertEquals(time++, timeValuePair.getValue().getInt());
+      }
+    }
+  }
+
   @Test
   public void testSequenceSyncClose() throws QueryProcessException {
     for (int j = 1; j <= 10; j++) {
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.tier.TsFileMigrator;
+import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.storageGroup.StorageGroupProcessorException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TierMigrationTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private String sg1 = "root.TIER_SG1";
+  private String s1 = "s1";
+  private StorageGroupProcessor storageGroupProcessor;
+  private String coldDir;
+  private long prevColdDataAgeThreshold;
+  private long initTime;
+
+  @Before
+  public void setUp()
+      throws MetadataException, IOException, StartupException, PathException, StorageGroupProcessorException {
+    EnvironmentUtils.envSetUp();
+    coldDir = config.getBaseDir() + File.separator + "cold";
+    config.setColdDataDirs(new String[]{coldDir});
+    prevColdDataAgeThreshold = config.getColdDataAgeThresholdMs();
+    config.setColdDataAgeThresholdMs(0);
+    DirectoryManager.getInstance().updateColdFileFolders();
+
+    MManager.getInstance().setStorageGroupToMTree(sg1);
+    MManager.getInstance().addPathToMTree(sg1 + "." + s1, TSDataType.INT64, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, Collections.emptyMap());
+    storageGroupProcessor = new StorageGroupProcessor(config.getSystemDir(), sg1,
+        new DirectFlushPolicy());
+    storageGroupProcessor.addMeasurement(s1, TSDataType.INT64, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, Collections.emptyMap());
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+    config.setColdDataDirs(new String[0]);
+    config.setColdDataAgeThresholdMs(prevColdDataAgeThreshold);
+    config.setColdDataCompressor(null);
+    DirectoryManager.getInstance().updateColdFileFolders();
+    EnvironmentUtils.cleanEnv();
+    FileUtils.deleteDirectory(new File(coldDir));
+  }
+
+  private void prepareData() throws QueryProcessException {
+    InsertPlan insertPlan = new InsertPlan();
+    insertPlan.setDeviceId(sg1);
+    insertPlan.setMeasurements(new String[]{s1});
+    insertPlan.setValues(new String[]{"1"});
+    insertPlan.setDataTypes(new TSDataType[]{TSDataType.INT64});
+
+    initTime = System.currentTimeMillis();
+    // sequence data
+    for (int i = 1000; i < 2000; i++) {
+      insertPlan.setTime(initTime - 2000 + i);
+      storageGroupProcessor.insert(insertPlan);
+      if ((i + 1) % 300 == 0) {
+        storageGroupProcessor.putAllWorkingTsFileProcessorIntoClosingList();
+      }
+    }
+    // unsequence data
+    for (int i = 0; i < 1000; i++) {
+      insertPlan.setTime(initTime - 2000 + i);
+      storageGroupProcessor.insert(insertPlan);
+      if ((i + 1) % 300 == 0) {
+        storageGroupProcessor.putAllWorkingTsFileProcessorIntoClosingList();
+      }
+    }
+    storageGroupProcessor.putAllWorkingTsFileProcessorIntoClosingList();
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+  }
+
+  private boolean isCold(TsFileResource resource) {
+    return DirectoryManager.getInstance()
+        .isColdFolder(resource.getFile().getParentFile().getParentFile().getParentFile());
+  }
+
+  private int countSeqPoints() throws IOException {
+    SeqResourceIterateReader reader = new SeqResourceIterateReader(new Path(sg1, s1),
+        storageGroupProcessor.getSequenceFileTreeSet(), null,
+        new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID));
+    int cnt = 0;
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      cnt += batchData.length();
+    }
+    reader.close();
+    return cnt;
+  }
+
+  @Test
+  public void testMigration() throws QueryProcessException, IOException {
+    prepareData();
+    // the modifications are moved with the files
+    storageGroupProcessor.delete(sg1, s1, initTime - 500);
+    List<TsFileResource> seqFiles = storageGroupProcessor.getSequenceFileTreeSet();
+    List<TsFileResource> unseqFiles = storageGroupProcessor.getUnSequenceFileList();
+    assertEquals(4, seqFiles.size());
+    assertEquals(4, unseqFiles.size());
+    assertEquals(499, countSeqPoints());
+
+    storageGroupProcessor.migrateColdFiles();
+
+    assertEquals(seqFiles, storageGroupProcessor.getSequenceFileTreeSet());
+    assertEquals(unseqFiles, storageGroupProcessor.getUnSequenceFileList());
+    for (TsFileResource resource : seqFiles) {
+      assertTrue(isCold(resource));
+      assertTrue(resource.getFile().exists());
+      assertTrue(resource.fileExists());
+      assertFalse(resource.isMerging());
+    }
+    for (TsFileResource resource : unseqFiles) {
+      assertTrue(isCold(resource));
+      assertTrue(resource.getFile().exists());
+    }
+    for (String hotFolder : config.getDataDirs()) {
+      assertTrue(FileUtils.listFiles(new File(hotFolder), null, true).isEmpty());
+    }
+    assertEquals(499, countSeqPoints());
+  }
+
+  @Test
+  public void testNotOldEnough() throws QueryProcessException {
+    prepareData();
+    config.setColdDataAgeThresholdMs(100 * 1000L);
+    storageGroupProcessor.migrateColdFiles();
+    for (TsFileResource resource : storageGroupProcessor.getSequenceFileTreeSet()) {
+      assertFalse(isCold(resource));
+    }
+  }
+
+  @Test
+  public void testRecompression() throws QueryProcessException, IOException {
+    prepareData();
+    config.setColdDataCompressor(CompressionType.GZIP);
+    storageGroupProcessor.migrateColdFiles();
+
+    for (TsFileResource resource : storageGroupProcessor.getSequenceFileTreeSet()) {
+      assertTrue(isCold(resource));
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(
+          resource.getFile().getPath())) {
+        for (ChunkGroupMetaData chunkGroupMetaData : reader
+            .getSortedChunkGroupMetaDataListByDeviceIds()) {
+          for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+            assertEquals(CompressionType.GZIP,
+                reader.readMemChunk(chunkMetaData).getHeader().getCompressionType());
+          }
+        }
+      }
+    }
+    assertEquals(1000, countSeqPoints());
+  }
+
+  @Test
+  public void testRecover()
+      throws QueryProcessException, IOException, StorageGroupProcessorException, DiskSpaceInsufficientException {
+    prepareData();
+    storageGroupProcessor.migrateColdFiles();
+    List<TsFileResource> seqFiles = storageGroupProcessor.getSequenceFileTreeSet();
+
+    // a file was copied to the cold folder but the system crashed before the old one was removed
+    File coldFile = seqFiles.get(0).getFile();
+    File hotFile = new File(new File(new File(DirectoryManager.getInstance()
+        .getNextFolderForSequenceFile(), sg1), coldFile.getParentFile().getName()),
+        coldFile.getName());
+    FileUtils.copyFile(coldFile, hotFile);
+    FileUtils.copyFile(new File(coldFile.getPath() + TsFileResource.RESOURCE_SUFFIX),
+        new File(hotFile.getPath() + TsFileResource.RESOURCE_SUFFIX));
+    // another file was being copied
+    File migratingFile = new File(seqFiles.get(1).getFile().getPath()
+        + TsFileMigrator.MIGRATING_SUFFIX);
+    FileUtils.copyFile(seqFiles.get(1).getFile(), migratingFile);
+
+    storageGroupProcessor = new StorageGroupProcessor(config.getSystemDir(), sg1,
+        new DirectFlushPolicy());
+    List<TsFileResource> recoveredFiles = storageGroupProcessor.getSequenceFileTreeSet();
+    assertEquals(seqFiles.size(), recoveredFiles.size());
+    for (int i = 0; i < seqFiles.size(); i++) {
+      assertEquals(seqFiles.get(i).getFile().getName(), recoveredFiles.get(i).getFile().getName());
+      assertTrue(isCold(recoveredFiles.get(i)));
+    }
+    assertFalse(hotFile.exists());
+    assertFalse(migratingFile.exists());
+    assertEquals(1000, countSeqPoints());
+  }
+}
@@ -258,17 +258,32 @@ public class IOTDBGroupByInnerIntervalIT {
 
   @Test
   public void slidingStepLessThanTimeInterval() {
+    // counts of the overlapped windows [t, t + 2) of the points with timestamp > 3
+    long[] counts = new long[]{0, 0, 1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1, 0, 0, 1, 2,
+        2, 2, 2, 2, 2, 2, 1, 0};
 
     try (Connection connection = DriverManager.
             getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
          Statement statement = connection.createStatement()) {
       boolean hasResultSet = statement.execute(
-              "select count(temperature), sum(temperature), avg(temperature) from "
-                      + "root.ln.wf01.wt01 where time > 3"
+              "select count(temperature) from "
+                      + "root.ln.wf01.wt01 where time > 3 "
                       + "GROUP BY ([1, 30], 2ms, 1ms)");
-      fail();
+
+      assertTrue(hasResultSet);
+      int cnt;
+      try (ResultSet resultSet = statement.getResultSet()) {
+        cnt = 0;
+        while (resultSet.next()) {
+          String ans = resultSet.getString(TIMESTAMP_STR) + "," + resultSet
+                  .getString(count("root.ln.wf01.wt01.temperature"));
+          assertEquals((cnt + 1) + "," + counts[cnt], ans);
+          cnt++;
+        }
+        assertEquals(counts.length, cnt);
+      }
     } catch (Exception e) {
-      assertTrue(e instanceof IoTDBSQLException);
+      fail(e.getMessage());
     }
   }
 
@@ -283,7 +298,7 @@ public class IOTDBGroupByInnerIntervalIT {
       }
 
     } catch (Exception e) {
-      e.printStackTrace();
+      fail(e.getMessage());
     }
   }
 
@@ -20,6 +20,9 @@ package org.apache.iotdb.db.metadata;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -31,10 +34,12 @@ import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.cache.CacheException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -422,4 +427,71 @@ public class MManagerBasicTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void testShareSchema() throws MetadataException, PathException {
+    MManager manager = MManager.getInstance();
+    manager.setStorageGroupToMTree("root.laptop");
+    manager.addPathToMTree("root.laptop.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    manager.addPathToMTree("root.laptop.d2.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    Map<String, String> props = Collections.singletonMap("max_point_number", "3");
+    manager.addPathToMTree("root.laptop.d3.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, props);
+
+    // the leaves of the same measurement share the schema unless their props are different
+    MeasurementSchema schema = manager.getNodeByPath("root.laptop.d1.s1").getSchema();
+    assertSame(schema, manager.getNodeByPath("root.laptop.d2.s1").getSchema());
+    MeasurementSchema other = manager.getNodeByPath("root.laptop.d3.s1").getSchema();
+    assertNotSame(schema, other);
+    assertEquals(props, other.getProps());
+
+    manager.deletePaths(Collections.singletonList(new Path("root.laptop.d1.s1")), false);
+    assertSame(schema, manager.getNodeByPath("root.laptop.d2.s1").getSchema());
+    assertEquals(2, manager.getSeriesNumber("root.laptop"));
+  }
+
+  @Test
+  public void testDeviceIndexLookup() {
+    MManager manager = MManager.getInstance();
+    String deviceId = "root.laptop.never_written_" + System.nanoTime();
+    // looking up a device does not number it
+    assertEquals(-1, manager.getDeviceIndexIfPresent(deviceId));
+    assertEquals(-1, manager.getDeviceIndexIfPresent(deviceId));
+
+    int deviceIndex = manager.getDeviceIndex(deviceId);
+    assertEquals(deviceIndex, manager.getDeviceIndexIfPresent(deviceId));
+  }
+
+  @Test
+  public void testDeviceIndexRelease() throws MetadataException, PathException, CacheException {
+    MManager manager = MManager.getInstance();
+    manager.setStorageGroupToMTree("root.laptop");
+    manager.setStorageGroupToMTree("root.desktop");
+    manager.addPathToMTree("root.laptop.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.addPathToMTree("root.desktop.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+
+    // the number is cached on the device node
+    MNode device = manager.getNodeByPathFromCache("root.laptop.d1");
+    int deviceIndex = manager.getDeviceIndex(device);
+    assertEquals(deviceIndex, manager.getDeviceIndex(device));
+    assertEquals(deviceIndex, manager.getDeviceIndexIfPresent("root.laptop.d1"));
+    int otherIndex = manager.getDeviceIndex(manager.getNodeByPathFromCache("root.desktop.d1"));
+
+    // the numbers are released with the emptied and the deleted storage groups
+    manager.deletePaths(Collections.singletonList(new Path("root.laptop.d1.s1")), false);
+    assertEquals(-1, manager.getDeviceIndexIfPresent("root.laptop.d1"));
+    manager.deleteStorageGroupsFromMTree(Collections.singletonList(new Path("root.desktop")));
+    assertEquals(-1, manager.getDeviceIndexIfPresent("root.desktop.d1"));
+
+    // a released number is not reused
+    manager.addPathToMTree("root.laptop.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    int newIndex = manager.getDeviceIndex(manager.getNodeByPathFromCache("root.laptop.d1"));
+    assertNotEquals(deviceIndex, newIndex);
+    assertNotEquals(otherIndex, newIndex);
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import org.apache.iotdb.db.engine.cache.RamUsageEstimator;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+/**
+ * Measures the memory that the MTree takes for each time series. The devices of a storage group
+ * usually have the same measurements, e.g., the sensors of one kind of vehicle.
+ */
+public class MTreeMemoryBenchmark {
+
+  private static String storageGroup = "root.vehicle";
+  private static int numOfDevice = 10000;
+  private static int numOfMeasurementPerDevice = 10;
+
+  public static void main(String[] args) throws Exception {
+    EnvironmentUtils.envSetUp();
+    MManager mmanager = MManager.getInstance();
+    try {
+      mmanager.setStorageGroupToMTree(storageGroup);
+      long emptySize = RamUsageEstimator.sizeOf(mmanager.getNodeByPath(storageGroup));
+      for (int d = 0; d < numOfDevice; d++) {
+        for (int m = 0; m < numOfMeasurementPerDevice; m++) {
+          mmanager.addPathToMTree(storageGroup + ".d" + d + ".s" + m, TSDataType.INT64,
+              TSEncoding.RLE, CompressionType.SNAPPY, null);
+        }
+      }
+      long numOfSeries = (long) numOfDevice * numOfMeasurementPerDevice;
+      long size = RamUsageEstimator.sizeOf(mmanager.getNodeByPath(storageGroup)) - emptySize;
+      System.out.println(String.format(
+          "Num of devices: %d, Num of series: %d, MTree size: %s, Memory per series: %d bytes",
+          numOfDevice, numOfSeries, RamUsageEstimator.humanReadableUnits(size),
+          size / numOfSeries));
+    } finally {
+      EnvironmentUtils.cleanEnv();
+    }
+  }
+}
@@ -24,9 +24,12 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
@@ -361,4 +364,62 @@ public class MTreeTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void testManyChildren() throws PathException, StorageGroupException {
+    MTree root = new MTree("root");
+    root.setStorageGroup("root.laptop");
+    int num = 100;
+    for (int i = 0; i < num; i++) {
+      root.addTimeseriesPath("root.laptop.d1.s" + i, TSDataType.INT32, TSEncoding.RLE,
+          CompressionType.SNAPPY, Collections.emptyMap());
+    }
+    for (int i = 0; i < num; i += 2) {
+      root.deletePath("root.laptop.d1.s" + i);
+    }
+
+    MNode device = root.getNode("root.laptop.d1");
+    assertEquals(num / 2, device.getChildren().size());
+    int i = 1;
+    // the children are kept in insertion order
+    for (Map.Entry<String, MNode> entry : device.getChildren().entrySet()) {
+      assertEquals("s" + i, entry.getKey());
+      assertEquals("s" + i, entry.getValue().getName());
+      i += 2;
+    }
+    for (i = 0; i < num; i++) {
+      assertEquals(i % 2 == 1, root.isPathExist("root.laptop.d1.s" + i));
+      assertEquals(i % 2 == 1, device.hasChild(new String("s" + i)));
+    }
+    assertEquals("root.laptop.d1.s1", device.getChild("s1").getFullPath());
+  }
+
+  @Test
+  public void testReservedNodes() throws PathException, StorageGroupException {
+    MTree root = new MTree("root");
+    root.setStorageGroup("root.laptop");
+    root.addTimeseriesPath("root.laptop.d1.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    root.addTimeseriesPath("root.laptop.d1.__rollup_10.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    // only the rollup nodes are reserved
+    root.addTimeseriesPath("root.laptop.__d2.s1", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, Collections.emptyMap());
+
+    // the reserved nodes are only matched by their names
+    Set<String> paths = new HashSet<>(Arrays.asList("root.laptop.d1.s1", "root.laptop.__d2.s1"));
+    assertEquals(paths, new HashSet<>(root.getAllPathInList("root.laptop")));
+    assertEquals(paths, new HashSet<>(root.getAllPathInList("root.laptop.*.*")));
+    assertEquals(Collections.singletonList("root.laptop.d1.__rollup_10.s1"),
+        root.getAllPathInList("root.laptop.d1.__rollup_10"));
+    assertEquals(3, root.getAllPath("root.laptop.*", true).get("root.laptop").size());
+    assertEquals(2, root.getShowTimeseriesPath("root.laptop").size());
+    assertEquals(new HashSet<>(Arrays.asList("root.laptop.d1", "root.laptop.__d2")),
+        new HashSet<>(root.getDevices("root.laptop")));
+    assertEquals(Collections.singleton("root.laptop.d1.s1"),
+        root.getChildNodePathInNextLevel("root.laptop.d1"));
+    assertTrue(MetaUtils.containsReserved("root.laptop.d1.__rollup_10.s1"));
+    assertFalse(MetaUtils.containsReserved("root.laptop.__d2.s1"));
+    assertFalse(MetaUtils.containsReserved("root.laptop.d1__rollup_10.s1"));
+  }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetadataSnapshotTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevSnapshotInterval;
+  private MManager mmanager;
+
+  @Before
+  public void setUp() throws Exception {
+    prevSnapshotInterval = config.getMlogSnapshotInterval();
+    config.setMlogSnapshotInterval(0);
+    EnvironmentUtils.envSetUp();
+    mmanager = MManager.getInstance();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setMlogSnapshotInterval(prevSnapshotInterval);
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    MGraph mgraph = new MGraph(MetadataConstant.ROOT);
+    mgraph.setStorageGroup("root.vehicle.d0");
+    mgraph.setStorageGroup("root.vehicle.d1");
+    Map<String, String> props = new HashMap<>();
+    props.put("max_point_number", "3");
+    mgraph.addPathToMTree("root.vehicle.d0.s0", TSDataType.FLOAT, TSEncoding.RLE,
+        CompressionType.SNAPPY, props);
+    mgraph.addPathToMTree("root.vehicle.d0.s1", TSDataType.INT64, TSEncoding.TS_2DIFF,
+        CompressionType.UNCOMPRESSED, null);
+    mgraph.addPathToMTree("root.vehicle.d1.g.s0", TSDataType.TEXT, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, null);
+    mgraph.getMTree().getNode("root.vehicle.d0").setDataTTL(1000);
+    mgraph.addAPTree("location");
+    mgraph.addPathToPTree("location.beijing.haidian");
+    mgraph.linkMNodeToPTree("location.beijing.haidian", "root.vehicle.d0.s0");
+
+    File logFile = new File(TestConstant.OUTPUT_DATA_DIR, "snapshot-test-mlog.txt");
+    File snapshotFile = new File(TestConstant.OUTPUT_DATA_DIR, "snapshot-test.snapshot");
+    logFile.getParentFile().mkdirs();
+    try (FileWriter writer = new FileWriter(logFile)) {
+      writer.write("some logged operations\n");
+    }
+    MetadataSnapshot.write(mgraph, logFile, snapshotFile);
+
+    MetadataSnapshot snapshot = MetadataSnapshot.read(snapshotFile, logFile);
+    assertNotNull(snapshot);
+    assertEquals(logFile.length(), snapshot.getLogLength());
+    MGraph recovered = snapshot.getMGraph();
+    assertEquals(mgraph.toString(), recovered.toString());
+    assertEquals(mgraph.getPTreeMap().get("location").toString(),
+        recovered.getPTreeMap().get("location").toString());
+
+    MNode sgNode = recovered.getMTree().getNode("root.vehicle.d0");
+    assertTrue(sgNode.isStorageGroup());
+    assertEquals(1000, sgNode.getDataTTL());
+    assertEquals(2, recovered.getSchemaMapForOneFileNode("root.vehicle.d0").size());
+    assertEquals(1, (int) recovered.getNumSchemaMapForOneFileNode("root.vehicle.d1").get("s0"));
+    MNode leaf = recovered.getMTree().getNode("root.vehicle.d0.s0");
+    assertEquals("root.vehicle.d0", leaf.getDataFileName());
+    assertEquals(CompressionType.SNAPPY, leaf.getSchema().getCompressor());
+    assertEquals(props, leaf.getSchema().getProps());
+    assertEquals("root.vehicle.d1",
+        recovered.getMTree().getNode("root.vehicle.d1.g.s0").getDataFileName());
+
+    // a snapshot of another mlog is never applied
+    try (FileWriter writer = new FileWriter(logFile)) {
+      writer.write("other logged operations\n");
+    }
+    assertNull(MetadataSnapshot.read(snapshotFile, logFile));
+    assertTrue(logFile.delete());
+    assertNull(MetadataSnapshot.read(snapshotFile, logFile));
+  }
+
+  @Test
+  public void testRecoverFromSnapshotAndLog() throws Exception {
+    mmanager.setStorageGroupToMTree("root.vehicle.d0");
+    mmanager.addPathToMTree("root.vehicle.d0.s0", TSDataType.INT32, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    mmanager.addPathToMTree("root.vehicle.d0.s1", TSDataType.INT64, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    mmanager.setTTL("root.vehicle.d0", 1000);
+    mmanager.createSnapshot();
+
+    // operations after the snapshot are replayed from the mlog
+    mmanager.setStorageGroupToMTree("root.vehicle.d1");
+    mmanager.addPathToMTree("root.vehicle.d1.s0", TSDataType.DOUBLE, TSEncoding.GORILLA,
+        CompressionType.SNAPPY, null);
+    mmanager.deletePaths(Collections.singletonList(new Path("root.vehicle.d0.s1")), false);
+    String metadata = mmanager.getMetadataInString();
+
+    mmanager.reload();
+    assertEquals(metadata, mmanager.getMetadataInString());
+    assertEquals(1000, mmanager.getNodeByPath("root.vehicle.d0").getDataTTL());
+    assertEquals(1, mmanager.getSeriesNumber("root.vehicle.d0"));
+    assertEquals(1, mmanager.getSeriesNumber("root.vehicle.d1"));
+    assertFalse(mmanager.pathExist("root.vehicle.d0.s1"));
+    assertEquals(TSDataType.DOUBLE, mmanager.getSeriesType("root.vehicle.d1.s0"));
+
+    // the recovered metadata is still logged
+    mmanager.addPathToMTree("root.vehicle.d1.s1", TSDataType.INT64, TSEncoding.RLE,
+        CompressionType.SNAPPY, null);
+    mmanager.reload();
+    assertTrue(mmanager.pathExist("root.vehicle.d1.s1"));
+  }
+
+  @Test
+  public void testPeriodicSnapshot() throws Exception {
+    config.setMlogSnapshotInterval(3);
+    File snapshotFile = new File(config.getSchemaDir(), MetadataConstant.METADATA_SNAPSHOT);
+
+    mmanager.setStorageGroupToMTree("root.vehicle.d0");
+    mmanager.addPathToMTree("root.vehicle.d0.s0", "INT32", "RLE");
+    assertFalse(snapshotFile.exists());
+    mmanager.addPathToMTree("root.vehicle.d0.s1", "INT64", "RLE");
+    // the snapshot is written in the background
+    mmanager.waitForSnapshot();
+    assertTrue(snapshotFile.exists());
+
+    mmanager.addPathToMTree("root.vehicle.d0.s2", "INT64", "RLE");
+    String metadata = mmanager.getMetadataInString();
+    mmanager.reload();
+    assertEquals(metadata, mmanager.getMetadataInString());
+  }
+
+  @Test
+  public void testIgnoreStaleSnapshot() throws Exception {
+    mmanager.setStorageGroupToMTree("root.vehicle.d0");
+    mmanager.addPathToMTree("root.vehicle.d0.s0", "INT32", "RLE");
+    mmanager.createSnapshot();
+
+    // the mlog is replaced, e.g., restored from a backup, so the snapshot does not match it
+    mmanager.clear();
+    File logFile = new File(config.getSchemaDir(), MetadataConstant.METADATA_LOG);
+    try (FileWriter writer = new FileWriter(logFile)) {
+      writer.write(MetadataOperationType.SET_STORAGE_GROUP_TO_MTREE + ",root.vehicle.d1\n");
+    }
+
+    mmanager.reload();
+    assertFalse(mmanager.pathExist("root.vehicle.d0"));
+    assertTrue(mmanager.pathExist("root.vehicle.d1"));
+  }
+}
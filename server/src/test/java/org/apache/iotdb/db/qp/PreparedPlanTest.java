@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreparedPlanTest {
+
+  private AbstractQueryProcessExecutor queryExecutor = new QueryProcessExecutor();
+  private QueryProcessor processor = new QueryProcessor(queryExecutor);
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d1.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    PreparedPlan insert = prepare("insert into root.vehicle.?(timestamp, ?) values(?, ?)");
+    assertEquals(4, insert.getParameterCount());
+    for (int i = 1; i <= 10; i++) {
+      String device = i % 2 == 0 ? "d0" : "d1";
+      InsertPlan plan = (InsertPlan) insert
+          .bind(Arrays.asList(device, "s0", Integer.toString(i), Integer.toString(i * 10)));
+      assertEquals("root.vehicle." + device, plan.getDeviceId());
+      queryExecutor.processNonQuery(plan);
+    }
+    assertEquals(5, count("select s0 from root.vehicle.d0"));
+    assertEquals(5, count("select s0 from root.vehicle.d1"));
+
+    // a time may be given as a date
+    assertEquals(100, ((InsertPlan) insert
+        .bind(Arrays.asList("d0", "s0", "1970-01-01T08:00:00.100+08:00", "1"))).getTime());
+  }
+
+  @Test
+  public void testQuery() throws Exception {
+    for (int i = 1; i <= 10; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i * 10));
+      execute(String.format("insert into root.vehicle.d1(timestamp,s0) values(%d,%d)", i, i));
+    }
+    PreparedPlan query = prepare("select ? from root.vehicle.? where time > ? and s0 <= ?");
+    assertEquals(4, query.getParameterCount());
+    assertEquals(5, count(query.bind(Arrays.asList("s0", "d0", "5", "100"))));
+    assertEquals(3, count(query.bind(Arrays.asList("s0", "d0", "5", "80"))));
+    assertEquals(2, count(query.bind(Arrays.asList("s0", "d1", "8", "100"))));
+    // a time may be given as a date string
+    assertEquals(2, count(query
+        .bind(Arrays.asList("s0", "d1", "'1970-01-01T08:00:00.008+08:00'", "100"))));
+
+    query = prepare("select s0 from root.vehicle.d0 where s0 in (?, ?)");
+    assertEquals(2, count(query.bind(Arrays.asList("10", "30"))));
+    assertEquals(1, count(query.bind(Arrays.asList("20", "25"))));
+  }
+
+  @Test
+  public void testSchemaChange() throws Exception {
+    PreparedPlan query = prepare("select * from root.vehicle.?");
+    List<String> parameters = Collections.singletonList("d0");
+    assertEquals(1, query.bind(parameters).getPaths().size());
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=INT64, ENCODING=RLE");
+    // the cached plan is invalidated by the new series
+    assertEquals(2, query.bind(parameters).getPaths().size());
+  }
+
+  @Test
+  public void testInvalidParameters() throws Exception {
+    try {
+      processor.parseSQLToPhysicalPlan("select s0 from root.vehicle.d0 where time > ?");
+      fail();
+    } catch (ParseCancellationException e) {
+      // markers are only allowed in prepared statements
+    }
+    try {
+      prepare("CREATE TIMESERIES root.vehicle.d0.? WITH DATATYPE=INT64, ENCODING=RLE");
+      fail();
+    } catch (QueryProcessException e) {
+      // only queries and insertions have parameters
+    }
+
+    PreparedPlan query = prepare("select s0 from root.vehicle.? where time > ?");
+    try {
+      query.bind(Arrays.asList("d0", null));
+      fail();
+    } catch (QueryProcessException e) {
+      assertEquals("Parameter #2 is unset", e.getMessage());
+    }
+    try {
+      query.bind(Arrays.asList("*", "1"));
+      fail();
+    } catch (QueryProcessException e) {
+      // a path parameter is a single node
+    }
+    try {
+      query.bind(Arrays.asList("d0", "yesterday"));
+      fail();
+    } catch (QueryProcessException e) {
+      // not a time
+    }
+  }
+
+  private PreparedPlan prepare(String sql) throws QueryProcessException {
+    return processor.prepare(sql, ZoneId.systemDefault());
+  }
+
+  private int count(String sql) throws Exception {
+    return count(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  private int count(PhysicalPlan plan) throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      QueryDataSet dataSet = queryExecutor.processQuery(plan, new QueryContext(queryId));
+      int count = 0;
+      while (dataSet.hasNext()) {
+        dataSet.next();
+        count++;
+      }
+      return count;
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.qp.plan;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -31,6 +32,7 @@ import java.util.Set;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.SQLParserException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.qp.QueryProcessor;
 import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
@@ -43,6 +45,8 @@ import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DataAuthPlan;
+import org.apache.iotdb.db.qp.physical.sys.ExplainPlan;
+import org.apache.iotdb.db.qp.physical.sys.KillQueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.LoadConfigurationPlan;
 import org.apache.iotdb.db.qp.physical.sys.OperateFilePlan;
 import org.apache.iotdb.db.qp.physical.sys.PropertyPlan;
@@ -625,6 +629,24 @@ public class PhysicalPlanTest {
         filePath), plan.toString());
   }
 
+  @Test
+  public void testBulkLoadFiles() throws QueryProcessException {
+    String filePath = "data" + File.separator + "213213441243-1-2.tsfile";
+    String metadata = String.format("load bulk %s", filePath);
+    QueryProcessor processor = new QueryProcessor(new MemIntQpExecutor());
+    OperateFilePlan plan = (OperateFilePlan) processor.parseSQLToPhysicalPlan(metadata);
+    assertEquals(String.format(
+        "OperateFilePlan{file=%s, targetDir=null, autoCreateSchema=true, sgLevel=2, operatorType=BULK_LOAD_FILES}",
+        filePath), plan.toString());
+
+    metadata = String.format("load bulk %s false 3", filePath);
+    processor = new QueryProcessor(new MemIntQpExecutor());
+    plan = (OperateFilePlan) processor.parseSQLToPhysicalPlan(metadata);
+    assertEquals(String.format(
+        "OperateFilePlan{file=%s, targetDir=null, autoCreateSchema=false, sgLevel=3, operatorType=BULK_LOAD_FILES}",
+        filePath), plan.toString());
+  }
+
   @Test
   public void testRemoveFile() throws QueryProcessException {
     String filePath = "data" + File.separator + "213213441243-1-2.tsfile";
@@ -650,6 +672,33 @@ public class PhysicalPlanTest {
             targetDir), plan.toString());
   }
 
+  @Test
+  public void testKillQuery() throws QueryProcessException {
+    KillQueryPlan plan = (KillQueryPlan) processor.parseSQLToPhysicalPlan("kill query 12");
+    assertEquals(12, plan.getQueryId());
+    assertEquals("KILL QUERY 12", plan.toString());
+  }
+
+  @Test
+  public void testExplain() throws QueryProcessException {
+    ExplainPlan plan = (ExplainPlan) processor
+        .parseSQLToPhysicalPlan("explain analyze select s1 from root.vehicle.d1 where time > 10");
+    assertTrue(plan.isAnalyze());
+    assertTrue(plan.isQuery());
+    assertEquals(OperatorType.QUERY, plan.getQueryPlan().getOperatorType());
+    assertEquals("root.vehicle.d1.s1", plan.getPaths().get(0).getFullPath());
+
+    plan = (ExplainPlan) processor.parseSQLToPhysicalPlan("explain select s1 from root.vehicle.d1");
+    assertFalse(plan.isAnalyze());
+
+    try {
+      processor.parseSQLToPhysicalPlan("explain delete from root.vehicle.d1.s1 where time < 10");
+      fail();
+    } catch (SQLParserException e) {
+      assertEquals("EXPLAIN only supports select statements", e.getMessage());
+    }
+  }
+
   @Test
   public void testDeduplicatedPath() throws Exception {
     String sqlStr = "select * from root.sg.d1,root.sg.d1,root.sg.d1";
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneId;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.utils.MemIntQpExecutor;
+import org.junit.Test;
+
+public class InsertStatementParserTest {
+
+  private ParseDriver parseDriver = new ParseDriver();
+  private PhysicalGenerator physicalGenerator = new PhysicalGenerator(new MemIntQpExecutor());
+
+  @Test
+  public void testSimpleInsertions() throws Exception {
+    String[] statements = {
+        "insert into root.vehicle.d0(timestamp,s0) values(1,101)",
+        "INSERT INTO root.vehicle.d0 (TIMESTAMP, s0, s1, s2) VALUES (10, -1.5, 2e10, 'text')",
+        "  insert into root.vehicle.d0(time,s0,s1,s2,s3) values(2, .5, 1., -3.0E-3, \"a, b\")  ",
+        "insert\ninto\troot.vehicle.1.d0(timestamp,s0,s1) values(3,true,FALSE)",
+        "insert into ROOT.vehicle.d0(timestamp) values(4)",
+        "insert into root.vehicle.d0(timestamp,s0,s1) values(5,'中文',abc)"
+    };
+    for (String statement : statements) {
+      InsertPlan plan = InsertStatementParser.parse(statement);
+      assertNotNull(statement, plan);
+      assertEquals(statement, parseByGrammar(statement), plan);
+    }
+
+    InsertPlan plan = InsertStatementParser.parse(statements[1]);
+    assertEquals("root.vehicle.d0", plan.getDeviceId());
+    assertEquals(10, plan.getTime());
+    assertEquals("'text'", plan.getValues()[2]);
+
+    long now = System.currentTimeMillis();
+    plan = InsertStatementParser.parse("insert into root.vehicle.d0(timestamp,s0) values(now(),1)");
+    assertTrue(plan.getTime() >= now);
+  }
+
+  @Test
+  public void testOtherStatements() {
+    String[] statements = {
+        // not an insertion
+        "select s0 from root.vehicle.d0",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,2) limit 1",
+        // keywords and numbers are not identifiers
+        "insert into root.vehicle.time(timestamp,s0) values(1,2)",
+        "insert into root.vehicle.d0(timestamp,select) values(1,2)",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,2d)",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,1.e3)",
+        // the forms left to the grammar
+        "insert into root.vehicle.d0(timestamp,\"s0\") values(1,2)",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,'a\\'b')",
+        "insert into root.vehicle.d0(timestamp,s0) values(2019-01-01 00:00:00,2)",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,- 2)",
+        "insert into root . vehicle.d0(timestamp,s0) values(1,2)",
+        // the errors are reported by the grammar
+        "insert into root.vehicle.d0(timestamp,s0,s1) values(1,2)",
+        "insert into root.vehicle.d0(timestamp,s0) values(99999999999999999999,2)",
+        "insert into root.vehicle.d0(timestamp,s0) values(1,2"
+    };
+    for (String statement : statements) {
+      assertNull(statement, InsertStatementParser.parse(statement));
+    }
+  }
+
+  private PhysicalPlan parseByGrammar(String statement) throws Exception {
+    return physicalGenerator
+        .transformToPhysicalPlan(parseDriver.parse(statement, ZoneId.systemDefault()));
+  }
+}
@@ -22,12 +22,19 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -39,16 +46,19 @@ public class FileReaderManagerTest {
 
   private IoTDBConfig dbConfig = IoTDBDescriptor.getInstance().getConfig();
   private long cacheFileReaderClearPeriod;
+  private int maxOpenedFileReaderNum;
 
   @Before
   public void setUp() {
     cacheFileReaderClearPeriod = dbConfig.getCacheFileReaderClearPeriod();
+    maxOpenedFileReaderNum = dbConfig.getMaxOpenedFileReaderNum();
     dbConfig.setCacheFileReaderClearPeriod(3000);
   }
 
   @After
   public void tearDown() {
     dbConfig.setCacheFileReaderClearPeriod(cacheFileReaderClearPeriod);
+    dbConfig.setMaxOpenedFileReaderNum(maxOpenedFileReaderNum);
   }
 
   @Test
@@ -142,4 +152,97 @@ public class FileReaderManagerTest {
       }
     }
   }
+
+  @Test
+  public void testEviction() throws IOException {
+    FileReaderManager manager = FileReaderManager.getInstance();
+    manager.closeAndRemoveAllOpenedReaders();
+    dbConfig.setMaxOpenedFileReaderNum(5);
+    TsFileResource[] tsFileResources = createFiles();
+    long waitCount = manager.getFileReaderWaitCount();
+
+    // the first 3 files are used by a query
+    for (int i = 1; i <= 3; i++) {
+      manager.increaseFileReaderReference(tsFileResources[i], false);
+      manager.get(tsFileResources[i], false);
+    }
+    for (int i = 4; i <= MAX_FILE_SIZE; i++) {
+      manager.get(tsFileResources[i], false);
+      Assert.assertTrue(manager.getOpenedFileReaderNum() <= 5);
+    }
+    // the referenced files and the recently used files are kept
+    for (int i = 1; i <= 3; i++) {
+      Assert.assertTrue(manager.contains(tsFileResources[i], false));
+    }
+    Assert.assertFalse(manager.contains(tsFileResources[4], false));
+    Assert.assertTrue(manager.contains(tsFileResources[MAX_FILE_SIZE], false));
+    Assert.assertEquals(5, manager.getOpenedFileReaderNum());
+    // no query waits for a file opened by itself
+    Assert.assertEquals(waitCount, manager.getFileReaderWaitCount());
+
+    // an evicted file is opened again
+    Assert.assertNotNull(manager.get(tsFileResources[4], false));
+    Assert.assertTrue(manager.contains(tsFileResources[4], false));
+    Assert.assertEquals(5, manager.getOpenedFileReaderNum());
+
+    for (int i = 1; i <= 3; i++) {
+      manager.decreaseFileReaderReference(tsFileResources[i], false);
+    }
+    manager.closeAndRemoveAllOpenedReaders();
+    Assert.assertEquals(0, manager.getOpenedFileReaderNum());
+    deleteFiles();
+  }
+
+  @Test
+  public void testConcurrentGet() throws Exception {
+    FileReaderManager manager = FileReaderManager.getInstance();
+    manager.closeAndRemoveAllOpenedReaders();
+    TsFileResource tsFile = createFiles()[1];
+    long waitCount = manager.getFileReaderWaitCount();
+
+    int threadNum = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<TsFileSequenceReader>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      futures.add(pool.submit(() -> {
+        startLatch.await();
+        return manager.get(tsFile, false);
+      }));
+    }
+    startLatch.countDown();
+    TsFileSequenceReader reader = futures.get(0).get();
+    for (Future<TsFileSequenceReader> future : futures) {
+      // the file is opened only once
+      Assert.assertSame(reader, future.get());
+    }
+    pool.shutdown();
+    Assert.assertEquals(1, manager.getOpenedFileReaderNum());
+    // only the threads other than the opening one may wait
+    Assert.assertTrue(manager.getFileReaderWaitCount() - waitCount < threadNum);
+
+    manager.closeAndRemoveAllOpenedReaders();
+    deleteFiles();
+  }
+
+  private TsFileResource[] createFiles() throws IOException {
+    String filePath = TestConstant.BASE_OUTPUT_PATH.concat("test.file");
+    TsFileResource[] tsFileResources = new TsFileResource[MAX_FILE_SIZE + 1];
+    for (int i = 1; i <= MAX_FILE_SIZE; i++) {
+      File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+      file.createNewFile();
+      tsFileResources[i] = new TsFileResource(file);
+    }
+    return tsFileResources;
+  }
+
+  private void deleteFiles() {
+    String filePath = TestConstant.BASE_OUTPUT_PATH.concat("test.file");
+    for (int i = 1; i <= MAX_FILE_SIZE; i++) {
+      File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+      if (file.exists() && !file.delete()) {
+        fail();
+      }
+    }
+  }
 }
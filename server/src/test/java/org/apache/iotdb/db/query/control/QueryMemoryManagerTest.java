@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.runtime.QueryAbortedException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryMemoryManagerTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private QueryMemoryManager manager = QueryMemoryManager.getInstance();
+  private QueryResourceManager resourceManager = QueryResourceManager.getInstance();
+
+  private long prevTotalMemory;
+  private long prevTimeout;
+  private long prevMaxWaitTime;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    prevTotalMemory = manager.getTotalQueryMemory();
+    prevTimeout = config.getQueryTimeoutInMs();
+    prevMaxWaitTime = config.getMaxQueryMemoryWaitTimeInMs();
+    manager.setTotalQueryMemory(1000);
+    config.setMaxQueryMemoryWaitTimeInMs(10000);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    manager.setTotalQueryMemory(prevTotalMemory);
+    config.setQueryTimeoutInMs(prevTimeout);
+    config.setMaxQueryMemoryWaitTimeInMs(prevMaxWaitTime);
+  }
+
+  @Test
+  public void testReserveAndRelease() throws StorageEngineException {
+    QueryContext context = new QueryContext(resourceManager.assignQueryId(true));
+    context.reserveMemory(600);
+    context.reserveMemory(400);
+    assertEquals(1000, manager.getUsedQueryMemory());
+    context.releaseMemory(400);
+    assertEquals(600, manager.getUsedQueryMemory());
+    // a batch that is already read is always accounted
+    context.forceReserveMemory(800);
+    assertEquals(1400, manager.getUsedQueryMemory());
+
+    resourceManager.endQuery(context.getQueryId());
+    assertEquals(0, manager.getUsedQueryMemory());
+    // the query is no longer restricted
+    context.reserveMemory(2000);
+    assertEquals(0, manager.getUsedQueryMemory());
+  }
+
+  @Test
+  public void testLargeReservation() throws StorageEngineException {
+    // a query larger than the pool is able to run alone
+    QueryContext context = new QueryContext(resourceManager.assignQueryId(true));
+    context.reserveMemory(2000);
+    assertEquals(2000, manager.getUsedQueryMemory());
+    resourceManager.endQuery(context.getQueryId());
+  }
+
+  @Test
+  public void testWaitForMemory() throws Exception {
+    QueryContext context1 = new QueryContext(resourceManager.assignQueryId(true));
+    QueryContext context2 = new QueryContext(resourceManager.assignQueryId(true));
+    context1.reserveMemory(800);
+
+    Future<?> future = executor.submit(() -> context2.reserveMemory(500));
+    waitForWaitingQuery();
+    assertFalse(future.isDone());
+
+    resourceManager.endQuery(context1.getQueryId());
+    future.get(10, TimeUnit.SECONDS);
+    assertEquals(500, manager.getUsedQueryMemory());
+    resourceManager.endQuery(context2.getQueryId());
+  }
+
+  @Test
+  public void testEndWaitingQuery() throws Exception {
+    QueryContext context1 = new QueryContext(resourceManager.assignQueryId(true));
+    QueryContext context2 = new QueryContext(resourceManager.assignQueryId(true));
+    context1.reserveMemory(800);
+
+    // a query ended while it waits, e.g., by a closed session, does not leak its reservation
+    Future<?> future = executor.submit(() -> context2.reserveMemory(500));
+    waitForWaitingQuery();
+    resourceManager.endQuery(context2.getQueryId());
+    future.get(10, TimeUnit.SECONDS);
+    assertEquals(800, manager.getUsedQueryMemory());
+    context2.forceReserveMemory(500);
+    assertEquals(800, manager.getUsedQueryMemory());
+
+    resourceManager.endQuery(context1.getQueryId());
+    assertEquals(0, manager.getUsedQueryMemory());
+  }
+
+  @Test
+  public void testReject() throws StorageEngineException {
+    config.setMaxQueryMemoryWaitTimeInMs(100);
+    QueryContext context1 = new QueryContext(resourceManager.assignQueryId(true));
+    QueryContext context2 = new QueryContext(resourceManager.assignQueryId(true));
+    context1.reserveMemory(800);
+    long prevRejectedCount = manager.getRejectedQueryCount();
+    try {
+      context2.reserveMemory(500);
+      fail();
+    } catch (QueryAbortedException e) {
+      assertEquals(prevRejectedCount + 1, manager.getRejectedQueryCount());
+    }
+    assertEquals(800, manager.getUsedQueryMemory());
+    resourceManager.endQuery(context1.getQueryId());
+    resourceManager.endQuery(context2.getQueryId());
+  }
+
+  @Test
+  public void testKill() throws Exception {
+    QueryContext context1 = new QueryContext(resourceManager.assignQueryId(true));
+    QueryContext context2 = new QueryContext(resourceManager.assignQueryId(true));
+    context1.reserveMemory(800);
+
+    // the waiting query is woken up
+    Future<?> future = executor.submit(() -> context2.reserveMemory(500));
+    waitForWaitingQuery();
+    assertTrue(manager.kill(context2.getQueryId()));
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof QueryAbortedException);
+    }
+
+    assertTrue(manager.kill(context1.getQueryId()));
+    try {
+      context1.checkAlive();
+      fail();
+    } catch (QueryAbortedException e) {
+      // expected
+    }
+    resourceManager.endQuery(context1.getQueryId());
+    resourceManager.endQuery(context2.getQueryId());
+    assertFalse(manager.kill(context1.getQueryId()));
+    assertEquals(0, manager.getUsedQueryMemory());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    config.setQueryTimeoutInMs(50);
+    QueryContext context = new QueryContext(resourceManager.assignQueryId(true));
+    context.checkAlive();
+    Thread.sleep(100);
+    try {
+      context.checkAlive();
+      fail();
+    } catch (QueryAbortedException e) {
+      // expected
+    }
+    resourceManager.endQuery(context.getQueryId());
+  }
+
+  private void waitForWaitingQuery() throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (manager.getWaitingQueryNum() == 0) {
+      if (System.currentTimeMillis() - startTime > 10000) {
+        fail("the query does not wait for memory");
+      }
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+
+/**
+ * Group by benchmark of highly overlapped windows. The query with a sliding step much smaller than
+ * the unit aggregates every pane once, while querying the windows one by one aggregates every
+ * point unit / slidingStep times.
+ */
+public class GroupByOverlappedWindowBenchmark {
+
+  private static int numOfPoint = 100000;
+  private static long unit = 1000;
+  private static long[] slidingSteps = {500, 100, 10};
+
+  private static AbstractQueryProcessExecutor queryExecutor;
+  private static QueryProcessor processor;
+
+  public static void main(String[] args) throws Exception {
+    MManager.getInstance().init();
+    queryExecutor = new QueryProcessExecutor();
+    processor = new QueryProcessor(queryExecutor);
+    EnvironmentUtils.envSetUp();
+    try {
+      prepareData();
+      for (long slidingStep : slidingSteps) {
+        long startTime = System.currentTimeMillis();
+        int numOfWindow = count(query(String.format(
+            "select count(s0), avg(s0), max_value(s0) from root.vehicle.d0 "
+                + "GROUP BY ([0, %d], %dms, %dms)", numOfPoint - 1, unit, slidingStep)));
+        long paneElapsed = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        for (long start = 0; start < numOfPoint; start += slidingStep) {
+          count(query(String.format(
+              "select count(s0), avg(s0), max_value(s0) from root.vehicle.d0 "
+                  + "GROUP BY ([%d, %d], %dms)", start, Math.min(start + unit, numOfPoint) - 1,
+              unit)));
+        }
+        long windowElapsed = System.currentTimeMillis() - startTime;
+
+        System.out.println(String.format(
+            "Unit: %d, Sliding step: %d, Num of windows: %d, The time of merging panes: %d ms, "
+                + "The time of querying the windows one by one: %d ms. ",
+            unit, slidingStep, numOfWindow, paneElapsed, windowElapsed));
+      }
+    } finally {
+      EnvironmentUtils.cleanEnv();
+    }
+  }
+
+  private static void prepareData() throws Exception {
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    for (int time = 0; time < numOfPoint; time++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", time,
+          time % 1000));
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+  }
+
+  private static int count(QueryDataSet dataSet) throws Exception {
+    int cnt = 0;
+    while (dataSet.hasNext()) {
+      dataSet.next();
+      cnt++;
+    }
+    return cnt;
+  }
+
+  private static QueryDataSet query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    return queryExecutor.processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+  }
+
+  private static void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
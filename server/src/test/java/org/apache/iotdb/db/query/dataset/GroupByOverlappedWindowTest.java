@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the group by queries whose sliding step is smaller than the unit, which are computed by
+ * merging panes, against the same windows queried one by one.
+ */
+public class GroupByOverlappedWindowTest {
+
+  private static final String SELECT = "select count(s0), sum(s0), avg(s1), min_value(s0), "
+      + "max_value(s1), first_value(s0), last_value(s1), min_time(s0), max_time(s1) "
+      + "from root.vehicle.d0";
+
+  private AbstractQueryProcessExecutor queryExecutor = new QueryProcessExecutor();
+  private QueryProcessor processor = new QueryProcessor(queryExecutor);
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=GORILLA");
+    // sequence files
+    for (int time = 1; time <= 120; time++) {
+      if (time % 7 != 0) {
+        insert(time, time % 13, time * 0.5);
+      }
+      if (time % 40 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+    // an unsequence file
+    for (int time = 3; time <= 120; time += 11) {
+      insert(time, 100 - time, -time * 0.5);
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    // unsequence data in memory
+    for (int time = 5; time <= 120; time += 17) {
+      insert(time, time * 3, time * 2.5);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testWithoutValueFilter() throws Exception {
+    check("", 12, 8, 3, 97);
+    check("", 10, 3, 1, 120);
+    check("", 20, 1, 5, 60);
+  }
+
+  @Test
+  public void testWithValueFilter() throws Exception {
+    check(" where s1 > 10", 12, 8, 3, 97);
+    check(" where s1 > 10", 10, 3, 1, 120);
+  }
+
+  private void check(String where, long unit, long slidingStep, long startTime, long endTime)
+      throws Exception {
+    QueryDataSet dataSet = query(String.format("%s%s GROUP BY ([%d, %d], %dms, %dms)", SELECT,
+        where, startTime, endTime, unit, slidingStep));
+    for (long start = startTime; start <= endTime; start += slidingStep) {
+      // the window queried alone
+      QueryDataSet expectedDataSet = query(String.format("%s%s GROUP BY ([%d, %d], %dms)",
+          SELECT, where, start, Math.min(start + unit - 1, endTime), unit));
+      assertTrue(expectedDataSet.hasNext());
+      RowRecord expected = expectedDataSet.next();
+      assertFalse(expectedDataSet.hasNext());
+
+      assertTrue(dataSet.hasNext());
+      assertEquals(expected.toString(), dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
+  private QueryDataSet query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    return queryExecutor.processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+  }
+
+  private void insert(long time, long s0, double s1) throws Exception {
+    execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,%s)", time,
+        s0, s1));
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.executor.AbstractQueryProcessExecutor;
+import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryProfile;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExplainTest {
+
+  private AbstractQueryProcessExecutor queryExecutor = new QueryProcessExecutor();
+  private QueryProcessor processor = new QueryProcessor(queryExecutor);
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    // two sequence files and an unsequence file
+    insert(1, 1000);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(1001, 2000);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(10, 100);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testExplain() throws Exception {
+    Map<String, String> items = explain("EXPLAIN SELECT s0 FROM root.vehicle.d0");
+    assertEquals("QUERY", items.get("query type"));
+    assertEquals("[root.vehicle.d0.s0]", items.get("series"));
+    assertEquals("2", items.get("sequence files"));
+    assertEquals("1", items.get("unsequence files"));
+    // the query is not run
+    assertFalse(items.containsKey("rows"));
+  }
+
+  @Test
+  public void testExplainAnalyze() throws Exception {
+    Map<String, String> items = explain("EXPLAIN ANALYZE SELECT s0 FROM root.vehicle.d0");
+    assertEquals("2000", items.get("rows"));
+    assertEquals("0", items.get("files skipped by statistics"));
+    assertTrue(Long.parseLong(items.get("chunks read")) >= 3);
+    assertTrue(Long.parseLong(items.get("pages read")) >= 3);
+    assertTrue(Long.parseLong(items.get("bytes read")) > 0);
+
+    // the first sequence file and the unsequence file are skipped by the time filter
+    items = explain("EXPLAIN ANALYZE SELECT s0 FROM root.vehicle.d0 WHERE time > 1500");
+    assertEquals("500", items.get("rows"));
+    assertEquals("2", items.get("files skipped by statistics"));
+    assertEquals("1", items.get("chunks read"));
+  }
+
+  @Test
+  public void testSlowQueryProfile() {
+    // the slow query log only times the query and counts its rows
+    QueryProfile profile = new QueryProfile("SELECT s0 FROM root.vehicle.d0", false);
+    profile.rowsEmitted(10);
+    Map<String, String> items = profile.toItems();
+    assertEquals(2, items.size());
+    assertEquals("10", items.get("rows"));
+    assertTrue(items.containsKey("execution time"));
+  }
+
+  private Map<String, String> explain(String sql) throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      QueryDataSet dataSet = queryExecutor
+          .processQuery(processor.parseSQLToPhysicalPlan(sql), new QueryContext(queryId));
+      Map<String, String> items = new HashMap<>();
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        items.put(record.getFields().get(0).getStringValue(),
+            record.getFields().get(1).getStringValue());
+      }
+      return items;
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private void insert(long startTime, long endTime) throws Exception {
+    for (long time = startTime; time <= endTime; time++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", time,
+          time));
+    }
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+}
@@ -33,6 +33,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 
 public abstract class ReaderTestHelper {
@@ -72,4 +73,29 @@ public abstract class ReaderTestHelper {
     storageGroupProcessor.insert(new InsertPlan(record));
   }
 
+  /**
+   * Look up the timestamps one by one with the first reader and in batches with the second reader,
+   * which must read the same data, and check that they give the same values.
+   *
+   * @return the number of timestamps that have a value
+   */
+  protected int checkValuesInTimestamps(IReaderByTimestamp singleReader,
+      IReaderByTimestamp batchReader, long[] timestamps, int batchSize) throws IOException {
+    int valueCount = 0;
+    for (int start = 0; start < timestamps.length; start += batchSize) {
+      int length = Math.min(batchSize, timestamps.length - start);
+      long[] batch = new long[length];
+      System.arraycopy(timestamps, start, batch, 0, length);
+      Object[] values = batchReader.getValuesInTimestamps(batch, length);
+      for (int i = 0; i < length; i++) {
+        Object value = singleReader.getValueInTimestamp(batch[i]);
+        Assert.assertEquals("timestamp " + batch[i], value, values[i]);
+        if (value != null) {
+          valueCount++;
+        }
+      }
+    }
+    return valueCount;
+  }
+
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.ReaderTestHelper;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -85,6 +86,25 @@ public class UnSealedTsFileReaderTest extends ReaderTestHelper {
   }
 
 
+  @Test
+  public void testUnSealedTsFileReaderByTimestampInBatch() throws IOException {
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null);
+    TsFileResource resource = queryDataSource.getSeqResources().get(0);
+    // the batches cross the end of the disk data at 3019
+    long[] timestamps = new long[1100];
+    for (int i = 0; i < timestamps.length; i++) {
+      timestamps[i] = 990 + i * 2;
+    }
+    for (int batchSize : new int[]{1, 7, 1000}) {
+      IReaderByTimestamp singleReader = new UnSealedTsFileReaderByTimestamp(resource);
+      IReaderByTimestamp batchReader = new UnSealedTsFileReaderByTimestamp(resource);
+      // the timestamps from 1000 to 3029 have values
+      Assert.assertEquals(1015,
+          checkValuesInTimestamps(singleReader, batchReader, timestamps, batchSize));
+    }
+  }
+
   @Override
   protected void insertData() throws IOException, QueryProcessException {
     for (int j = 1000; j <= 1009; j++) {
@@ -78,6 +78,30 @@ public class SeqResourceReaderTest extends ReaderTestHelper {
 
   }
 
+  @Test
+  public void testSeqResourceReaderByTimestampInBatch() throws IOException {
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null);
+    Path path = new Path(deviceId, measurementId);
+    // every timestamp around the first files, then sparse timestamps over the others
+    long[] timestamps = new long[110 + 580];
+    for (int i = 0; i < 110; i++) {
+      timestamps[i] = 990 + i;
+    }
+    for (int i = 110; i < timestamps.length; i++) {
+      timestamps[i] = 1100 + (i - 110) * 7;
+    }
+    for (int batchSize : new int[]{1, 7, 1000}) {
+      SeqResourceReaderByTimestamp singleReader = new SeqResourceReaderByTimestamp(path,
+          queryDataSource.getSeqResources(), EnvironmentUtils.TEST_QUERY_CONTEXT);
+      SeqResourceReaderByTimestamp batchReader = new SeqResourceReaderByTimestamp(path,
+          queryDataSource.getSeqResources(), EnvironmentUtils.TEST_QUERY_CONTEXT);
+      // the timestamps from 1000 to 5049 have values
+      Assert.assertEquals(100 + 565,
+          checkValuesInTimestamps(singleReader, batchReader, timestamps, batchSize));
+    }
+  }
+
   @Override
   protected void insertData() throws IOException, QueryProcessException {
     for (int j = 1000; j <= 1009; j++) {
@@ -113,6 +113,26 @@ public class UnseqResourceReaderTest extends ReaderTestHelper {
     Assert.assertEquals(25, cnt);
   }
 
+  @Test
+  public void testUnseqResourceReaderByTimestampInBatch() throws IOException {
+    Path path = new Path(deviceId, measurementId);
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null);
+    long[] timestamps = new long[40];
+    for (int i = 0; i < timestamps.length; i++) {
+      timestamps[i] = i;
+    }
+    for (int batchSize : new int[]{1, 3, 40}) {
+      IReaderByTimestamp singleReader = new UnseqResourceReaderByTimestamp(path,
+          queryDataSource.getUnseqResources(), EnvironmentUtils.TEST_QUERY_CONTEXT);
+      IReaderByTimestamp batchReader = new UnseqResourceReaderByTimestamp(path,
+          queryDataSource.getUnseqResources(), EnvironmentUtils.TEST_QUERY_CONTEXT);
+      // the timestamps from 1 to 20 and the odd ones from 21 to 29 have values
+      Assert.assertEquals(25,
+          checkValuesInTimestamps(singleReader, batchReader, timestamps, batchSize));
+    }
+  }
+
   @Test
   public void testUnseqResourceReaderByTimestamp() throws IOException {
     Path path = new Path(deviceId, measurementId);
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PriorityMergeBatchReaderTest {
+
+  @Test
+  public void testMerge() throws IOException {
+    // overlapping at 2, 3 and 5
+    test(new long[]{1, 2, 3, 4, 5, 6}, new long[]{2, 2, 2, 1, 2, 2}, 100,
+        new long[][]{{1, 2, 3}, {4, 5}}, new long[][]{{1, 2, 3, 5, 6}});
+    test(new long[]{1, 2, 3, 4, 5, 6, 7}, new long[]{3, 3, 3, 1, 3, 2, 3}, 100,
+        new long[][]{{1, 2, 3, 4, 5}}, new long[][]{{1}, {2, 3, 5, 6}},
+        new long[][]{{1, 2}, {3}, {5, 7}});
+    // the merged batches are split by the batch size
+    test(new long[]{1, 2, 3, 4, 5, 6}, new long[]{1, 1, 2, 3, 2, 3}, 1,
+        new long[][]{{1, 2}}, new long[][]{{3, 5}}, new long[][]{{4, 6}});
+  }
+
+  @Test
+  public void testPassThrough() throws IOException {
+    BatchData first = createBatch(1, 1, 2, 3);
+    BatchData second = createBatch(2, 4, 5, 6);
+    BatchData third = createBatch(1, 6, 7, 8);
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(100);
+    reader.addReaderWithPriority(new FakedBatchReader(first, third), 1);
+    reader.addReaderWithPriority(new FakedBatchReader(second), 2);
+
+    // batches overlapping no other source are returned untouched
+    Assert.assertSame(first, reader.nextBatch());
+    // 6 overlaps the third batch, so the second one is merged
+    BatchData merged = reader.nextBatch();
+    Assert.assertNotSame(second, merged);
+    checkBatch(merged, new long[]{4, 5, 6}, new long[]{2, 2, 2});
+    // the rest of the third batch is passed through
+    BatchData rest = reader.nextBatch();
+    Assert.assertSame(third, rest);
+    checkBatch(rest, new long[]{7, 8}, new long[]{1, 1});
+    Assert.assertFalse(reader.hasNextBatch());
+  }
+
+  @Test
+  public void testBound() throws IOException {
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(100);
+    reader.addReaderWithPriority(new FakedBatchReader(createBatch(1, 1, 2, 3, 4)), 1);
+    Assert.assertEquals(1, reader.currentTime());
+    checkBatch(reader.nextBatch(3), new long[]{1, 2}, new long[]{1, 1});
+    Assert.assertEquals(3, reader.currentTime());
+    reader.addReaderWithPriority(new FakedBatchReader(createBatch(2, 3)), 2);
+    checkBatch(reader.nextBatch(), new long[]{3}, new long[]{2});
+    checkBatch(reader.nextBatch(), new long[]{4}, new long[]{1});
+    Assert.assertFalse(reader.hasNextBatch());
+  }
+
+  private void test(long[] retTimestamp, long[] retValue, int batchSize, long[][]... sources)
+      throws IOException {
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(batchSize);
+    for (int i = 0; i < sources.length; i++) {
+      List<BatchData> batches = new ArrayList<>();
+      for (long[] times : sources[i]) {
+        batches.add(createBatch(i + 1, times));
+      }
+      reader.addReaderWithPriority(new FakedBatchReader(batches.toArray(new BatchData[0])), i + 1);
+    }
+
+    int i = 0;
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      Assert.assertTrue(batchData.length() <= Math.max(batchSize, 5));
+      while (batchData.hasCurrent()) {
+        Assert.assertEquals(retTimestamp[i], batchData.currentTime());
+        Assert.assertEquals(retValue[i], batchData.getLong());
+        batchData.next();
+        i++;
+      }
+    }
+    Assert.assertEquals(retTimestamp.length, i);
+  }
+
+  private static BatchData createBatch(long value, long... times) {
+    BatchData batchData = new BatchData(TSDataType.INT64);
+    for (long time : times) {
+      batchData.putLong(time, value);
+    }
+    return batchData;
+  }
+
+  private static void checkBatch(BatchData batchData, long[] times, long[] values) {
+    int i = 0;
+    while (batchData.hasCurrent()) {
+      Assert.assertEquals(times[i], batchData.currentTime());
+      Assert.assertEquals(values[i], batchData.getLong());
+      batchData.next();
+      i++;
+    }
+    Assert.assertEquals(times.length, i);
+  }
+
+  private static class FakedBatchReader implements IBatchReader {
+
+    private Iterator<BatchData> iterator;
+
+    FakedBatchReader(BatchData... batches) {
+      iterator = Arrays.asList(batches).iterator();
+    }
+
+    @Override
+    public boolean hasNextBatch() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public BatchData nextBatch() {
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+  }
+}
@@ -91,6 +91,36 @@ public class PriorityMergeReaderByTimestampTest {
 
   }
 
+  @Test
+  public void testBatch() throws IOException {
+    PriorityMergeReaderByTimestamp priorityReader = createPriorityReader();
+    PriorityMergeReaderByTimestamp batchReader = createPriorityReader();
+
+    Random random = new Random();
+    long[] timestamps = new long[64];
+    long time = 4;
+    while (time < 1080 + 200 * 13 + 600) {
+      int length = random.nextInt(timestamps.length) + 1;
+      for (int i = 0; i < length; i++) {
+        timestamps[i] = time;
+        time += random.nextInt(20) + 1;
+      }
+      Object[] values = batchReader.getValuesInTimestamps(timestamps, length);
+      Assert.assertEquals(length, values.length);
+      for (int i = 0; i < length; i++) {
+        Assert.assertEquals(priorityReader.getValueInTimestamp(timestamps[i]), values[i]);
+      }
+    }
+  }
+
+  private PriorityMergeReaderByTimestamp createPriorityReader() {
+    PriorityMergeReaderByTimestamp priorityReader = new PriorityMergeReaderByTimestamp();
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(1080, 200, 13, 31), 3);
+    return priorityReader;
+  }
+
   public static class FakedReaderByTimestamp implements IReaderByTimestamp,
       IPointReader {
 
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentIntLongMapTest {
+
+  @Test
+  public void testPutAndGet() {
+    ConcurrentIntLongMap map = new ConcurrentIntLongMap(Long.MIN_VALUE);
+    Assert.assertEquals(Long.MIN_VALUE, map.get(1));
+    Assert.assertFalse(map.containsKey(1));
+
+    Assert.assertEquals(Long.MIN_VALUE, map.putIfAbsent(1, Long.MIN_VALUE));
+    Assert.assertTrue(map.containsKey(1));
+    map.putIfGreater(1, 10);
+    map.putIfGreater(1, 5);
+    Assert.assertEquals(10, map.get(1));
+    Assert.assertEquals(10, map.putIfAbsent(1, 0));
+    map.put(1, 3);
+    Assert.assertEquals(3, map.get(1));
+    map.putIfGreater(100, -1);
+    Assert.assertEquals(-1, map.get(100));
+    Assert.assertEquals(2, map.size());
+
+    ConcurrentIntLongMap other = new ConcurrentIntLongMap(0);
+    other.putAll(map);
+    Map<Integer, Long> entries = new HashMap<>();
+    other.forEach(entries::put);
+    Assert.assertEquals(2, entries.size());
+    Assert.assertEquals(3, (long) entries.get(1));
+    Assert.assertEquals(-1, (long) entries.get(100));
+
+    map.clear();
+    Assert.assertEquals(0, map.size());
+    Assert.assertEquals(2, other.size());
+  }
+
+  @Test
+  public void testConcurrentPutIfGreater() throws InterruptedException {
+    ConcurrentIntLongMap map = new ConcurrentIntLongMap(Long.MIN_VALUE);
+    int threadNum = 4;
+    int keyNum = 1000;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    for (int t = 0; t < threadNum; t++) {
+      int threadId = t;
+      pool.submit(() -> {
+        for (int key = 0; key < keyNum; key++) {
+          map.putIfGreater(key, (long) key * threadNum + threadId);
+        }
+      });
+    }
+    pool.shutdown();
+    Assert.assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+    Assert.assertEquals(keyNum, map.size());
+    for (int key = 0; key < keyNum; key++) {
+      Assert.assertEquals((long) key * threadNum + threadNum - 1, map.get(key));
+    }
+  }
+}
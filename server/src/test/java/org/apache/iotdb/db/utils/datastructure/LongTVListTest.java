@@ -74,6 +74,30 @@ public class LongTVListTest {
     }
   }
 
+  @Test
+  public void testSnapshot() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 0; i < 1000; i++) {
+      tvList.putLong(i, i);
+    }
+    TVList snapshot = tvList.snapshot();
+
+    // appended, sorted and deleted after the snapshot is taken
+    for (long i = 2000; i >= 1000; i--) {
+      tvList.putLong(i - 1500, -i);
+    }
+    tvList.sort();
+    tvList.delete(100);
+    Assert.assertEquals(899 + 400, tvList.size());
+    Assert.assertEquals(101, tvList.getTime(0));
+
+    Assert.assertEquals(1000, snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      Assert.assertEquals(i, snapshot.getTime(i));
+      Assert.assertEquals(i, snapshot.getLong(i));
+    }
+  }
+
 
   @Test
   public void compareLongTVListSortTime() {
@@ -96,6 +96,38 @@ struct TSExecuteStatementReq {
   4: optional i32 fetchSize
 }
 
+// PrepareStatement()
+//
+// Parse a statement with parameter markers '?' and cache its plan under the statementId, so that it
+// can be executed many times with different parameters.
+struct TSPrepareStatementReq {
+  1: required i64 sessionId
+
+  2: required string statement
+
+  3: required i64 statementId
+}
+
+struct TSPrepareStatementResp {
+  1: required TSStatus status
+
+  // the number of the parameter markers in the statement
+  2: optional i32 parameterCount
+}
+
+// ExecutePreparedStatement()
+//
+// Execute a prepared statement with its parameters, given as they would be written in the statement.
+struct TSExecutePreparedStatementReq {
+  1: required i64 sessionId
+
+  2: required i64 statementId
+
+  3: required list<string> parameters
+
+  4: optional i32 fetchSize
+}
+
 struct TSExecuteInsertRowInBatchResp{
   1: required i64 sessionId
 	2: required list<TSStatus> statusList
@@ -253,6 +285,10 @@ service TSIService {
 
 	TSExecuteStatementResp executeUpdateStatement(1:TSExecuteStatementReq req);
 
+	TSPrepareStatementResp prepareStatement(1:TSPrepareStatementReq req);
+
+	TSExecuteStatementResp executePreparedStatement(1:TSExecutePreparedStatementReq req);
+
 	TSFetchResultsResp fetchResults(1:TSFetchResultsReq req)
 
 	TSFetchMetadataResp fetchMetadata(1:TSFetchMetadataReq req)
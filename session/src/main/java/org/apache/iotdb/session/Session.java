@@ -272,7 +272,7 @@ public class Session {
    *
    * @param valueList value list
    * @param dataType data type
-   * @param index index
+   * @param index the original positions of the rows in the order of time
    * @return sorted list
    */
   private Object sortList(Object valueList, TSDataType dataType, Integer[] index) {
@@ -281,42 +281,42 @@ public class Session {
         boolean[] boolValues = (boolean[]) valueList;
         boolean[] sortedValues = new boolean[boolValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedValues[index[i]] = boolValues[i];
+          sortedValues[i] = boolValues[index[i]];
         }
         return sortedValues;
       case INT32:
         int[] intValues = (int[]) valueList;
         int[] sortedIntValues = new int[intValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedIntValues[index[i]] = intValues[i];
+          sortedIntValues[i] = intValues[index[i]];
         }
         return sortedIntValues;
       case INT64:
         long[] longValues = (long[]) valueList;
         long[] sortedLongValues = new long[longValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedLongValues[index[i]] = longValues[i];
+          sortedLongValues[i] = longValues[index[i]];
         }
         return sortedLongValues;
       case FLOAT:
         float[] floatValues = (float[]) valueList;
         float[] sortedFloatValues = new float[floatValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedFloatValues[index[i]] = floatValues[i];
+          sortedFloatValues[i] = floatValues[index[i]];
         }
         return sortedFloatValues;
       case DOUBLE:
         double[] doubleValues = (double[]) valueList;
         double[] sortedDoubleValues = new double[doubleValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedDoubleValues[index[i]] = doubleValues[i];
+          sortedDoubleValues[i] = doubleValues[index[i]];
         }
         return sortedDoubleValues;
       case TEXT:
         Binary[] binaryValues = (Binary[]) valueList;
         Binary[] sortedBinaryValues = new Binary[binaryValues.length];
         for (int i = 0; i < index.length; i++) {
-          sortedBinaryValues[index[i]] = binaryValues[i];
+          sortedBinaryValues[i] = binaryValues[index[i]];
         }
         return sortedBinaryValues;
       default:
@@ -572,7 +572,7 @@ public class Session {
     return resp;
   }
 
-  private synchronized String getTimeZone() throws TException, IoTDBRPCException {
+  public synchronized String getTimeZone() throws TException, IoTDBRPCException {
     if (zoneId != null) {
       return zoneId.toString();
     }
@@ -582,7 +582,7 @@ public class Session {
     return resp.getTimeZone();
   }
 
-  private synchronized void setTimeZone(String zoneId) throws TException, IoTDBRPCException {
+  public synchronized void setTimeZone(String zoneId) throws TException, IoTDBRPCException {
     TSSetTimeZoneReq req = new TSSetTimeZoneReq(sessionId, zoneId);
     TSStatus resp = client.setTimeZone(req);
     RpcUtils.verifySuccess(resp);
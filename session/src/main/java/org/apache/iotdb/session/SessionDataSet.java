@@ -48,6 +48,8 @@ public class SessionDataSet {
   private long sessionId;
   private TSIService.Iface client;
   private int batchSize = 1024;
+  private List<String> columnNameList;
+  private List<String> columnTypeList;
   private List<String> columnTypeDeduplicatedList;
   // duplicated column index -> origin index
   Map<Integer, Integer> duplicateLocation;
@@ -70,6 +72,8 @@ public class SessionDataSet {
     this.sql = sql;
     this.queryId = queryId;
     this.client = client;
+    this.columnNameList = columnNameList;
+    this.columnTypeList = columnTypeList;
     currentBitmap = new byte[columnNameList.size()];
     columnSize = columnNameList.size();
 
@@ -93,6 +97,20 @@ public class SessionDataSet {
     this.tsQueryDataSet = queryDataSet;
   }
 
+  /**
+   * @return the names of the columns except the time column
+   */
+  public List<String> getColumnNames() {
+    return columnNameList;
+  }
+
+  /**
+   * @return the data types of the columns except the time column
+   */
+  public List<String> getColumnTypes() {
+    return columnTypeList;
+  }
+
   public int getBatchSize() {
     return batchSize;
   }
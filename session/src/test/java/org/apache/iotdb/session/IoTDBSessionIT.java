@@ -35,6 +35,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -129,6 +130,34 @@ public class IoTDBSessionIT {
     queryForBatch();
   }
 
+  @Test
+  public void testUnsortedBatchInsert()
+      throws IoTDBSessionException, SQLException, TException, IoTDBRPCException {
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+
+    session.setStorageGroup("root.sg1");
+
+    createTimeseries();
+
+    insertUnsortedRowBatch("root.sg1.d1");
+
+    SessionDataSet sessionDataSet = session.executeQueryStatement("select * from root.sg1.d1");
+    int count = 0;
+    while (sessionDataSet.hasNext()) {
+      RowRecord record = sessionDataSet.next();
+      Assert.assertEquals(count, record.getTimestamp());
+      // each value still belongs to its own timestamp after the batch is sorted
+      List<Field> fields = record.getFields();
+      Assert.assertEquals(record.getTimestamp() * 10, fields.get(0).getLongV());
+      Assert.assertEquals(-record.getTimestamp(), fields.get(1).getLongV());
+      Assert.assertEquals(record.getTimestamp() + 1, fields.get(2).getLongV());
+      count++;
+    }
+    Assert.assertEquals(100, count);
+    sessionDataSet.closeOperationHandle();
+  }
+
   public void testTestMethod() throws IoTDBSessionException {
 
     session = new Session("127.0.0.1", 6667, "root", "root");
@@ -637,6 +666,31 @@ public class IoTDBSessionIT {
     }
   }
 
+  private void insertUnsortedRowBatch(String deviceId) throws IoTDBSessionException {
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+    schema.registerMeasurement(new MeasurementSchema("s2", TSDataType.INT64, TSEncoding.RLE));
+    schema.registerMeasurement(new MeasurementSchema("s3", TSDataType.INT64, TSEncoding.RLE));
+
+    RowBatch rowBatch = schema.createRowBatch(deviceId, 100);
+
+    long[] timestamps = rowBatch.timestamps;
+    Object[] values = rowBatch.values;
+
+    // the order of the rows is a permutation that is not its own inverse
+    for (long i = 0; i < 100; i++) {
+      long time = i * 7 % 100;
+      int row = rowBatch.batchSize++;
+      timestamps[row] = time;
+      ((long[]) values[0])[row] = time * 10;
+      ((long[]) values[1])[row] = -time;
+      ((long[]) values[2])[row] = time + 1;
+    }
+
+    session.insertBatch(rowBatch);
+    rowBatch.reset();
+  }
+
   private void insertRowBatchTest3(String deviceId) throws IoTDBSessionException {
     Schema schema = new Schema();
     schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
@@ -27,4 +27,6 @@ public class SQLConstant {
   public static final String TIMESTAMP_STR = "Time";
   public static final String NULL_STR = "null";
   public static final String WHERE = "where";
+  public static final String DEVICE_STR = "Device";
+  public static final String TIMESERIES_STR = "timeseries";
 }
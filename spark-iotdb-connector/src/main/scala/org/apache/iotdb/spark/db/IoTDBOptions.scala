@@ -30,11 +30,19 @@ class IoTDBOptions(
 
   val sql = parameters.getOrElse("sql", sys.error("Option 'sql' not specified"))
 
-  val numPartition = parameters.getOrElse("numPartition", "1")
+  // 0 means the number of partitions is the default parallelism of the spark context
+  val numPartition = parameters.getOrElse("numPartition", "0")
 
-  val lowerBound = parameters.getOrElse("lowerBound", "0")
+  // if either bound is not specified, the time span is queried from IoTDB
+  val lowerBound = parameters.get("lowerBound")
 
-  val upperBound = parameters.getOrElse("upperBound", "0")
+  val upperBound = parameters.get("upperBound")
+
+  // discover the time span and the devices of the query to split it into partitions
+  val autoPartition = parameters.getOrElse("autoPartition", "true").toBoolean
+
+  // push column pruning and time predicates of spark into the generated sql
+  val pushDown = parameters.getOrElse("pushDown", "true").toBoolean
 
   def get(name: String): Unit = {
 
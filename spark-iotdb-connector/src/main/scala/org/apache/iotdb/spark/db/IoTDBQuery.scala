@@ -0,0 +1,156 @@
+/**
+  * Licensed to the Apache Software Foundation (ASF) under one
+  * or more contributor license agreements.  See the NOTICE file
+  * distributed with this work for additional information
+  * regarding copyright ownership.  The ASF licenses this file
+  * to you under the Apache License, Version 2.0 (the
+  * "License"); you may not use this file except in compliance
+  * with the License.  You may obtain a copy of the License at
+  *
+  * http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing,
+  * software distributed under the License is distributed on an
+  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+  * KIND, either express or implied.  See the License for the
+  * specific language governing permissions and limitations
+  * under the License.
+  */
+package org.apache.iotdb.spark.db
+
+import org.apache.spark.sql.sources._
+
+/**
+  * The parts of a select statement that are rewritten for each partition:
+  * "select `select` from `from` [where `where`] [`tail`]".
+  *
+  * @param tail the clauses after the where clause, e.g. "group by device" or "limit 10"
+  */
+case class IoTDBQuery(select: String, from: Seq[String], where: Option[String], tail: String) {
+
+  /**
+    * @return true if the query returns one row per timestamp (or per timestamp and device with
+    *         "group by device"), so that its result is the union of the results of the query
+    *         restricted to disjoint time ranges and device sets. Aggregations, fill, group by time
+    *         and limit clauses are not.
+    */
+  def isPartitionable: Boolean = !select.contains("(") && (tail.isEmpty || isAlignByDevice)
+
+  def isAlignByDevice: Boolean = IoTDBQuery.ALIGN_BY_DEVICE.pattern.matcher(tail).matches()
+
+  /**
+    * @return the select elements that return only the required columns, or None if all the
+    *         columns of the query must be selected
+    */
+  def pruneSelect(requiredColumns: Array[String]): Option[String] = {
+    val columns = requiredColumns.filterNot(c =>
+      c.equalsIgnoreCase(SQLConstant.TIMESTAMP_STR) || c.equalsIgnoreCase(SQLConstant.DEVICE_STR))
+    if (columns.isEmpty || !isPartitionable) {
+      return None
+    }
+    if (isAlignByDevice) {
+      // the columns are measurements, which are suffix paths of every device
+      return Some(columns.mkString(", "))
+    }
+    // the columns are full paths, select them as suffix paths of the from clause so that the
+    // paths in the where clause are still resolved the same way
+    val suffixes = columns.map(column => from.find(prefix => !prefix.contains("*") &&
+      column.startsWith(prefix + ".")).map(prefix => column.substring(prefix.length + 1)))
+    if (suffixes.forall(_.isDefined)) Some(suffixes.flatten.distinct.mkString(", ")) else None
+  }
+
+  /**
+    * @param select      the select elements, the original ones if None
+    * @param devices     the devices in the from clause, the original from clause if empty
+    * @param predicates  additional predicates which are all and-ed with the where clause
+    */
+  def toSQL(select: Option[String], devices: Seq[String], predicates: Seq[String]): String = {
+    val conditions = (where.toSeq ++ predicates).map(condition => s"($condition)")
+    val sql = new StringBuilder(s"select ${select.getOrElse(this.select)} from ")
+    sql.append((if (devices.isEmpty) from else devices).mkString(", "))
+    if (conditions.nonEmpty) {
+      sql.append(s" ${SQLConstant.WHERE} ").append(conditions.mkString(" and "))
+    }
+    sql.append(tail).toString()
+  }
+}
+
+object IoTDBQuery {
+
+  private final val SELECT =
+    ("(?is)^\\s*select\\s+(.+?)\\s+from\\s+(.+?)(?:\\s+where\\s+(.+?))?" +
+      "(\\s+(?:group\\s+by|fill|limit|slimit|disable\\s+align)\\b.*?)?\\s*;?\\s*$").r
+
+  private final val ALIGN_BY_DEVICE = "(?is)\\s*group\\s+by\\s+device\\s*".r
+
+  /**
+    * @return the parsed query, or None if the sql is not a select statement
+    */
+  def parse(sql: String): Option[IoTDBQuery] = sql match {
+    case SELECT(select, from, where, tail) =>
+      Some(IoTDBQuery(select.trim, from.split(",").map(_.trim).toSeq, Option(where).map(_.trim),
+        Option(tail).getOrElse("")))
+    case _ => None
+  }
+
+  /**
+    * @return the time predicates in the spark filters as IoTDB predicates, other filters are left
+    *         to spark
+    */
+  def toTimePredicates(filters: Array[Filter]): Seq[String] = filters.flatMap(toTimePredicate)
+
+  /**
+    * @return the inclusive time range that satisfies all the time predicates in the filters
+    */
+  def toTimeRange(filters: Array[Filter]): (Long, Long) = {
+    var lower = Long.MinValue
+    var upper = Long.MaxValue
+    filters.flatMap(flatten).foreach {
+      case GreaterThan(attribute, value) if isTime(attribute) =>
+        toTime(value).foreach(v => lower = math.max(lower, if (v == Long.MaxValue) v else v + 1))
+      case GreaterThanOrEqual(attribute, value) if isTime(attribute) =>
+        toTime(value).foreach(v => lower = math.max(lower, v))
+      case LessThan(attribute, value) if isTime(attribute) =>
+        toTime(value).foreach(v => upper = math.min(upper, if (v == Long.MinValue) v else v - 1))
+      case LessThanOrEqual(attribute, value) if isTime(attribute) =>
+        toTime(value).foreach(v => upper = math.min(upper, v))
+      case EqualTo(attribute, value) if isTime(attribute) =>
+        toTime(value).foreach { v =>
+          lower = math.max(lower, v)
+          upper = math.min(upper, v)
+        }
+      case _ =>
+    }
+    (lower, upper)
+  }
+
+  private def toTimePredicate(filter: Filter): Seq[String] = {
+    val time = SQLConstant.RESERVED_TIME
+    flatten(filter).flatMap {
+      case GreaterThan(attribute, value) if isTime(attribute) => toTime(value).map(v => s"$time > $v")
+      case GreaterThanOrEqual(attribute, value) if isTime(attribute) =>
+        toTime(value).map(v => s"$time >= $v")
+      case LessThan(attribute, value) if isTime(attribute) => toTime(value).map(v => s"$time < $v")
+      case LessThanOrEqual(attribute, value) if isTime(attribute) =>
+        toTime(value).map(v => s"$time <= $v")
+      case EqualTo(attribute, value) if isTime(attribute) => toTime(value).map(v => s"$time = $v")
+      case _ => None
+    }
+  }
+
+  // a conjunction is pushed down as its conjuncts, spark still evaluates the whole filter
+  private def flatten(filter: Filter): Seq[Filter] = filter match {
+    case And(left, right) => flatten(left) ++ flatten(right)
+    case other => Seq(other)
+  }
+
+  private def isTime(attribute: String): Boolean = attribute.equalsIgnoreCase(SQLConstant.TIMESTAMP_STR)
+
+  private def toTime(value: Any): Option[Long] = value match {
+    case v: java.lang.Long => Some(v.longValue())
+    case v: java.lang.Integer => Some(v.longValue())
+    case v: java.lang.Short => Some(v.longValue())
+    case v: java.lang.Byte => Some(v.longValue())
+    case _ => None
+  }
+}
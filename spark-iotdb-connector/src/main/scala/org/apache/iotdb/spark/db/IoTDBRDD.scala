@@ -27,8 +27,9 @@ import org.apache.spark.sql.types._
 import org.apache.spark.{Partition, SparkContext, TaskContext}
 
 
-//IoTDB data partition
-case class IoTDBPartition(where: String, id: Int, start: java.lang.Long, end: java.lang.Long) extends Partition {
+//IoTDB data partition, devices replace the from clause of a "group by device" query if not empty
+case class IoTDBPartition(where: String, id: Int, start: java.lang.Long, end: java.lang.Long,
+                          devices: Seq[String] = Nil) extends Partition {
   override def index: Int = id
 }
 
@@ -39,6 +40,32 @@ object IoTDBRDD {
     new StructType(columns.map(name => fieldMap(name)))
   }
 
+  /**
+    * @return the sql of the partition, with the time range and the devices of the partition, and
+    *         with the required columns and the time filters of spark pushed down if enabled
+    */
+  def getPartitionSQL(options: IoTDBOptions, part: IoTDBPartition, requiredColumns: Array[String],
+                      filters: Array[Filter]): String = {
+    IoTDBQuery.parse(options.sql) match {
+      case Some(query) if query.isPartitionable =>
+        val select = if (options.pushDown) query.pruneSelect(requiredColumns) else None
+        val predicates = Option(part.where).toSeq ++
+          (if (options.pushDown) IoTDBQuery.toTimePredicates(filters) else Nil)
+        query.toSQL(select, part.devices, predicates)
+      case _ =>
+        var sql = options.sql
+        // for different partition
+        if (part.where != null) {
+          val sqlPart = options.sql.split(SQLConstant.WHERE)
+          sql = sqlPart(0) + " " + SQLConstant.WHERE + " (" + part.where + ") "
+          if (sqlPart.length == 2) {
+            sql += "and (" + sqlPart(1) + ")"
+          }
+        }
+        sql
+    }
+  }
+
 }
 
 class IoTDBRDD private[iotdb](
@@ -69,16 +96,7 @@ class IoTDBRDD private[iotdb](
     val conn: Connection = DriverManager.getConnection(options.url, options.user, options.password)
     val stmt: Statement = conn.createStatement()
 
-    var sql = options.sql
-    // for different partition
-    if (part.where != null) {
-      val sqlPart = options.sql.split(SQLConstant.WHERE)
-      sql = sqlPart(0) + " " + SQLConstant.WHERE + " (" + part.where + ") "
-      if (sqlPart.length == 2) {
-        sql += "and (" + sqlPart(1) + ")"
-      }
-    }
-    //
+    val sql = IoTDBRDD.getPartitionSQL(options, part, requiredColumns, filters)
     var rs: ResultSet = stmt.executeQuery(sql)
     val prunedSchema = IoTDBRDD.pruneSchema(schema, requiredColumns)
     private val rowBuffer = Array.fill[Any](prunedSchema.length)(null)
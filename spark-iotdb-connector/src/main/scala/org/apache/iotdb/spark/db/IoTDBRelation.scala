@@ -18,6 +18,8 @@
   */
 package org.apache.iotdb.spark.db
 
+import java.sql.{Connection, DriverManager, ResultSet, SQLException, Statement}
+
 import org.apache.spark.Partition
 import org.apache.spark.rdd.RDD
 import org.apache.spark.sql.sources.{BaseRelation, Filter, PrunedFilteredScan}
@@ -25,7 +27,9 @@ import org.apache.spark.sql.types.StructType
 import org.apache.spark.sql.{Row, SQLContext, SparkSession}
 import org.slf4j.LoggerFactory
 
+import scala.collection.mutable
 import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
 
 private case class IoTDBPartitioningInfo(
                                           start: Long,
@@ -36,11 +40,24 @@ private object IoTDBRelation {
 
   private final val logger = LoggerFactory.getLogger(classOf[IoTDBRelation])
 
+  // the time span is split into this many buckets per partition to balance the partitions
+  private final val BUCKETS_PER_PARTITION = 4
+
   def getPartitions(partitionInfo: IoTDBPartitioningInfo): Array[Partition] = {
     if (partitionInfo == null || partitionInfo.numPartitions <= 1 ||
       partitionInfo.start == partitionInfo.end) {
       return Array[Partition](IoTDBPartition(null, 0, 0L, 0L))
     }
+    toPartitions(getBoundaries(partitionInfo), Seq(Nil))
+  }
+
+  /**
+    * Split [start, end] evenly.
+    *
+    * @return the boundaries b(0) = start < b(1) < ... < b(n) = end of the n partitions, the first
+    *         partition is [b(0), b(1)] and the i-th partition is (b(i), b(i + 1)]
+    */
+  def getBoundaries(partitionInfo: IoTDBPartitioningInfo): Array[Long] = {
     val start = partitionInfo.start
     val end = partitionInfo.end
 
@@ -59,28 +76,85 @@ private object IoTDBRelation {
         s"Updated number of partitions: ${end - start}; Input number of " +
         s"partitions: ${partitionInfo.numPartitions}; Lower bound: $start; " +
         s"Upper bound: $end.")
-      end - start
+      math.max(end - start, 1L).toInt
     }
 
-    var partitions = new ArrayBuffer[Partition]()
-
+    val boundaries = new ArrayBuffer[Long]()
     val length: Long = (end - start) / numPartitions + 1
-    var i: Int = 0
     var currentValue: Long = start
-    while (i < numPartitions) {
-      var where = s""
-      if (i == 0) {
+    boundaries += currentValue
+    for (_ <- 0 until numPartitions) {
+      currentValue += length
+      boundaries += currentValue
+    }
+    boundaries.toArray
+  }
 
-        where = s"${SQLConstant.RESERVED_TIME} >= $currentValue and ${SQLConstant.RESERVED_TIME} <= ${currentValue + length}"
-        partitions += IoTDBPartition(where, i, currentValue, currentValue + length)
+  /**
+    * Split [start, end] so that the partitions hold about the same number of points.
+    *
+    * @param step   the width of the buckets
+    * @param counts the number of points in each bucket, the i-th bucket starts at start + i * step
+    * @return the boundaries of the partitions like [[getBoundaries]]
+    */
+  def getBalancedBoundaries(start: Long, end: Long, step: Long, counts: Array[Long],
+                            numPartitions: Int): Array[Long] = {
+    val boundaries = new ArrayBuffer[Long]()
+    boundaries += start
+    val total = counts.sum
+    var accumulated = 0L
+    var k = 1
+    var i = 0
+    while (i < counts.length && k < numPartitions) {
+      accumulated += counts(i)
+      if (accumulated >= total * k / numPartitions) {
+        val bucketEnd = math.min(start + (i + 1) * step - 1, end)
+        if (bucketEnd > boundaries.last && bucketEnd < end) {
+          boundaries += bucketEnd
+        }
+        while (k < numPartitions && accumulated >= total * k / numPartitions) {
+          k += 1
+        }
+      }
+      i += 1
+    }
+    boundaries += end
+    boundaries.toArray
+  }
+
+  /**
+    * Assign the devices to at most numGroups groups, each group has about the same number of
+    * series.
+    */
+  def groupDevices(seriesPerDevice: Map[String, Int], numGroups: Int): Seq[Seq[String]] = {
+    val groups = Array.fill(math.max(1, math.min(numGroups, seriesPerDevice.size)))(
+      new ArrayBuffer[String]())
+    val loads = new Array[Long](groups.length)
+    seriesPerDevice.toSeq.sortBy(-_._2).foreach { case (device, seriesNum) =>
+      val lightest = loads.indices.minBy(loads(_))
+      groups(lightest) += device
+      loads(lightest) += seriesNum
+    }
+    groups.filter(_.nonEmpty).map(_.toList).toList
+  }
+
+  /**
+    * @param deviceGroups each group of devices is queried separately in every time range, a group
+    *                     is empty if the query is not split by device
+    */
+  def toPartitions(boundaries: Array[Long], deviceGroups: Seq[Seq[String]]): Array[Partition] = {
+    val time = SQLConstant.RESERVED_TIME
+    val partitions = new ArrayBuffer[Partition]()
+    for (devices <- deviceGroups; i <- 0 until boundaries.length - 1) {
+      val id = partitions.length
+      if (i == 0) {
+        val where = s"$time >= ${boundaries(i)} and $time <= ${boundaries(i + 1)}"
+        partitions += IoTDBPartition(where, id, boundaries(i), boundaries(i + 1), devices)
       }
       else {
-        where = s"${SQLConstant.RESERVED_TIME} > $currentValue and ${SQLConstant.RESERVED_TIME} <= ${currentValue + length}"
-        partitions += IoTDBPartition(where, i, currentValue + 1, currentValue + length)
+        val where = s"$time > ${boundaries(i)} and $time <= ${boundaries(i + 1)}"
+        partitions += IoTDBPartition(where, id, boundaries(i) + 1, boundaries(i + 1), devices)
       }
-
-      i = i + 1
-      currentValue += length
     }
     partitions.toArray
   }
@@ -93,18 +167,20 @@ class IoTDBRelation protected[iotdb](val options: IoTDBOptions)(@transient val s
 
   private final val logger = LoggerFactory.getLogger(classOf[IoTDBRelation])
 
-  override def schema: StructType = {
+  override lazy val schema: StructType = {
     Converter.toSparkSchema(options)
   }
 
   override def buildScan(requiredColumns: Array[String], filters: Array[Filter]): RDD[Row] = {
-    val start: Long = options.lowerBound.toLong
-    val end: Long = options.upperBound.toLong
-    val numPartition = options.numPartition.toInt
-
-    val partitionInfo = IoTDBPartitioningInfo(start, end, numPartition)
-
-    val parts = IoTDBRelation.getPartitions(partitionInfo)
+    val parts = IoTDBQuery.parse(options.sql) match {
+      case Some(query) if options.autoPartition && query.isPartitionable =>
+        planPartitions(query, filters)
+      case _ =>
+        val start: Long = options.lowerBound.getOrElse("0").toLong
+        val end: Long = options.upperBound.getOrElse("0").toLong
+        val numPartition = options.numPartition.toInt
+        IoTDBRelation.getPartitions(IoTDBPartitioningInfo(start, end, numPartition))
+    }
 
     new IoTDBRDD(sparkSession.sparkContext,
       options,
@@ -113,4 +189,146 @@ class IoTDBRelation protected[iotdb](val options: IoTDBOptions)(@transient val s
       filters,
       parts).asInstanceOf[RDD[Row]]
   }
+
+  /**
+    * Split the query by time, and also by device for "group by device" queries. The time span is
+    * the given bounds or the min and max time of the series, narrowed by the time filters of
+    * spark. Without given bounds, the time ranges are balanced by the number of points in them.
+    */
+  private def planPartitions(query: IoTDBQuery, filters: Array[Filter]): Array[Partition] = {
+    val single = Array[Partition](IoTDBPartition(null, 0, 0L, 0L))
+    val numPartitions =
+      if (options.numPartition.toInt > 0) options.numPartition.toInt
+      else sparkSession.sparkContext.defaultParallelism
+    if (numPartitions <= 1) {
+      return single
+    }
+
+    withStatement { statement =>
+      val isBounded = options.lowerBound.isDefined && options.upperBound.isDefined
+      val span =
+        if (isBounded) Some((options.lowerBound.get.toLong, options.upperBound.get.toLong))
+        else queryTimeSpan(statement, query)
+      val (filterLower, filterUpper) = IoTDBQuery.toTimeRange(filters)
+      span.map { case (lower, upper) => (math.max(lower, filterLower), math.min(upper, filterUpper)) }
+        .filter { case (start, end) => start < end } match {
+        case None => single
+        case Some((start, end)) =>
+          val deviceGroups = Some(query).filter(_.isAlignByDevice)
+            .map(q => IoTDBRelation.groupDevices(querySeriesPerDevice(statement, q), numPartitions))
+            .filter(_.nonEmpty).getOrElse(Seq(Nil))
+          val numTimePartitions = math.max(1, numPartitions / deviceGroups.size)
+          val boundaries =
+            if (isBounded || numTimePartitions == 1) {
+              IoTDBRelation.getBoundaries(IoTDBPartitioningInfo(start, end, numTimePartitions))
+            } else {
+              queryBalancedBoundaries(statement, query, start, end, numTimePartitions)
+            }
+          logger.info(s"Split the query into ${boundaries.length - 1} time ranges and " +
+            s"${deviceGroups.size} device groups, sql: ${options.sql}")
+          IoTDBRelation.toPartitions(boundaries, deviceGroups)
+      }
+    }
+  }
+
+  /**
+    * @return the min and max time of the series in the from clause, None if there is no data
+    */
+  private def queryTimeSpan(statement: Statement, query: IoTDBQuery): Option[(Long, Long)] = {
+    val sql = s"select min_time(*), max_time(*) from ${query.from.mkString(", ")}"
+    var min = Long.MaxValue
+    var max = Long.MinValue
+    foreachValue(executeQuery(statement, sql)) { (column, value) =>
+      if (column.startsWith("min_time(")) {
+        min = math.min(min, value)
+      } else if (column.startsWith("max_time(")) {
+        max = math.max(max, value)
+      }
+    }
+    if (min <= max) Some((min, max)) else None
+  }
+
+  /**
+    * Count the points in buckets of [start, end] by a group by query and split the buckets into
+    * balanced time ranges. Fall back to even time ranges if the counts are not available.
+    */
+  private def queryBalancedBoundaries(statement: Statement, query: IoTDBQuery, start: Long,
+                                      end: Long, numPartitions: Int): Array[Long] = {
+    val numBuckets = numPartitions * IoTDBRelation.BUCKETS_PER_PARTITION
+    val step = math.max(1L, (end - start) / numBuckets + 1)
+    val time = SQLConstant.RESERVED_TIME
+    val sql = query.copy(select = "count(*)", where = None, tail = "").toSQL(None, Nil,
+      Seq(s"$time >= $start and $time <= $end")) + s" group by ([$start, ${end + 1}), ${step}ms)"
+    val counts = new ArrayBuffer[Long]()
+    try {
+      val resultSet = executeQuery(statement, sql)
+      while (resultSet.next()) {
+        var count = 0L
+        val metaData = resultSet.getMetaData
+        for (i <- 1 to metaData.getColumnCount if metaData.getColumnLabel(i).startsWith("count(")) {
+          count += toLong(resultSet.getString(i)).getOrElse(0L)
+        }
+        counts += count
+      }
+    } catch {
+      case e: SQLException =>
+        logger.warn(s"Cannot count the points by $sql, split the time evenly", e)
+        counts.clear()
+    }
+    if (counts.length != (end - start) / step + 1) {
+      return IoTDBRelation.getBoundaries(IoTDBPartitioningInfo(start, end, numPartitions))
+    }
+    IoTDBRelation.getBalancedBoundaries(start, end, step, counts.toArray, numPartitions)
+  }
+
+  /**
+    * @return the number of series of each device under the from clause
+    */
+  private def querySeriesPerDevice(statement: Statement, query: IoTDBQuery): Map[String, Int] = {
+    val seriesPerDevice = new mutable.HashMap[String, Int]()
+    for (path <- query.from) {
+      val resultSet = executeQuery(statement, s"show timeseries $path")
+      while (resultSet.next()) {
+        val series = resultSet.getString(SQLConstant.TIMESERIES_STR)
+        val device = series.substring(0, series.lastIndexOf('.'))
+        seriesPerDevice(device) = seriesPerDevice.getOrElse(device, 0) + 1
+      }
+    }
+    seriesPerDevice.toMap
+  }
+
+  private def foreachValue(resultSet: ResultSet)(f: (String, Long) => Unit): Unit = {
+    while (resultSet.next()) {
+      val metaData = resultSet.getMetaData
+      for (i <- 1 to metaData.getColumnCount) {
+        toLong(resultSet.getString(i)).foreach(value => f(metaData.getColumnLabel(i), value))
+      }
+    }
+  }
+
+  private def toLong(value: String): Option[Long] =
+    if (value == null) None else Try(value.trim.toLong).toOption
+
+  private def executeQuery(statement: Statement, sql: String): ResultSet = {
+    if (!statement.execute(sql)) {
+      throw new SQLException(s"No result set is returned by $sql")
+    }
+    statement.getResultSet
+  }
+
+  private def withStatement[T](f: Statement => T): T = {
+    Class.forName("org.apache.iotdb.jdbc.IoTDBDriver")
+    val connection: Connection = DriverManager.getConnection(options.url, options.user,
+      options.password)
+    try {
+      val statement = connection.createStatement()
+      try {
+        f(statement)
+      } finally {
+        statement.close()
+      }
+    } finally {
+      connection.close()
+    }
+  }
 }
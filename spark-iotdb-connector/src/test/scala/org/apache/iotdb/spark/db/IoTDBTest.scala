@@ -83,6 +83,49 @@ class IoTDBTest extends FunSuite with BeforeAndAfterAll {
     Assert.assertEquals(7505, df.count())
   }
 
+  test("test show data with auto partition") {
+    val df = spark.read.format("org.apache.iotdb.sparkdb")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", "select * from root")
+      .option("numPartition", 10).load
+    Assert.assertEquals(7505, df.count())
+    Assert.assertEquals(499, df.filter("Time < 2000 and Time > 1000").count())
+  }
+
+  test("test group by device with auto partition") {
+    val sql = "select * from root group by device"
+    val expected = spark.read.format("org.apache.iotdb.sparkdb")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", sql)
+      .option("autoPartition", "false").load.count()
+    val df = spark.read.format("org.apache.iotdb.sparkdb")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", sql)
+      .option("numPartition", 10).load
+    Assert.assertEquals(expected, df.count())
+  }
+
+  test("test partition planning") {
+    val query = IoTDBQuery.parse("select s0, s1 from root.vehicle.d0 where s0 > 10 group by device").get
+    Assert.assertTrue(query.isPartitionable)
+    Assert.assertTrue(query.isAlignByDevice)
+    Assert.assertEquals("select s0 from root.vehicle.d1 where (s0 > 10) and (time > 5) group by device",
+      query.toSQL(query.pruneSelect(Array("Time", "Device", "s0")), Seq("root.vehicle.d1"),
+        Seq("time > 5")))
+    Assert.assertFalse(IoTDBQuery.parse("select count(s0) from root.vehicle.d0").get.isPartitionable)
+
+    val raw = IoTDBQuery.parse("select * from root.vehicle").get
+    Assert.assertEquals(Some("d0.s0"), raw.pruneSelect(Array("Time", "root.vehicle.d0.s0")))
+
+    // 100 points in the first bucket and 10 points in each of the others
+    val counts = Array.fill(10)(10L)
+    counts(0) = 100L
+    val boundaries = IoTDBRelation.getBalancedBoundaries(0, 99, 10, counts, 4)
+    Assert.assertArrayEquals(Array(0L, 9L, 59L, 99L), boundaries)
+    Assert.assertEquals(3, IoTDBRelation.toPartitions(boundaries, Seq(Nil)).length)
+    Assert.assertEquals(2, IoTDBRelation.groupDevices(Map("d0" -> 3, "d1" -> 2, "d2" -> 1), 2).size)
+  }
+
   test("test filter data") {
     val df = spark.read.format("org.apache.iotdb.sparkdb")
       .option("url", "jdbc:iotdb://127.0.0.1:6667/")
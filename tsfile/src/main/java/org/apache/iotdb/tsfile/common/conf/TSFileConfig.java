@@ -127,10 +127,21 @@ public class TSFileConfig {
    */
   private double dftSatisfyRate = 0.1;
   /**
-   * Data compression method, TsFile supports UNCOMPRESSED or SNAPPY. Default value is UNCOMPRESSED
-   * which means no compression
+   * Data compression method, TsFile supports UNCOMPRESSED, SNAPPY, GZIP or LZ4. Default value is
+   * UNCOMPRESSED which means no compression
    */
   private String compressor = "UNCOMPRESSED";
+  /**
+   * Whether to select the value encoding of each chunk by trial-encoding its first points with
+   * candidate encodings when the chunk is flushed. The selected encoding is recorded in the chunk
+   * header. Default value is false.
+   */
+  private boolean adaptiveEncoding = false;
+  /**
+   * Number of points sampled from each chunk to select the value encoding when adaptive encoding
+   * is enabled.
+   */
+  private int adaptiveEncodingSampleSize = 1024;
   /**
    * Line count threshold for checking page memory occupied size.
    */
@@ -324,6 +335,22 @@ public class TSFileConfig {
     this.compressor = compressor;
   }
 
+  public boolean isAdaptiveEncoding() {
+    return adaptiveEncoding;
+  }
+
+  public void setAdaptiveEncoding(boolean adaptiveEncoding) {
+    this.adaptiveEncoding = adaptiveEncoding;
+  }
+
+  public int getAdaptiveEncodingSampleSize() {
+    return adaptiveEncodingSampleSize;
+  }
+
+  public void setAdaptiveEncodingSampleSize(int adaptiveEncodingSampleSize) {
+    this.adaptiveEncodingSampleSize = adaptiveEncodingSampleSize;
+  }
+
   public int getPageCheckSizeThreshold() {
     return pageCheckSizeThreshold;
   }
@@ -128,6 +128,11 @@ public class TSFileDescriptor {
       conf.setTimeEncoder(properties.getProperty("time_encoder", conf.getTimeEncoder()));
       conf.setValueEncoder(properties.getProperty("value_encoder", conf.getValueEncoder()));
       conf.setCompressor(properties.getProperty("compressor", conf.getCompressor()));
+      conf.setAdaptiveEncoding(Boolean.parseBoolean(properties
+          .getProperty("adaptive_encoding", Boolean.toString(conf.isAdaptiveEncoding()))));
+      conf.setAdaptiveEncodingSampleSize(Integer.parseInt(properties
+          .getProperty("adaptive_encoding_sample_size",
+              Integer.toString(conf.getAdaptiveEncodingSampleSize()))));
     } catch (IOException e) {
       logger.warn("Cannot load config file, use default configuration", e);
     } catch (Exception e) {
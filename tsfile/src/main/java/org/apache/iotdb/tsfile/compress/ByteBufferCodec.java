@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Runs a byte-array based codec on ByteBuffers. Heap buffers are processed in place, direct
+ * buffers are copied through a temporary array. Like Snappy, the position of the input is not
+ * changed and the limit of the output is set to the end of the written data.
+ */
+class ByteBufferCodec {
+
+  @FunctionalInterface
+  interface ArrayCodec {
+
+    int apply(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) throws IOException;
+  }
+
+  private ByteBufferCodec() {
+    // util class
+  }
+
+  static int apply(ByteBuffer src, ByteBuffer dest, ArrayCodec codec) throws IOException {
+    byte[] srcArray;
+    int srcOff;
+    int srcLen = src.remaining();
+    if (src.hasArray()) {
+      srcArray = src.array();
+      srcOff = src.arrayOffset() + src.position();
+    } else {
+      srcArray = new byte[srcLen];
+      src.duplicate().get(srcArray);
+      srcOff = 0;
+    }
+
+    int written;
+    if (dest.hasArray()) {
+      written = codec.apply(srcArray, srcOff, srcLen, dest.array(),
+          dest.arrayOffset() + dest.position());
+    } else {
+      byte[] destArray = new byte[dest.remaining()];
+      written = codec.apply(srcArray, srcOff, srcLen, destArray, 0);
+      ByteBuffer view = dest.duplicate();
+      view.put(destArray, 0, written);
+    }
+    dest.limit(dest.position() + written);
+    return written;
+  }
+}
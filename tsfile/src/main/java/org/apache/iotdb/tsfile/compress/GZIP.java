@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+/**
+ * GZIP codec based on java.util.zip, so no native library is required. The output is a standard
+ * gzip stream, whose trailer records the uncompressed length.
+ */
+class GZIP {
+
+  // header (10 bytes) and trailer (8 bytes) of a gzip stream
+  private static final int WRAPPER_SIZE = 18;
+  private static final int TRAILER_SIZE = 8;
+
+  private GZIP() {
+    // util class
+  }
+
+  static int maxCompressedLength(int length) {
+    // the same bound as zlib's compressBound()
+    return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13 + WRAPPER_SIZE;
+  }
+
+  static byte[] compress(byte[] src, int srcOff, int srcLen) throws IOException {
+    PublicBAOS out = new PublicBAOS(maxCompressedLength(srcLen));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(src, srcOff, srcLen);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * @return the number of bytes written into dest
+   */
+  static int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff)
+      throws IOException {
+    PublicBAOS out = new PublicBAOS(maxCompressedLength(srcLen));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(src, srcOff, srcLen);
+    }
+    if (out.size() > dest.length - destOff) {
+      throw new IOException(String.format("GZIP output buffer is too small, need %d, remaining %d",
+          out.size(), dest.length - destOff));
+    }
+    System.arraycopy(out.getBuf(), 0, dest, destOff, out.size());
+    return out.size();
+  }
+
+  static int uncompressedLength(byte[] src, int srcOff, int srcLen) throws IOException {
+    if (srcLen < WRAPPER_SIZE) {
+      throw new IOException("GZIP stream is too short: " + srcLen);
+    }
+    // ISIZE, the last 4 bytes of the trailer in little-endian
+    int off = srcOff + srcLen - TRAILER_SIZE / 2;
+    return (src[off] & 0xFF) | ((src[off + 1] & 0xFF) << 8) | ((src[off + 2] & 0xFF) << 16)
+        | ((src[off + 3] & 0xFF) << 24);
+  }
+
+  /**
+   * @return the number of bytes written into dest
+   */
+  static int uncompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff)
+      throws IOException {
+    int destLen = uncompressedLength(src, srcOff, srcLen);
+    if (dest.length - destOff < destLen) {
+      throw new IOException(String.format("GZIP output buffer is too small, need %d, remaining %d",
+          destLen, dest.length - destOff));
+    }
+    try (GZIPInputStream gzip = new GZIPInputStream(
+        new ByteArrayInputStream(src, srcOff, srcLen))) {
+      int read = 0;
+      while (read < destLen) {
+        int n = gzip.read(dest, destOff + read, destLen - read);
+        if (n < 0) {
+          throw new IOException(String.format("Malformed GZIP stream, expect %d bytes but got %d",
+              destLen, read));
+        }
+        read += n;
+      }
+    }
+    return destLen;
+  }
+}
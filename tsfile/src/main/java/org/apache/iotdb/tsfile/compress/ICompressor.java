@@ -22,6 +22,7 @@ package org.apache.iotdb.tsfile.compress;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.xerial.snappy.Snappy;
@@ -51,6 +52,10 @@ public interface ICompressor extends Serializable {
         return new NoCompressor();
       case SNAPPY:
         return new SnappyCompressor();
+      case GZIP:
+        return new GZIPCompressor();
+      case LZ4:
+        return new LZ4Compressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -140,4 +145,74 @@ public interface ICompressor extends Serializable {
       return CompressionType.SNAPPY;
     }
   }
+
+  /**
+   * GZIP trades speed for a higher compression ratio, which suits cold data.
+   */
+  class GZIPCompressor implements ICompressor {
+
+    @Override
+    public byte[] compress(byte[] data) throws IOException {
+      if (data == null) {
+        return new byte[0];
+      }
+      return GZIP.compress(data, 0, data.length);
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) throws IOException {
+      return GZIP.compress(data, offset, length, compressed, 0);
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) throws IOException {
+      return ByteBufferCodec.apply(data, compressed, GZIP::compress);
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return GZIP.maxCompressedLength(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.GZIP;
+    }
+  }
+
+  /**
+   * LZ4 decompresses faster than Snappy with a similar compression ratio, which suits hot data.
+   */
+  class LZ4Compressor implements ICompressor {
+
+    @Override
+    public byte[] compress(byte[] data) {
+      if (data == null) {
+        return new byte[0];
+      }
+      byte[] compressed = new byte[LZ4.maxCompressedLength(data.length)];
+      int size = LZ4.compress(data, 0, data.length, compressed, 0);
+      return Arrays.copyOf(compressed, size);
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) {
+      return LZ4.compress(data, offset, length, compressed, 0);
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) throws IOException {
+      return ByteBufferCodec.apply(data, compressed, LZ4::compress);
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return LZ4.maxCompressedLength(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.LZ4;
+    }
+  }
 }
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.compress;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.slf4j.Logger;
@@ -47,6 +48,10 @@ public interface IUnCompressor {
         return new NoUnCompressor();
       case SNAPPY:
         return new SnappyUnCompressor();
+      case GZIP:
+        return new GZIPUnCompressor();
+      case LZ4:
+        return new LZ4UnCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -184,4 +189,114 @@ public interface IUnCompressor {
       return CompressionType.SNAPPY;
     }
   }
+
+  class GZIPUnCompressor implements IUnCompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GZIPUnCompressor.class);
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) throws IOException {
+      return GZIP.uncompressedLength(array, offset, length);
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) throws IOException {
+      byte[] trailer = new byte[Integer.BYTES];
+      ByteBuffer duplicate = buffer.duplicate();
+      duplicate.position(buffer.limit() - Integer.BYTES);
+      duplicate.get(trailer);
+      return (trailer[0] & 0xFF) | ((trailer[1] & 0xFF) << 8) | ((trailer[2] & 0xFF) << 16)
+          | ((trailer[3] & 0xFF) << 24);
+    }
+
+    @Override
+    public byte[] uncompress(byte[] bytes) {
+      if (bytes == null) {
+        return new byte[0];
+      }
+
+      try {
+        byte[] uncompressed = new byte[GZIP.uncompressedLength(bytes, 0, bytes.length)];
+        GZIP.uncompress(bytes, 0, bytes.length, uncompressed, 0);
+        return uncompressed;
+      } catch (IOException e) {
+        logger.error(
+            "tsfile-compression GZIPUnCompressor: errors occurs when uncompress input byte", e);
+      }
+      return new byte[0];
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
+        throws IOException {
+      return GZIP.uncompress(byteArray, offset, length, output, outOffset);
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      return ByteBufferCodec.apply(compressed, uncompressed, GZIP::uncompress);
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.GZIP;
+    }
+  }
+
+  class LZ4UnCompressor implements IUnCompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LZ4UnCompressor.class);
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) throws IOException {
+      return LZ4.uncompressedLength(array, offset, length);
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) throws IOException {
+      if (buffer.remaining() < LZ4.HEADER_SIZE) {
+        throw new IOException("LZ4 block is too short: " + buffer.remaining());
+      }
+      return buffer.duplicate().order(ByteOrder.BIG_ENDIAN).getInt(buffer.position());
+    }
+
+    @Override
+    public byte[] uncompress(byte[] bytes) {
+      if (bytes == null) {
+        return new byte[0];
+      }
+
+      try {
+        byte[] uncompressed = new byte[LZ4.uncompressedLength(bytes, 0, bytes.length)];
+        LZ4.decompress(bytes, 0, bytes.length, uncompressed, 0);
+        return uncompressed;
+      } catch (IOException e) {
+        logger.error(
+            "tsfile-compression LZ4UnCompressor: errors occurs when uncompress input byte", e);
+      }
+      return new byte[0];
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
+        throws IOException {
+      return LZ4.decompress(byteArray, offset, length, output, outOffset);
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      return ByteBufferCodec.apply(compressed, uncompressed, LZ4::decompress);
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.LZ4;
+    }
+  }
 }
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import java.io.IOException;
+
+/**
+ * A pure-java implementation of the LZ4 block format. Each compressed block written by this class
+ * starts with the uncompressed length as a 4-byte big-endian int, followed by standard LZ4
+ * sequences, so that the output size can be known before decompression.
+ */
+class LZ4 {
+
+  /**
+   * size of the length prefix of each compressed block.
+   */
+  static final int HEADER_SIZE = Integer.BYTES;
+
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_LOG = 12;
+  private static final int MAX_DISTANCE = (1 << 16) - 1;
+  // the last match must start at least 12 bytes before the end of the block
+  private static final int MF_LIMIT = 12;
+  // the last 5 bytes are always literals
+  private static final int LAST_LITERALS = 5;
+  private static final int RUN_MASK = 0x0F;
+  private static final int ML_BITS = 4;
+  private static final int SKIP_STRENGTH = 6;
+
+  private LZ4() {
+    // util class
+  }
+
+  static int maxCompressedLength(int length) {
+    return HEADER_SIZE + length + length / 255 + 16;
+  }
+
+  static int uncompressedLength(byte[] src, int srcOff, int srcLen) throws IOException {
+    if (srcLen < HEADER_SIZE) {
+      throw new IOException("LZ4 block is too short: " + srcLen);
+    }
+    return readIntBE(src, srcOff);
+  }
+
+  /**
+   * @return the number of bytes written into dest, including the length prefix
+   */
+  static int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) {
+    writeIntBE(dest, destOff, srcLen);
+    int dOff = destOff + HEADER_SIZE;
+
+    int srcEnd = srcOff + srcLen;
+    int anchor = srcOff;
+    if (srcLen >= MF_LIMIT + 1) {
+      int matchLimit = srcEnd - LAST_LITERALS;
+      int sLimit = srcEnd - MF_LIMIT;
+      // positions are stored with an offset of 1 so that 0 means "empty slot"
+      int[] hashTable = new int[1 << HASH_LOG];
+      int sOff = srcOff;
+      // the step grows on data that does not compress, like LZ4's acceleration
+      int searchCount = 1 << SKIP_STRENGTH;
+
+      while (sOff < sLimit) {
+        int h = hash(readInt(src, sOff));
+        int ref = hashTable[h] - 1;
+        hashTable[h] = sOff + 1;
+        if (ref < srcOff || sOff - ref > MAX_DISTANCE || readInt(src, ref) != readInt(src, sOff)) {
+          sOff += searchCount++ >>> SKIP_STRENGTH;
+          continue;
+        }
+        searchCount = 1 << SKIP_STRENGTH;
+
+        // extend the match backwards
+        while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+          sOff--;
+          ref--;
+        }
+
+        // extend the match forwards
+        int matchLen = MIN_MATCH;
+        while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+          matchLen++;
+        }
+
+        dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dest, dOff);
+        sOff += matchLen;
+        anchor = sOff;
+        if (sOff < sLimit) {
+          hashTable[hash(readInt(src, sOff - 2))] = sOff - 2 + 1;
+        }
+      }
+    }
+
+    // the remaining bytes are written as the last literals
+    dOff = writeLastLiterals(src, anchor, srcEnd - anchor, dest, dOff);
+    return dOff - destOff;
+  }
+
+  /**
+   * @return the number of bytes written into dest
+   */
+  static int decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff)
+      throws IOException {
+    int destLen = uncompressedLength(src, srcOff, srcLen);
+    if (dest.length - destOff < destLen) {
+      throw new IOException(String.format("LZ4 output buffer is too small, need %d, remaining %d",
+          destLen, dest.length - destOff));
+    }
+    int sOff = srcOff + HEADER_SIZE;
+    int srcEnd = srcOff + srcLen;
+    int dOff = destOff;
+    int destEnd = destOff + destLen;
+
+    while (sOff < srcEnd) {
+      int token = src[sOff++] & 0xFF;
+
+      // literals
+      int literalLen = token >>> ML_BITS;
+      if (literalLen == RUN_MASK) {
+        int len;
+        do {
+          checkBound(sOff < srcEnd);
+          len = src[sOff++] & 0xFF;
+          literalLen += len;
+        } while (len == 0xFF);
+      }
+      checkBound(sOff + literalLen <= srcEnd && dOff + literalLen <= destEnd);
+      System.arraycopy(src, sOff, dest, dOff, literalLen);
+      sOff += literalLen;
+      dOff += literalLen;
+      if (sOff == srcEnd) {
+        // the last sequence has no match part
+        break;
+      }
+
+      // match
+      checkBound(sOff + 2 <= srcEnd);
+      int offset = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+      sOff += 2;
+      int ref = dOff - offset;
+      checkBound(offset > 0 && ref >= destOff);
+      int matchLen = token & RUN_MASK;
+      if (matchLen == RUN_MASK) {
+        int len;
+        do {
+          checkBound(sOff < srcEnd);
+          len = src[sOff++] & 0xFF;
+          matchLen += len;
+        } while (len == 0xFF);
+      }
+      matchLen += MIN_MATCH;
+      checkBound(dOff + matchLen <= destEnd);
+      // an overlapped match repeats the bytes in [ref, dOff), so the copied range can double
+      // in each step instead of being copied byte by byte
+      int matchEnd = dOff + matchLen;
+      while (dOff < matchEnd) {
+        int length = Math.min(dOff - ref, matchEnd - dOff);
+        System.arraycopy(dest, ref, dest, dOff, length);
+        dOff += length;
+      }
+    }
+
+    if (dOff != destEnd) {
+      throw new IOException(String.format("Malformed LZ4 block, expect %d bytes but got %d",
+          destLen, dOff - destOff));
+    }
+    return destLen;
+  }
+
+  private static int writeSequence(byte[] src, int literalOff, int literalLen, int offset,
+      int matchLen, byte[] dest, int dOff) {
+    int tokenOff = dOff++;
+    int token;
+    if (literalLen >= RUN_MASK) {
+      token = RUN_MASK << ML_BITS;
+      dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+    } else {
+      token = literalLen << ML_BITS;
+    }
+    System.arraycopy(src, literalOff, dest, dOff, literalLen);
+    dOff += literalLen;
+
+    dest[dOff++] = (byte) offset;
+    dest[dOff++] = (byte) (offset >>> 8);
+
+    int extraMatchLen = matchLen - MIN_MATCH;
+    if (extraMatchLen >= RUN_MASK) {
+      token |= RUN_MASK;
+      dOff = writeLength(extraMatchLen - RUN_MASK, dest, dOff);
+    } else {
+      token |= extraMatchLen;
+    }
+    dest[tokenOff] = (byte) token;
+    return dOff;
+  }
+
+  private static int writeLastLiterals(byte[] src, int literalOff, int literalLen, byte[] dest,
+      int dOff) {
+    if (literalLen >= RUN_MASK) {
+      dest[dOff++] = (byte) (RUN_MASK << ML_BITS);
+      dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+    } else {
+      dest[dOff++] = (byte) (literalLen << ML_BITS);
+    }
+    System.arraycopy(src, literalOff, dest, dOff, literalLen);
+    return dOff + literalLen;
+  }
+
+  private static int writeLength(int length, byte[] dest, int dOff) {
+    while (length >= 0xFF) {
+      dest[dOff++] = (byte) 0xFF;
+      length -= 0xFF;
+    }
+    dest[dOff++] = (byte) length;
+    return dOff;
+  }
+
+  private static int hash(int value) {
+    return (value * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+  }
+
+  private static int readInt(byte[] buf, int off) {
+    return (buf[off] & 0xFF) | ((buf[off + 1] & 0xFF) << 8) | ((buf[off + 2] & 0xFF) << 16)
+        | ((buf[off + 3] & 0xFF) << 24);
+  }
+
+  private static int readIntBE(byte[] buf, int off) {
+    return ((buf[off] & 0xFF) << 24) | ((buf[off + 1] & 0xFF) << 16)
+        | ((buf[off + 2] & 0xFF) << 8) | (buf[off + 3] & 0xFF);
+  }
+
+  private static void writeIntBE(byte[] buf, int off, int value) {
+    buf[off] = (byte) (value >>> 24);
+    buf[off + 1] = (byte) (value >>> 16);
+    buf[off + 2] = (byte) (value >>> 8);
+    buf[off + 3] = (byte) value;
+  }
+
+  private static void checkBound(boolean condition) throws IOException {
+    if (!condition) {
+      throw new IOException("Malformed LZ4 block");
+    }
+  }
+}
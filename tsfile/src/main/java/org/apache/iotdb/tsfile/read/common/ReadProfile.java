@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReadProfile collects the counters of the chunks and pages read by the readers it is set to, the
+ * readers of different threads may share a profile.
+ */
+public class ReadProfile {
+
+  private LongAdder chunksRead = new LongAdder();
+  private LongAdder chunksSkipped = new LongAdder();
+  private LongAdder bytesRead = new LongAdder();
+  private LongAdder chunkLoadTimeNs = new LongAdder();
+  private LongAdder pagesRead = new LongAdder();
+  private LongAdder pagesSkipped = new LongAdder();
+  private LongAdder uncompressTimeNs = new LongAdder();
+  private LongAdder decodeTimeNs = new LongAdder();
+
+  /**
+   * @param bytes the size of the chunk data
+   * @param timeNs the time of loading the chunk, including the I/O and the cache lookup
+   */
+  public void chunkLoaded(long bytes, long timeNs) {
+    chunksRead.increment();
+    bytesRead.add(bytes);
+    chunkLoadTimeNs.add(timeNs);
+  }
+
+  /**
+   * a chunk is skipped by its statistics without being loaded.
+   */
+  public void chunkSkipped() {
+    chunksSkipped.increment();
+  }
+
+  public void pageRead(long uncompressTimeNs, long decodeTimeNs) {
+    pagesRead.increment();
+    this.uncompressTimeNs.add(uncompressTimeNs);
+    this.decodeTimeNs.add(decodeTimeNs);
+  }
+
+  /**
+   * a page is skipped by its header without being uncompressed.
+   */
+  public void pageSkipped() {
+    pagesSkipped.increment();
+  }
+
+  public long getChunksRead() {
+    return chunksRead.sum();
+  }
+
+  public long getChunksSkipped() {
+    return chunksSkipped.sum();
+  }
+
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  public long getChunkLoadTimeNs() {
+    return chunkLoadTimeNs.sum();
+  }
+
+  public long getPagesRead() {
+    return pagesRead.sum();
+  }
+
+  public long getPagesSkipped() {
+    return pagesSkipped.sum();
+  }
+
+  public long getUncompressTimeNs() {
+    return uncompressTimeNs.sum();
+  }
+
+  public long getDecodeTimeNs() {
+    return decodeTimeNs.sum();
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.ReadProfile;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 
@@ -55,6 +56,11 @@ public class ChunkReader {
    */
   protected long deletedAt;
 
+  /**
+   * collects the counters of the pages if not null
+   */
+  private ReadProfile profile;
+
   /**
    * constructor of ChunkReader.
    *
@@ -92,6 +98,9 @@ public class ChunkReader {
         return true;
       } else {
         skipBytesInStreamByLength(pageHeader.getCompressedSize());
+        if (profile != null) {
+          profile.pageSkipped();
+        }
       }
     }
     return false;
@@ -105,9 +114,18 @@ public class ChunkReader {
    */
   public BatchData nextPageData() throws IOException {
     if(hasCachedPageHeader || hasNextSatisfiedPage()) {
+      if (profile == null) {
+        PageReader pageReader = constructPageReaderForNextPage(pageHeader);
+        hasCachedPageHeader = false;
+        return pageReader.getAllSatisfiedPageData();
+      }
+      long startTime = System.nanoTime();
       PageReader pageReader = constructPageReaderForNextPage(pageHeader);
       hasCachedPageHeader = false;
-      return pageReader.getAllSatisfiedPageData();
+      long uncompressedTime = System.nanoTime();
+      BatchData batchData = pageReader.getAllSatisfiedPageData();
+      profile.pageRead(uncompressedTime - startTime, System.nanoTime() - uncompressedTime);
+      return batchData;
     } else {
       throw new IOException("no next page data");
     }
@@ -117,9 +135,22 @@ public class ChunkReader {
     return pageHeader;
   }
 
+  /**
+   * @return the compressed data of the next page, which is not consumed until skipPageData() or
+   * nextPageData() is called
+   */
+  public ByteBuffer nextPageRawData() {
+    ByteBuffer pageData = chunkDataBuffer.slice();
+    pageData.limit(pageHeader.getCompressedSize());
+    return pageData;
+  }
+
   public void skipPageData() {
     skipBytesInStreamByLength(pageHeader.getCompressedSize());
     hasCachedPageHeader = false;
+    if (profile != null) {
+      profile.pageSkipped();
+    }
   }
 
   private void skipBytesInStreamByLength(long length) {
@@ -159,4 +190,8 @@ public class ChunkReader {
   public ChunkHeader getChunkHeader() {
     return chunkHeader;
   }
+
+  public void setProfile(ReadProfile profile) {
+    this.profile = profile;
+  }
 }
@@ -22,6 +22,7 @@ package org.apache.iotdb.tsfile.read.reader.series;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.ReadProfile;
 import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
@@ -44,6 +45,11 @@ public abstract class AbstractFileSeriesReader implements IAggregateReader {
 
   protected Filter filter;
 
+  /**
+   * collects the counters of the chunks and pages if not null
+   */
+  private ReadProfile profile;
+
   /**
    * constructor of FileSeriesReader.
    */
@@ -73,11 +79,21 @@ public abstract class AbstractFileSeriesReader implements IAggregateReader {
       ChunkMetaData chunkMetaData = nextChunkMeta();
       if (chunkSatisfied(chunkMetaData)) {
         // chunk metadata satisfy the condition
-        initChunkReader(chunkMetaData);
+        if (profile == null) {
+          initChunkReader(chunkMetaData);
+        } else {
+          long startTime = System.nanoTime();
+          initChunkReader(chunkMetaData);
+          profile.chunkLoaded(chunkReader.getChunkHeader().getDataSize(),
+              System.nanoTime() - startTime);
+          chunkReader.setProfile(profile);
+        }
 
         if (chunkReader.hasNextSatisfiedPage()) {
           return true;
         }
+      } else if (profile != null) {
+        profile.chunkSkipped();
       }
     }
     return false;
@@ -103,6 +119,10 @@ public abstract class AbstractFileSeriesReader implements IAggregateReader {
     chunkReader.skipPageData();
   }
 
+  public void setProfile(ReadProfile profile) {
+    this.profile = profile;
+  }
+
   protected abstract void initChunkReader(ChunkMetaData chunkMetaData) throws IOException;
 
   protected abstract boolean chunkSatisfied(ChunkMetaData chunkMetaData);
@@ -104,6 +104,58 @@ public class FileSeriesReaderByTimestamp {
     return null;
   }
 
+  /**
+   * get the values with time equal to the first length timestamps, the i-th value is null if there
+   * is no such point. The timestamps must be increasing and greater than any timestamp looked up
+   * before. Instead of one lookup per timestamp, the timestamps are merged with the points of each
+   * page, and the chunks and pages that end before the next timestamp are skipped without being
+   * decoded.
+   */
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    int i = 0;
+    while (i < length && hasNextData(timestamps[i])) {
+      while (i < length && data.hasCurrent()) {
+        long time = data.currentTime();
+        if (time < timestamps[i]) {
+          data.next();
+        } else {
+          if (time == timestamps[i]) {
+            values[i] = data.currentValue();
+            data.next();
+          }
+          i++;
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * make sure that data has a current point, skipping the chunks and pages that end before the
+   * timestamp.
+   *
+   * @return false if there are no more points
+   */
+  private boolean hasNextData(long timestamp) throws IOException {
+    if (data != null && data.hasCurrent()) {
+      return true;
+    }
+    this.currentTimestamp = timestamp;
+    do {
+      if (chunkReader != null) {
+        ((ChunkReaderByTimestamp) chunkReader).setCurrentTimestamp(timestamp);
+        while (chunkReader.hasNextSatisfiedPage()) {
+          data = chunkReader.nextPageData();
+          if (data.hasCurrent()) {
+            return true;
+          }
+        }
+      }
+    } while (constructNextSatisfiedChunkReader());
+    return false;
+  }
+
   /**
    * Judge if the series reader has next time-value pair.
    *
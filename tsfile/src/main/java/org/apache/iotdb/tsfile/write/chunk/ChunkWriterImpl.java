@@ -22,12 +22,15 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.compress.ICompressor;
 import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
@@ -77,6 +80,22 @@ public class ChunkWriterImpl implements IChunkWriter {
    */
   private Statistics<?> statistics;
 
+  /**
+   * samples the first points of each chunk to select the value encoding if adaptive encoding is
+   * enabled, null otherwise.
+   */
+  private EncodingSampler sampler;
+
+  /**
+   * whether points are written into the sampler rather than the page writer.
+   */
+  private boolean sampling;
+
+  /**
+   * value encoding of the current chunk, which is recorded in its chunk header.
+   */
+  private TSEncoding valueEncoding;
+
   /**
    * @param schema schema of this measurement
    */
@@ -97,34 +116,67 @@ public class ChunkWriterImpl implements IChunkWriter {
     this.pageWriter = new PageWriter(measurementSchema);
     this.pageWriter.setTimeEncoder(measurementSchema.getTimeEncoder());
     this.pageWriter.setValueEncoder(measurementSchema.getValueEncoder());
+    this.valueEncoding = measurementSchema.getEncodingType();
+
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    if (config.isAdaptiveEncoding() && EncodingSampler.isSupported(measurementSchema.getType())) {
+      this.sampler = new EncodingSampler(measurementSchema,
+          config.getAdaptiveEncodingSampleSize());
+      this.sampling = true;
+    }
   }
 
   @Override
   public void write(long time, long value) {
+    if (sampling) {
+      sampler.write(time, value);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long time, int value) {
+    if (sampling) {
+      sampler.write(time, value);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long time, boolean value) {
+    if (sampling) {
+      sampler.write(time, value);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long time, float value) {
+    if (sampling) {
+      sampler.write(time, value);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long time, double value) {
+    if (sampling) {
+      sampler.write(time, value);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -137,30 +189,55 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long[] timestamps, int[] values, int batchSize) {
+    if (sampling) {
+      sampler.write(timestamps, values, batchSize);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, long[] values, int batchSize) {
+    if (sampling) {
+      sampler.write(timestamps, values, batchSize);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, boolean[] values, int batchSize) {
+    if (sampling) {
+      sampler.write(timestamps, values, batchSize);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, float[] values, int batchSize) {
+    if (sampling) {
+      sampler.write(timestamps, values, batchSize);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, double[] values, int batchSize) {
+    if (sampling) {
+      sampler.write(timestamps, values, batchSize);
+      checkSampleAndMaySelectEncoding();
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -199,6 +276,53 @@ public class ChunkWriterImpl implements IChunkWriter {
     }
   }
 
+  private void checkSampleAndMaySelectEncoding() {
+    if (sampler.isFull()) {
+      selectEncodingAndWriteSample(true);
+    }
+  }
+
+  /**
+   * stop sampling for the current chunk, and write the sampled points into the page writer with the
+   * selected encoding.
+   *
+   * @param select whether to select the encoding by the sample or use the encoding in the schema
+   */
+  private void selectEncodingAndWriteSample(boolean select) {
+    sampling = false;
+    if (select) {
+      valueEncoding = sampler.selectEncoding();
+    }
+    pageWriter.setValueEncoder(sampler.getEncoder(valueEncoding));
+
+    long[] times = sampler.getSampledTimes();
+    Object values = sampler.getSampledValues();
+    int size = sampler.size();
+    for (int i = 0; i < size; i++) {
+      switch (measurementSchema.getType()) {
+        case BOOLEAN:
+          pageWriter.write(times[i], ((boolean[]) values)[i]);
+          break;
+        case INT32:
+          pageWriter.write(times[i], ((int[]) values)[i]);
+          break;
+        case INT64:
+          pageWriter.write(times[i], ((long[]) values)[i]);
+          break;
+        case FLOAT:
+          pageWriter.write(times[i], ((float[]) values)[i]);
+          break;
+        case DOUBLE:
+          pageWriter.write(times[i], ((double[]) values)[i]);
+          break;
+        default:
+          throw new UnSupportedDataTypeException(measurementSchema.getType().toString());
+      }
+      checkPageSizeAndMayOpenANewPage();
+    }
+    sampler.reset();
+  }
+
   private void writePage() {
     try {
       pageWriter.writePageHeaderAndDataIntoBuff(pageBuffer);
@@ -221,12 +345,19 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     // reinit this chunk writer
     pageBuffer.reset();
+    numOfPages = 0;
     this.statistics = Statistics.getStatsByType(measurementSchema.getType());
+    if (sampler != null) {
+      // the next chunk selects its own encoding
+      sampling = true;
+      valueEncoding = measurementSchema.getEncodingType();
+    }
   }
 
   @Override
   public long estimateMaxSeriesMemSize() {
-    return pageWriter.estimateMaxMemSize() + this.estimateMaxPageMemSize();
+    long sampleSize = sampling ? sampler.estimateMemSize() : 0;
+    return pageWriter.estimateMaxMemSize() + this.estimateMaxPageMemSize() + sampleSize;
   }
 
   @Override
@@ -240,6 +371,9 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void sealCurrentPage() {
+    if (sampling && sampler.size() > 0) {
+      selectEncodingAndWriteSample(true);
+    }
     if (pageWriter.getPointNumber() > 0) {
       writePage();
     }
@@ -255,13 +389,60 @@ public class ChunkWriterImpl implements IChunkWriter {
     return measurementSchema.getType();
   }
 
+  /**
+   * @return the value encoding of the current chunk, which may differ from the schema if adaptive
+   * encoding is enabled.
+   */
+  public TSEncoding getValueEncoding() {
+    return valueEncoding;
+  }
+
+  @Override
+  public boolean appendPage(ChunkHeader chunkHeader, PageHeader pageHeader, ByteBuffer pageData)
+      throws IOException {
+    if (chunkHeader.getDataType() != measurementSchema.getType()
+        || chunkHeader.getCompressionType() != compressor.getType()) {
+      return false;
+    }
+    // the encoding is checked before the current page is sealed, so that a rejected page does not
+    // leave a small page behind
+    TSEncoding encoding = chunkHeader.getEncodingType();
+    if (sampling && sampler.size() == 0) {
+      // nothing is written into the current chunk yet, so it can take the encoding of the page
+      sampling = false;
+      valueEncoding = encoding;
+      pageWriter.setValueEncoder(sampler.getEncoder(encoding));
+    } else if (sampling) {
+      // the samples decide the encoding of the chunk
+      TSEncoding selectedEncoding = sampler.selectEncoding();
+      if (selectedEncoding != encoding) {
+        return false;
+      }
+      valueEncoding = selectedEncoding;
+      selectEncodingAndWriteSample(false);
+    } else if (encoding != valueEncoding) {
+      return false;
+    }
+    sealCurrentPage();
+    try {
+      writePageHeaderAndDataIntoBuff(pageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    return true;
+  }
+
   /**
    * write the page header and data into the PageWriter's output stream.
    *
-   * NOTE: for upgrading 0.8.0 to 0.9.0
+   * NOTE: for upgrading 0.8.0 to 0.9.0. The data must be encoded by the encoding in the schema,
+   * so adaptive encoding is disabled for the current chunk.
    */
   public void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header)
       throws PageException {
+    if (sampling) {
+      selectEncodingAndWriteSample(false);
+    }
     numOfPages++;
 
     // write the page header to pageBuffer
@@ -301,7 +482,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     // start to write this column chunk
     writer.startFlushChunk(measurementSchema, compressor.getType(), measurementSchema.getType(),
-            measurementSchema.getEncodingType(), statistics, pageBuffer.size(), numOfPages);
+            valueEncoding, statistics, pageBuffer.size(), numOfPages);
 
     long dataOffset = writer.getPos();
 
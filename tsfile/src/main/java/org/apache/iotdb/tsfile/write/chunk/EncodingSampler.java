@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * EncodingSampler buffers the first points of a chunk and trial-encodes them with every candidate
+ * value encoding of the data type, so that the chunk can be written with the encoding that
+ * produces the smallest output. Only lossless encodings are tried, except the encoding in the
+ * schema which the user has chosen explicitly. REGULAR is never tried because a regular sample
+ * does not make the whole chunk regular.
+ */
+public class EncodingSampler {
+
+  private static final Logger logger = LoggerFactory.getLogger(EncodingSampler.class);
+
+  private final MeasurementSchema schema;
+  private final int sampleSize;
+  private final List<TSEncoding> candidates;
+
+  private long[] times;
+  private Object values;
+  private int size;
+
+  public EncodingSampler(MeasurementSchema schema, int sampleSize) {
+    this.schema = schema;
+    this.sampleSize = sampleSize;
+    this.candidates = getCandidates(schema.getType(), schema.getEncodingType());
+    this.times = new long[sampleSize];
+    this.values = newValueArray(schema.getType(), sampleSize);
+  }
+
+  /**
+   * @return candidate encodings of the data type, the encoding in the schema comes first.
+   */
+  public static List<TSEncoding> getCandidates(TSDataType dataType, TSEncoding schemaEncoding) {
+    List<TSEncoding> candidates = new ArrayList<>();
+    candidates.add(schemaEncoding);
+    List<TSEncoding> lossless;
+    switch (dataType) {
+      case BOOLEAN:
+        lossless = Arrays.asList(TSEncoding.PLAIN, TSEncoding.RLE);
+        break;
+      case INT32:
+      case INT64:
+        lossless = Arrays.asList(TSEncoding.TS_2DIFF, TSEncoding.RLE, TSEncoding.PLAIN);
+        break;
+      case FLOAT:
+      case DOUBLE:
+        lossless = Arrays.asList(TSEncoding.GORILLA, TSEncoding.PLAIN);
+        break;
+      default:
+        lossless = new ArrayList<>();
+        break;
+    }
+    for (TSEncoding encoding : lossless) {
+      if (!candidates.contains(encoding)) {
+        candidates.add(encoding);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * @return whether adaptive encoding has any effect on the data type.
+   */
+  public static boolean isSupported(TSDataType dataType) {
+    return dataType != TSDataType.TEXT;
+  }
+
+  public boolean isFull() {
+    return size >= sampleSize;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long[] getSampledTimes() {
+    return times;
+  }
+
+  public Object getSampledValues() {
+    return values;
+  }
+
+  public long estimateMemSize() {
+    return (long) size * (Long.BYTES + schema.getTypeLength());
+  }
+
+  public void reset() {
+    size = 0;
+  }
+
+  public void write(long time, boolean value) {
+    ensureCapacity(1);
+    times[size] = time;
+    ((boolean[]) values)[size++] = value;
+  }
+
+  public void write(long time, int value) {
+    ensureCapacity(1);
+    times[size] = time;
+    ((int[]) values)[size++] = value;
+  }
+
+  public void write(long time, long value) {
+    ensureCapacity(1);
+    times[size] = time;
+    ((long[]) values)[size++] = value;
+  }
+
+  public void write(long time, float value) {
+    ensureCapacity(1);
+    times[size] = time;
+    ((float[]) values)[size++] = value;
+  }
+
+  public void write(long time, double value) {
+    ensureCapacity(1);
+    times[size] = time;
+    ((double[]) values)[size++] = value;
+  }
+
+  /**
+   * write a batch into the sample, the sample grows if the batch is larger than the sample size.
+   *
+   * @param values an array of the value type of the schema
+   */
+  public void write(long[] timestamps, Object values, int batchSize) {
+    ensureCapacity(batchSize);
+    System.arraycopy(timestamps, 0, times, size, batchSize);
+    System.arraycopy(values, 0, this.values, size, batchSize);
+    size += batchSize;
+  }
+
+  /**
+   * trial-encode the sampled values with each candidate.
+   *
+   * @return the candidate with the smallest encoded size, or the encoding of the schema if there is
+   * a tie
+   */
+  public TSEncoding selectEncoding() {
+    TSEncoding best = schema.getEncodingType();
+    long bestSize = Long.MAX_VALUE;
+    for (TSEncoding candidate : candidates) {
+      long encodedSize;
+      try {
+        encodedSize = trialEncode(candidate);
+      } catch (IOException | UnsupportedOperationException e) {
+        logger.debug("Cannot encode {} with {}", schema.getMeasurementId(), candidate, e);
+        continue;
+      }
+      if (encodedSize < bestSize) {
+        best = candidate;
+        bestSize = encodedSize;
+      }
+    }
+    logger.debug("{} of {} points is encoded by {} with {} bytes", schema.getMeasurementId(), size,
+        best, bestSize);
+    return best;
+  }
+
+  /**
+   * @return an encoder of the given encoding, initialized by the props of the schema.
+   */
+  public Encoder getEncoder(TSEncoding encoding) {
+    if (encoding == schema.getEncodingType()) {
+      return schema.getValueEncoder();
+    }
+    TSEncodingBuilder builder = TSEncodingBuilder.getConverter(encoding);
+    builder.initFromProps(schema.getProps());
+    return builder.getEncoder(schema.getType());
+  }
+
+  private long trialEncode(TSEncoding encoding) throws IOException {
+    Encoder encoder = getEncoder(encoding);
+    PublicBAOS out = new PublicBAOS();
+    switch (schema.getType()) {
+      case BOOLEAN:
+        boolean[] booleans = (boolean[]) values;
+        for (int i = 0; i < size; i++) {
+          encoder.encode(booleans[i], out);
+        }
+        break;
+      case INT32:
+        int[] ints = (int[]) values;
+        for (int i = 0; i < size; i++) {
+          encoder.encode(ints[i], out);
+        }
+        break;
+      case INT64:
+        long[] longs = (long[]) values;
+        for (int i = 0; i < size; i++) {
+          encoder.encode(longs[i], out);
+        }
+        break;
+      case FLOAT:
+        float[] floats = (float[]) values;
+        for (int i = 0; i < size; i++) {
+          encoder.encode(floats[i], out);
+        }
+        break;
+      case DOUBLE:
+        double[] doubles = (double[]) values;
+        for (int i = 0; i < size; i++) {
+          encoder.encode(doubles[i], out);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException(schema.getType().toString());
+    }
+    encoder.flush(out);
+    return out.size();
+  }
+
+  private void ensureCapacity(int increment) {
+    if (size + increment <= times.length) {
+      return;
+    }
+    int newCapacity = Math.max(size + increment, times.length * 2);
+    times = Arrays.copyOf(times, newCapacity);
+    Object newValues = newValueArray(schema.getType(), newCapacity);
+    System.arraycopy(values, 0, newValues, 0, size);
+    values = newValues;
+  }
+
+  private static Object newValueArray(TSDataType dataType, int capacity) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[capacity];
+      case INT32:
+        return new int[capacity];
+      case INT64:
+        return new long[capacity];
+      case FLOAT:
+        return new float[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      default:
+        throw new UnsupportedOperationException(dataType.toString());
+    }
+  }
+}
@@ -20,6 +20,9 @@ package org.apache.iotdb.tsfile.write.chunk;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
@@ -89,6 +92,18 @@ public interface IChunkWriter {
    */
   void write(long[] timestamps, Binary[] values, int batchSize);
 
+  /**
+   * append an encoded and compressed page to the current chunk without decoding it. The points
+   * written before are sealed into a page first, so the page must be after them in time.
+   *
+   * @param chunkHeader header of the chunk which the page is read from
+   * @param pageData    the compressed page data, which is consumed only if the page is appended
+   * @return false if the page is encoded or compressed differently from the current chunk, in
+   * which case it should be decoded and written point by point
+   */
+  boolean appendPage(ChunkHeader chunkHeader, PageHeader pageHeader, ByteBuffer pageData)
+      throws IOException;
+
   /**
    * flush data to TsFileIOWriter.
    */
@@ -168,8 +168,9 @@ public class RowBatch {
           break;
         case TEXT:
           valueOccupation += batchSize * 4;
-          for (Binary value : (Binary[]) values[i]) {
-            valueOccupation += value.getLength();
+          Binary[] binaries = (Binary[]) values[i];
+          for (int rowIndex = 0; rowIndex < batchSize; rowIndex++) {
+            valueOccupation += binaries[rowIndex].getLength();
           }
           break;
         default:
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.FileGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is used for performance test of the codecs on the pages of a real TsFile, only the round
+ * trip is asserted. User could change {@code ROW_COUNT} and {@code ROUNDS} for larger data test.
+ */
+public class CompressPerfTest {
+
+  private static final int ROW_COUNT = 10000;
+  private static final int ROUNDS = 20;
+  private static final CompressionType[] TYPES = {CompressionType.SNAPPY, CompressionType.GZIP,
+      CompressionType.LZ4};
+
+  private List<byte[]> pages = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    FileGenerator.generateFile(ROW_COUNT, 1000);
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FileGenerator.outputDataFile)) {
+      reader.position(TSFileConfig.MAGIC_STRING.getBytes().length + TSFileConfig.VERSION_NUMBER
+          .getBytes().length);
+      byte marker;
+      while ((marker = reader.readMarker()) != MetaMarker.SEPARATOR) {
+        switch (marker) {
+          case MetaMarker.CHUNK_HEADER:
+            ChunkHeader header = reader.readChunkHeader();
+            for (int j = 0; j < header.getNumOfPages(); j++) {
+              PageHeader pageHeader = reader.readPageHeader(header.getDataType());
+              ByteBuffer page = reader.readPage(pageHeader, header.getCompressionType());
+              pages.add(Arrays.copyOfRange(page.array(), page.arrayOffset() + page.position(),
+                  page.arrayOffset() + page.limit()));
+            }
+            break;
+          case MetaMarker.CHUNK_GROUP_FOOTER:
+            reader.readChunkGroupFooter();
+            break;
+          default:
+            MetaMarker.handleUnexpectedMarker(marker);
+        }
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    FileGenerator.after();
+  }
+
+  @Test
+  public void testPages() throws IOException {
+    long rawSize = 0;
+    for (byte[] page : pages) {
+      rawSize += page.length;
+    }
+    for (CompressionType type : TYPES) {
+      ICompressor compressor = ICompressor.getCompressor(type);
+      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
+      List<byte[]> compressedPages = new ArrayList<>();
+      long compressedSize = 0;
+      long compressTime = 0;
+      long uncompressTime = 0;
+      for (int round = 0; round < ROUNDS; round++) {
+        compressedPages.clear();
+        compressedSize = 0;
+        long start = System.nanoTime();
+        for (byte[] page : pages) {
+          byte[] compressed = new byte[compressor.getMaxBytesForCompression(page.length)];
+          int size = compressor.compress(page, 0, page.length, compressed);
+          compressedPages.add(Arrays.copyOf(compressed, size));
+          compressedSize += size;
+        }
+        compressTime += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < pages.size(); i++) {
+          byte[] compressed = compressedPages.get(i);
+          byte[] uncompressed = new byte[pages.get(i).length];
+          unCompressor.uncompress(compressed, 0, compressed.length, uncompressed, 0);
+          if (round == 0) {
+            assertArrayEquals(pages.get(i), uncompressed);
+          }
+        }
+        uncompressTime += System.nanoTime() - start;
+      }
+      System.out.println(String.format(
+          "%s: %d pages, %d -> %d bytes, ratio %.2f, compression %.1f MB/s, decompression %.1f MB/s",
+          type, pages.size(), rawSize, compressedSize, (double) rawSize / compressedSize,
+          mbPerSecond(rawSize * ROUNDS, compressTime),
+          mbPerSecond(rawSize * ROUNDS, uncompressTime)));
+    }
+  }
+
+  private double mbPerSecond(long bytes, long nanos) {
+    return bytes / 1024.0 / 1024.0 / (nanos / 1.0e9);
+  }
+}
@@ -18,12 +18,18 @@
  */
 package org.apache.iotdb.tsfile.compress;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Random;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -77,4 +83,88 @@ public class CompressTest {
     assertEquals(inputString, result);
   }
 
+  @Test
+  public void gzipCompressorTest() throws IOException {
+    roundTrip(new ICompressor.GZIPCompressor(), new IUnCompressor.GZIPUnCompressor());
+  }
+
+  @Test
+  public void lz4CompressorTest() throws IOException {
+    roundTrip(new ICompressor.LZ4Compressor(), new IUnCompressor.LZ4UnCompressor());
+  }
+
+  @Test
+  public void lz4RepetitiveDataTest() throws IOException {
+    ICompressor compressor = ICompressor.getCompressor(CompressionType.LZ4);
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(CompressionType.LZ4);
+    byte[] data = new byte[100000];
+    for (int i = 0; i < data.length; i++) {
+      // long runs and short periodic patterns exercise overlapped matches
+      data[i] = (byte) (i < 50000 ? 7 : i % 3);
+    }
+    byte[] compressed = compressor.compress(data);
+    assertTrue(compressed.length < data.length / 10);
+    assertEquals(data.length, unCompressor.getUncompressedLength(compressed, 0,
+        compressed.length));
+    assertArrayEquals(data, unCompressor.uncompress(compressed));
+
+    byte[] empty = compressor.compress(new byte[0]);
+    assertEquals(0, unCompressor.uncompress(empty).length);
+  }
+
+  @Test
+  public void randomDataTest() throws IOException {
+    Random random = new Random(0);
+    for (CompressionType type : new CompressionType[]{CompressionType.GZIP,
+        CompressionType.LZ4}) {
+      ICompressor compressor = ICompressor.getCompressor(type);
+      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
+      for (int length : new int[]{1, 12, 13, 100, 65536, 200000}) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        byte[] compressed = new byte[compressor.getMaxBytesForCompression(length)];
+        int size = compressor.compress(data, 0, length, compressed);
+        byte[] uncompressed = new byte[length];
+        assertEquals(length, unCompressor.uncompress(compressed, 0, size, uncompressed, 0));
+        assertArrayEquals(data, uncompressed);
+      }
+    }
+  }
+
+  private void roundTrip(ICompressor compressor, IUnCompressor unCompressor)
+      throws IOException {
+    byte[] input = inputString.getBytes(StandardCharsets.UTF_8);
+    byte[] uncompressed = unCompressor.uncompress(compressor.compress(input));
+    assertEquals(inputString, new String(uncompressed, StandardCharsets.UTF_8));
+
+    // byte array with offset
+    byte[] compressed = new byte[compressor.getMaxBytesForCompression(input.length)];
+    int size = compressor.compress(input, 0, input.length, compressed);
+    assertEquals(input.length, unCompressor.getUncompressedLength(compressed, 0, size));
+    uncompressed = new byte[input.length + 2];
+    assertEquals(input.length, unCompressor.uncompress(compressed, 0, size, uncompressed, 2));
+    assertEquals(inputString, new String(uncompressed, 2, input.length, StandardCharsets.UTF_8));
+
+    // direct ByteBuffer
+    ByteBuffer source = ByteBuffer.allocateDirect(input.length);
+    source.put(input);
+    source.flip();
+    ByteBuffer compressedBuffer = ByteBuffer
+        .allocateDirect(compressor.getMaxBytesForCompression(input.length));
+    size = compressor.compress(source, compressedBuffer);
+    assertEquals(size, compressedBuffer.remaining());
+    assertEquals(input.length, unCompressor.getUncompressedLength(compressedBuffer));
+    ByteBuffer uncompressedBuffer = ByteBuffer
+        .allocateDirect(unCompressor.getUncompressedLength(compressedBuffer));
+    assertEquals(input.length, unCompressor.uncompress(compressedBuffer, uncompressedBuffer));
+    assertEquals(inputString, ReadWriteIOUtils.readStringFromDirectByteBuffer(uncompressedBuffer));
+
+    // heap ByteBuffer
+    compressedBuffer = ByteBuffer.allocate(compressor.getMaxBytesForCompression(input.length));
+    size = compressor.compress(ByteBuffer.wrap(input), compressedBuffer);
+    uncompressedBuffer = ByteBuffer.allocate(input.length);
+    assertEquals(input.length, unCompressor.uncompress(compressedBuffer, uncompressedBuffer));
+    assertArrayEquals(input, uncompressedBuffer.array());
+  }
+
 }
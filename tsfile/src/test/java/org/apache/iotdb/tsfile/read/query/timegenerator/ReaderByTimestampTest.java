@@ -104,4 +104,49 @@ public class ReaderByTimestampTest {
     System.out.println("SeriesReadWithFilterTest. [Time used]: " + (endTimestamp - startTimestamp)
         + " ms. [Read Count]: " + count);
   }
+
+  @Test
+  public void readByTimestampsInBatch() throws IOException {
+    ChunkLoaderImpl seriesChunkLoader = new ChunkLoaderImpl(fileReader);
+    List<ChunkMetaData> chunkMetaDataList = metadataQuerierByFile
+        .getChunkMetaDataList(new Path("d1.s1"));
+    long startTime = chunkMetaDataList.get(0).getStartTime();
+    long endTime = chunkMetaDataList.get(chunkMetaDataList.size() - 1).getEndTime();
+
+    // every timestamp at the beginning, then sparse timestamps that skip whole pages and chunks,
+    // and timestamps after the end of the series
+    List<Long> timeList = new ArrayList<>();
+    for (long time = startTime - 10; time < startTime + 3000; time++) {
+      timeList.add(time);
+    }
+    for (long time = startTime + 3000; time <= endTime + 10; time += 997) {
+      timeList.add(time);
+      timeList.add(time + 1);
+    }
+    long[] timestamps = new long[timeList.size()];
+    for (int i = 0; i < timestamps.length; i++) {
+      timestamps[i] = timeList.get(i);
+    }
+
+    FileSeriesReaderByTimestamp singleReader = new FileSeriesReaderByTimestamp(seriesChunkLoader,
+        chunkMetaDataList);
+    FileSeriesReaderByTimestamp batchReader = new FileSeriesReaderByTimestamp(seriesChunkLoader,
+        chunkMetaDataList);
+    int batchSize = 1024;
+    int nonNullCount = 0;
+    for (int start = 0; start < timestamps.length; start += batchSize) {
+      int length = Math.min(batchSize, timestamps.length - start);
+      long[] batch = new long[length];
+      System.arraycopy(timestamps, start, batch, 0, length);
+      Object[] values = batchReader.getValuesInTimestamps(batch, length);
+      for (int i = 0; i < length; i++) {
+        Object value = singleReader.getValueInTimestamp(batch[i]);
+        Assert.assertEquals(value, values[i]);
+        if (value != null) {
+          nonNullCount++;
+        }
+      }
+    }
+    Assert.assertTrue(nonNullCount > 1500);
+  }
 }
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.ReadOnlyTsFile;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveEncodingTest {
+
+  private static final int ROW_COUNT = 10000;
+  private final TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+  private final String path = TestConstant.BASE_OUTPUT_PATH.concat("adaptive_encoding.tsfile");
+  private boolean prevAdaptiveEncoding;
+  private int prevSampleSize;
+  private File f;
+
+  @Before
+  public void setUp() {
+    prevAdaptiveEncoding = config.isAdaptiveEncoding();
+    prevSampleSize = config.getAdaptiveEncodingSampleSize();
+    config.setAdaptiveEncoding(true);
+    config.setAdaptiveEncodingSampleSize(100);
+    f = new File(path);
+    if (f.exists()) {
+      assertTrue(f.delete());
+    }
+  }
+
+  @After
+  public void tearDown() {
+    config.setAdaptiveEncoding(prevAdaptiveEncoding);
+    config.setAdaptiveEncodingSampleSize(prevSampleSize);
+    if (f.exists()) {
+      assertTrue(f.delete());
+    }
+  }
+
+  @Test
+  public void testSelectEncodingByTSRecord() throws IOException, WriteProcessException {
+    Random random = new Random(0);
+    double[] noise = new double[ROW_COUNT];
+    try (TsFileWriter writer = new TsFileWriter(f)) {
+      writer.addMeasurement(new MeasurementSchema("constant", TSDataType.INT64, TSEncoding.PLAIN));
+      writer.addMeasurement(new MeasurementSchema("drift", TSDataType.DOUBLE, TSEncoding.PLAIN));
+      writer.addMeasurement(new MeasurementSchema("noise", TSDataType.DOUBLE, TSEncoding.PLAIN));
+      writer.addMeasurement(new MeasurementSchema("flag", TSDataType.BOOLEAN, TSEncoding.PLAIN));
+      writer.addMeasurement(new MeasurementSchema("counter", TSDataType.INT32, TSEncoding.RLE));
+      for (int i = 0; i < ROW_COUNT; i++) {
+        noise[i] = random.nextDouble();
+        TSRecord record = new TSRecord(i, "d1");
+        record.addTuple(new LongDataPoint("constant", 7));
+        record.addTuple(new DoubleDataPoint("drift", 20.5));
+        record.addTuple(new DoubleDataPoint("noise", noise[i]));
+        record.addTuple(new BooleanDataPoint("flag", true));
+        record.addTuple(new IntDataPoint("counter", i * 3));
+        writer.write(record);
+      }
+    }
+
+    Map<String, TSEncoding> encodings = readChunkEncodings();
+    assertNotEquals(TSEncoding.PLAIN, encodings.get("constant"));
+    assertEquals(TSEncoding.GORILLA, encodings.get("drift"));
+    assertEquals(TSEncoding.RLE, encodings.get("flag"));
+    assertEquals(TSEncoding.TS_2DIFF, encodings.get("counter"));
+
+    List<Path> paths = new ArrayList<>();
+    paths.add(new Path("d1.constant"));
+    paths.add(new Path("d1.drift"));
+    paths.add(new Path("d1.noise"));
+    paths.add(new Path("d1.flag"));
+    paths.add(new Path("d1.counter"));
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(path)) {
+      QueryDataSet dataSet = new ReadOnlyTsFile(reader).query(QueryExpression.create(paths, null));
+      int i = 0;
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        assertEquals(i, record.getTimestamp());
+        assertEquals(7, record.getFields().get(0).getLongV());
+        assertEquals(20.5, record.getFields().get(1).getDoubleV(), 0);
+        assertEquals(noise[i], record.getFields().get(2).getDoubleV(), 0);
+        assertTrue(record.getFields().get(3).getBoolV());
+        assertEquals(i * 3, record.getFields().get(4).getIntV());
+        i++;
+      }
+      assertEquals(ROW_COUNT, i);
+    }
+  }
+
+  @Test
+  public void testSelectEncodingByRowBatch() throws IOException, WriteProcessException {
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    try (TsFileWriter writer = new TsFileWriter(f, schema)) {
+      RowBatch rowBatch = schema.createRowBatch("d1");
+      for (int i = 0; i < ROW_COUNT; i++) {
+        int row = rowBatch.batchSize++;
+        rowBatch.timestamps[row] = i;
+        ((long[]) rowBatch.values[0])[row] = i / 100;
+        if (rowBatch.batchSize == rowBatch.getMaxBatchSize()) {
+          writer.write(rowBatch);
+          rowBatch.reset();
+        }
+      }
+      if (rowBatch.batchSize != 0) {
+        writer.write(rowBatch);
+      }
+    }
+
+    assertNotEquals(TSEncoding.PLAIN, readChunkEncodings().get("s1"));
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(path)) {
+      List<Path> paths = new ArrayList<>();
+      paths.add(new Path("d1.s1"));
+      QueryDataSet dataSet = new ReadOnlyTsFile(reader).query(QueryExpression.create(paths, null));
+      int i = 0;
+      while (dataSet.hasNext()) {
+        assertEquals(i / 100, dataSet.next().getFields().get(0).getLongV());
+        i++;
+      }
+      assertEquals(ROW_COUNT, i);
+    }
+  }
+
+  @Test
+  public void testDisabled() throws IOException, WriteProcessException {
+    config.setAdaptiveEncoding(false);
+    try (TsFileWriter writer = new TsFileWriter(f)) {
+      writer.addMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+      for (int i = 0; i < ROW_COUNT; i++) {
+        TSRecord record = new TSRecord(i, "d1");
+        record.addTuple(new LongDataPoint("s1", 7));
+        writer.write(record);
+      }
+    }
+    assertEquals(TSEncoding.PLAIN, readChunkEncodings().get("s1"));
+  }
+
+  /**
+   * @return measurement -> encoding in the chunk header, all chunks of a measurement are expected
+   * to have the same encoding in these tests
+   */
+  private Map<String, TSEncoding> readChunkEncodings() throws IOException {
+    Map<String, TSEncoding> encodings = new HashMap<>();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(path)) {
+      reader.position(TSFileConfig.MAGIC_STRING.getBytes().length + TSFileConfig.VERSION_NUMBER
+          .getBytes().length);
+      byte marker;
+      while ((marker = reader.readMarker()) != MetaMarker.SEPARATOR) {
+        switch (marker) {
+          case MetaMarker.CHUNK_HEADER:
+            ChunkHeader header = reader.readChunkHeader();
+            TSEncoding prev = encodings.put(header.getMeasurementID(), header.getEncodingType());
+            assertFalse(prev != null && prev != header.getEncodingType());
+            for (int j = 0; j < header.getNumOfPages(); j++) {
+              PageHeader pageHeader = reader.readPageHeader(header.getDataType());
+              reader.skipPageData(pageHeader);
+            }
+            break;
+          case MetaMarker.CHUNK_GROUP_FOOTER:
+            reader.readChunkGroupFooter();
+            break;
+          default:
+            MetaMarker.handleUnexpectedMarker(marker);
+        }
+      }
+    }
+    return encodings;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.ReadOnlyTsFile;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AppendPageTest {
+
+  private static final int PAGE_SIZE = 100;
+  private static final int PAGE_NUM = 10;
+  private final TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+  private final Path path = new Path("d1.s1");
+  private File sourceFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("append_source.tsfile"));
+  private File targetFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("append_target.tsfile"));
+  private int prevPageSize;
+  private boolean prevAdaptiveEncoding;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    prevPageSize = config.getMaxNumberOfPointsInPage();
+    prevAdaptiveEncoding = config.isAdaptiveEncoding();
+    config.setMaxNumberOfPointsInPage(PAGE_SIZE);
+    config.setAdaptiveEncoding(false);
+    try (TsFileWriter writer = new TsFileWriter(sourceFile)) {
+      writer.addMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.TS_2DIFF));
+      for (int i = PAGE_SIZE; i < PAGE_SIZE * (PAGE_NUM + 1); i++) {
+        TSRecord record = new TSRecord(i, "d1");
+        record.addTuple(new LongDataPoint("s1", i));
+        writer.write(record);
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    config.setMaxNumberOfPointsInPage(prevPageSize);
+    config.setAdaptiveEncoding(prevAdaptiveEncoding);
+    sourceFile.delete();
+    targetFile.delete();
+  }
+
+  @Test
+  public void testAppendPages() throws IOException {
+    MeasurementSchema schema = new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.TS_2DIFF);
+    TsFileIOWriter fileWriter = new TsFileIOWriter(targetFile);
+    fileWriter.startChunkGroup(path.getDevice());
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema);
+    // points before the pages
+    for (int i = 0; i < PAGE_SIZE / 2; i++) {
+      chunkWriter.write(i, (long) i);
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(sourceFile.getPath())) {
+      List<ChunkMetaData> chunkMetaDataList = reader.getChunkMetadataList(path);
+      assertEquals(1, chunkMetaDataList.size());
+      ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetaDataList.get(0)),
+          null);
+      while (chunkReader.hasNextSatisfiedPage()) {
+        assertTrue(chunkWriter.appendPage(chunkReader.getChunkHeader(),
+            chunkReader.nextPageHeader(), chunkReader.nextPageRawData()));
+        chunkReader.skipPageData();
+      }
+    }
+    // points after the pages
+    for (int i = PAGE_SIZE * (PAGE_NUM + 1); i < PAGE_SIZE * (PAGE_NUM + 2); i++) {
+      chunkWriter.write(i, (long) i);
+    }
+    chunkWriter.writeToFileWriter(fileWriter);
+    fileWriter.endChunkGroup(0);
+    Schema fileSchema = new Schema();
+    fileSchema.registerMeasurement(schema);
+    fileWriter.endFile(fileSchema);
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(targetFile.getPath())) {
+      List<ChunkMetaData> chunkMetaDataList = reader.getChunkMetadataList(path);
+      assertEquals(1, chunkMetaDataList.size());
+      assertEquals(0, chunkMetaDataList.get(0).getStartTime());
+      assertEquals(PAGE_SIZE * (PAGE_NUM + 2) - 1, chunkMetaDataList.get(0).getEndTime());
+      Chunk chunk = reader.readMemChunk(chunkMetaDataList.get(0));
+      // the half page before, the appended pages and the page after
+      assertEquals(PAGE_NUM + 2, chunk.getHeader().getNumOfPages());
+
+      QueryDataSet dataSet = new ReadOnlyTsFile(reader)
+          .query(QueryExpression.create(Collections.singletonList(path), null));
+      long expected = 0;
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        assertEquals(expected, record.getTimestamp());
+        assertEquals(expected, record.getFields().get(0).getLongV());
+        expected = expected == PAGE_SIZE / 2 - 1 ? PAGE_SIZE : expected + 1;
+      }
+      assertEquals(PAGE_SIZE * (PAGE_NUM + 2), expected);
+    }
+  }
+
+  @Test
+  public void testEncodingMismatch() throws IOException {
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    for (long i = 0; i < 10; i++) {
+      chunkWriter.write(PAGE_SIZE * (PAGE_NUM + 1) + i, i);
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(sourceFile.getPath())) {
+      ChunkReader chunkReader = new ChunkReader(
+          reader.readMemChunk(reader.getChunkMetadataList(path).get(0)), null);
+      assertTrue(chunkReader.hasNextSatisfiedPage());
+      ByteBuffer pageData = chunkReader.nextPageRawData();
+      int remaining = pageData.remaining();
+      assertFalse(chunkWriter.appendPage(chunkReader.getChunkHeader(),
+          chunkReader.nextPageHeader(), pageData));
+      // the page is not consumed and can still be decoded
+      assertEquals(remaining, pageData.remaining());
+      assertEquals(PAGE_SIZE, chunkReader.nextPageData().length());
+      // the written points are not sealed into a page by the rejected page
+      assertEquals(0, chunkWriter.getNumOfPages());
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.record;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.Test;
+
+public class RowBatchTest {
+
+  @Test
+  public void testValueBytesSizeOfPartlyFilledBatch() {
+    List<MeasurementSchema> measurements = new ArrayList<>();
+    measurements.add(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    measurements.add(new MeasurementSchema("s2", TSDataType.TEXT, TSEncoding.PLAIN));
+    RowBatch rowBatch = new RowBatch("root.sg.d1", measurements, 10);
+    Binary[] texts = (Binary[]) rowBatch.values[1];
+    for (int row = 0; row < 3; row++) {
+      rowBatch.timestamps[row] = row;
+      ((long[]) rowBatch.values[0])[row] = row;
+      texts[row] = new Binary("text" + row);
+      rowBatch.batchSize++;
+    }
+    // the rows after batchSize are still null and are not counted
+    assertEquals(3 * 8 + 3 * 4 + 3 * 5, rowBatch.getValueBytesSize());
+
+    rowBatch.reset();
+    assertEquals(0, rowBatch.getValueBytesSize());
+  }
+}